@@ -0,0 +1,125 @@
+package com.worldline.build;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates com.worldline.service.PerfectNumberTable, the constant table of the perfect numbers that are less than Long.MAX_VALUE, at
+ * build time, so the service does not compute it at each startup. Is run by the generate-sources phase of the build. An exponent p is
+ * taken if 2^p - 1 is prime by a Lucas-Lehmer test and by BigInteger.isProbablePrime, and the build fails if they disagree. By the
+ * Euclid-Euler theorem, the even perfect numbers are exactly 2^(p-1) * (2^p - 1) for those exponents, and each one is checked to have
+ * the binary form of p ones followed by p - 1 zeros. There is no odd perfect number less than Long.MAX_VALUE, so the table contains all
+ * of them. [Ochem, Pascal, and Michaël Rao. "Odd perfect numbers are greater than 10¹⁵⁰⁰." Mathematics of Computation 81.279 (2012):
+ * 1869-1877.] The file is written only if its content changes, so the sources are not
+ * compiled again by each build.
+ * @author mohsen
+ *
+ */
+public final class PerfectNumberTableGenerator {
+
+	private static final BigInteger TWO = BigInteger.valueOf(2);
+
+	private static final String PACKAGE = "com.worldline.service";
+
+	private static final String CLASS_NAME = "PerfectNumberTable";
+
+	private PerfectNumberTableGenerator() {
+	}
+
+	/**
+	 * Writes the table.
+	 * @param args contains the directory of the generated sources
+	 * @throws IOException if the table cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			throw new IllegalArgumentException("The directory of the generated sources must be given.");
+		}
+		List<Integer> exponents = new ArrayList<Integer>();
+		List<Long> perfectNumbers = new ArrayList<Long>();
+		// A perfect number of exponent p has 2p - 1 binary digits, so exponents up to 32 give perfect numbers that are long integers.
+		for (int exponent = 2; 2 * exponent - 1 < Long.SIZE; exponent++) {
+			if (!BigInteger.valueOf(exponent).isProbablePrime(64)) {
+				continue;
+			}
+			BigInteger mersenneNumber = BigInteger.ONE.shiftLeft(exponent).subtract(BigInteger.ONE);
+			boolean prime = isMersennePrime(exponent);
+			if (prime != mersenneNumber.isProbablePrime(64)) {
+				throw new IllegalStateException("The primality tests of 2^" + exponent + " - 1 disagree.");
+			}
+			if (prime) {
+				BigInteger perfectNumber = mersenneNumber.shiftLeft(exponent - 1);
+				if (perfectNumber.bitLength() != 2 * exponent - 1 || perfectNumber.getLowestSetBit() != exponent - 1
+						|| perfectNumber.bitCount() != exponent) {
+					throw new IllegalStateException("The perfect number of the exponent " + exponent + " is not valid.");
+				}
+				exponents.add(exponent);
+				perfectNumbers.add(perfectNumber.longValueExact());
+			}
+		}
+		Path directory = Paths.get(args[0], PACKAGE.split("\\."));
+		Files.createDirectories(directory);
+		Path file = directory.resolve(CLASS_NAME + ".java");
+		byte[] source = generate(exponents, perfectNumbers).getBytes(StandardCharsets.UTF_8);
+		if (!Files.exists(file) || !Arrays.equals(Files.readAllBytes(file), source)) {
+			Files.write(file, source);
+		}
+	}
+
+	/**
+	 * Checks if 2^exponent - 1 is prime by a Lucas-Lehmer test.
+	 * @param exponent is an odd prime number, or 2
+	 */
+	private static boolean isMersennePrime(int exponent) {
+		if (exponent == 2) {
+			return true;
+		}
+		BigInteger mersenneNumber = BigInteger.ONE.shiftLeft(exponent).subtract(BigInteger.ONE);
+		BigInteger residue = BigInteger.valueOf(4);
+		for (int i = 0; i < exponent - 2; i++) {
+			residue = residue.multiply(residue).subtract(TWO).mod(mersenneNumber);
+		}
+		return residue.signum() == 0;
+	}
+
+	private static String generate(List<Integer> exponents, List<Long> perfectNumbers) {
+		StringBuilder source = new StringBuilder();
+		source.append("package ").append(PACKAGE).append(";\n\n");
+		source.append("/**\n");
+		source.append(" * Contains all perfect numbers that are less than Long.MAX_VALUE and their Mersenne prime exponents. Is generated by\n");
+		source.append(" * PerfectNumberTableGenerator at build time, so do not edit it.\n");
+		source.append(" * @author mohsen\n");
+		source.append(" *\n");
+		source.append(" */\n");
+		source.append("final class ").append(CLASS_NAME).append(" {\n\n");
+		source.append("\t/**\n");
+		source.append("\t * Contains the Mersenne prime exponents p whose perfect numbers 2^(p-1) * (2^p - 1) are less than Long.MAX_VALUE in\n");
+		source.append("\t * increasing order. Must not be modified.\n");
+		source.append("\t */\n");
+		source.append("\tstatic final int[] EXPONENTS = {");
+		for (int i = 0; i < exponents.size(); i++) {
+			source.append(i == 0 ? "" : ", ").append(exponents.get(i));
+		}
+		source.append("};\n\n");
+		source.append("\t/**\n");
+		source.append("\t * Contains the perfect numbers of EXPONENTS in increasing order. Must not be modified.\n");
+		source.append("\t */\n");
+		source.append("\tstatic final long[] PERFECT_NUMBERS = {");
+		for (int i = 0; i < perfectNumbers.size(); i++) {
+			source.append(i == 0 ? "" : ", ").append(perfectNumbers.get(i)).append('L');
+		}
+		source.append("};\n\n");
+		source.append("\tprivate ").append(CLASS_NAME).append("() {\n");
+		source.append("\t}\n\n");
+		source.append("}\n");
+		return source.toString();
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.worldline.controller;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Is a thread pool of Jetty that runs each task on a new virtual thread, so a request that waits for a slow client or a slow query
+ * does not hold a platform thread. It is not a TryExecutor, so the selectors of Jetty hand every request to a new thread instead of
+ * running it themselves. The pool has no idle threads and is never low on threads.
+ * <p>
+ * It needs JDK 21, so it is built by the jdk21 profile. The class files stay at the Java 8 version, which Spring can read.
+ * @author mohsen
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "perfectnumber.jetty.virtual-threads", havingValue = "true")
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+
+	private final AtomicInteger threads = new AtomicInteger();
+
+	private volatile ExecutorService executor;
+
+	@Override
+	protected void doStart() throws Exception {
+		this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jetty-virtual-", 1).factory());
+		super.doStart();
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		super.doStop();
+		this.executor.shutdown();
+		this.executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		this.executor.execute(() -> {
+			this.threads.incrementAndGet();
+			try {
+				task.run();
+			} finally {
+				this.threads.decrementAndGet();
+			}
+		});
+	}
+
+	@Override
+	public void join() throws InterruptedException {
+		this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the count of running tasks, i.e. of virtual threads.
+	 */
+	@Override
+	public int getThreads() {
+		return this.threads.get();
+	}
+
+	@Override
+	public int getIdleThreads() {
+		return 0;
+	}
+
+	@Override
+	public boolean isLowOnThreads() {
+		return false;
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.worldline.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldline.controller.PerfectNumberController;
+import com.worldline.metrics.PerfectNumberMetrics;
+import com.worldline.service.PerfectNumberServiceImpl;
+
+/**
+ * Measures the throughput of PerfectNumberController operations from the path variables to the serialized response, including the parsing 
+ * of the inputs. The HTTP layer is not included.
+ * @author mohsen
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerfectNumberControllerBenchmark {
+	
+	private PerfectNumberServiceImpl perfectNumberService;
+	
+	private PerfectNumberController perfectNumberController;
+	
+	/**
+	 * Is a perfect number (hit), a non-perfect number (miss), or an invalid input (error) to check. The error inputs show that 
+	 * an invalid request costs about the same as a valid one.
+	 */
+	@State(Scope.Benchmark)
+	public static class CheckInput {
+		
+		@Param({"8589869056", "98562364554", "0", "abc", "99999999999999999999"})
+		public String numberString;
+		
+	}
+	
+	/**
+	 * Is a range with some perfect numbers (hit), a range without perfect numbers (miss), the widest range, or an invalid range (error).
+	 */
+	@State(Scope.Benchmark)
+	public static class RangeInput {
+		
+		@Param({"100-10000", "7-27", "1-9223372036854775807", "27-7", "1-a"})
+		public String range;
+		
+		private String lowerBoundString;
+		
+		private String upperBoundString;
+		
+		@Setup(Level.Trial)
+		public void setUp() {
+			String[] bounds = this.range.split("-");
+			this.lowerBoundString = bounds[0];
+			this.upperBoundString = bounds[1];
+		}
+		
+	}
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.perfectNumberService = new PerfectNumberServiceImpl();
+		this.perfectNumberController = new PerfectNumberController();
+		ReflectionTestUtils.setField(this.perfectNumberController, "perfectNumberService", this.perfectNumberService);
+		ReflectionTestUtils.setField(this.perfectNumberController, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(this.perfectNumberController, "metrics", new PerfectNumberMetrics());
+		ReflectionTestUtils.invokeMethod(this.perfectNumberController, "initialize");
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.perfectNumberService.shutdown();
+	}
+	
+	@Benchmark
+	public ResponseEntity<byte[]> check(CheckInput input) throws JsonProcessingException {
+		return this.perfectNumberController.check(input.numberString);
+	}
+	
+	@Benchmark
+	public ResponseEntity<byte[]> findAllInRange(RangeInput input) throws JsonProcessingException {
+		return this.perfectNumberController.findAllInRange(input.lowerBoundString, input.upperBoundString, null);
+	}
+
+}
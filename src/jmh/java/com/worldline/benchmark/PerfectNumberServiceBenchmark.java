@@ -0,0 +1,113 @@
+package com.worldline.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.worldline.service.PerfectNumberException;
+import com.worldline.service.PerfectNumberServiceImpl;
+
+/**
+ * Measures the throughput of PerfectNumberServiceImpl construction and of the check and findAllInRange operations. The numbers and ranges 
+ * cover hits, misses, and a range that contains all perfect numbers.
+ * @author mohsen
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerfectNumberServiceBenchmark {
+	
+	private PerfectNumberServiceImpl perfectNumberService;
+	
+	/**
+	 * Is a perfect number (hit) or a non-perfect number (miss) to check.
+	 */
+	@State(Scope.Benchmark)
+	public static class CheckInput {
+		
+		@Param({"8589869056", "98562364554"})
+		public long number;
+		
+		private Long boxedNumber;
+		
+		@Setup(Level.Trial)
+		public void setUp() {
+			this.boxedNumber = this.number;
+		}
+		
+	}
+	
+	/**
+	 * Is a range with some perfect numbers (hit), a range without perfect numbers (miss), or the widest range.
+	 */
+	@State(Scope.Benchmark)
+	public static class RangeInput {
+		
+		@Param({"100-10000", "7-27", "1-9223372036854775807"})
+		public String range;
+		
+		private Long lowerBound;
+		
+		private Long upperBound;
+		
+		@Setup(Level.Trial)
+		public void setUp() {
+			String[] bounds = this.range.split("-");
+			this.lowerBound = Long.valueOf(bounds[0]);
+			this.upperBound = Long.valueOf(bounds[1]);
+		}
+		
+	}
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.perfectNumberService = new PerfectNumberServiceImpl();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.perfectNumberService.shutdown();
+	}
+	
+	@Benchmark
+	public Boolean check(CheckInput input) throws PerfectNumberException {
+		return this.perfectNumberService.check(input.boxedNumber);
+	}
+	
+	@Benchmark
+	public List<Long> findAllInRange(RangeInput input) throws PerfectNumberException {
+		return this.perfectNumberService.findAllInRange(input.lowerBound, input.upperBound);
+	}
+	
+	/**
+	 * Measures the startup cost of the service, i.e. the index of the perfect numbers of the generated PerfectNumberTable, the setup of 
+	 * the prime sieve, which is sieved by its first query, and the pool and caches. Neither a Mersenne prime search nor a sieve is run, 
+	 * and no store is loaded, since the default service does not persist its search state.
+	 * @return the service that is created
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public PerfectNumberServiceImpl construct() {
+		PerfectNumberServiceImpl service = new PerfectNumberServiceImpl();
+		service.shutdown();
+		return service;
+	}
+
+}
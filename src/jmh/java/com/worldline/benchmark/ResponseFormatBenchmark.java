@@ -0,0 +1,177 @@
+package com.worldline.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldline.controller.PerfectNumberController;
+import com.worldline.controller.QueryExecutor;
+import com.worldline.metrics.PerfectNumberMetrics;
+import com.worldline.service.PerfectNumberServiceImpl;
+
+/**
+ * Measures the serialization cost of the range and batch responses of PerfectNumberController in each format of the Accept header.
+ * The bytes on the wire are reported as the responseBytes counter, so the formats are compared by their size and by their throughput
+ * and allocation rate. The computation of a response is the same in all formats.
+ * @author mohsen
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+	/**
+	 * Is the count of numbers of the checkAll body.
+	 */
+	private static final int BATCH_LENGTH = 10000;
+
+	private PerfectNumberServiceImpl perfectNumberService;
+
+	private QueryExecutor queryExecutor;
+
+	private PerfectNumberController perfectNumberController;
+
+	/**
+	 * Is the JSON array of numbers that is checked by checkAll.
+	 */
+	private byte[] batch;
+
+	/**
+	 * Is the JSON array of ranges whose perfect numbers are found by findAllInRanges.
+	 */
+	private byte[] ranges;
+
+	@Param({"application/json", "application/cbor"})
+	public String accept;
+
+	/**
+	 * Counts the bytes of the responses, which JMH reports per second. The size of a response is responseBytes divided by the score.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+
+		public long responseBytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.responseBytes = 0;
+		}
+
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.perfectNumberService = new PerfectNumberServiceImpl();
+		this.queryExecutor = new QueryExecutor(1, 0, Long.MAX_VALUE, Long.MAX_VALUE);
+		this.perfectNumberController = new PerfectNumberController();
+		ReflectionTestUtils.setField(this.perfectNumberController, "perfectNumberService", this.perfectNumberService);
+		ReflectionTestUtils.setField(this.perfectNumberController, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(this.perfectNumberController, "metrics", new PerfectNumberMetrics());
+		ReflectionTestUtils.setField(this.perfectNumberController, "queryExecutor", this.queryExecutor);
+		ReflectionTestUtils.invokeMethod(this.perfectNumberController, "initialize");
+		StringBuilder batch = new StringBuilder("[");
+		for (int i = 1; i <= BATCH_LENGTH; i++) {
+			batch.append(i * 7L).append(i < BATCH_LENGTH ? "," : "]");
+		}
+		this.batch = batch.toString().getBytes();
+		StringBuilder ranges = new StringBuilder("[");
+		for (int i = 1; i <= BATCH_LENGTH; i++) {
+			ranges.append("[").append(i).append(",").append(i * 1000000000000L).append("]").append(i < BATCH_LENGTH ? "," : "]");
+		}
+		this.ranges = ranges.toString().getBytes();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.queryExecutor.shutdown();
+		this.perfectNumberService.shutdown();
+	}
+
+	/**
+	 * Streams the 9592 primes up to 100000.
+	 */
+	@Benchmark
+	public int findPrimesInRange(Counters counters) throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.perfectNumberController.findPrimesInRange("1", "100000", this.accept, response);
+		return count(response, counters);
+	}
+
+	/**
+	 * Streams the classification of the numbers up to 10000.
+	 */
+	@Benchmark
+	public int classifyRange(Counters counters) throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.perfectNumberController.classifyRange("1", "10000", this.accept, response);
+		return count(response, counters);
+	}
+
+	/**
+	 * Checks BATCH_LENGTH numbers. The parsing of the JSON body is included and is the same in all formats.
+	 */
+	@Benchmark
+	public int checkAll(Counters counters) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/rest/perfectNumbers");
+		request.setContentType("application/json");
+		request.addHeader("Accept", this.accept);
+		request.setContent(this.batch);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.perfectNumberController.checkAll(request, response);
+		return count(response, counters);
+	}
+
+	/**
+	 * Answers the range of all perfect numbers by a prebuilt response.
+	 */
+	@Benchmark
+	public int findAllInRange(Counters counters) throws IOException {
+		byte[] body = this.perfectNumberController.findAllInRange("1", "9223372036854775807", this.accept).getBody();
+		counters.responseBytes += body.length;
+		return body.length;
+	}
+
+	/**
+	 * Finds the perfect numbers of BATCH_LENGTH ranges, each of which contains three to seven of them.
+	 */
+	@Benchmark
+	public int findAllInRanges(Counters counters) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/rest/perfectNumbersInRanges");
+		request.setContentType("application/json");
+		request.addHeader("Accept", this.accept);
+		request.setContent(this.ranges);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.perfectNumberController.findAllInRanges(request, response);
+		return count(response, counters);
+	}
+
+	private static int count(MockHttpServletResponse response, Counters counters) {
+		int bytes = response.getContentAsByteArray().length;
+		counters.responseBytes += bytes;
+		return bytes;
+	}
+
+}
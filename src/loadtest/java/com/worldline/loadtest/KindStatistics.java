@@ -0,0 +1,76 @@
+package com.worldline.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.worldline.metrics.LatencyHistogram;
+
+/**
+ * Keeps the latencies and the outcomes of the requests of a kind. The corrected latency of a request is measured from the time it
+ * was scheduled to be sent, and the uncorrected latency from the time it was actually sent. When the application or the generator
+ * stalls, the requests that should have been sent during the stall wait, so only the corrected latencies show the stall as it is seen
+ * by clients that do not wait for each other, i.e. they are not biased by coordinated omission.
+ * @author mohsen
+ *
+ */
+final class KindStatistics {
+
+	private final LatencyHistogram correctedLatencies = new LatencyHistogram();
+
+	private final LatencyHistogram uncorrectedLatencies = new LatencyHistogram();
+
+	/**
+	 * Is the count of responses per responseCode, or per HTTP status if the response is not a JSON response of the application.
+	 */
+	private final Map<String, LongAdder> statuses = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * Is the count of requests that got no response, e.g. because of a refused connection or a timeout.
+	 */
+	private final LongAdder failures = new LongAdder();
+
+	/**
+	 * Records a request.
+	 * @param status is the responseCode or the HTTP status of the response, or null if there is no response
+	 * @param scheduledTime is the nano time at which the request was scheduled to be sent
+	 * @param sendTime is the nano time at which the request was sent
+	 * @param endTime is the nano time at which the response was read
+	 */
+	void record(String status, long scheduledTime, long sendTime, long endTime) {
+		this.correctedLatencies.record(endTime - scheduledTime);
+		this.uncorrectedLatencies.record(endTime - sendTime);
+		if (status == null) {
+			this.failures.increment();
+		} else {
+			this.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+		}
+	}
+
+	LatencyHistogram getCorrectedLatencies() {
+		return this.correctedLatencies;
+	}
+
+	LatencyHistogram getUncorrectedLatencies() {
+		return this.uncorrectedLatencies;
+	}
+
+	long getCount() {
+		return this.correctedLatencies.getCount();
+	}
+
+	long getFailureCount() {
+		return this.failures.sum();
+	}
+
+	/**
+	 * Gets the count of responses per status in the order of the statuses.
+	 */
+	Map<String, Long> getStatusCounts() {
+		Map<String, Long> counts = new TreeMap<String, Long>();
+		this.statuses.forEach((status, count) -> counts.put(status, count.sum()));
+		return counts;
+	}
+
+}
@@ -0,0 +1,323 @@
+package com.worldline.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldline.PerfectNumberApplication;
+import com.worldline.metrics.LatencyHistogram;
+
+/**
+ * Drives the REST APIs with an open-loop mix of requests at a fixed arrival rate and reports the throughput and the latency percentiles
+ * per kind of request, as a table on the standard output and as JSON in a file, so builds and settings can be compared side by side.
+ * The requests are scheduled at fixed times whether the previous responses are read or not, like the requests of independent clients,
+ * and the latencies are measured from the scheduled times, so they are corrected for coordinated omission (see KindStatistics).
+ * <p>
+ * The application is started in this JVM on an ephemeral port, unless --url gives a running one. The options are --rate (requests per
+ * second), --duration and --warmup (seconds), --threads (concurrent connections), --mix (weights of the kinds of requests, e.g.
+ * hit:40,miss:40,malformed:10,range:10), --timeout (milliseconds), --label, and --output (the JSON file). The other arguments are
+ * given to the application, e.g. --perfectnumber.jetty.max-threads=50 or --server.jetty.selectors=2.
+ * @author mohsen
+ *
+ */
+public final class LoadGenerator {
+
+	private static final Set<String> OPTIONS = new HashSet<String>(Arrays.asList("rate", "duration", "warmup", "threads", "mix", "timeout",
+			"label", "output", "url"));
+
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+	private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+	private final String url;
+
+	private final double rate;
+
+	private final int threads;
+
+	private final int timeout;
+
+	private final RequestKind[] kinds;
+
+	/**
+	 * Is the cumulative weight of each kind, so kinds[i] is chosen for a random weight below cumulativeWeights[i] and not below
+	 * cumulativeWeights[i - 1].
+	 */
+	private final int[] cumulativeWeights;
+
+	/**
+	 * Creates a generator.
+	 * @param url is the base URL of the application, e.g. http://localhost:8080
+	 * @param rate is the count of requests per second
+	 * @param threads is the greatest count of concurrent requests
+	 * @param timeout is the connect and read timeout in milliseconds
+	 * @param mix is the weight of each kind of requests
+	 */
+	public LoadGenerator(String url, double rate, int threads, int timeout, Map<RequestKind, Integer> mix) {
+		if (rate <= 0 || threads <= 0 || mix.isEmpty()) {
+			throw new IllegalArgumentException("The rate, the threads, and the mix must be positive.");
+		}
+		this.url = url;
+		this.rate = rate;
+		this.threads = threads;
+		this.timeout = timeout;
+		this.kinds = mix.keySet().toArray(new RequestKind[0]);
+		this.cumulativeWeights = new int[this.kinds.length];
+		int weight = 0;
+		for (int i = 0; i < this.kinds.length; i++) {
+			weight += mix.get(this.kinds[i]);
+			this.cumulativeWeights[i] = weight;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<String, String>();
+		List<String> applicationArgs = new ArrayList<String>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			String name = arg.startsWith("--") && separator > 0 ? arg.substring(2, separator) : null;
+			if (OPTIONS.contains(name)) {
+				options.put(name, arg.substring(separator + 1));
+			} else {
+				applicationArgs.add(arg);
+			}
+		}
+		double rate = Double.parseDouble(options.getOrDefault("rate", "500"));
+		long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+		long warmup = Long.parseLong(options.getOrDefault("warmup", "5"));
+		int threads = Integer.parseInt(options.getOrDefault("threads", "64"));
+		int timeout = Integer.parseInt(options.getOrDefault("timeout", "10000"));
+		String mix = options.getOrDefault("mix", "hit:40,miss:40,malformed:10,range:10");
+		String label = options.getOrDefault("label", "default");
+		String output = options.getOrDefault("output", "target/loadtest-result.json");
+		String url = options.get("url");
+		// Keeps a connection per thread alive, instead of 5 by default.
+		System.setProperty("http.maxConnections", String.valueOf(threads));
+		ConfigurableApplicationContext context = null;
+		if (url == null) {
+			context = new SpringApplicationBuilder(PerfectNumberApplication.class)
+					.properties("server.port=0", "logging.level.root=WARN")
+					.run(applicationArgs.toArray(new String[0]));
+			url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+		}
+		try {
+			LoadGenerator generator = new LoadGenerator(url, rate, threads, timeout, parseMix(mix));
+			if (warmup > 0) {
+				generator.run(TimeUnit.SECONDS.toNanos(warmup));
+			}
+			Map<String, Object> report = generator.run(TimeUnit.SECONDS.toNanos(duration));
+			Map<String, Object> configuration = new LinkedHashMap<String, Object>();
+			configuration.put("url", url);
+			configuration.put("rate", rate);
+			configuration.put("duration", duration);
+			configuration.put("warmup", warmup);
+			configuration.put("threads", threads);
+			configuration.put("timeout", timeout);
+			configuration.put("mix", mix);
+			configuration.put("applicationArguments", applicationArgs);
+			Map<String, Object> result = new LinkedHashMap<String, Object>();
+			result.put("label", label);
+			result.put("configuration", configuration);
+			result.putAll(report);
+			print(result);
+			File file = new File(output);
+			if (file.getParentFile() != null) {
+				file.getParentFile().mkdirs();
+			}
+			new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, result);
+			System.out.println("The result is saved in " + file.getPath());
+		} finally {
+			if (context != null) {
+				context.close();
+			}
+		}
+	}
+
+	/**
+	 * Parses a mix of kinds of requests, e.g. hit:40,miss:40,malformed:10,range:10.
+	 */
+	static Map<RequestKind, Integer> parseMix(String mix) {
+		Map<RequestKind, Integer> weights = new EnumMap<RequestKind, Integer>(RequestKind.class);
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.trim().split(":");
+			int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+			if (weight < 0) {
+				throw new IllegalArgumentException("The weight of " + parts[0] + " is negative.");
+			}
+			if (weight > 0) {
+				weights.put(RequestKind.valueOf(parts[0].trim().toUpperCase()), weight);
+			}
+		}
+		return weights;
+	}
+
+	/**
+	 * Sends requests at the rate of this generator for a given time and waits for their responses. A request is scheduled every
+	 * 1 / rate seconds and handed to a pool of threads by an unbounded queue, so a slow response delays the next requests of its
+	 * thread, but not their scheduled times.
+	 * @param duration is the time of sending in nanoseconds
+	 * @return the throughput, and the count, the outcomes and the latency percentiles of each kind of requests and of all requests
+	 */
+	public Map<String, Object> run(long duration) throws InterruptedException {
+		Map<RequestKind, KindStatistics> statistics = new EnumMap<RequestKind, KindStatistics>(RequestKind.class);
+		for (RequestKind kind : this.kinds) {
+			statistics.put(kind, new KindStatistics());
+		}
+		KindStatistics allStatistics = new KindStatistics();
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+			Thread thread = new Thread(runnable, "load-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long count = (long) (this.rate * duration / 1e9);
+		long startTime = System.nanoTime();
+		for (long i = 0; i < count; i++) {
+			long scheduledTime = startTime + (long) (i * 1e9 / this.rate);
+			for (long delay = scheduledTime - System.nanoTime(); delay > 0; delay = scheduledTime - System.nanoTime()) {
+				LockSupport.parkNanos(delay);
+			}
+			RequestKind kind = nextKind(random);
+			String path = kind.nextPath(random);
+			executor.execute(() -> {
+				long sendTime = System.nanoTime();
+				String status = send(path);
+				long endTime = System.nanoTime();
+				statistics.get(kind).record(status, scheduledTime, sendTime, endTime);
+				allStatistics.record(status, scheduledTime, sendTime, endTime);
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		Map<String, Object> kinds = new LinkedHashMap<String, Object>();
+		kinds.put("ALL", report(allStatistics));
+		statistics.forEach((kind, kindStatistics) -> kinds.put(kind.name(), report(kindStatistics)));
+		Map<String, Object> report = new LinkedHashMap<String, Object>();
+		report.put("requests", allStatistics.getCount());
+		report.put("seconds", seconds);
+		report.put("throughput", allStatistics.getCount() / seconds);
+		report.put("latencyUnit", "milliseconds");
+		report.put("kinds", kinds);
+		return report;
+	}
+
+	private RequestKind nextKind(ThreadLocalRandom random) {
+		int weight = random.nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+		int i = 0;
+		while (weight >= this.cumulativeWeights[i]) {
+			i++;
+		}
+		return this.kinds[i];
+	}
+
+	/**
+	 * Sends a request and reads its response to the end, so the connection is kept alive for the next request.
+	 * @return the responseCode of the response, or the HTTP status if it has no responseCode, or null if there is no response
+	 */
+	private String send(String path) {
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(this.url + path).openConnection();
+			connection.setConnectTimeout(this.timeout);
+			connection.setReadTimeout(this.timeout);
+			int httpStatus = connection.getResponseCode();
+			InputStream body = httpStatus < 400 ? connection.getInputStream() : connection.getErrorStream();
+			String responseCode = body == null ? null : responseCodeOf(readFully(body));
+			return responseCode != null ? responseCode : "HTTP " + httpStatus;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static String readFully(InputStream body) throws IOException {
+		try (InputStream input = body) {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			for (int length = input.read(buffer); length >= 0; length = input.read(buffer)) {
+				output.write(buffer, 0, length);
+			}
+			return new String(output.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static String responseCodeOf(String body) {
+		String field = "\"responseCode\":\"";
+		int start = body.lastIndexOf(field);
+		if (start < 0) {
+			return null;
+		}
+		start += field.length();
+		int end = body.indexOf('"', start);
+		return end < 0 ? null : body.substring(start, end);
+	}
+
+	private static Map<String, Object> report(KindStatistics statistics) {
+		Map<String, Object> report = new LinkedHashMap<String, Object>();
+		report.put("count", statistics.getCount());
+		report.put("failures", statistics.getFailureCount());
+		report.put("statuses", statistics.getStatusCounts());
+		report.put("correctedLatency", percentiles(statistics.getCorrectedLatencies()));
+		report.put("uncorrectedLatency", percentiles(statistics.getUncorrectedLatencies()));
+		return report;
+	}
+
+	private static Map<String, Double> percentiles(LatencyHistogram histogram) {
+		Map<String, Double> percentiles = new LinkedHashMap<String, Double>();
+		for (int i = 0; i < QUANTILES.length; i++) {
+			percentiles.put(QUANTILE_NAMES[i], histogram.getValueAtQuantile(QUANTILES[i]) / 1e6);
+		}
+		percentiles.put("max", histogram.getMaximum() / 1e6);
+		return percentiles;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void print(Map<String, Object> result) {
+		Map<String, Object> configuration = (Map<String, Object>) result.get("configuration");
+		System.out.printf("%nLoad test %s: %s requests/s for %s s after %s s of warmup, %s threads, mix %s, %s%n", result.get("label"),
+				configuration.get("rate"), configuration.get("duration"), configuration.get("warmup"), configuration.get("threads"),
+				configuration.get("mix"), configuration.get("url"));
+		System.out.printf("Throughput: %.1f responses/s, %d requests in %.2f s%n%n", result.get("throughput"), result.get("requests"),
+				result.get("seconds"));
+		System.out.printf("%-10s %8s %8s  %-12s %9s %9s %9s %9s %9s  %s%n", "kind", "count", "failures", "latency (ms)", "p50", "p90",
+				"p99", "p99.9", "max", "statuses");
+		((Map<String, Object>) result.get("kinds")).forEach((kind, value) -> {
+			Map<String, Object> report = (Map<String, Object>) value;
+			printLatencies(String.format("%-10s %8d %8d", kind, report.get("count"), report.get("failures")), "corrected",
+					(Map<String, Double>) report.get("correctedLatency"), String.valueOf(report.get("statuses")));
+			printLatencies(String.format("%-10s %8s %8s", "", "", ""), "uncorrected",
+					(Map<String, Double>) report.get("uncorrectedLatency"), "");
+		});
+		System.out.println();
+	}
+
+	private static void printLatencies(String prefix, String name, Map<String, Double> percentiles, String suffix) {
+		StringBuilder line = new StringBuilder(prefix).append(String.format("  %-12s", name));
+		percentiles.values().forEach(latency -> line.append(String.format(" %9.3f", latency)));
+		System.out.println(line.append("  ").append(suffix));
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.worldline.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Is a kind of request of a load test mix. Each kind makes the path of its next request, so the requests of a kind are alike, but not
+ * the same, and the cached responses of the application do not hide the cost of the checks.
+ * @author mohsen
+ *
+ */
+public enum RequestKind {
+
+	/**
+	 * Checks a perfect number that is less than Long.MAX_VALUE.
+	 */
+	HIT {
+		@Override
+		String nextPath(ThreadLocalRandom random) {
+			return "/rest/perfectNumber/" + PERFECT_NUMBERS[random.nextInt(PERFECT_NUMBERS.length)];
+		}
+	},
+
+	/**
+	 * Checks a random number below 2^40, which is not perfect.
+	 */
+	MISS {
+		@Override
+		String nextPath(ThreadLocalRandom random) {
+			return "/rest/perfectNumber/" + random.nextLong(1, 1L << 40);
+		}
+	},
+
+	/**
+	 * Checks an input that is not a positive long integer.
+	 */
+	MALFORMED {
+		@Override
+		String nextPath(ThreadLocalRandom random) {
+			return "/rest/perfectNumber/" + MALFORMED_INPUTS[random.nextInt(MALFORMED_INPUTS.length)];
+		}
+	},
+
+	/**
+	 * Finds the perfect numbers of a range from a random lower bound up to Long.MAX_VALUE.
+	 */
+	RANGE {
+		@Override
+		String nextPath(ThreadLocalRandom random) {
+			return "/rest/perfectNumbersInRange/" + random.nextLong(1, 1L << 20) + "/" + Long.MAX_VALUE;
+		}
+	};
+
+	private static final long[] PERFECT_NUMBERS = {6L, 28L, 496L, 8128L, 33550336L, 8589869056L, 137438691328L, 2305843008139952128L};
+
+	private static final String[] MALFORMED_INPUTS = {"0", "-28", "abc", "99999999999999999999", "6.0"};
+
+	/**
+	 * Makes the path and the query of the next request of this kind.
+	 */
+	abstract String nextPath(ThreadLocalRandom random);
+
+}
@@ -1,13 +1,21 @@
 package com.worldline;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
 
 @SpringBootApplication
 public class PerfectNumberApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(PerfectNumberApplication.class, args);
+		SpringApplication application = new SpringApplication(PerfectNumberApplication.class);
+		if (new SimpleCommandLinePropertySource(args).containsProperty("perfectnumber.job.input")) {
+			// Runs ClassificationJob without a web server and exits when it is done.
+			application.setWebApplicationType(WebApplicationType.NONE);
+			System.exit(SpringApplication.exit(application.run(args)));
+		}
+		application.run(args);
 	}
 
 }
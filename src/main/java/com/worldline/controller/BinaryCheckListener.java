@@ -0,0 +1,372 @@
+package com.worldline.controller;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.worldline.metrics.OperationMetrics;
+import com.worldline.metrics.Outcome;
+import com.worldline.metrics.PerfectNumberMetrics;
+import com.worldline.service.PerfectNumberException;
+import com.worldline.service.api.PerfectNumberService;
+
+/**
+ * Serves the checks of PerfectNumberService over a raw binary TCP protocol next to Jetty, for the internal callers to whom JSON over
+ * HTTP costs far more than the check itself. A request is a long integer in 8 bytes in big-endian order, and the requests of
+ * a connection are pipelined, i.e. a client sends its requests without waiting for the answers, which come in the same order :
+ * - a positive number is checked and answered by one status byte, i.e. NOT_PERFECT, PERFECT or INVALID.
+ * - a negative number -length, where length is at most MAXIMUM_BATCH_LENGTH, starts a batch of the next length numbers, which is
+ * answered by a bitmap of (length + 7) / 8 bytes. Bit i % 8 of byte i / 8 is set if the i-th number of the batch is perfect, and
+ * the numbers that are not positive are not perfect.
+ * - zero and the other negative numbers are answered by INVALID.
+ * The connections are spread over the selector threads. The numbers that are read at once from a connection are checked by a single
+ * call of checkAll, and each connection reuses its direct buffers. A connection is not read while its answers are not written, so
+ * a client that does not read its answers holds no more than one buffer of them. Is disabled unless perfectnumber.listener.port is
+ * zero or positive.
+ * @author mohsen
+ *
+ */
+@Component
+public class BinaryCheckListener {
+
+	public static final byte NOT_PERFECT = 0;
+
+	public static final byte PERFECT = 1;
+
+	public static final byte INVALID = 2;
+
+	public static final int MAXIMUM_BATCH_LENGTH = 1 << 20;
+
+	/**
+	 * Is the size in bytes of the input buffer of a connection. Its numbers are fewer than a batch that checkAll checks in parallel,
+	 * so they are checked in the selector thread.
+	 */
+	private static final int INPUT_CAPACITY = 1 << 15;
+
+	/**
+	 * Is the size in bytes of the output buffer of a connection. A number is answered by at most one byte, so the answers of a full
+	 * input buffer fit in it.
+	 */
+	private static final int OUTPUT_CAPACITY = INPUT_CAPACITY / Long.BYTES;
+
+	private static final byte SINGLE_NUMBER = 0;
+
+	private static final byte INVALID_NUMBER = 1;
+
+	private static final byte BATCH_NUMBER = 2;
+
+	private static final byte LAST_BATCH_NUMBER = 3;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BinaryCheckListener.class);
+
+	/**
+	 * Is the port of the listener, zero for any free port, or a negative number if the listener is disabled.
+	 */
+	private final int port;
+
+	private final int threads;
+
+	private final PerfectNumberService perfectNumberService;
+
+	/**
+	 * Records the latency of the check of the numbers of each read. A read is a hit if one of its numbers is perfect.
+	 */
+	private final OperationMetrics checkMetrics;
+
+	private ServerSocketChannel serverChannel;
+
+	private SelectorLoop[] loops;
+
+	private volatile boolean running;
+
+	/**
+	 * Creates the listener.
+	 * @param port is the port of the listener, zero for any free port, or a negative number if the listener is disabled
+	 * @param threads is the count of selector threads
+	 * @param perfectNumberService checks the numbers
+	 * @param metrics records the latency of the checks
+	 */
+	@Autowired
+	public BinaryCheckListener(@Value("${perfectnumber.listener.port:-1}") int port, @Value("${perfectnumber.listener.threads:1}") int threads,
+			PerfectNumberService perfectNumberService, PerfectNumberMetrics metrics) {
+		this.port = port;
+		this.threads = threads;
+		this.perfectNumberService = perfectNumberService;
+		this.checkMetrics = metrics.operation("listener.check");
+	}
+
+	/**
+	 * Binds the listener and starts its threads if it is enabled.
+	 * @throws IOException if the port cannot be bound
+	 */
+	@PostConstruct
+	public synchronized void start() throws IOException {
+		if (this.port < 0 || this.running) {
+			return;
+		}
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.bind(new InetSocketAddress(this.port));
+		this.running = true;
+		this.loops = new SelectorLoop[this.threads];
+		for (int i = 0; i < this.threads; i++) {
+			this.loops[i] = new SelectorLoop(Selector.open());
+			startThread(this.loops[i], "binary-check-" + (i + 1));
+		}
+		startThread(this::accept, "binary-check-acceptor");
+		LOGGER.info("The binary check listener is started on port {}.", getPort());
+	}
+
+	/**
+	 * Closes the listener and its connections.
+	 */
+	@PreDestroy
+	public synchronized void stop() {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		try {
+			this.serverChannel.close();
+		} catch (IOException e) {
+			LOGGER.warn("The binary check listener cannot be closed.", e);
+		}
+		for (SelectorLoop loop : this.loops) {
+			loop.selector.wakeup();
+		}
+	}
+
+	/**
+	 * Gets the bound port, which is useful if the listener is bound to any free port.
+	 * @return the port of the listener, or -1 if it is not started
+	 */
+	public int getPort() {
+		return this.serverChannel == null ? -1 : this.serverChannel.socket().getLocalPort();
+	}
+
+	private static void startThread(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void accept() {
+		int next = 0;
+		while (this.running) {
+			try {
+				SocketChannel channel = this.serverChannel.accept();
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				this.loops[next].register(channel);
+				next = (next + 1) % this.loops.length;
+			} catch (ClosedChannelException e) {
+				return;
+			} catch (IOException e) {
+				LOGGER.warn("A connection of the binary check listener cannot be accepted.", e);
+			}
+		}
+	}
+
+	/**
+	 * Serves a share of the connections in a thread.
+	 */
+	private final class SelectorLoop implements Runnable {
+
+		private final Selector selector;
+
+		/**
+		 * Contains the accepted connections that are not registered with the selector yet.
+		 */
+		private final Queue<SocketChannel> acceptedChannels = new ConcurrentLinkedQueue<SocketChannel>();
+
+		private SelectorLoop(Selector selector) {
+			this.selector = selector;
+		}
+
+		private void register(SocketChannel channel) {
+			this.acceptedChannels.add(channel);
+			this.selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (running) {
+					this.selector.select();
+					for (SocketChannel channel = this.acceptedChannels.poll(); channel != null; channel = this.acceptedChannels.poll()) {
+						channel.register(this.selector, SelectionKey.OP_READ, new Connection(channel));
+					}
+					Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						Connection connection = (Connection) key.attachment();
+						try {
+							if (key.isReadable()) {
+								connection.read(key);
+							} else if (key.isWritable()) {
+								connection.write(key);
+							}
+						} catch (IOException | RuntimeException e) {
+							LOGGER.debug("A connection of the binary check listener is closed.", e);
+							close(key.channel());
+						}
+					}
+				}
+			} catch (IOException e) {
+				LOGGER.error("A selector of the binary check listener fails.", e);
+			} finally {
+				for (SelectionKey key : this.selector.keys()) {
+					close(key.channel());
+				}
+				for (SocketChannel channel = this.acceptedChannels.poll(); channel != null; channel = this.acceptedChannels.poll()) {
+					close(channel);
+				}
+				close(this.selector);
+			}
+		}
+
+		private void close(AutoCloseable closeable) {
+			try {
+				closeable.close();
+			} catch (Exception e) {
+				LOGGER.debug("A connection of the binary check listener cannot be closed.", e);
+			}
+		}
+
+	}
+
+	/**
+	 * Is the state of a connection between its reads.
+	 */
+	private final class Connection {
+
+		private final SocketChannel channel;
+
+		private final ByteBuffer input = ByteBuffer.allocateDirect(INPUT_CAPACITY);
+
+		/**
+		 * Contains the answers that are not written yet.
+		 */
+		private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_CAPACITY);
+
+		/**
+		 * Contains the numbers of a read, where the numbers that are not valid are replaced by 1, which is not perfect.
+		 */
+		private final long[] numbers = new long[INPUT_CAPACITY / Long.BYTES];
+
+		/**
+		 * Tells how each number of a read is answered, e.g. SINGLE_NUMBER or BATCH_NUMBER.
+		 */
+		private final byte[] kinds = new byte[INPUT_CAPACITY / Long.BYTES];
+
+		/**
+		 * Is the count of the numbers of the current batch that are not read yet.
+		 */
+		private int batchRemaining;
+
+		/**
+		 * Is the byte of the current batch bitmap that is not written yet.
+		 */
+		private int bitmap;
+
+		/**
+		 * Is the count of the bits of bitmap that are set by the current batch.
+		 */
+		private int bitmapLength;
+
+		private Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Checks the complete numbers that are read and writes their answers. The incomplete number at the end is kept for the next read.
+		 */
+		private void read(SelectionKey key) throws IOException {
+			if (this.channel.read(this.input) < 0) {
+				this.channel.close();
+				return;
+			}
+			long startTime = System.nanoTime();
+			// Calls Buffer.flip(), since the ByteBuffer override is missing on Java 8.
+			((Buffer) this.input).flip();
+			int length = 0;
+			while (this.input.remaining() >= Long.BYTES) {
+				long number = this.input.getLong();
+				if (this.batchRemaining > 0) {
+					this.batchRemaining--;
+					this.kinds[length] = this.batchRemaining == 0 ? LAST_BATCH_NUMBER : BATCH_NUMBER;
+					this.numbers[length++] = number > 0 ? number : 1;
+				} else if (number > 0) {
+					this.kinds[length] = SINGLE_NUMBER;
+					this.numbers[length++] = number;
+				} else if (number < 0 && number >= -MAXIMUM_BATCH_LENGTH) {
+					this.batchRemaining = (int) -number;
+				} else {
+					this.kinds[length] = INVALID_NUMBER;
+					this.numbers[length++] = 1;
+				}
+			}
+			this.input.compact();
+			if (length == 0) {
+				return;
+			}
+			boolean[] perfect;
+			try {
+				perfect = perfectNumberService.checkAll(this.numbers, length);
+			} catch (PerfectNumberException e) {
+				throw new IllegalStateException("The numbers are validated before they are checked.", e);
+			}
+			boolean hit = false;
+			for (int i = 0; i < length; i++) {
+				hit |= perfect[i];
+				if (this.kinds[i] == SINGLE_NUMBER) {
+					this.output.put(perfect[i] ? PERFECT : NOT_PERFECT);
+				} else if (this.kinds[i] == INVALID_NUMBER) {
+					this.output.put(INVALID);
+				} else {
+					if (perfect[i]) {
+						this.bitmap |= 1 << this.bitmapLength;
+					}
+					if (++this.bitmapLength == Byte.SIZE || this.kinds[i] == LAST_BATCH_NUMBER) {
+						this.output.put((byte) this.bitmap);
+						this.bitmap = 0;
+						this.bitmapLength = 0;
+					}
+				}
+			}
+			checkMetrics.record(hit ? Outcome.HIT : Outcome.MISS, startTime);
+			write(key);
+		}
+
+		/**
+		 * Writes the answers that are not written yet. The connection is read again when all answers are written.
+		 */
+		private void write(SelectionKey key) throws IOException {
+			((Buffer) this.output).flip();
+			this.channel.write(this.output);
+			this.output.compact();
+			key.interestOps(this.output.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+		}
+
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.worldline.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldline.service.ValidationResult;
+
+/**
+ * Keeps the serialized responses of check and findAllInRange in a format. There are few distinct results : true, false, and a sublist
+ * of the perfect numbers between two positions. So each result is serialized once and a request is answered by a prebuilt response
+ * entity whose body is written as it is. The error responses are serialized once per message. There is an instance per format, so 
+ * a negotiated response is prebuilt as well.
+ * @author mohsen
+ *
+ */
+final class CachedResponses {
+
+	/**
+	 * Is the greatest count of error messages whose responses are kept. Protects the cache from messages that contain the inputs.
+	 */
+	private static final int MAXIMUM_ERROR_MESSAGES = 64;
+
+	private final ObjectMapper objectMapper;
+
+	private final HttpHeaders headers;
+
+	private final ResponseEntity<byte[]> perfect;
+
+	private final ResponseEntity<byte[]> notPerfect;
+
+	/**
+	 * Contains all perfect numbers that are less than Long.MAX_VALUE in increasing order.
+	 */
+	private final long[] perfectNumbers;
+
+	/**
+	 * Contains the response of the perfect numbers between each pair of positions from and to at from * (perfectNumbers.length + 1) + to.
+	 */
+	private final List<ResponseEntity<byte[]>> ranges;
+
+	/**
+	 * Contains the error response of each invalid validation result at its ordinal.
+	 */
+	private final List<ResponseEntity<byte[]>> validationErrors;
+
+	/**
+	 * Contains the error responses by their messages.
+	 */
+	private final ConcurrentHashMap<String, ResponseEntity<byte[]>> errors = new ConcurrentHashMap<String, ResponseEntity<byte[]>>();
+
+	/**
+	 * Serializes all responses of check and findAllInRange.
+	 * @param objectMapper serializes the responses in format
+	 * @param format is the format of the responses, whose media type is the content type of the responses
+	 * @param perfectNumbers contains all perfect numbers that are less than Long.MAX_VALUE in increasing order
+	 * @throws JsonProcessingException if a response cannot be serialized
+	 */
+	CachedResponses(ObjectMapper objectMapper, ResponseFormat format, List<Long> perfectNumbers) throws JsonProcessingException {
+		this.objectMapper = objectMapper;
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(format.getMediaType());
+		this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+		this.perfect = serialize(okResponse(Boolean.TRUE));
+		this.notPerfect = serialize(okResponse(Boolean.FALSE));
+		int length = perfectNumbers.size();
+		this.perfectNumbers = new long[length];
+		for (int i = 0; i < length; i++) {
+			this.perfectNumbers[i] = perfectNumbers.get(i);
+		}
+		this.ranges = new ArrayList<ResponseEntity<byte[]>>((length + 1) * (length + 1));
+		for (int from = 0; from <= length; from++) {
+			for (int to = 0; to <= length; to++) {
+				this.ranges.add(from <= to ? serialize(okResponse(perfectNumbers.subList(from, to))) : null);
+			}
+		}
+		this.validationErrors = new ArrayList<ResponseEntity<byte[]>>();
+		for (ValidationResult validationResult : ValidationResult.values()) {
+			Response<String> errorResponse = new Response<String>();
+			errorResponse.setMessage(validationResult.getMessage());
+			errorResponse.setResponseCode(ResponseCode.of(validationResult));
+			this.validationErrors.add(validationResult == ValidationResult.VALID ? null : serialize(errorResponse));
+		}
+	}
+
+	ResponseEntity<byte[]> check(boolean isPerfect) {
+		return isPerfect ? this.perfect : this.notPerfect;
+	}
+
+	/**
+	 * Gets the response of a range by the positions of its perfect numbers.
+	 * @param numbers is a sublist of all perfect numbers that are less than Long.MAX_VALUE
+	 * @return the response with numbers as message
+	 */
+	ResponseEntity<byte[]> findAllInRange(List<Long> numbers) {
+		int from = numbers.isEmpty() ? 0 : Arrays.binarySearch(this.perfectNumbers, numbers.get(0));
+		return this.ranges.get(from * (this.perfectNumbers.length + 1) + from + numbers.size());
+	}
+
+	/**
+	 * Gets the error response of invalid inputs.
+	 * @param validationResult is not VALID
+	 * @return the response with the message of validationResult
+	 */
+	ResponseEntity<byte[]> error(ValidationResult validationResult) {
+		return this.validationErrors.get(validationResult.ordinal());
+	}
+
+	/**
+	 * Gets the serialized form of an error response. The responses of the first MAXIMUM_ERROR_MESSAGES messages are kept.
+	 * @param errorResponse has a constant message that is not used by another response code
+	 * @return the response entity of errorResponse
+	 * @throws JsonProcessingException if the response cannot be serialized
+	 */
+	ResponseEntity<byte[]> error(Response<?> errorResponse) throws JsonProcessingException {
+		String key = errorResponse.getMessage().toString();
+		ResponseEntity<byte[]> response = this.errors.get(key);
+		if (response == null) {
+			response = serialize(errorResponse);
+			if (this.errors.size() < MAXIMUM_ERROR_MESSAGES) {
+				this.errors.putIfAbsent(key, response);
+			}
+		}
+		return response;
+	}
+
+	private ResponseEntity<byte[]> serialize(Response<?> response) throws JsonProcessingException {
+		return new ResponseEntity<byte[]>(this.objectMapper.writeValueAsBytes(response), this.headers, HttpStatus.OK);
+	}
+
+	private static <T> Response<T> okResponse(T message) {
+		Response<T> response = new Response<T>();
+		response.setMessage(message);
+		response.setResponseCode(ResponseCode.OK);
+		return response;
+	}
+
+}
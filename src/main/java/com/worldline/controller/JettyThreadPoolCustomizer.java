@@ -0,0 +1,77 @@
+package com.worldline.controller;
+
+import org.eclipse.jetty.server.ConnectionLimit;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizes the request thread pool of Jetty, which Spring Boot does not expose as properties, so the thread pool settings can be compared
+ * under load, e.g. by the load generator of src/loadtest/java. The defaults are the defaults of Jetty. If virtualThreads is set,
+ * the requests are served by VirtualThreadPool instead, which is built by the jdk21 profile. A virtual thread is started per task,
+ * so the count of connections, not of threads, bounds the concurrent requests.
+ * @author mohsen
+ *
+ */
+@Component
+public class JettyThreadPoolCustomizer implements WebServerFactoryCustomizer<JettyServletWebServerFactory> {
+
+	private final int minimumThreads;
+
+	private final int maximumThreads;
+
+	/**
+	 * Is the time in milliseconds after which an idle thread above minimumThreads is stopped.
+	 */
+	private final int idleTimeout;
+
+	private final boolean virtualThreads;
+
+	/**
+	 * Is the greatest count of open connections, or zero for no limit. Jetty stops accepting connections at the limit.
+	 */
+	private final int maximumConnections;
+
+	/**
+	 * Is VirtualThreadPool if it is built and virtualThreads is set.
+	 */
+	private final ObjectProvider<ThreadPool> threadPool;
+
+	@Autowired
+	public JettyThreadPoolCustomizer(@Value("${perfectnumber.jetty.min-threads:8}") int minimumThreads,
+			@Value("${perfectnumber.jetty.max-threads:200}") int maximumThreads,
+			@Value("${perfectnumber.jetty.idle-timeout:60000}") int idleTimeout,
+			@Value("${perfectnumber.jetty.virtual-threads:false}") boolean virtualThreads,
+			@Value("${perfectnumber.jetty.max-connections:0}") int maximumConnections,
+			ObjectProvider<ThreadPool> threadPool) {
+		this.minimumThreads = minimumThreads;
+		this.maximumThreads = maximumThreads;
+		this.idleTimeout = idleTimeout;
+		this.virtualThreads = virtualThreads;
+		this.maximumConnections = maximumConnections;
+		this.threadPool = threadPool;
+	}
+
+	@Override
+	public void customize(JettyServletWebServerFactory factory) {
+		if (this.virtualThreads) {
+			ThreadPool threadPool = this.threadPool.getIfAvailable();
+			if (threadPool == null) {
+				throw new IllegalStateException("perfectnumber.jetty.virtual-threads needs a build by the jdk21 profile.");
+			}
+			factory.setThreadPool(threadPool);
+		} else {
+			factory.setThreadPool(new QueuedThreadPool(this.maximumThreads, Math.min(this.minimumThreads, this.maximumThreads),
+					this.idleTimeout));
+		}
+		if (this.maximumConnections > 0) {
+			factory.addServerCustomizers(server -> server.addBean(new ConnectionLimit(this.maximumConnections, server)));
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.worldline.controller;
+
+/**
+ * Parses path variables into primitive long integers without throwing NumberFormatException, so a malformed request does not pay 
+ * for an exception and its stack trace. Accepts the same strings as Long.parseLong in ASCII digits.
+ * @author mohsen
+ *
+ */
+final class LongParser {
+
+	/**
+	 * Is returned for a string that is not a long integer. It is also the value of "-9223372036854775808", which is not a valid input
+	 * of any operation.
+	 */
+	static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+	/**
+	 * Is returned for a string that is not an integer, or whose value is out of the int range. It is also the value of "-2147483648".
+	 */
+	static final int NOT_AN_INT = Integer.MIN_VALUE;
+
+	private LongParser() {
+	}
+
+	/**
+	 * Parses a decimal long integer with an optional sign.
+	 * @param string is a string
+	 * @return the long integer of string, or NOT_A_NUMBER if string is null, empty, has a non-digit character, or overflows
+	 */
+	static long parse(String string) {
+		int length = string == null ? 0 : string.length();
+		if (length == 0) {
+			return NOT_A_NUMBER;
+		}
+		int i = 0;
+		char first = string.charAt(0);
+		boolean negative = first == '-';
+		if (negative || first == '+') {
+			if (length == 1) {
+				return NOT_A_NUMBER;
+			}
+			i++;
+		}
+		// Accumulates negatively like Long.parseLong, since the negative range is greater than the positive one.
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multiplicationLimit = limit / 10;
+		long result = 0;
+		for (; i < length; i++) {
+			int digit = string.charAt(i) - '0';
+			if (digit < 0 || digit > 9 || result < multiplicationLimit) {
+				return NOT_A_NUMBER;
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				return NOT_A_NUMBER;
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Parses a decimal integer with an optional sign like Integer.parseInt.
+	 * @param string is a string
+	 * @return the integer of string, or NOT_AN_INT if string is not a long integer or is out of the int range
+	 */
+	static int parseInt(String string) {
+		long value = parse(string);
+		return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? NOT_AN_INT : (int) value;
+	}
+
+}
@@ -0,0 +1,261 @@
+package com.worldline.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.worldline.service.LucasLehmer;
+import com.worldline.service.LucasLehmerCheckpoint;
+import com.worldline.service.SearchState;
+import com.worldline.service.WorkLease;
+import com.worldline.service.api.PerfectNumberService;
+
+/**
+ * Works for a distributed Mersenne prime search that is coordinated by another node over its REST API under /rest/search. Each worker
+ * thread leases a work unit, tests its exponents by Lucas-Lehmer tests that start from the checkpoints of the unit, and sends the
+ * checkpoints of the tests and the Mersenne prime exponents it finds. A heartbeat renews the lease three times per lease time. A worker
+ * whose lease is lost abandons its unit at the next checkpoint, since the unit is leased to another worker. The state of the coordinator
+ * is merged into the local service at each lease and after each unit, so this node serves the perfect numbers found by all workers.
+ * The requests carry the token of the workers, since the coordinator only accepts the results of its configured workers. Is idle 
+ * unless perfectnumber.worker.coordinator-url is set.
+ * @author mohsen
+ *
+ */
+@Component
+public class MersenneSearchWorker {
+
+	/**
+	 * Is the header of the requests to the coordinator that contains the token of the workers.
+	 */
+	static final String TOKEN_HEADER = "X-Worker-Token";
+
+	/**
+	 * Is the time in milliseconds to wait when there is no unit to lease or the coordinator cannot be reached.
+	 */
+	private static final long IDLE_TIME = 10000;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MersenneSearchWorker.class);
+
+	private static final ParameterizedTypeReference<Response<WorkLease>> LEASE_RESPONSE = new ParameterizedTypeReference<Response<WorkLease>>() {
+	};
+
+	private static final ParameterizedTypeReference<Response<Boolean>> BOOLEAN_RESPONSE = new ParameterizedTypeReference<Response<Boolean>>() {
+	};
+
+	private static final ParameterizedTypeReference<Response<SearchState>> STATE_RESPONSE =
+			new ParameterizedTypeReference<Response<SearchState>>() {
+	};
+
+	/**
+	 * Is the URL of the coordinator, e.g. http://localhost:8080, or an empty string if this node is not a worker.
+	 */
+	private final String coordinatorUrl;
+
+	/**
+	 * Is the token that the coordinator expects from its workers.
+	 */
+	private final String token;
+
+	private final int threads;
+
+	private final PerfectNumberService perfectNumberService;
+
+	private final RestTemplate restTemplate;
+
+	private final List<Thread> workers = new ArrayList<Thread>();
+
+	/**
+	 * Sends the heartbeats of the leases.
+	 */
+	private ScheduledExecutorService heartbeats;
+
+	private volatile boolean running;
+
+	/**
+	 * Creates the workers of a node.
+	 * @param coordinatorUrl is the URL of the coordinator, or an empty string if this node is not a worker
+	 * @param token is the token that the coordinator expects from its workers
+	 * @param threads is the count of units that are tested at once
+	 * @param perfectNumberService receives the state of the coordinator
+	 * @param restTemplateBuilder builds the client of the coordinator
+	 */
+	@Autowired
+	public MersenneSearchWorker(@Value("${perfectnumber.worker.coordinator-url:}") String coordinatorUrl,
+			@Value("${perfectnumber.worker.token:}") String token, @Value("${perfectnumber.worker.threads:1}") int threads, PerfectNumberService perfectNumberService,
+			RestTemplateBuilder restTemplateBuilder) {
+		this.coordinatorUrl = coordinatorUrl.endsWith("/") ? coordinatorUrl.substring(0, coordinatorUrl.length() - 1) : coordinatorUrl;
+		this.token = token;
+		this.threads = threads;
+		this.perfectNumberService = perfectNumberService;
+		this.restTemplate = restTemplateBuilder.build();
+	}
+
+	/**
+	 * Starts the worker threads if there is a coordinator.
+	 */
+	@PostConstruct
+	public synchronized void start() {
+		if (this.coordinatorUrl.isEmpty() || this.running) {
+			return;
+		}
+		this.running = true;
+		this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "search-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 1; i <= this.threads; i++) {
+			Thread worker = new Thread(this::work, "search-worker-" + i);
+			worker.setDaemon(true);
+			worker.start();
+			this.workers.add(worker);
+		}
+		LOGGER.info("{} workers of the Mersenne prime search coordinated by {} are started.", this.threads, this.coordinatorUrl);
+	}
+
+	/**
+	 * Stops the worker threads. A unit in test is abandoned, and is leased again when its lease expires.
+	 */
+	@PreDestroy
+	public synchronized void stop() {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		for (Thread worker : this.workers) {
+			worker.interrupt();
+		}
+		this.workers.clear();
+		this.heartbeats.shutdownNow();
+	}
+
+	private void work() {
+		while (this.running) {
+			try {
+				WorkLease lease = call(HttpMethod.POST, "/rest/search/leases", null, null, LEASE_RESPONSE);
+				if (lease == null) {
+					Thread.sleep(IDLE_TIME);
+					continue;
+				}
+				this.perfectNumberService.mergeSearchState(lease.getState());
+				List<Integer> found = test(lease);
+				if (found != null) {
+					call(HttpMethod.POST, "/rest/search/leases/" + lease.getLeaseId() + "/result", found, MediaType.APPLICATION_JSON,
+							BOOLEAN_RESPONSE);
+					this.perfectNumberService.mergeSearchState(call(HttpMethod.GET, "/rest/search/state", null, null, STATE_RESPONSE));
+				}
+			} catch (RestClientException | IllegalStateException e) {
+				if (this.running) {
+					LOGGER.warn("The coordinator of the Mersenne prime search at {} cannot be reached.", this.coordinatorUrl, e);
+					try {
+						Thread.sleep(IDLE_TIME);
+					} catch (InterruptedException interrupted) {
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Tests the exponents of a unit while its lease is held.
+	 * @return the Mersenne prime exponents of the unit, or null if the lease is lost or the worker is stopped
+	 */
+	private List<Integer> test(WorkLease lease) {
+		AtomicBoolean lost = new AtomicBoolean();
+		String leaseUrl = "/rest/search/leases/" + lease.getLeaseId();
+		long period = Math.max(1, lease.getLeaseTime() / 3);
+		ScheduledFuture<?> heartbeat = this.heartbeats.scheduleAtFixedRate(() -> {
+			try {
+				if (!Boolean.TRUE.equals(call(HttpMethod.POST, leaseUrl + "/renewal", null, null, BOOLEAN_RESPONSE))) {
+					lost.set(true);
+				}
+			} catch (RestClientException | IllegalStateException e) {
+				// The lease is kept if a later heartbeat or checkpoint reaches the coordinator in time.
+				LOGGER.warn("The lease {} cannot be renewed.", lease.getLeaseId(), e);
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+		try {
+			List<Integer> found = new ArrayList<Integer>();
+			int[] exponents = lease.getExponents();
+			for (int i = 0; i < exponents.length && !lost.get() && this.running; i++) {
+				if (LucasLehmer.isMersennePrime(exponents[i], lease.checkpointOf(i), checkpoint -> saveCheckpoint(leaseUrl, checkpoint, lost))) {
+					found.add(exponents[i]);
+				}
+			}
+			return lost.get() || !this.running ? null : found;
+		} catch (CancellationException e) {
+			return null;
+		} finally {
+			heartbeat.cancel(false);
+		}
+	}
+
+	/**
+	 * Sends a checkpoint to the coordinator. A checkpoint that does not reach the coordinator is skipped, and the test goes on from it, 
+	 * since the lease is kept by the heartbeats and the next checkpoint is sent again.
+	 * @throws CancellationException if the lease is lost or the worker is stopped, so the test is abandoned
+	 */
+	private void saveCheckpoint(String leaseUrl, LucasLehmerCheckpoint checkpoint, AtomicBoolean lost) {
+		if (!lost.get() && this.running) {
+			String url = leaseUrl + "/checkpoints/" + checkpoint.getExponent() + "/" + checkpoint.getIteration();
+			try {
+				if (!Boolean.TRUE.equals(call(HttpMethod.PUT, url, checkpoint.getResidue().toByteArray(), 
+						MediaType.APPLICATION_OCTET_STREAM, BOOLEAN_RESPONSE))) {
+					lost.set(true);
+				}
+			} catch (RestClientException | IllegalStateException e) {
+				LOGGER.warn("The checkpoint of the exponent {} at the iteration {} cannot be saved.", checkpoint.getExponent(), 
+						checkpoint.getIteration(), e);
+			}
+		}
+		if (lost.get() || !this.running) {
+			throw new CancellationException();
+		}
+	}
+
+	/**
+	 * Calls the coordinator.
+	 * @return the message of the response
+	 * @throws IllegalStateException if the response code is not OK
+	 */
+	private <T> T call(HttpMethod method, String path, Object body, MediaType contentType, ParameterizedTypeReference<Response<T>> type) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(TOKEN_HEADER, this.token);
+		if (contentType != null) {
+			headers.setContentType(contentType);
+		}
+		Response<T> response = this.restTemplate.exchange(this.coordinatorUrl + path, method, new HttpEntity<Object>(body, headers), type)
+				.getBody();
+		if (response == null || response.getResponseCode() != ResponseCode.OK) {
+			throw new IllegalStateException("The coordinator responds " + (response == null ? null : response.getResponseCode() + " : "
+					+ response.getMessage()) + ".");
+		}
+		return response.getMessage();
+	}
+
+}
@@ -1,19 +1,71 @@
 package com.worldline.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.HttpOutput;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.worldline.metrics.OperationMetrics;
+import com.worldline.metrics.Outcome;
+import com.worldline.metrics.PerfectNumberMetrics;
+import com.worldline.service.AliquotSequence;
+import com.worldline.service.Classification;
+import com.worldline.service.DivisorSum;
+import com.worldline.service.LucasLehmerCheckpoint;
+import com.worldline.service.MersennePrimeSearch;
 import com.worldline.service.PerfectNumberException;
+import com.worldline.service.PerfectNumberFormat;
+import com.worldline.service.SearchState;
+import com.worldline.service.ValidationResult;
+import com.worldline.service.WorkLease;
 import com.worldline.service.api.PerfectNumberService;
 
 /**
- * Processes REST requests perfectNumber and perfectNumbersInRange to check if the input number is perfect and 
- * find all perfect numbers in the given range respectively.
+ * Processes the REST requests under /rest. perfectNumber and perfectNumbersInRange check if the input number is perfect and find all 
+ * perfect numbers in the given range, and are answered by prebuilt responses. The other requests count, rank and find perfect numbers 
+ * by index, check and download large perfect numbers, check and find perfect numbers in batches, classify ranges by aliquot sums 
+ * directly or by background jobs, decide primality, follow aliquot sequences and find multiply perfect numbers. The requests under 
+ * /rest/search coordinate a distributed Mersenne prime search with its workers. The expensive requests are admitted and run by the 
+ * query executor, and the latency and outcome of each operation are recorded.
  * @author mohsen
  *
  */
@@ -21,9 +73,106 @@ import com.worldline.service.api.PerfectNumberService;
 @RequestMapping("/rest")
 public class PerfectNumberController {
 	
+	/**
+	 * Is the count of numbers of a batch request that are parsed and checked at once.
+	 */
+	private static final int BATCH_CHUNK_LENGTH = 1 << 16;
+	
+	private static final String BATCH_ERROR_MESSAGE = "The request body must be a JSON array of integers between 1 and " + Long.MAX_VALUE + ".";
+	
+	private static final String OVERLOADED_MESSAGE = "There are too many expensive requests in process. Please try later.";
+	
+	/**
+	 * Is the count of bits per decimal digit.
+	 */
+	private static final double LOG2_10 = 3.321928094887362;
+	
+	/**
+	 * Is e^-gamma, where gamma is the Euler-Mascheroni constant.
+	 */
+	private static final double INVERSE_EXP_GAMMA = 0.5614594835668851;
+	
+	/**
+	 * Is the estimated cost of a term of an aliquot sequence, i.e. the steps of Pollard's rho algorithm for a number about Long.MAX_VALUE, 
+	 * whose fourth root is about 2^16.
+	 */
+	private static final long ALIQUOT_TERM_COST = 1 << 16;
+	
+	private static final String BATCH_RANGE_ERROR_MESSAGE = "The array elements must be ranges in the form of [lowerBound, upperBound].";
+	
+	private static final String NOT_A_WORKER_MESSAGE = "The request must have the token of the workers in the " 
+			+ MersenneSearchWorker.TOKEN_HEADER + " header.";
+	
 	@Autowired
 	private PerfectNumberService perfectNumberService;
 	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	@Autowired
+	private PerfectNumberMetrics metrics;
+	
+	/**
+	 * Is the token that the workers of the distributed search send in the TOKEN_HEADER header, or an empty string if no worker is 
+	 * accepted.
+	 */
+	@Value("${perfectnumber.coordinator.worker-token:}")
+	private String workerToken;
+	
+	/**
+	 * Serializes the responses whose format is CBOR.
+	 */
+	private ObjectMapper cborMapper;
+	
+	/**
+	 * Runs the expensive queries, i.e. checkBig, findByIndex, download, classifyRange and findPrimesInRange, so they do not hold 
+	 * the request threads.
+	 */
+	@Autowired
+	private QueryExecutor queryExecutor;
+	
+	/**
+	 * Keeps the range jobs, which classify ranges in the background on their own threads.
+	 */
+	@Autowired
+	private RangeJobRegistry rangeJobs;
+	
+	/**
+	 * Keeps the serialized JSON responses of check and findAllInRange.
+	 */
+	private CachedResponses cachedResponses;
+	
+	/**
+	 * Keeps the serialized CBOR responses of findAllInRange.
+	 */
+	private CachedResponses cachedCborResponses;
+	
+	/**
+	 * Contains the metrics of each operation at its ordinal.
+	 */
+	private OperationMetrics[] operationMetrics;
+	
+	/**
+	 * Is an operation of the controller whose latencies and outcomes are recorded.
+	 */
+	private enum Operation {
+		CHECK, FIND_ALL_IN_RANGE, COUNT_IN_RANGE, RANK, FIND_FLOOR, FIND_CEILING, CHECK_BIG, FIND_BY_INDEX, DOWNLOAD, DIVISOR_SUM, 
+		CHECK_ALL, FIND_ALL_IN_RANGES, CLASSIFY_RANGE, IS_PRIME, PRIMES_IN_RANGE, LEASE_WORK, RENEW_LEASE, SAVE_CHECKPOINT, COMPLETE_WORK, 
+		SEARCH_STATE, ALIQUOT_SEQUENCE, MULTIPLY_PERFECT_IN_RANGE, SUBMIT_JOB, JOB_PROGRESS, FOLLOW_JOB, CANCEL_JOB
+	}
+	
+	@PostConstruct
+	private void initialize() throws JsonProcessingException, PerfectNumberException {
+		cborMapper = new ObjectMapper(new CBORFactory());
+		List<Long> perfectNumbers = perfectNumberService.findAllInRange(1L, Long.MAX_VALUE);
+		cachedResponses = new CachedResponses(objectMapper, ResponseFormat.JSON, perfectNumbers);
+		cachedCborResponses = new CachedResponses(cborMapper, ResponseFormat.CBOR, perfectNumbers);
+		operationMetrics = new OperationMetrics[Operation.values().length];
+		for (Operation operation : Operation.values()) {
+			operationMetrics[operation.ordinal()] = metrics.operation("controller." + operation.name().toLowerCase());
+		}
+	}
+	
     /**
      * Checks if numberString is perfect.
      * @param numberString is an non-zero positive long integer
@@ -31,16 +180,23 @@ public class PerfectNumberController {
      * an error message as message
      */
 	@GetMapping("/perfectNumber/{numberString}")
-	public Response<?> check(@PathVariable String numberString) {
-    	Response<?> response;
+	public ResponseEntity<byte[]> check(@PathVariable String numberString) throws JsonProcessingException {
+    	long startTime = System.nanoTime();
+    	long number = LongParser.parse(numberString);
+    	ValidationResult validationResult = validateNumber(number);
+    	if (validationResult != ValidationResult.VALID) {
+    		operationMetrics[Operation.CHECK.ordinal()].record(Outcome.REQUEST_ERROR, startTime);
+    		return cachedResponses.error(validationResult);
+    	}
+    	ResponseEntity<byte[]> response;
     	try {
-    		Long number = Long.valueOf(numberString);
-    		Response<Boolean> okResponse = new Response<Boolean>();
-    		okResponse.setMessage(perfectNumberService.check(number));
-    		okResponse.setResponseCode(ResponseCode.OK);
-    		response = okResponse;
+    		boolean perfect = perfectNumberService.check(number);
+    		response = cachedResponses.check(perfect);
+    		operationMetrics[Operation.CHECK.ordinal()].record(perfect ? Outcome.HIT : Outcome.MISS, startTime);
     	} catch (Exception e) {
-			response = handleException(e);
+    		Response<?> errorResponse = handleException(e);
+			response = cachedResponses.error(errorResponse);
+			operationMetrics[Operation.CHECK.ordinal()].record(outcomeOf(errorResponse), startTime);
 		}
     	return response;
 	}
@@ -49,23 +205,1087 @@ public class PerfectNumberController {
 	 * Finds all perfect numbers between lowerBoundString and upperBoundString.
 	 * @param lowerBoundString is an non-zero positive long integer and equal or less than upperBoundString
 	 * @param upperBoundString is an non-zero positive long integer and equal or greater than lowerBoundString
+	 * @param accept is the Accept header of the request. The response is in CBOR if it prefers application/cbor.
 	 * @return a list of perfect number as message and OK as responseCode. Otherwise, REQUSET_ERROR or INTERNAL_ERROR as responseCode and 
      * an error message as message
 	 */
     @GetMapping("/perfectNumbersInRange/{lowerBoundString}/{upperBoundString}")
-	public Response<?> findAllInRange(@PathVariable String lowerBoundString, @PathVariable String upperBoundString) {
-    	Response<?> response = new Response<List<Long>>();
+	public ResponseEntity<byte[]> findAllInRange(@PathVariable String lowerBoundString, @PathVariable String upperBoundString, 
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws JsonProcessingException {
+    	long startTime = System.nanoTime();
+    	CachedResponses cachedResponses = ResponseFormat.of(accept) == ResponseFormat.CBOR ? cachedCborResponses : this.cachedResponses;
+    	long lowerBound = LongParser.parse(lowerBoundString);
+    	long upperBound = LongParser.parse(upperBoundString);
+    	ValidationResult validationResult = validateRange(lowerBound, upperBound);
+    	if (validationResult != ValidationResult.VALID) {
+    		operationMetrics[Operation.FIND_ALL_IN_RANGE.ordinal()].record(Outcome.REQUEST_ERROR, startTime);
+    		return cachedResponses.error(validationResult);
+    	}
+    	ResponseEntity<byte[]> response;
 		try {
-			Long lowerBound = Long.valueOf(lowerBoundString);
-			Long upperBound = Long.valueOf(upperBoundString);
-	    	Response<List<Long>> okResponse = new Response<List<Long>>();
-			okResponse.setMessage(perfectNumberService.findAllInRange(lowerBound, upperBound));
+			List<Long> perfectNumbers = perfectNumberService.findAllInRange(lowerBound, upperBound);
+			response = cachedResponses.findAllInRange(perfectNumbers);
+			operationMetrics[Operation.FIND_ALL_IN_RANGE.ordinal()].record(perfectNumbers.isEmpty() ? Outcome.MISS : Outcome.HIT, startTime);
+		} catch (Exception e) {
+			Response<?> errorResponse = handleException(e);
+			response = cachedResponses.error(errorResponse);
+			operationMetrics[Operation.FIND_ALL_IN_RANGE.ordinal()].record(outcomeOf(errorResponse), startTime);
+		}
+    	return response;
+	}
+
+	/**
+	 * Counts all perfect numbers between lowerBoundString and upperBoundString.
+	 * @param lowerBoundString is an non-zero positive long integer and equal or less than upperBoundString
+	 * @param upperBoundString is an non-zero positive long integer and equal or greater than lowerBoundString
+	 * @return the number of perfect numbers as message and OK as responseCode. Otherwise, REQUSET_ERROR or INTERNAL_ERROR as responseCode and 
+     * an error message as message
+	 */
+    @GetMapping("/perfectNumbersCountInRange/{lowerBoundString}/{upperBoundString}")
+	public Response<?> countInRange(@PathVariable String lowerBoundString, @PathVariable String upperBoundString) {
+    	long startTime = System.nanoTime();
+    	long lowerBound = LongParser.parse(lowerBoundString);
+    	long upperBound = LongParser.parse(upperBoundString);
+    	ValidationResult validationResult = validateRange(lowerBound, upperBound);
+    	if (validationResult != ValidationResult.VALID) {
+    		return record(Operation.COUNT_IN_RANGE, errorResponse(validationResult), startTime);
+    	}
+    	Response<?> response;
+		try {
+	    	Response<Integer> okResponse = new Response<Integer>();
+			okResponse.setMessage(perfectNumberService.countInRange(lowerBound, upperBound));
 	    	okResponse.setResponseCode(ResponseCode.OK);
     		response = okResponse;
 		} catch (Exception e) {
 			response = handleException(e);
 		}
-    	return response;
+    	return record(Operation.COUNT_IN_RANGE, response, startTime);
+	}
+    
+    /**
+     * Counts all perfect numbers that are equal or less than numberString.
+     * @param numberString is an non-zero positive long integer
+     * @return the number of perfect numbers as message and OK as responseCode. Otherwise, REQUSET_ERROR or INTERNAL_ERROR as responseCode and 
+     * an error message as message
+     */
+	@GetMapping("/perfectNumberRank/{numberString}")
+	public Response<?> rank(@PathVariable String numberString) {
+    	long startTime = System.nanoTime();
+    	long number = LongParser.parse(numberString);
+    	ValidationResult validationResult = validateNumber(number);
+    	if (validationResult != ValidationResult.VALID) {
+    		return record(Operation.RANK, errorResponse(validationResult), startTime);
+    	}
+    	Response<?> response;
+    	try {
+    		Response<Integer> okResponse = new Response<Integer>();
+    		okResponse.setMessage(perfectNumberService.rank(number));
+    		okResponse.setResponseCode(ResponseCode.OK);
+    		response = okResponse;
+    	} catch (Exception e) {
+			response = handleException(e);
+		}
+    	return record(Operation.RANK, response, startTime);
+	}
+	
+    /**
+     * Finds the greatest perfect number that is equal or less than numberString.
+     * @param numberString is an non-zero positive long integer
+     * @return the perfect number, or null if there is no such perfect number, as message and OK as responseCode. Otherwise, REQUSET_ERROR or 
+     * INTERNAL_ERROR as responseCode and an error message as message
+     */
+	@GetMapping("/perfectNumberFloor/{numberString}")
+	public Response<?> findFloor(@PathVariable String numberString) {
+    	long startTime = System.nanoTime();
+    	long number = LongParser.parse(numberString);
+    	ValidationResult validationResult = validateNumber(number);
+    	if (validationResult != ValidationResult.VALID) {
+    		return record(Operation.FIND_FLOOR, errorResponse(validationResult), startTime);
+    	}
+    	Response<?> response;
+    	try {
+    		Response<Long> okResponse = new Response<Long>();
+    		okResponse.setMessage(perfectNumberService.findFloor(number));
+    		okResponse.setResponseCode(ResponseCode.OK);
+    		response = okResponse;
+    	} catch (Exception e) {
+			response = handleException(e);
+		}
+    	return record(Operation.FIND_FLOOR, response, startTime);
+	}
+	
+    /**
+     * Finds the smallest perfect number that is equal or greater than numberString.
+     * @param numberString is an non-zero positive long integer
+     * @return the perfect number, or null if there is no such perfect number, as message and OK as responseCode. Otherwise, REQUSET_ERROR or 
+     * INTERNAL_ERROR as responseCode and an error message as message
+     */
+	@GetMapping("/perfectNumberCeiling/{numberString}")
+	public Response<?> findCeiling(@PathVariable String numberString) {
+    	long startTime = System.nanoTime();
+    	long number = LongParser.parse(numberString);
+    	ValidationResult validationResult = validateNumber(number);
+    	if (validationResult != ValidationResult.VALID) {
+    		return record(Operation.FIND_CEILING, errorResponse(validationResult), startTime);
+    	}
+    	Response<?> response;
+    	try {
+    		Response<Long> okResponse = new Response<Long>();
+    		okResponse.setMessage(perfectNumberService.findCeiling(number));
+    		okResponse.setResponseCode(ResponseCode.OK);
+    		response = okResponse;
+    	} catch (Exception e) {
+			response = handleException(e);
+		}
+    	return record(Operation.FIND_CEILING, response, startTime);
+	}
+	
+    /**
+     * Checks if numberString is perfect. Unlike perfectNumber, numberString can be greater than Long.MAX_VALUE. The check is run by 
+     * the query executor if it may search Mersenne primes.
+     * @param numberString is an non-zero positive integer in decimal
+     * @return true as message if numberString is perfect and OK as reponseCode. Otherwise, REQUSET_ERROR, INTERNAL_ERROR or OVERLOADED as 
+     * responseCode and an error message as message
+     */
+	@GetMapping("/bigPerfectNumber/{numberString}")
+	public DeferredResult<Response<?>> checkBig(@PathVariable String numberString) {
+    	long startTime = System.nanoTime();
+    	// A perfect number 2^(p-1) * (2^p - 1) has about 2p bits, and 3.33 bits per decimal digit.
+    	long cost = lucasLehmerCost(numberString.length() * LOG2_10 / 2);
+    	return queryExecutor.submit(cost, () -> {
+        	Response<?> response;
+        	try {
+        		Response<Boolean> okResponse = new Response<Boolean>();
+        		okResponse.setMessage(perfectNumberService.check(numberString));
+        		okResponse.setResponseCode(ResponseCode.OK);
+        		response = okResponse;
+        	} catch (Exception e) {
+    			response = handleException(e);
+    		}
+        	return record(Operation.CHECK_BIG, response, startTime);
+    	}, () -> record(Operation.CHECK_BIG, overloadedResponse(), startTime));
+	}
+	
+	/**
+	 * Finds the indexString-th perfect number. The search is run by the query executor unless the index is small.
+	 * @param indexString is an non-zero positive integer
+	 * @return the perfect number in decimal as message and OK as responseCode. Otherwise, REQUSET_ERROR, INTERNAL_ERROR or OVERLOADED as 
+     * responseCode and an error message as message
+	 */
+	@GetMapping("/perfectNumberAt/{indexString}")
+	public DeferredResult<Response<?>> findByIndex(@PathVariable String indexString) {
+    	long startTime = System.nanoTime();
+    	int index = LongParser.parseInt(indexString);
+    	ValidationResult validationResult = validateIndex(index);
+    	if (validationResult != ValidationResult.VALID) {
+    		DeferredResult<Response<?>> errorResult = new DeferredResult<Response<?>>();
+    		errorResult.setResult(record(Operation.FIND_BY_INDEX, errorResponse(validationResult), startTime));
+    		return errorResult;
+    	}
+    	return queryExecutor.submit(findByIndexCost(index), () -> {
+        	Response<?> response;
+        	try {
+        		Response<String> okResponse = new Response<String>();
+        		okResponse.setMessage(perfectNumberService.findPerfectNumber(index).toString());
+        		okResponse.setResponseCode(ResponseCode.OK);
+        		response = okResponse;
+        	} catch (Exception e) {
+    			response = handleException(e);
+    		}
+        	return record(Operation.FIND_BY_INDEX, response, startTime);
+    	}, () -> record(Operation.FIND_BY_INDEX, overloadedResponse(), startTime));
+	}
+
+	/**
+	 * Downloads the indexString-th perfect number as a file. The file is written once and its channel is sent by Jetty through its 
+	 * pooled direct buffers, so the perfect number is neither built nor copied in the heap, nor serialized by Jackson. Another servlet 
+	 * container gets the file through the servlet stream. The file is found and sent by the query executor unless the index is small.
+	 * @param indexString is an non-zero positive integer
+	 * @param format is decimal for the decimal digits in ASCII or binary for the unsigned big-endian bytes
+	 * @param response receives the file. Otherwise, a JSON object with REQUSET_ERROR, INTERNAL_ERROR or OVERLOADED as responseCode and 
+	 * an error message as message
+	 * @return the streamed response that is run by the query executor, or null if the response is written
+	 * @throws IOException if the response cannot be written
+	 */
+	@GetMapping("/perfectNumberAt/{indexString}/download")
+	public StreamingResponseBody download(@PathVariable String indexString, @RequestParam(defaultValue = "decimal") String format, 
+			HttpServletResponse response) throws IOException {
+		long startTime = System.nanoTime();
+		int index = LongParser.parseInt(indexString);
+		ValidationResult validationResult = validateIndex(index);
+		if (validationResult != ValidationResult.VALID) {
+			writeResponse(record(Operation.DOWNLOAD, errorResponse(validationResult), startTime), ResponseFormat.JSON, response);
+			return null;
+		}
+		return stream(Operation.DOWNLOAD, findByIndexCost(index), startTime, ResponseFormat.JSON, response, 
+				output -> download(index, format, startTime, response));
+	}
+
+	private void download(int index, String format, long startTime, HttpServletResponse response) throws IOException {
+		FileChannel file;
+		PerfectNumberFormat perfectNumberFormat;
+		try {
+			perfectNumberFormat = parseFormat(format);
+			Path path = perfectNumberService.findPerfectNumberFile(index, perfectNumberFormat);
+			file = FileChannel.open(path, StandardOpenOption.READ);
+			response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + path.getFileName() + "\"");
+		} catch (Exception e) {
+			Response<?> errorResponse = handleException(e);
+			writeResponse(errorResponse, ResponseFormat.JSON, response);
+			operationMetrics[Operation.DOWNLOAD.ordinal()].record(outcomeOf(errorResponse), startTime);
+			return;
+		}
+		try (FileChannel openedFile = file) {
+			long length = openedFile.size();
+			response.setContentType(perfectNumberFormat == PerfectNumberFormat.DECIMAL ? MediaType.TEXT_PLAIN_VALUE 
+					: MediaType.APPLICATION_OCTET_STREAM_VALUE);
+			response.setContentLengthLong(length);
+			ServletOutputStream output = response.getOutputStream();
+			if (output instanceof HttpOutput) {
+				((HttpOutput) output).sendContent(openedFile);
+			} else {
+				WritableByteChannel outputChannel = Channels.newChannel(output);
+				for (long position = 0; position < length;) {
+					position += openedFile.transferTo(position, length - position, outputChannel);
+				}
+			}
+		}
+		operationMetrics[Operation.DOWNLOAD.ordinal()].record(Outcome.HIT, startTime);
+	}
+
+    /**
+     * Computes the divisor sum of numberString, i.e. the sum of all its divisors, along with its aliquot sum, class, and multiply-perfect index.
+     * @param numberString is an non-zero positive long integer
+     * @return the divisor sum as message and OK as reponseCode. Otherwise, REQUSET_ERROR or INTERNAL_ERROR as responseCode and 
+     * an error message as message
+     */
+	@GetMapping("/divisorSum/{numberString}")
+	public Response<?> divisorSum(@PathVariable String numberString) {
+    	long startTime = System.nanoTime();
+    	long number = LongParser.parse(numberString);
+    	ValidationResult validationResult = validateNumber(number);
+    	if (validationResult != ValidationResult.VALID) {
+    		return record(Operation.DIVISOR_SUM, errorResponse(validationResult), startTime);
+    	}
+    	Response<?> response;
+    	try {
+    		Response<DivisorSum> okResponse = new Response<DivisorSum>();
+    		okResponse.setMessage(perfectNumberService.divisorSum(number));
+    		okResponse.setResponseCode(ResponseCode.OK);
+    		response = okResponse;
+    	} catch (Exception e) {
+			response = handleException(e);
+		}
+    	return record(Operation.DIVISOR_SUM, response, startTime);
+	}
+
+    /**
+     * Finds all multiply perfect numbers between lowerBoundString and upperBoundString, i.e. the numbers whose divisor sums are 
+     * multiples of them. The numbers up to the greatest requested upper bound are kept, so a range within it is not searched again.
+     * @param lowerBoundString is an non-zero positive long integer and equal or less than upperBoundString
+     * @param upperBoundString is an non-zero positive long integer and equal or greater than lowerBoundString, and at most 10^18
+     * @return a list of divisor sums as message, whose multiplyPerfectIndex is k for sigma(n) = k * n, and OK as responseCode. Otherwise, 
+     * REQUSET_ERROR or INTERNAL_ERROR as responseCode and an error message as message
+     */
+	@GetMapping("/multiplyPerfectNumbersInRange/{lowerBoundString}/{upperBoundString}")
+	public Response<?> findMultiplyPerfectNumbers(@PathVariable String lowerBoundString, @PathVariable String upperBoundString) {
+    	long startTime = System.nanoTime();
+    	long lowerBound = LongParser.parse(lowerBoundString);
+    	long upperBound = LongParser.parse(upperBoundString);
+    	ValidationResult validationResult = validateRange(lowerBound, upperBound);
+    	if (validationResult != ValidationResult.VALID) {
+    		return record(Operation.MULTIPLY_PERFECT_IN_RANGE, errorResponse(validationResult), startTime);
+    	}
+    	Response<?> response;
+    	try {
+    		Response<List<DivisorSum>> okResponse = new Response<List<DivisorSum>>();
+    		okResponse.setMessage(perfectNumberService.findMultiplyPerfectNumbers(lowerBound, upperBound));
+    		okResponse.setResponseCode(ResponseCode.OK);
+    		response = okResponse;
+    	} catch (Exception e) {
+			response = handleException(e);
+		}
+    	return record(Operation.MULTIPLY_PERFECT_IN_RANGE, response, startTime);
+	}
+	
+	/**
+	 * Checks if the numbers of a JSON array given as request body are perfect, e.g. [6, 7, 28]. The body is parsed in chunks and 
+	 * the result of each chunk is streamed before the next chunk is parsed, so a batch of any size is processed in a bounded memory.
+	 * @param request contains a JSON array of non-zero positive long integers as body
+	 * @param response receives a JSON object with an array of booleans as message, where the i-th boolean is true if the i-th number 
+	 * is perfect, and OK as responseCode. Otherwise, REQUSET_ERROR or INTERNAL_ERROR as responseCode and an error message as message. 
+	 * If the error is found after some chunks are streamed, message contains the results of those chunks. The response is in CBOR if 
+	 * the Accept header of the request prefers application/cbor.
+	 * @throws IOException if the request cannot be read or the response cannot be written
+	 */
+	@PostMapping(path = "/perfectNumbers", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public void checkAll(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		long startTime = System.nanoTime();
+		long[] numbers = new long[BATCH_CHUNK_LENGTH];
+		StreamedResponse streamedResponse = streamedResponse(request.getHeader(HttpHeaders.ACCEPT), response);
+		try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+			startBatch(parser);
+			int length;
+			do {
+				length = 0;
+				while (length < numbers.length && nextBatchElement(parser)) {
+					numbers[length++] = nextBatchNumber(parser);
+				}
+				boolean[] results = perfectNumberService.checkAll(numbers, length);
+				JsonGenerator generator = streamedResponse.getGenerator();
+				for (int i = 0; i < length; i++) {
+					generator.writeBoolean(results[i]);
+				}
+				generator.flush();
+			} while (length == numbers.length);
+			streamedResponse.end(ResponseCode.OK);
+			operationMetrics[Operation.CHECK_ALL.ordinal()].record(Outcome.HIT, startTime);
+		} catch (Exception e) {
+			ResponseCode responseCode = handleStreamedException(e, streamedResponse, response);
+			operationMetrics[Operation.CHECK_ALL.ordinal()].record(outcomeOf(responseCode), startTime);
+		}
+	}
+	
+	/**
+	 * Finds all perfect numbers in the ranges of a JSON array given as request body, e.g. [[1, 100], [100, 10000]]. Like checkAll, 
+	 * the body is parsed and the response is streamed in chunks.
+	 * @param request contains a JSON array of ranges as body, where a range is an array of two non-zero positive long integers as 
+	 * lower bound and upper bound
+	 * @param response receives a JSON object with an array of lists of perfect numbers as message, where the i-th list contains all perfect 
+	 * numbers in the i-th range, and OK as responseCode. Otherwise, REQUSET_ERROR or INTERNAL_ERROR as responseCode and an error message 
+	 * as message. If the error is found after some chunks are streamed, message contains the results of those chunks. The response is 
+	 * in CBOR if the Accept header of the request prefers application/cbor.
+	 * @throws IOException if the request cannot be read or the response cannot be written
+	 */
+	@PostMapping(path = "/perfectNumbersInRanges", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public void findAllInRanges(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		long startTime = System.nanoTime();
+		long[] lowerBounds = new long[BATCH_CHUNK_LENGTH / 2];
+		long[] upperBounds = new long[BATCH_CHUNK_LENGTH / 2];
+		StreamedResponse streamedResponse = streamedResponse(request.getHeader(HttpHeaders.ACCEPT), response);
+		try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+			startBatch(parser);
+			int length;
+			do {
+				length = 0;
+				while (length < lowerBounds.length && nextBatchElement(parser)) {
+					if (parser.currentToken() != JsonToken.START_ARRAY || !nextBatchElement(parser)) {
+						throw new PerfectNumberException(BATCH_RANGE_ERROR_MESSAGE);
+					}
+					lowerBounds[length] = nextBatchNumber(parser);
+					if (!nextBatchElement(parser)) {
+						throw new PerfectNumberException(BATCH_RANGE_ERROR_MESSAGE);
+					}
+					upperBounds[length++] = nextBatchNumber(parser);
+					if (nextBatchElement(parser)) {
+						throw new PerfectNumberException(BATCH_RANGE_ERROR_MESSAGE);
+					}
+				}
+				long[][] results = perfectNumberService.findAllInRanges(lowerBounds, upperBounds, length);
+				JsonGenerator generator = streamedResponse.getGenerator();
+				for (long[] perfectNumbers : results) {
+					generator.writeArray(perfectNumbers, 0, perfectNumbers.length);
+				}
+				generator.flush();
+			} while (length == lowerBounds.length);
+			streamedResponse.end(ResponseCode.OK);
+			operationMetrics[Operation.FIND_ALL_IN_RANGES.ordinal()].record(Outcome.HIT, startTime);
+		} catch (Exception e) {
+			ResponseCode responseCode = handleStreamedException(e, streamedResponse, response);
+			operationMetrics[Operation.FIND_ALL_IN_RANGES.ordinal()].record(outcomeOf(responseCode), startTime);
+		}
+	}
+
+	/**
+	 * Classifies every number between lowerBoundString and upperBoundString as deficient, perfect, or abundant by its aliquot sum, i.e. 
+	 * the sum of its divisors except itself. The numbers are streamed segment by segment as they are computed. A range whose width is 
+	 * greater than the inline cost of the query executor is classified by the executor.
+	 * @param lowerBoundString is an non-zero positive long integer and equal or less than upperBoundString
+	 * @param upperBoundString is an non-zero positive long integer and equal or greater than lowerBoundString
+	 * @param accept is the Accept header of the request. The response is in CBOR if it prefers application/cbor.
+	 * @param response receives a JSON object with an array of {number, aliquotSum, classification} as message and OK as responseCode. 
+	 * Otherwise, REQUSET_ERROR, INTERNAL_ERROR or OVERLOADED as responseCode and an error message as message.
+	 * @return the streamed response that is run by the query executor, or null if the response is written
+	 * @throws IOException if the response cannot be written
+	 */
+	@GetMapping("/classify/{lowerBoundString}/{upperBoundString}")
+	public StreamingResponseBody classifyRange(@PathVariable String lowerBoundString, @PathVariable String upperBoundString, 
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, HttpServletResponse response) throws IOException {
+		long startTime = System.nanoTime();
+		long lowerBound = LongParser.parse(lowerBoundString);
+		long upperBound = LongParser.parse(upperBoundString);
+		StreamedResponse streamedResponse = streamedResponse(accept, response);
+		ValidationResult validationResult = validateRange(lowerBound, upperBound);
+		if (validationResult != ValidationResult.VALID) {
+			writeResponse(record(Operation.CLASSIFY_RANGE, errorResponse(validationResult), startTime), streamedResponse.getFormat(), 
+					response);
+			return null;
+		}
+		return stream(Operation.CLASSIFY_RANGE, sieveCost(lowerBound, upperBound), startTime, streamedResponse.getFormat(), response, 
+				output -> classifyRange(lowerBound, upperBound, startTime, streamedResponse, response));
+	}
+
+	private void classifyRange(long lowerBound, long upperBound, long startTime, StreamedResponse streamedResponse, 
+			HttpServletResponse response) throws IOException {
+		try {
+			perfectNumberService.classifyRange(lowerBound, upperBound, (firstNumber, aliquotSums, length) -> {
+				try {
+					JsonGenerator generator = streamedResponse.getGenerator();
+					for (int i = 0; i < length; i++) {
+						long number = firstNumber + i;
+						generator.writeStartObject();
+						generator.writeNumberField("number", number);
+						generator.writeNumberField("aliquotSum", aliquotSums[i]);
+						generator.writeStringField("classification", Classification.of(number, aliquotSums[i]).name());
+						generator.writeEndObject();
+					}
+					generator.flush();
+					return true;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			streamedResponse.end(ResponseCode.OK);
+			operationMetrics[Operation.CLASSIFY_RANGE.ordinal()].record(Outcome.HIT, startTime);
+		} catch (UncheckedIOException e) {
+			// The client does not receive the response anymore.
+			throw e.getCause();
+		} catch (Exception e) {
+			ResponseCode responseCode = handleStreamedException(e, streamedResponse, response);
+			operationMetrics[Operation.CLASSIFY_RANGE.ordinal()].record(outcomeOf(responseCode), startTime);
+		}
+	}
+
+	/**
+	 * Submits a job that classifies every number between lowerBoundString and upperBoundString like classify, but in the background, 
+	 * so a wide range is not bound to a single request. The job counts the classes and finds the perfect numbers of the range, which 
+	 * are followed by /rest/jobs/{jobId}/events. The job is run by the threads of the jobs, not by the 
+	 * query executor, so it does not take the cost budget of the interactive queries.
+	 * @param lowerBoundString is an non-zero positive long integer and equal or less than upperBoundString
+	 * @param upperBoundString is an non-zero positive long integer and equal or greater than lowerBoundString
+	 * @return the progress of the job, including its id, as message and OK as responseCode. Otherwise, REQUSET_ERROR, INTERNAL_ERROR or 
+	 * OVERLOADED as responseCode and an error message as message
+	 */
+	@PostMapping("/jobs/classify/{lowerBoundString}/{upperBoundString}")
+	public Response<?> submitJob(@PathVariable String lowerBoundString, @PathVariable String upperBoundString) {
+		long startTime = System.nanoTime();
+		long lowerBound = LongParser.parse(lowerBoundString);
+		long upperBound = LongParser.parse(upperBoundString);
+		ValidationResult validationResult = validateRange(lowerBound, upperBound);
+		if (validationResult != ValidationResult.VALID) {
+			return record(Operation.SUBMIT_JOB, errorResponse(validationResult), startTime);
+		}
+		RangeJob job = rangeJobs.submit(lowerBound, upperBound, perfectNumberService);
+		if (job == null) {
+			return record(Operation.SUBMIT_JOB, overloadedResponse(), startTime);
+		}
+		Response<RangeJobProgress> response = new Response<RangeJobProgress>();
+		response.setMessage(job.getProgress());
+		response.setResponseCode(ResponseCode.OK);
+		return record(Operation.SUBMIT_JOB, response, startTime);
+	}
+
+	/**
+	 * Gets the progress of a range job.
+	 * @param jobIdString identifies the job
+	 * @return the progress of the job as message and OK as responseCode. Otherwise, REQUSET_ERROR or INTERNAL_ERROR as responseCode and 
+	 * an error message as message, e.g. if the job is evicted
+	 */
+	@GetMapping("/jobs/{jobIdString}")
+	public Response<?> findJobProgress(@PathVariable String jobIdString) {
+		long startTime = System.nanoTime();
+		long jobId = LongParser.parse(jobIdString);
+		ValidationResult validationResult = validateId(jobId);
+		if (validationResult != ValidationResult.VALID) {
+			return record(Operation.JOB_PROGRESS, errorResponse(validationResult), startTime);
+		}
+		RangeJob job = rangeJobs.find(jobId);
+		if (job == null) {
+			return record(Operation.JOB_PROGRESS, jobNotFoundResponse(jobId), startTime);
+		}
+		Response<RangeJobProgress> response = new Response<RangeJobProgress>();
+		response.setMessage(job.getProgress());
+		response.setResponseCode(ResponseCode.OK);
+		return record(Operation.JOB_PROGRESS, response, startTime);
+	}
+
+	/**
+	 * Follows a range job by Server-Sent Events, i.e. progress events with the progress of the job as data while it runs, at most every 
+	 * 100 ms, and an end event with its final progress. The job is cancelled when its last follower disconnects.
+	 * @param jobIdString identifies the job
+	 * @return the stream of the events. Otherwise, an error event with REQUSET_ERROR or INTERNAL_ERROR as responseCode and an error 
+	 * message as message, e.g. if the job is evicted
+	 * @throws IOException if the error event cannot be written
+	 */
+	@GetMapping(path = "/jobs/{jobIdString}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter followJob(@PathVariable String jobIdString) throws IOException {
+		long startTime = System.nanoTime();
+		SseEmitter emitter = new SseEmitter();
+		long jobId = LongParser.parse(jobIdString);
+		ValidationResult validationResult = validateId(jobId);
+		RangeJob job = validationResult == ValidationResult.VALID ? rangeJobs.find(jobId) : null;
+		if (job == null) {
+			Response<?> errorResponse = validationResult == ValidationResult.VALID ? jobNotFoundResponse(jobId) 
+					: errorResponse(validationResult);
+			emitter.send(SseEmitter.event().name("error").data(record(Operation.FOLLOW_JOB, errorResponse, startTime), 
+					MediaType.APPLICATION_JSON));
+			emitter.complete();
+			return emitter;
+		}
+		job.subscribe(emitter);
+		operationMetrics[Operation.FOLLOW_JOB.ordinal()].record(Outcome.HIT, startTime);
+		return emitter;
+	}
+
+	/**
+	 * Cancels a range job. The job stops at the next segment of its range, and keeps the partial result of the classified part.
+	 * @param jobIdString identifies the job
+	 * @return the progress of the job as message and OK as responseCode. Otherwise, REQUSET_ERROR or INTERNAL_ERROR as responseCode and 
+	 * an error message as message
+	 */
+	@DeleteMapping("/jobs/{jobIdString}")
+	public Response<?> cancelJob(@PathVariable String jobIdString) {
+		long startTime = System.nanoTime();
+		long jobId = LongParser.parse(jobIdString);
+		ValidationResult validationResult = validateId(jobId);
+		if (validationResult != ValidationResult.VALID) {
+			return record(Operation.CANCEL_JOB, errorResponse(validationResult), startTime);
+		}
+		RangeJob job = rangeJobs.find(jobId);
+		if (job == null) {
+			return record(Operation.CANCEL_JOB, jobNotFoundResponse(jobId), startTime);
+		}
+		job.cancel();
+		Response<RangeJobProgress> response = new Response<RangeJobProgress>();
+		response.setMessage(job.getProgress());
+		response.setResponseCode(ResponseCode.OK);
+		return record(Operation.CANCEL_JOB, response, startTime);
+	}
+
+    /**
+     * Checks if numberString is prime.
+     * @param numberString is an non-zero positive long integer
+     * @return true as message if numberString is prime and OK as reponseCode. Otherwise, REQUSET_ERROR or INTERNAL_ERROR as responseCode 
+     * and an error message as message
+     */
+	@GetMapping("/prime/{numberString}")
+	public Response<?> isPrime(@PathVariable String numberString) {
+    	long startTime = System.nanoTime();
+    	long number = LongParser.parse(numberString);
+    	ValidationResult validationResult = validateNumber(number);
+    	if (validationResult != ValidationResult.VALID) {
+    		return record(Operation.IS_PRIME, errorResponse(validationResult), startTime);
+    	}
+    	Response<?> response;
+    	try {
+    		Response<Boolean> okResponse = new Response<Boolean>();
+    		okResponse.setMessage(perfectNumberService.isPrime(number));
+    		okResponse.setResponseCode(ResponseCode.OK);
+    		response = okResponse;
+    	} catch (Exception e) {
+			response = handleException(e);
+		}
+    	return record(Operation.IS_PRIME, response, startTime);
+	}
+
+	/**
+	 * Finds the primes between lowerBoundString and upperBoundString. The primes are streamed chunk by chunk as they are found. A range 
+	 * whose width is greater than the inline cost of the query executor is processed by the executor.
+	 * @param lowerBoundString is an non-zero positive long integer and equal or less than upperBoundString
+	 * @param upperBoundString is an non-zero positive long integer and equal or greater than lowerBoundString
+	 * @param accept is the Accept header of the request. The response is in CBOR if it prefers application/cbor.
+	 * @param response receives a JSON object with an array of the primes as message and OK as responseCode. Otherwise, REQUSET_ERROR, 
+	 * INTERNAL_ERROR or OVERLOADED as responseCode and an error message as message.
+	 * @return the streamed response that is run by the query executor, or null if the response is written
+	 * @throws IOException if the response cannot be written
+	 */
+	@GetMapping("/primesInRange/{lowerBoundString}/{upperBoundString}")
+	public StreamingResponseBody findPrimesInRange(@PathVariable String lowerBoundString, @PathVariable String upperBoundString, 
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, HttpServletResponse response) throws IOException {
+		long startTime = System.nanoTime();
+		long lowerBound = LongParser.parse(lowerBoundString);
+		long upperBound = LongParser.parse(upperBoundString);
+		StreamedResponse streamedResponse = streamedResponse(accept, response);
+		ValidationResult validationResult = validateRange(lowerBound, upperBound);
+		if (validationResult != ValidationResult.VALID) {
+			writeResponse(record(Operation.PRIMES_IN_RANGE, errorResponse(validationResult), startTime), streamedResponse.getFormat(), 
+					response);
+			return null;
+		}
+		return stream(Operation.PRIMES_IN_RANGE, upperBound - lowerBound + 1, startTime, streamedResponse.getFormat(), response, 
+				output -> findPrimesInRange(lowerBound, upperBound, startTime, streamedResponse, response));
+	}
+
+	private void findPrimesInRange(long lowerBound, long upperBound, long startTime, StreamedResponse streamedResponse, 
+			HttpServletResponse response) throws IOException {
+		try {
+			perfectNumberService.findPrimesInRange(lowerBound, upperBound, (primes, length) -> {
+				try {
+					JsonGenerator generator = streamedResponse.getGenerator();
+					for (int i = 0; i < length; i++) {
+						generator.writeNumber(primes[i]);
+					}
+					generator.flush();
+					return true;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			streamedResponse.end(ResponseCode.OK);
+			operationMetrics[Operation.PRIMES_IN_RANGE.ordinal()].record(Outcome.HIT, startTime);
+		} catch (UncheckedIOException e) {
+			// The client does not receive the response anymore.
+			throw e.getCause();
+		} catch (Exception e) {
+			ResponseCode responseCode = handleStreamedException(e, streamedResponse, response);
+			operationMetrics[Operation.PRIMES_IN_RANGE.ordinal()].record(outcomeOf(responseCode), startTime);
+		}
+	}
+
+	/**
+	 * Computes the aliquot sequence of numberString, i.e. n, s(n), s(s(n)), ..., where s(n) is the sum of the divisors of n except n itself, 
+	 * until it reaches 1, a perfect number, an amicable pair, a sociable cycle, or maximumLength terms. The terms are streamed as they are 
+	 * computed. A sequence whose maximumLength is greater than a few terms is computed by the query executor.
+	 * @param numberString is an non-zero positive long integer
+	 * @param maximumLength is the greatest count of terms between 1 and AliquotSequence.MAXIMUM_LENGTH
+	 * @param accept is the Accept header of the request. The response is in CBOR if it prefers application/cbor.
+	 * @param response receives a JSON object with the terms as message, the length of the sequence and how it ends as sequence, and OK 
+	 * as responseCode. Otherwise, REQUSET_ERROR, INTERNAL_ERROR or OVERLOADED as responseCode and an error message as message.
+	 * @return the streamed response that is run by the query executor, or null if the response is written
+	 * @throws IOException if the response cannot be written
+	 */
+	@GetMapping("/aliquotSequence/{numberString}")
+	public StreamingResponseBody findAliquotSequence(@PathVariable String numberString, @RequestParam(defaultValue = "1000") String maximumLength, 
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, HttpServletResponse response) throws IOException {
+		long startTime = System.nanoTime();
+		long number = LongParser.parse(numberString);
+		int length = LongParser.parseInt(maximumLength);
+		StreamedResponse streamedResponse = streamedResponse(accept, response);
+		ValidationResult validationResult = validateNumber(number);
+		if (validationResult == ValidationResult.VALID) {
+			validationResult = validateMaximumLength(length);
+		}
+		if (validationResult != ValidationResult.VALID) {
+			writeResponse(record(Operation.ALIQUOT_SEQUENCE, errorResponse(validationResult), startTime), streamedResponse.getFormat(), 
+					response);
+			return null;
+		}
+		return stream(Operation.ALIQUOT_SEQUENCE, length * ALIQUOT_TERM_COST, startTime, streamedResponse.getFormat(), response, 
+				output -> findAliquotSequence(number, length, startTime, streamedResponse, response));
+	}
+
+	private void findAliquotSequence(long number, int length, long startTime, StreamedResponse streamedResponse, 
+			HttpServletResponse response) throws IOException {
+		try {
+			AliquotSequence sequence = perfectNumberService.findAliquotSequence(number, length, (terms, termCount) -> {
+				try {
+					JsonGenerator generator = streamedResponse.getGenerator();
+					for (int i = 0; i < termCount; i++) {
+						generator.writeNumber(terms[i]);
+					}
+					generator.flush();
+					return true;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			streamedResponse.end("sequence", sequence, ResponseCode.OK);
+			operationMetrics[Operation.ALIQUOT_SEQUENCE.ordinal()].record(sequence.getCycleLength() > 0 ? Outcome.HIT : Outcome.MISS, 
+					startTime);
+		} catch (UncheckedIOException e) {
+			// The client does not receive the response anymore.
+			throw e.getCause();
+		} catch (Exception e) {
+			ResponseCode responseCode = handleStreamedException(e, streamedResponse, response);
+			operationMetrics[Operation.ALIQUOT_SEQUENCE.ordinal()].record(outcomeOf(responseCode), startTime);
+		}
+	}
+
+	/**
+	 * Leases a work unit of the distributed Mersenne prime search that is coordinated by this node.
+	 * @param token is the token of the workers
+	 * @return the lease as message and OK as responseCode, where message is null if there is no unit to lease. Otherwise, REQUSET_ERROR 
+	 * or INTERNAL_ERROR as responseCode and an error message as message
+	 */
+	@PostMapping("/search/leases")
+	public Response<?> leaseWork(@RequestHeader(value = MersenneSearchWorker.TOKEN_HEADER, required = false) String token) {
+		long startTime = System.nanoTime();
+		if (!isWorker(token)) {
+			return record(Operation.LEASE_WORK, notWorkerResponse(), startTime);
+		}
+		Response<?> response;
+		try {
+			Response<WorkLease> okResponse = new Response<WorkLease>();
+			okResponse.setMessage(perfectNumberService.leaseWork());
+			okResponse.setResponseCode(ResponseCode.OK);
+			response = okResponse;
+		} catch (Exception e) {
+			response = handleException(e);
+		}
+		return record(Operation.LEASE_WORK, response, startTime);
+	}
+
+	/**
+	 * Renews the lease of a work unit, i.e. receives the heartbeat of the worker that tests the unit.
+	 * @param leaseIdString identifies the lease
+	 * @param token is the token of the workers
+	 * @return true as message if the lease is renewed and false if it is lost, and OK as responseCode. Otherwise, REQUSET_ERROR or 
+	 * INTERNAL_ERROR as responseCode and an error message as message
+	 */
+	@PostMapping("/search/leases/{leaseIdString}/renewal")
+	public Response<?> renewLease(@PathVariable String leaseIdString, 
+			@RequestHeader(value = MersenneSearchWorker.TOKEN_HEADER, required = false) String token) {
+		long startTime = System.nanoTime();
+		if (!isWorker(token)) {
+			return record(Operation.RENEW_LEASE, notWorkerResponse(), startTime);
+		}
+		long leaseId = LongParser.parse(leaseIdString);
+		ValidationResult validationResult = validateId(leaseId);
+		if (validationResult != ValidationResult.VALID) {
+			return record(Operation.RENEW_LEASE, errorResponse(validationResult), startTime);
+		}
+		Response<?> response;
+		try {
+			Response<Boolean> okResponse = new Response<Boolean>();
+			okResponse.setMessage(perfectNumberService.renewLease(leaseId));
+			okResponse.setResponseCode(ResponseCode.OK);
+			response = okResponse;
+		} catch (Exception e) {
+			response = handleException(e);
+		}
+		return record(Operation.RENEW_LEASE, response, startTime);
+	}
+
+	/**
+	 * Saves the checkpoint of a Lucas-Lehmer test of a leased work unit and renews the lease.
+	 * @param leaseIdString identifies the lease
+	 * @param exponentString is an exponent of the unit
+	 * @param iterationString is the count of iterations of the test
+	 * @param residue is the two's-complement representation of the residue of the test, like in the store of the search
+	 * @param token is the token of the workers
+	 * @return true as message if the checkpoint is saved and false if the lease is lost, and OK as responseCode. Otherwise, REQUSET_ERROR 
+	 * or INTERNAL_ERROR as responseCode and an error message as message
+	 */
+	@PutMapping(path = "/search/leases/{leaseIdString}/checkpoints/{exponentString}/{iterationString}", 
+			consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	public Response<?> saveCheckpoint(@PathVariable String leaseIdString, @PathVariable String exponentString, 
+			@PathVariable String iterationString, @RequestBody byte[] residue, 
+			@RequestHeader(value = MersenneSearchWorker.TOKEN_HEADER, required = false) String token) {
+		long startTime = System.nanoTime();
+		if (!isWorker(token)) {
+			return record(Operation.SAVE_CHECKPOINT, notWorkerResponse(), startTime);
+		}
+		long leaseId = LongParser.parse(leaseIdString);
+		int exponent = LongParser.parseInt(exponentString);
+		int iteration = LongParser.parseInt(iterationString);
+		ValidationResult validationResult = validateId(leaseId);
+		if (exponent == LongParser.NOT_AN_INT || iteration == LongParser.NOT_AN_INT) {
+			validationResult = ValidationResult.NOT_AN_INTEGER;
+		}
+		if (validationResult != ValidationResult.VALID) {
+			return record(Operation.SAVE_CHECKPOINT, errorResponse(validationResult), startTime);
+		}
+		Response<?> response;
+		try {
+			LucasLehmerCheckpoint checkpoint = new LucasLehmerCheckpoint(exponent, iteration, new BigInteger(residue));
+			Response<Boolean> okResponse = new Response<Boolean>();
+			okResponse.setMessage(perfectNumberService.saveCheckpoint(leaseId, checkpoint));
+			okResponse.setResponseCode(ResponseCode.OK);
+			response = okResponse;
+		} catch (Exception e) {
+			response = handleException(e);
+		}
+		return record(Operation.SAVE_CHECKPOINT, response, startTime);
+	}
+
+	/**
+	 * Receives the result of a leased work unit.
+	 * @param leaseIdString identifies the lease
+	 * @param body is a JSON array of the Mersenne prime exponents of the unit
+	 * @param token is the token of the workers
+	 * @return true as message if the result is accepted and false if the lease is lost, and OK as responseCode. Otherwise, REQUSET_ERROR 
+	 * or INTERNAL_ERROR as responseCode and an error message as message
+	 */
+	@PostMapping(path = "/search/leases/{leaseIdString}/result", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public Response<?> completeWork(@PathVariable String leaseIdString, @RequestBody(required = false) byte[] body, 
+			@RequestHeader(value = MersenneSearchWorker.TOKEN_HEADER, required = false) String token) {
+		long startTime = System.nanoTime();
+		if (!isWorker(token)) {
+			return record(Operation.COMPLETE_WORK, notWorkerResponse(), startTime);
+		}
+		long leaseId = LongParser.parse(leaseIdString);
+		ValidationResult validationResult = validateId(leaseId);
+		if (validationResult != ValidationResult.VALID) {
+			return record(Operation.COMPLETE_WORK, errorResponse(validationResult), startTime);
+		}
+		Response<?> response;
+		try {
+			Integer[] exponents;
+			try {
+				exponents = body == null ? null : objectMapper.readValue(body, Integer[].class);
+			} catch (JsonProcessingException e) {
+				exponents = null;
+			}
+			if (exponents == null || Arrays.asList(exponents).contains(null)) {
+				throw new PerfectNumberException("The request body must be a JSON array of Mersenne prime exponents.");
+			}
+			Response<Boolean> okResponse = new Response<Boolean>();
+			okResponse.setMessage(perfectNumberService.completeWork(leaseId, Arrays.asList(exponents)));
+			okResponse.setResponseCode(ResponseCode.OK);
+			response = okResponse;
+		} catch (Exception e) {
+			response = handleException(e);
+		}
+		return record(Operation.COMPLETE_WORK, response, startTime);
+	}
+
+	/**
+	 * Gets the Mersenne prime exponents that are found so far by this node, including the ones found by its workers if it coordinates 
+	 * a distributed search.
+	 * @return the smallest exponent that is not tested yet and all Mersenne prime exponents less than it as message and OK as responseCode
+	 */
+	@GetMapping("/search/state")
+	public Response<?> getSearchState() {
+		long startTime = System.nanoTime();
+		Response<?> response;
+		try {
+			Response<SearchState> okResponse = new Response<SearchState>();
+			okResponse.setMessage(perfectNumberService.getSearchState());
+			okResponse.setResponseCode(ResponseCode.OK);
+			response = okResponse;
+		} catch (Exception e) {
+			response = handleException(e);
+		}
+		return record(Operation.SEARCH_STATE, response, startTime);
+	}
+
+	/**
+	 * Writes a response in the calling thread if it is cheap, otherwise gives it to the query executor if it is admitted. 
+	 * A rejected response is answered at once with OVERLOADED as responseCode.
+	 * @param operation is the operation of the response
+	 * @param cost is the estimated cost of the response
+	 * @param startTime is the value of System.nanoTime() when the request is received
+	 * @param format is the format of the rejection
+	 * @param response receives the response
+	 * @param body writes the response
+	 * @return the body that is run by the query executor, or null if the response is written
+	 * @throws IOException if the response cannot be written
+	 */
+	private StreamingResponseBody stream(Operation operation, long cost, long startTime, ResponseFormat format, 
+			HttpServletResponse response, StreamingResponseBody body) throws IOException {
+		if (queryExecutor.isInline(cost)) {
+			body.writeTo(response.getOutputStream());
+			return null;
+		}
+		if (!queryExecutor.admit(cost)) {
+			writeResponse(record(operation, overloadedResponse(), startTime), format, response);
+			return null;
+		}
+		return output -> {
+			try {
+				body.writeTo(output);
+			} finally {
+				queryExecutor.release(cost);
+			}
+		};
+	}
+
+	private void startBatch(JsonParser parser) throws IOException, PerfectNumberException {
+		if (parser.nextToken() != JsonToken.START_ARRAY) {
+			throw new PerfectNumberException("The request body must be a JSON array.");
+		}
+	}
+	
+	/**
+	 * Moves to the next element of the current JSON array.
+	 * @return false if the end of the array is reached
+	 */
+	private boolean nextBatchElement(JsonParser parser) throws IOException, PerfectNumberException {
+		JsonToken token = parser.nextToken();
+		if (token == null) {
+			throw new PerfectNumberException("The request body must be a complete JSON array.");
+		}
+		return token != JsonToken.END_ARRAY;
+	}
+	
+	private long nextBatchNumber(JsonParser parser) throws IOException, PerfectNumberException {
+		if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT || parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+			throw new PerfectNumberException("The array elements must be integers between 1 and " + Long.MAX_VALUE + ".");
+		}
+		return parser.getLongValue();
+	}
+	
+	private <T extends Response<?>> T record(Operation operation, T response, long startTime) {
+		operationMetrics[operation.ordinal()].record(outcomeOf(response), startTime);
+		return response;
+	}
+	
+	/**
+	 * Finds the outcome of a response. An OK response is a miss if it has no result, i.e. false, zero, null, or an empty list.
+	 */
+	private static Outcome outcomeOf(Response<?> response) {
+		if (response.getResponseCode() != ResponseCode.OK) {
+			return outcomeOf(response.getResponseCode());
+		}
+		Object message = response.getMessage();
+		boolean miss = message == null || Boolean.FALSE.equals(message) || Integer.valueOf(0).equals(message) 
+				|| message instanceof List && ((List<?>) message).isEmpty();
+		return miss ? Outcome.MISS : Outcome.HIT;
+	}
+	
+	private static Outcome outcomeOf(ResponseCode responseCode) {
+		switch (responseCode) {
+		case OK:
+			return Outcome.HIT;
+		case REQUEST_ERROR:
+			return Outcome.REQUEST_ERROR;
+		case OVERLOADED:
+			return Outcome.REJECTED;
+		default:
+			return Outcome.INTERNAL_ERROR;
+		}
+	}
+	
+	/**
+	 * Estimates the cost of finding the index-th perfect number. A perfect number of the searched exponents costs a Lucas-Lehmer test of 
+	 * its exponent, e.g. to check or convert it. Otherwise, the search tests every prime exponent p from the searched exponent s, at the 
+	 * cost p^2, until it finds the index-th one or passes MersennePrimeSearch.MAXIMUM_EXPONENT. The exponent of the n-th Mersenne prime 
+	 * is about 2^(n / e^gamma) [Wagstaff, Samuel S. "Divisors of Mersenne numbers." Mathematics of Computation 40.161 (1983): 385-397.], 
+	 * and the known ones up to MAXIMUM_EXPONENT are about within four times the estimate. So the search is expected to stop at the 
+	 * bound m that is four times the estimate, or at MAXIMUM_EXPONENT if s is beyond it. By the prime number theorem, there are about 
+	 * dp / ln p prime exponents around p, so the sum of their costs is about (m^3 - s^3) / (3 ln m).
+	 * @param index is a valid index of a perfect number
+	 */
+	private long findByIndexCost(int index) {
+		SearchState state = perfectNumberService.getSearchState();
+		if (index <= state.getExponents().size()) {
+			return lucasLehmerCost(state.getExponents().get(index - 1));
+		}
+		double searchedExponent = Math.min(state.getSearchedExponent(), MersennePrimeSearch.MAXIMUM_EXPONENT);
+		double maximumExponent = Math.min(4 * Math.pow(2, index * INVERSE_EXP_GAMMA), MersennePrimeSearch.MAXIMUM_EXPONENT);
+		if (maximumExponent <= searchedExponent) {
+			maximumExponent = MersennePrimeSearch.MAXIMUM_EXPONENT;
+		}
+		double cost = (Math.pow(maximumExponent, 3) - Math.pow(searchedExponent, 3)) / (3 * Math.log(maximumExponent));
+		return (long) Math.min(cost, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Estimates the cost of the divisor sum sieve of a valid range, i.e. its width in addition to the square root of its upper bound. 
+	 * The cost saturates at Long.MAX_VALUE, since a negative cost would run the widest ranges in the request thread without admission.
+	 */
+	private static long sieveCost(long lowerBound, long upperBound) {
+		long width = upperBound - lowerBound + 1;
+		long squareRoot = (long) Math.sqrt(upperBound);
+		return width > Long.MAX_VALUE - squareRoot ? Long.MAX_VALUE : width + squareRoot;
+	}
+	
+	/**
+	 * Estimates the cost of the Lucas-Lehmer test of an exponent p, i.e. p squarings of p bits.
+	 */
+	private static long lucasLehmerCost(double exponent) {
+		return (long) Math.min(exponent * exponent, Long.MAX_VALUE);
+	}
+	
+	private static Response<?> overloadedResponse() {
+		Response<String> response = new Response<String>();
+		response.setMessage(OVERLOADED_MESSAGE);
+		response.setResponseCode(ResponseCode.OVERLOADED);
+		return response;
+	}
+	
+	private static Response<?> notWorkerResponse() {
+		Response<String> response = new Response<String>();
+		response.setMessage(NOT_A_WORKER_MESSAGE);
+		response.setResponseCode(ResponseCode.REQUEST_ERROR);
+		return response;
+	}
+	
+	/**
+	 * Checks if a request of the distributed search is sent by a worker. The tokens are compared in constant time, so a token is not 
+	 * guessed by the time of the responses.
+	 * @param token is the value of the TOKEN_HEADER header, or null if there is no such header
+	 * @return true if token is the token of the workers, or false if it is not or no worker is accepted
+	 */
+	private boolean isWorker(String token) {
+		return !workerToken.isEmpty() && token != null 
+				&& MessageDigest.isEqual(workerToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static Response<?> jobNotFoundResponse(long jobId) {
+		Response<String> response = new Response<String>();
+		response.setMessage("There is no job " + jobId + ". A finished job may be evicted by the newer jobs.");
+		response.setResponseCode(ResponseCode.REQUEST_ERROR);
+		return response;
+	}
+	
+	private static ValidationResult validateNumber(long number) {
+		return number == LongParser.NOT_A_NUMBER ? ValidationResult.NOT_AN_INTEGER : ValidationResult.ofNumber(number);
+	}
+	
+	private static ValidationResult validateIndex(int index) {
+		return index == LongParser.NOT_AN_INT ? ValidationResult.NOT_AN_INTEGER : ValidationResult.ofIndex(index);
+	}
+	
+	private static ValidationResult validateId(long id) {
+		return id == LongParser.NOT_A_NUMBER ? ValidationResult.NOT_AN_INTEGER : ValidationResult.ofId(id);
+	}
+	
+	private static ValidationResult validateMaximumLength(int maximumLength) {
+		return maximumLength == LongParser.NOT_AN_INT ? ValidationResult.NOT_AN_INTEGER : ValidationResult.ofMaximumLength(maximumLength);
+	}
+	
+	private static ValidationResult validateRange(long lowerBound, long upperBound) {
+		if (lowerBound == LongParser.NOT_A_NUMBER || upperBound == LongParser.NOT_A_NUMBER) {
+			return ValidationResult.NOT_AN_INTEGER;
+		}
+		return ValidationResult.ofRange(lowerBound, upperBound);
+	}
+	
+	private static Response<?> errorResponse(ValidationResult validationResult) {
+		Response<String> response = new Response<String>();
+		response.setMessage(validationResult.getMessage());
+		response.setResponseCode(ResponseCode.of(validationResult));
+		return response;
+	}
+	
+	private PerfectNumberFormat parseFormat(String format) throws PerfectNumberException {
+		for (PerfectNumberFormat perfectNumberFormat : PerfectNumberFormat.values()) {
+			if (perfectNumberFormat.name().equalsIgnoreCase(format)) {
+				return perfectNumberFormat;
+			}
+		}
+		throw new PerfectNumberException("The format must be decimal or binary.");
+	}
+	
+	private ResponseCode handleStreamedException(Exception e, StreamedResponse streamedResponse, HttpServletResponse response) 
+			throws IOException {
+		// A malformed body is reported as a request error like an invalid number.
+		Exception exception = e instanceof JsonProcessingException ? new PerfectNumberException(BATCH_ERROR_MESSAGE) : e;
+		Response<?> errorResponse = handleException(exception);
+		if (streamedResponse.isStarted()) {
+			streamedResponse.end(errorResponse.getResponseCode());
+		} else {
+			writeResponse(errorResponse, streamedResponse.getFormat(), response);
+		}
+		return errorResponse.getResponseCode();
+	}
+	
+	private void writeResponse(Response<?> jsonResponse, ResponseFormat format, HttpServletResponse response) throws IOException {
+		response.setContentType(format.getMediaType().toString());
+		mapperOf(format).writeValue(response.getOutputStream(), jsonResponse);
+	}
+
+	/**
+	 * Creates a streamed response in the format that is preferred by an Accept header.
+	 */
+	private StreamedResponse streamedResponse(String accept, HttpServletResponse response) {
+		ResponseFormat format = ResponseFormat.of(accept);
+		return new StreamedResponse(response, format, mapperOf(format).getFactory());
+	}
+
+	private ObjectMapper mapperOf(ResponseFormat format) {
+		return format == ResponseFormat.CBOR ? cborMapper : objectMapper;
 	}
 
 	private Response<?> handleException(Exception e) {
@@ -76,7 +1296,7 @@ public class PerfectNumberController {
 			notOkResponse.setResponseCode(ResponseCode.REQUEST_ERROR);
 		} else if (e instanceof NumberFormatException) {
 			// Thrown if the inputs are not in the form of long integer.
-			notOkResponse.setMessage("The input parameter(s) must be an integer between 1 and " + Long.MAX_VALUE + ".");
+			notOkResponse.setMessage(ValidationResult.NOT_AN_INTEGER.getMessage());
 			notOkResponse.setResponseCode(ResponseCode.REQUEST_ERROR);
 		} else {
 			notOkResponse.setMessage("There is some internal problems. Please try later.");
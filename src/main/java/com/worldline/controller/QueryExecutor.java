@@ -0,0 +1,179 @@
+package com.worldline.controller;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs the expensive queries on a dedicated bounded pool, so a huge range or a long Mersenne prime search does not hold the request 
+ * threads that serve the cheap lookups. The cost of a query is an estimation of its work in elementary steps, e.g. a number of 
+ * a classified range or a bit of a Lucas-Lehmer iteration. Queries that cost at most inlineCost are run in the calling thread. 
+ * Other queries are admitted while the pool has less than threads + queueLength queries and their total cost is at most maximumCost, 
+ * otherwise they are rejected at once instead of waiting. The pool also runs the asynchronous responses of Spring MVC, i.e. 
+ * the streamed responses of the expensive queries.
+ * @author mohsen
+ *
+ */
+@Component
+public class QueryExecutor implements WebMvcConfigurer {
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Is the greatest count of queries that are running or queued.
+	 */
+	private final int maximumQueries;
+
+	/**
+	 * Is the greatest total cost of the queries that are running or queued. A query that costs more is admitted alone.
+	 */
+	private final long maximumCost;
+
+	private final long inlineCost;
+
+	private final AtomicInteger admittedQueries = new AtomicInteger();
+
+	private final AtomicLong admittedCost = new AtomicLong();
+
+	/**
+	 * Creates the pool of the expensive queries.
+	 * @param threads is the count of threads, or zero for the count of available processors
+	 * @param queueLength is the greatest count of queries that wait for a thread
+	 * @param maximumCost is the greatest total cost of the running and waiting queries
+	 * @param inlineCost is the greatest cost of a query that is run in the calling thread
+	 */
+	@Autowired
+	public QueryExecutor(@Value("${perfectnumber.executor.threads:0}") int threads, 
+			@Value("${perfectnumber.executor.queue-length:64}") int queueLength, 
+			@Value("${perfectnumber.executor.maximum-cost:100000000000}") long maximumCost, 
+			@Value("${perfectnumber.executor.inline-cost:100000}") long inlineCost) {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable, "query-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), 
+				threadFactory);
+		this.maximumQueries = poolSize + queueLength;
+		this.maximumCost = maximumCost;
+		this.inlineCost = inlineCost;
+	}
+
+	/**
+	 * Runs the asynchronous responses on the pool. They are not timed out, like the synchronous responses.
+	 */
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(new ConcurrentTaskExecutor(this.executor));
+		configurer.setDefaultTimeout(-1);
+	}
+
+	/**
+	 * Stops the threads of the pool.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		this.executor.shutdown();
+	}
+
+	/**
+	 * @param cost is the estimated cost of a query
+	 * @return true if the query is cheap enough to run in the calling thread
+	 */
+	public boolean isInline(long cost) {
+		return cost <= this.inlineCost;
+	}
+
+	/**
+	 * Admits a query to the pool if there is room for it. An admitted query must be released when it is finished.
+	 * @param cost is the estimated cost of the query
+	 * @return true if the query is admitted, or false if it must be rejected
+	 */
+	public boolean admit(long cost) {
+		if (this.admittedQueries.incrementAndGet() > this.maximumQueries) {
+			this.admittedQueries.decrementAndGet();
+			return false;
+		}
+		long weight = weigh(cost);
+		long admittedCost;
+		do {
+			admittedCost = this.admittedCost.get();
+			if (admittedCost > 0 && admittedCost + weight > this.maximumCost) {
+				this.admittedQueries.decrementAndGet();
+				return false;
+			}
+		} while (!this.admittedCost.compareAndSet(admittedCost, admittedCost + weight));
+		return true;
+	}
+
+	/**
+	 * Releases a finished query that is admitted.
+	 * @param cost is the estimated cost that the query is admitted with
+	 */
+	public void release(long cost) {
+		this.admittedCost.addAndGet(-weigh(cost));
+		this.admittedQueries.decrementAndGet();
+	}
+
+	/**
+	 * Runs a query in the calling thread if it is cheap, otherwise on the pool if it is admitted.
+	 * @param cost is the estimated cost of the query
+	 * @param query computes the result
+	 * @param rejection gives the result of a rejected query
+	 * @return the result of the query, or of rejection if the query is not admitted
+	 */
+	public <T> DeferredResult<T> submit(long cost, Supplier<T> query, Supplier<T> rejection) {
+		DeferredResult<T> result = new DeferredResult<T>();
+		if (isInline(cost)) {
+			result.setResult(query.get());
+		} else if (!admit(cost)) {
+			result.setResult(rejection.get());
+		} else {
+			try {
+				this.executor.execute(() -> {
+					// The query is released before its result is set, so the pool has room for a query that follows the result.
+					try {
+						T value;
+						try {
+							value = query.get();
+						} finally {
+							release(cost);
+						}
+						result.setResult(value);
+					} catch (RuntimeException e) {
+						result.setErrorResult(e);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				release(cost);
+				result.setResult(rejection.get());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Bounds the cost of a query, so a huge query is admitted when the pool is idle and the total cost does not overflow.
+	 */
+	private long weigh(long cost) {
+		return Math.min(Math.max(cost, 0), this.maximumCost);
+	}
+
+}
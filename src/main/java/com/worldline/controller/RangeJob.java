@@ -0,0 +1,210 @@
+package com.worldline.controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.worldline.service.Classification;
+import com.worldline.service.PerfectNumberException;
+import com.worldline.service.api.PerfectNumberService;
+
+/**
+ * Classifies a range in the background and streams its progress to its subscribers as Server-Sent Events, i.e. a progress event at most
+ * every PROGRESS_INTERVAL nanoseconds while it runs and an end event when it is finished. The job is cancelled cooperatively: the divisor
+ * sum sieve is stopped at the next segment when the job is cancelled or its last subscriber is gone, e.g. because the client disconnects.
+ * Only the counts of the classes and the perfect numbers are kept, so a job takes a bounded memory whatever its range.
+ * @author mohsen
+ *
+ */
+public class RangeJob {
+
+	/**
+	 * Is the least time in nanoseconds between two progress events.
+	 */
+	static final long PROGRESS_INTERVAL = 100000000;
+
+	private static final String PROGRESS_EVENT = "progress";
+
+	private static final String END_EVENT = "end";
+
+	private final long id;
+
+	private final long lowerBound;
+
+	private final long upperBound;
+
+	private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<SseEmitter>();
+
+	private volatile boolean cancelled;
+
+	private RangeJobStatus status = RangeJobStatus.RUNNING;
+
+	private long classifiedCount;
+
+	private long deficientCount;
+
+	private long abundantCount;
+
+	private final List<Long> perfectNumbers = new ArrayList<Long>();
+
+	private String message;
+
+	public RangeJob(long id, long lowerBound, long upperBound) {
+		this.id = id;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+	}
+
+	public long getId() {
+		return this.id;
+	}
+
+	public long getLowerBound() {
+		return this.lowerBound;
+	}
+
+	public long getUpperBound() {
+		return this.upperBound;
+	}
+
+	/**
+	 * Classifies the range until it is finished or the job is cancelled, and then ends the streams of the subscribers.
+	 * @param perfectNumberService classifies the range by the divisor sum sieve
+	 */
+	public void run(PerfectNumberService perfectNumberService) {
+		long[] progressTime = {System.nanoTime()};
+		try {
+			if (!this.cancelled) {
+				perfectNumberService.classifyRange(this.lowerBound, this.upperBound, (firstNumber, aliquotSums, length) -> {
+					if (this.cancelled) {
+						return false;
+					}
+					add(firstNumber, aliquotSums, length);
+					if (System.nanoTime() - progressTime[0] >= PROGRESS_INTERVAL) {
+						publish(PROGRESS_EVENT, getProgress());
+						progressTime[0] = System.nanoTime();
+					}
+					return !this.cancelled;
+				});
+			}
+			finish(this.cancelled ? RangeJobStatus.CANCELLED : RangeJobStatus.COMPLETED, null);
+		} catch (PerfectNumberException e) {
+			finish(RangeJobStatus.FAILED, e.getMessage());
+		} catch (RuntimeException e) {
+			finish(RangeJobStatus.FAILED, "There is some internal problems. Please try later.");
+			throw e;
+		}
+	}
+
+	/**
+	 * Stops the job at the next segment of the range. A finished job is not changed.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Streams the progress of the job to a subscriber, starting by the current progress. The stream of a finished job is only its end
+	 * event. The job is cancelled when its last subscriber completes, fails, or times out.
+	 * @param emitter is the stream of the subscriber
+	 */
+	public void subscribe(SseEmitter emitter) {
+		emitter.onCompletion(() -> unsubscribe(emitter));
+		emitter.onTimeout(() -> unsubscribe(emitter));
+		emitter.onError(e -> unsubscribe(emitter));
+		RangeJobProgress progress;
+		synchronized (this) {
+			progress = getProgress();
+			if (!this.status.isFinished()) {
+				this.subscribers.add(emitter);
+			}
+		}
+		if (progress.getStatus().isFinished()) {
+			send(emitter, END_EVENT, progress);
+			emitter.complete();
+		} else {
+			send(emitter, PROGRESS_EVENT, progress);
+		}
+	}
+
+	/**
+	 * Removes a subscriber, and cancels the running job if it was the last one.
+	 */
+	void unsubscribe(SseEmitter emitter) {
+		if (this.subscribers.remove(emitter) && this.subscribers.isEmpty()) {
+			cancel();
+		}
+	}
+
+	public synchronized RangeJobProgress getProgress() {
+		return new RangeJobProgress(this.id, this.lowerBound, this.upperBound, this.status, this.classifiedCount, this.deficientCount,
+				this.abundantCount, Collections.unmodifiableList(new ArrayList<Long>(this.perfectNumbers)), this.message);
+	}
+
+	public synchronized RangeJobStatus getStatus() {
+		return this.status;
+	}
+
+	private void add(long firstNumber, long[] aliquotSums, int length) {
+		long deficientCount = 0;
+		long abundantCount = 0;
+		List<Long> perfectNumbers = new ArrayList<Long>(0);
+		for (int i = 0; i < length; i++) {
+			Classification classification = Classification.of(firstNumber + i, aliquotSums[i]);
+			if (classification == Classification.DEFICIENT) {
+				deficientCount++;
+			} else if (classification == Classification.ABUNDANT) {
+				abundantCount++;
+			} else {
+				perfectNumbers.add(firstNumber + i);
+			}
+		}
+		synchronized (this) {
+			this.classifiedCount += length;
+			this.deficientCount += deficientCount;
+			this.abundantCount += abundantCount;
+			this.perfectNumbers.addAll(perfectNumbers);
+		}
+	}
+
+	private void finish(RangeJobStatus status, String message) {
+		RangeJobProgress progress;
+		synchronized (this) {
+			// A job that is cancelled after its last segment is completed.
+			boolean classified = this.classifiedCount == this.upperBound - this.lowerBound + 1;
+			this.status = status == RangeJobStatus.CANCELLED && classified ? RangeJobStatus.COMPLETED : status;
+			this.message = message;
+			progress = getProgress();
+		}
+		publish(END_EVENT, progress);
+		for (SseEmitter emitter : this.subscribers) {
+			emitter.complete();
+		}
+		this.subscribers.clear();
+	}
+
+	private void publish(String name, RangeJobProgress progress) {
+		for (SseEmitter emitter : this.subscribers) {
+			send(emitter, name, progress);
+		}
+	}
+
+	private void send(SseEmitter emitter, String name, RangeJobProgress progress) {
+		try {
+			emitter.send(SseEmitter.event().name(name).data(progress, MediaType.APPLICATION_JSON));
+		} catch (IOException e) {
+			// The subscriber is gone.
+			unsubscribe(emitter);
+			emitter.completeWithError(e);
+		} catch (IllegalStateException e) {
+			// The stream is already complete.
+			unsubscribe(emitter);
+		}
+	}
+
+}
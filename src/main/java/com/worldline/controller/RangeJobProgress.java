@@ -0,0 +1,95 @@
+package com.worldline.controller;
+
+import java.util.List;
+
+/**
+ * Is a snapshot of a range job, i.e. its status, how much of its range is classified, and the partial result of the classified part.
+ * @author mohsen
+ *
+ */
+public class RangeJobProgress {
+
+	private final long id;
+
+	private final long lowerBound;
+
+	private final long upperBound;
+
+	private final RangeJobStatus status;
+
+	/**
+	 * Is the count of the classified numbers from lowerBound on.
+	 */
+	private final long classifiedCount;
+
+	private final long deficientCount;
+
+	private final long abundantCount;
+
+	/**
+	 * Are the perfect numbers of the classified part in increasing order.
+	 */
+	private final List<Long> perfectNumbers;
+
+	/**
+	 * Is the error message of a failed job, or null.
+	 */
+	private final String message;
+
+	public RangeJobProgress(long id, long lowerBound, long upperBound, RangeJobStatus status, long classifiedCount, long deficientCount,
+			long abundantCount, List<Long> perfectNumbers, String message) {
+		this.id = id;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+		this.status = status;
+		this.classifiedCount = classifiedCount;
+		this.deficientCount = deficientCount;
+		this.abundantCount = abundantCount;
+		this.perfectNumbers = perfectNumbers;
+		this.message = message;
+	}
+
+	public long getId() {
+		return this.id;
+	}
+
+	public long getLowerBound() {
+		return this.lowerBound;
+	}
+
+	public long getUpperBound() {
+		return this.upperBound;
+	}
+
+	public RangeJobStatus getStatus() {
+		return this.status;
+	}
+
+	public long getClassifiedCount() {
+		return this.classifiedCount;
+	}
+
+	/**
+	 * Gets the classified part of the range in percent.
+	 */
+	public double getPercentComplete() {
+		return 100.0 * this.classifiedCount / (this.upperBound - this.lowerBound + 1);
+	}
+
+	public long getDeficientCount() {
+		return this.deficientCount;
+	}
+
+	public long getAbundantCount() {
+		return this.abundantCount;
+	}
+
+	public List<Long> getPerfectNumbers() {
+		return this.perfectNumbers;
+	}
+
+	public String getMessage() {
+		return this.message;
+	}
+
+}
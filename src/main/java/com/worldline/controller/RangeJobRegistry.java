@@ -0,0 +1,135 @@
+package com.worldline.controller;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.worldline.service.api.PerfectNumberService;
+
+/**
+ * Keeps at most capacity range jobs by their ids, so their progress can be followed and they can be cancelled. When the registry is full,
+ * the oldest finished job is evicted for a new job, and a new job is rejected if all jobs are running, so the memory of the jobs is
+ * bounded. The jobs are run by their own pool of threads, so they do not take the threads or the cost budget of the query executor, 
+ * and a wide job does not overload the interactive queries.
+ * @author mohsen
+ *
+ */
+@Component
+public class RangeJobRegistry {
+
+	private final int capacity;
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Are the jobs in the order of their creation.
+	 */
+	private final Map<Long, RangeJob> jobs = new LinkedHashMap<Long, RangeJob>();
+
+	private long lastId;
+
+	/**
+	 * Creates a registry.
+	 * @param capacity is the greatest count of running and finished jobs
+	 * @param threads is the count of threads that run the jobs
+	 */
+	@Autowired
+	public RangeJobRegistry(@Value("${perfectnumber.jobs.capacity:64}") int capacity, 
+			@Value("${perfectnumber.jobs.threads:1}") int threads) {
+		this.capacity = capacity;
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable, "job-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(capacity), 
+				threadFactory);
+	}
+
+	/**
+	 * Stops the threads of the pool.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Creates a job, registers it and runs it on the pool of the jobs.
+	 * @param lowerBound is the lower bound of the range of the job
+	 * @param upperBound is the upper bound of the range of the job
+	 * @param perfectNumberService classifies the range
+	 * @return the new job, or null if the registry is full of running jobs or the pool rejects the job
+	 */
+	public RangeJob submit(long lowerBound, long upperBound, PerfectNumberService perfectNumberService) {
+		RangeJob job = create(lowerBound, upperBound);
+		if (job == null) {
+			return null;
+		}
+		try {
+			this.executor.execute(() -> job.run(perfectNumberService));
+			return job;
+		} catch (RejectedExecutionException e) {
+			remove(job);
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a job and registers it.
+	 * @param lowerBound is the lower bound of the range of the job
+	 * @param upperBound is the upper bound of the range of the job
+	 * @return the new job, or null if the registry is full of running jobs
+	 */
+	public synchronized RangeJob create(long lowerBound, long upperBound) {
+		if (this.jobs.size() >= this.capacity && !evictFinishedJob()) {
+			return null;
+		}
+		RangeJob job = new RangeJob(++this.lastId, lowerBound, upperBound);
+		this.jobs.put(job.getId(), job);
+		return job;
+	}
+
+	/**
+	 * Finds a job.
+	 * @return the job whose id is given, or null if it is not registered or is evicted
+	 */
+	public synchronized RangeJob find(long id) {
+		return this.jobs.get(id);
+	}
+
+	/**
+	 * Removes a job, e.g. a job that is rejected by the pool of the jobs.
+	 */
+	public synchronized void remove(RangeJob job) {
+		this.jobs.remove(job.getId());
+	}
+
+	public synchronized int size() {
+		return this.jobs.size();
+	}
+
+	private boolean evictFinishedJob() {
+		for (Iterator<RangeJob> iterator = this.jobs.values().iterator(); iterator.hasNext();) {
+			if (iterator.next().getStatus().isFinished()) {
+				iterator.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.worldline.controller;
+
+/**
+ * Is the status of a range job.
+ * @author mohsen
+ *
+ */
+public enum RangeJobStatus {
+	// The range is being classified, or waits for a thread of the jobs.
+	RUNNING,
+	// The whole range is classified.
+	COMPLETED,
+	// The job is cancelled, or its last subscriber is gone, before the whole range is classified.
+	CANCELLED,
+	// The range cannot be classified, e.g. it is too large.
+	FAILED;
+
+	public boolean isFinished() {
+		return this != RUNNING;
+	}
+}
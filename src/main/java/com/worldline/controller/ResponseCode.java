@@ -1,5 +1,7 @@
 package com.worldline.controller;
 
+import com.worldline.service.ValidationResult;
+
 /**
  * Specifies response codes returned by perfect number controller.
  * @author mohsen
@@ -11,5 +13,16 @@ public enum ResponseCode {
 	// Some problems to processe input numbers
 	REQUEST_ERROR,
 	// Some unknown problems
-	INTERNAL_ERROR
+	INTERNAL_ERROR,
+	// Too many expensive requests are being processed. The request can be sent again later.
+	OVERLOADED;
+	
+	/**
+	 * Maps the validation result of the inputs of a request to a response code.
+	 * @param validationResult is the validation result of the inputs
+	 * @return OK if the inputs are valid, otherwise REQUEST_ERROR
+	 */
+	public static ResponseCode of(ValidationResult validationResult) {
+		return validationResult == ValidationResult.VALID ? OK : REQUEST_ERROR;
+	}
 }
@@ -0,0 +1,59 @@
+package com.worldline.controller;
+
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Is an encoding of the streamed responses and findAllInRange, i.e. the range and batch responses, that is chosen by the Accept header of 
+ * the request.
+ * CBOR writes the numbers and booleans of the primitive arrays of the service as binary values, so a response is smaller and cheaper
+ * to write than JSON text. JSON is the default.
+ * @author mohsen
+ *
+ */
+enum ResponseFormat {
+
+	JSON(MediaType.APPLICATION_JSON_UTF8),
+
+	CBOR(MediaType.valueOf("application/cbor"));
+
+	private final MediaType mediaType;
+
+	private ResponseFormat(MediaType mediaType) {
+		this.mediaType = mediaType;
+	}
+
+	public MediaType getMediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * Finds the format that is preferred by an Accept header.
+	 * @param accept is the Accept header of a request, or null if there is no such header
+	 * @return the format of the most specific media type with the highest quality that matches a format, or JSON if there is no such
+	 * media type or the header is not valid
+	 */
+	static ResponseFormat of(String accept) {
+		// Most requests accept JSON or anything, which is answered without parsing the header.
+		if (accept == null || !accept.contains("cbor")) {
+			return JSON;
+		}
+		try {
+			List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+			MediaType.sortBySpecificityAndQuality(mediaTypes);
+			for (MediaType mediaType : mediaTypes) {
+				for (ResponseFormat format : values()) {
+					if (mediaType.getQualityValue() > 0 && format.mediaType.isCompatibleWith(mediaType)) {
+						return format;
+					}
+				}
+			}
+		} catch (InvalidMediaTypeException e) {
+			// An invalid header is ignored like a missing one.
+		}
+		return JSON;
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.worldline.controller;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes a response in the same form as Response, whose message is a JSON array that is streamed element by element. The response is 
+ * started as {"message":[ when the first element is written, and the responseCode is written after the message, since the responseCode 
+ * of a streamed response is not known before all elements are written. A CBOR response has the same structure with an indefinite-length
+ * map and array.
+ * @author mohsen
+ *
+ */
+class StreamedResponse {
+
+	private final HttpServletResponse response;
+
+	private final ResponseFormat format;
+
+	/**
+	 * Creates the generator of format.
+	 */
+	private final JsonFactory jsonFactory;
+
+	private JsonGenerator generator;
+
+	StreamedResponse(HttpServletResponse response, ResponseFormat format, JsonFactory jsonFactory) {
+		this.response = response;
+		this.format = format;
+		this.jsonFactory = jsonFactory;
+	}
+
+	/**
+	 * Gets the generator that writes the elements of the message. Starts the response if it is not started yet.
+	 * @return the generator positioned inside the message array
+	 * @throws IOException if the response cannot be written
+	 */
+	JsonGenerator getGenerator() throws IOException {
+		if (this.generator == null) {
+			this.response.setContentType(this.format.getMediaType().toString());
+			this.generator = this.jsonFactory.createGenerator(this.response.getOutputStream());
+			this.generator.writeStartObject();
+			this.generator.writeArrayFieldStart("message");
+		}
+		return this.generator;
+	}
+
+	ResponseFormat getFormat() {
+		return this.format;
+	}
+
+	/**
+	 * @return true if some part of the response is written
+	 */
+	boolean isStarted() {
+		return this.generator != null;
+	}
+
+	/**
+	 * Ends the message array, writes the responseCode, and completes the response.
+	 * @param responseCode is the processing status of the request
+	 * @throws IOException if the response cannot be written
+	 */
+	void end(ResponseCode responseCode) throws IOException {
+		end(null, null, responseCode);
+	}
+
+	/**
+	 * Ends the message array, writes a field that summarizes the message and the responseCode, and completes the response.
+	 * @param summaryName is the name of the summary field, or null if there is no summary
+	 * @param summary is serialized by the codec of the generator
+	 * @param responseCode is the processing status of the request
+	 * @throws IOException if the response cannot be written
+	 */
+	void end(String summaryName, Object summary, ResponseCode responseCode) throws IOException {
+		JsonGenerator generator = getGenerator();
+		generator.writeEndArray();
+		if (summaryName != null) {
+			generator.writeObjectField(summaryName, summary);
+		}
+		generator.writeStringField("responseCode", responseCode.name());
+		generator.writeEndObject();
+		generator.close();
+	}
+
+}
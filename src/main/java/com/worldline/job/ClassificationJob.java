@@ -0,0 +1,312 @@
+package com.worldline.job;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.worldline.metrics.OperationMetrics;
+import com.worldline.metrics.Outcome;
+import com.worldline.metrics.PerfectNumberMetrics;
+import com.worldline.service.Classification;
+import com.worldline.service.PerfectNumberException;
+import com.worldline.service.api.PerfectNumberService;
+
+/**
+ * Classifies the numbers of a file as deficient, perfect, or abundant offline, for files of billions of numbers that are too large
+ * to send to the REST APIs. The input is memory-mapped chunk by chunk, where the chunks end on record boundaries, i.e. after a line
+ * of a TEXT file or a multiple of 8 bytes of a BINARY file. The chunks are parsed and classified by classifyAll in parallel, and their
+ * results are written in order through a file channel, so the output record i is the class of the input record i. A BINARY output
+ * record is the ordinal of the class, or INVALID. Only a few chunks are in process at once, so a file of any size is classified in
+ * a bounded memory. Runs at startup if perfectnumber.job.input is set, and PerfectNumberApplication then exits without a web server.
+ * @author mohsen
+ *
+ */
+@Component
+@ConditionalOnProperty("perfectnumber.job.input")
+public class ClassificationJob implements ApplicationRunner {
+
+	/**
+	 * Is the code of a BINARY output record whose input record is not an integer between 1 and Long.MAX_VALUE. The other codes are
+	 * the ordinals of Classification.
+	 */
+	public static final byte INVALID = 3;
+
+	/**
+	 * Is the default size of a chunk. A BINARY chunk of 8 MB has a million numbers.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 23;
+
+	/**
+	 * Contains the TEXT output record of each code.
+	 */
+	private static final byte[][] TEXT_RECORDS = {"DEFICIENT\n".getBytes(StandardCharsets.US_ASCII),
+			"PERFECT\n".getBytes(StandardCharsets.US_ASCII), "ABUNDANT\n".getBytes(StandardCharsets.US_ASCII),
+			"INVALID\n".getBytes(StandardCharsets.US_ASCII)};
+
+	private static final int MAXIMUM_TEXT_RECORD = 10;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClassificationJob.class);
+
+	private final Path input;
+
+	private final Path output;
+
+	private final RecordFormat format;
+
+	private final int chunkSize;
+
+	private final int threads;
+
+	private final PerfectNumberService perfectNumberService;
+
+	/**
+	 * Records the latency of each chunk. A chunk is a hit if one of its numbers is perfect.
+	 */
+	private final OperationMetrics chunkMetrics;
+
+	/**
+	 * Creates the job.
+	 * @param input is the path of the input file
+	 * @param output is the path of the output file, or an empty string for the input path followed by .classified
+	 * @param format is text or binary
+	 * @param chunkSize is the greatest size in bytes of a chunk, without the rest of its last line
+	 * @param threads is the count of threads that parse and classify the chunks. Zero uses all processors.
+	 * @param perfectNumberService classifies the numbers
+	 * @param metrics records the latency of the chunks
+	 */
+	@Autowired
+	public ClassificationJob(@Value("${perfectnumber.job.input}") String input, @Value("${perfectnumber.job.output:}") String output,
+			@Value("${perfectnumber.job.format:text}") String format,
+			@Value("${perfectnumber.job.chunk-size:" + DEFAULT_CHUNK_SIZE + "}") int chunkSize,
+			@Value("${perfectnumber.job.threads:0}") int threads, PerfectNumberService perfectNumberService, PerfectNumberMetrics metrics) {
+		this.input = Paths.get(input);
+		this.output = Paths.get(output.isEmpty() ? input + ".classified" : output);
+		this.format = RecordFormat.valueOf(format.toUpperCase(Locale.ROOT));
+		if (chunkSize < Long.BYTES) {
+			throw new IllegalArgumentException("The chunk size must be at least " + Long.BYTES + " bytes.");
+		}
+		this.chunkSize = this.format == RecordFormat.BINARY ? chunkSize - chunkSize % Long.BYTES : chunkSize;
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.perfectNumberService = perfectNumberService;
+		this.chunkMetrics = metrics.operation("job.chunk");
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException, InterruptedException, ExecutionException {
+		LOGGER.info("The classification job classifies {} into {}.", this.input, this.output);
+		JobReport report = classify();
+		LOGGER.info(String.format("The classification job classified %d numbers in %.3f s, i.e. %.0f numbers per second : %d deficient, "
+				+ "%d perfect, %d abundant, and %d invalid.", report.getCount(), report.getTime() / 1e9, report.getThroughput(),
+				report.getDeficientCount(), report.getPerfectCount(), report.getAbundantCount(), report.getInvalidCount()));
+	}
+
+	/**
+	 * Classifies the input file into the output file.
+	 * @return the counts of the classes and the throughput
+	 * @throws IOException if a file cannot be read or written, or the size of a BINARY input is not a multiple of 8 bytes
+	 * @throws InterruptedException if the job is interrupted
+	 * @throws ExecutionException if a chunk cannot be classified
+	 */
+	public JobReport classify() throws IOException, InterruptedException, ExecutionException {
+		long startTime = System.nanoTime();
+		long[] counts = new long[TEXT_RECORDS.length];
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+			Thread thread = new Thread(runnable, "classification-job-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try (FileChannel inputChannel = FileChannel.open(this.input, StandardOpenOption.READ);
+				FileChannel outputChannel = FileChannel.open(this.output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = inputChannel.size();
+			if (this.format == RecordFormat.BINARY && size % Long.BYTES != 0) {
+				throw new IOException("The size of a binary input must be a multiple of " + Long.BYTES + " bytes.");
+			}
+			// Keeps twice as many chunks in process as threads, so the threads do not wait for the output of a chunk.
+			Deque<Future<ByteBuffer>> chunks = new ArrayDeque<Future<ByteBuffer>>();
+			long position = 0;
+			while (position < size || !chunks.isEmpty()) {
+				while (position < size && chunks.size() < 2 * this.threads) {
+					long start = position;
+					long end = findChunkEnd(inputChannel, start, size);
+					chunks.add(executor.submit(() -> classifyChunk(inputChannel, start, end, counts)));
+					position = end;
+				}
+				ByteBuffer results = chunks.poll().get();
+				while (results.hasRemaining()) {
+					outputChannel.write(results);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		synchronized (counts) {
+			return new JobReport(counts[Classification.DEFICIENT.ordinal()], counts[Classification.PERFECT.ordinal()],
+					counts[Classification.ABUNDANT.ordinal()], counts[INVALID], System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Finds the end of the chunk that starts at a given position, i.e. the first record boundary after chunkSize bytes.
+	 */
+	private long findChunkEnd(FileChannel inputChannel, long start, long size) throws IOException {
+		long end = Math.min(start + this.chunkSize, size);
+		if (this.format == RecordFormat.BINARY || end == size) {
+			return end;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		for (long position = end - 1; position < size; position += buffer.position()) {
+			// Calls Buffer.clear(), since the ByteBuffer override is missing on Java 8.
+			((Buffer) buffer).clear();
+			inputChannel.read(buffer, position);
+			for (int i = 0; i < buffer.position(); i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Maps, parses and classifies a chunk, and adds the counts of its classes to the counts of the job.
+	 * @return the output records of the chunk
+	 */
+	private ByteBuffer classifyChunk(FileChannel inputChannel, long start, long end, long[] counts) throws IOException {
+		long startTime = System.nanoTime();
+		MappedByteBuffer chunk = inputChannel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		// The numbers that are not valid are replaced by 1, which is classified but answered by INVALID.
+		long[] numbers;
+		boolean[] invalid;
+		int length;
+		if (this.format == RecordFormat.BINARY) {
+			length = chunk.limit() / Long.BYTES;
+			numbers = new long[length];
+			invalid = new boolean[length];
+			for (int i = 0; i < length; i++) {
+				long number = chunk.getLong(i * Long.BYTES);
+				invalid[i] = number <= 0;
+				numbers[i] = invalid[i] ? 1 : number;
+			}
+		} else {
+			TextRecords records = new TextRecords(chunk.limit());
+			records.parse(chunk);
+			numbers = records.numbers;
+			invalid = records.invalid;
+			length = records.length;
+		}
+		Classification[] classifications;
+		try {
+			classifications = this.perfectNumberService.classifyAll(numbers, length);
+		} catch (PerfectNumberException e) {
+			throw new IllegalStateException("The numbers are validated before they are classified.", e);
+		}
+		ByteBuffer results = ByteBuffer.allocate(this.format == RecordFormat.BINARY ? length : length * MAXIMUM_TEXT_RECORD);
+		long[] chunkCounts = new long[TEXT_RECORDS.length];
+		for (int i = 0; i < length; i++) {
+			int code = invalid[i] ? INVALID : classifications[i].ordinal();
+			chunkCounts[code]++;
+			if (this.format == RecordFormat.BINARY) {
+				results.put((byte) code);
+			} else {
+				results.put(TEXT_RECORDS[code]);
+			}
+		}
+		((Buffer) results).flip();
+		synchronized (counts) {
+			for (int code = 0; code < counts.length; code++) {
+				counts[code] += chunkCounts[code];
+			}
+		}
+		this.chunkMetrics.record(chunkCounts[Classification.PERFECT.ordinal()] > 0 ? Outcome.HIT : Outcome.MISS, startTime);
+		return results;
+	}
+
+	/**
+	 * Parses the lines of a TEXT chunk. A line is a record, and is valid if it is a decimal integer between 1 and Long.MAX_VALUE that
+	 * may be followed by a carriage return. An empty line is an invalid record, except after the last line of the file.
+	 */
+	private static final class TextRecords {
+
+		private long[] numbers;
+
+		private boolean[] invalid;
+
+		private int length;
+
+		private TextRecords(int chunkSize) {
+			// A record has at least 2 bytes, but most records have more, so the arrays grow if they are needed.
+			int capacity = Math.max(16, Math.min(chunkSize / 2 + 1, 1 << 16));
+			this.numbers = new long[capacity];
+			this.invalid = new boolean[capacity];
+		}
+
+		private void parse(ByteBuffer chunk) {
+			long number = 0;
+			boolean valid = true;
+			boolean empty = true;
+			int limit = chunk.limit();
+			for (int i = 0; i < limit; i++) {
+				byte character = chunk.get(i);
+				if (character == '\n') {
+					add(number, valid && !empty);
+					number = 0;
+					valid = true;
+					empty = true;
+				} else if (character >= '0' && character <= '9') {
+					int digit = character - '0';
+					if (number > (Long.MAX_VALUE - digit) / 10) {
+						valid = false;
+					} else {
+						number = number * 10 + digit;
+					}
+					empty = false;
+				} else if (character != '\r' || i + 1 < limit && chunk.get(i + 1) != '\n') {
+					valid = false;
+					empty = false;
+				}
+			}
+			if (!empty) {
+				add(number, valid);
+			}
+		}
+
+		private void add(long number, boolean valid) {
+			if (this.length == this.numbers.length) {
+				this.numbers = Arrays.copyOf(this.numbers, this.length * 2);
+				this.invalid = Arrays.copyOf(this.invalid, this.length * 2);
+			}
+			boolean invalidNumber = !valid || number == 0;
+			this.invalid[this.length] = invalidNumber;
+			this.numbers[this.length] = invalidNumber ? 1 : number;
+			this.length++;
+		}
+
+	}
+
+}
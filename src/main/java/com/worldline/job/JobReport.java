@@ -0,0 +1,68 @@
+package com.worldline.job;
+
+/**
+ * Contains the counts of each class of the numbers that are classified by ClassificationJob, and its throughput.
+ * @author mohsen
+ *
+ */
+public class JobReport {
+
+	private final long deficientCount;
+
+	private final long perfectCount;
+
+	private final long abundantCount;
+
+	/**
+	 * Is the count of the records that are not integers between 1 and Long.MAX_VALUE.
+	 */
+	private final long invalidCount;
+
+	/**
+	 * Is the time of the job in nanoseconds.
+	 */
+	private final long time;
+
+	public JobReport(long deficientCount, long perfectCount, long abundantCount, long invalidCount, long time) {
+		this.deficientCount = deficientCount;
+		this.perfectCount = perfectCount;
+		this.abundantCount = abundantCount;
+		this.invalidCount = invalidCount;
+		this.time = time;
+	}
+
+	public long getDeficientCount() {
+		return deficientCount;
+	}
+
+	public long getPerfectCount() {
+		return perfectCount;
+	}
+
+	public long getAbundantCount() {
+		return abundantCount;
+	}
+
+	public long getInvalidCount() {
+		return invalidCount;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the count of all records
+	 */
+	public long getCount() {
+		return deficientCount + perfectCount + abundantCount + invalidCount;
+	}
+
+	/**
+	 * @return the count of records that are classified per second
+	 */
+	public double getThroughput() {
+		return time == 0 ? 0 : getCount() * 1e9 / time;
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.worldline.job;
+
+/**
+ * Is the format of the records of the input and output files of ClassificationJob.
+ * @author mohsen
+ *
+ */
+public enum RecordFormat {
+	// An input record is a decimal integer on a line, and an output record is the name of its class on a line.
+	TEXT,
+	// An input record is a long integer in 8 bytes in big-endian order, and an output record is the code of its class in a byte.
+	BINARY
+}
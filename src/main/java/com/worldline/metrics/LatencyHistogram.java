@@ -0,0 +1,122 @@
+package com.worldline.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of durations in nanoseconds with log-linear buckets like HdrHistogram. Each power of two is divided into 
+ * SUB_BUCKETS buckets, so a recorded value is known within 1 / SUB_BUCKETS of its magnitude. The buckets are striped counters, 
+ * so recording is a few uncontended additions without any allocation or lock.
+ * @author mohsen
+ *
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/**
+	 * Is the count of buckets per power of two.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Is the count of buckets that cover all non-negative long integers.
+	 */
+	private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+	/**
+	 * Is the sum of all recorded values.
+	 */
+	private final LongAdder total = new LongAdder();
+
+	private final AtomicLong maximum = new AtomicLong();
+
+	public LatencyHistogram() {
+		for (int i = 0; i < BUCKETS; i++) {
+			this.buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a duration.
+	 * @param nanoseconds is a duration in nanoseconds. Negative durations are recorded as zero.
+	 */
+	public void record(long nanoseconds) {
+		long value = Math.max(nanoseconds, 0);
+		this.buckets[bucketOf(value)].increment();
+		this.total.add(value);
+		long maximum = this.maximum.get();
+		while (value > maximum && !this.maximum.compareAndSet(maximum, value)) {
+			maximum = this.maximum.get();
+		}
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : this.buckets) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the sum of all recorded durations in nanoseconds.
+	 */
+	public long getTotal() {
+		return this.total.sum();
+	}
+
+	/**
+	 * Gets the greatest recorded duration in nanoseconds.
+	 */
+	public long getMaximum() {
+		return this.maximum.get();
+	}
+
+	/**
+	 * Finds the duration that is greater than or equal to a given fraction of the recorded durations.
+	 * @param quantile is between 0 and 1, e.g. 0.99 for the 99th percentile
+	 * @return the greatest value of the bucket of the quantile in nanoseconds, or zero if there is no recorded duration
+	 */
+	public long getValueAtQuantile(double quantile) {
+		long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = this.buckets[i].sum();
+			count += counts[i];
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), getMaximum());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Finds the bucket of a value. Values less than SUB_BUCKETS have their own buckets. A greater value v with the highest one bit at e
+	 * is in the bucket of the SUB_BUCKET_BITS bits that follow its highest one bit among the buckets of e.
+	 */
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift & (SUB_BUCKETS - 1));
+	}
+
+	static long highestValueOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+}
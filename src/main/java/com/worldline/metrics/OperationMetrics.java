@@ -0,0 +1,55 @@
+package com.worldline.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latencies and outcomes of an operation. The outcomes are counted by striped counters.
+ * @author mohsen
+ *
+ */
+public final class OperationMetrics {
+
+	private final String name;
+
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	/**
+	 * Contains the counter of each outcome at its ordinal.
+	 */
+	private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+
+	public OperationMetrics(String name) {
+		this.name = name;
+		for (int i = 0; i < this.outcomes.length; i++) {
+			this.outcomes[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records an operation that is started at a given time and is finished now.
+	 * @param outcome is the outcome of the operation
+	 * @param startTime is the value of System.nanoTime() when the operation is started
+	 */
+	public void record(Outcome outcome, long startTime) {
+		this.latencies.record(System.nanoTime() - startTime);
+		this.outcomes[outcome.ordinal()].increment();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	/**
+	 * Counts the operations with a given outcome.
+	 * @param outcome is an outcome
+	 * @return the count of recorded operations with outcome
+	 */
+	public long getCount(Outcome outcome) {
+		return this.outcomes[outcome.ordinal()].sum();
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.worldline.metrics;
+
+/**
+ * Is the outcome of an operation that is counted by OperationMetrics.
+ * @author mohsen
+ *
+ */
+public enum Outcome {
+	// A perfect number, or any result that is looked for, is found
+	HIT,
+	// The request is served but nothing is found, e.g. a non-perfect number or an empty range
+	MISS,
+	// The inputs are invalid
+	REQUEST_ERROR,
+	// Some unknown problems
+	INTERNAL_ERROR,
+	// The request is rejected because too many expensive requests are queued
+	REJECTED
+}
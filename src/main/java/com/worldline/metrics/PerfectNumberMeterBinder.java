@@ -0,0 +1,72 @@
+package com.worldline.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exports PerfectNumberMetrics to the Micrometer registry of the actuator. The meters read the histograms and counters when they are 
+ * published, so recording stays free of Micrometer. Each operation is exported as :
+ * <ul>
+ * <li>perfectnumber.operation : a function timer of the count and total time of the operation</li>
+ * <li>perfectnumber.operation.latency : time gauges of the percentiles and the maximum of the latencies with a quantile tag</li>
+ * <li>perfectnumber.operation.outcomes : a function counter per outcome with an outcome tag</li>
+ * </ul>
+ * @author mohsen
+ *
+ */
+@Component
+public class PerfectNumberMeterBinder implements MeterBinder {
+
+	/**
+	 * Are the exported percentiles of the latencies.
+	 */
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+	private final PerfectNumberMetrics metrics;
+
+	public PerfectNumberMeterBinder(PerfectNumberMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.metrics.addListener(operation -> bind(operation, registry));
+	}
+
+	private static void bind(OperationMetrics operation, MeterRegistry registry) {
+		LatencyHistogram latencies = operation.getLatencies();
+		FunctionTimer.builder("perfectnumber.operation", latencies, LatencyHistogram::getCount, LatencyHistogram::getTotal, 
+				TimeUnit.NANOSECONDS)
+			.tag("operation", operation.getName())
+			.description("The count and total time of the operation")
+			.register(registry);
+		for (double quantile : QUANTILES) {
+			TimeGauge.builder("perfectnumber.operation.latency", latencies, TimeUnit.NANOSECONDS, 
+					histogram -> histogram.getValueAtQuantile(quantile))
+				.tag("operation", operation.getName())
+				.tag("quantile", Double.toString(quantile))
+				.description("The latency percentile of the operation")
+				.register(registry);
+		}
+		TimeGauge.builder("perfectnumber.operation.latency", latencies, TimeUnit.NANOSECONDS, LatencyHistogram::getMaximum)
+			.tag("operation", operation.getName())
+			.tag("quantile", "max")
+			.description("The latency percentile of the operation")
+			.register(registry);
+		for (Outcome outcome : Outcome.values()) {
+			FunctionCounter.builder("perfectnumber.operation.outcomes", operation, metrics -> metrics.getCount(outcome))
+				.tag("operation", operation.getName())
+				.tag("outcome", outcome.name())
+				.description("The count of operations by outcome")
+				.register(registry);
+		}
+	}
+
+}
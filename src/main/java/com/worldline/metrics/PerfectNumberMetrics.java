@@ -0,0 +1,58 @@
+package com.worldline.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the metrics of the operations of the controller and the computations of the service by operation name. The operations are 
+ * created once and kept by their callers, so recording does not look up any map. Listeners are told about each new operation, 
+ * so operations that are created after the metrics are exported are exported too.
+ * @author mohsen
+ *
+ */
+@Component
+public class PerfectNumberMetrics {
+
+	private final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<String, OperationMetrics>();
+
+	private final List<Consumer<OperationMetrics>> listeners = new CopyOnWriteArrayList<Consumer<OperationMetrics>>();
+
+	/**
+	 * Gets the metrics of an operation and creates them if they do not exist.
+	 * @param name is the name of the operation
+	 * @return the metrics of the operation
+	 */
+	public synchronized OperationMetrics operation(String name) {
+		OperationMetrics operation = this.operations.get(name);
+		if (operation == null) {
+			operation = new OperationMetrics(name);
+			this.operations.put(name, operation);
+			for (Consumer<OperationMetrics> listener : this.listeners) {
+				listener.accept(operation);
+			}
+		}
+		return operation;
+	}
+
+	public Collection<OperationMetrics> getOperations() {
+		return Collections.unmodifiableCollection(this.operations.values());
+	}
+
+	/**
+	 * Gives the existing operations to a listener and then each new operation.
+	 * @param listener receives the metrics of operations
+	 */
+	public synchronized void addListener(Consumer<OperationMetrics> listener) {
+		this.listeners.add(listener);
+		for (OperationMetrics operation : this.operations.values()) {
+			listener.accept(operation);
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.worldline.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the startup time of the application as the application.startup operation, i.e. the time from the start of the JVM until
+ * the context is refreshed and the web server is started, so a regression of the startup is seen in the metrics. The application
+ * runners, e.g. ClassificationJob, are not included.
+ * @author mohsen
+ *
+ */
+@Component
+public class StartupMetrics {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StartupMetrics.class);
+
+	private final OperationMetrics startupMetrics;
+
+	@Autowired
+	public StartupMetrics(PerfectNumberMetrics metrics) {
+		this.startupMetrics = metrics.operation("application.startup");
+	}
+
+	/**
+	 * Records the time since the start of the JVM.
+	 */
+	@EventListener(ApplicationStartedEvent.class)
+	public void applicationStarted() {
+		long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+		this.startupMetrics.record(Outcome.HIT, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(uptime));
+		LOGGER.info("The application is started {} ms after the start of the JVM.", uptime);
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.worldline.service;
+
+/**
+ * Describes an aliquot sequence n, s(n), s(s(n)), ... whose terms are given to an AliquotTermConsumer, i.e. its length and how it ends.
+ * @author mohsen
+ *
+ */
+public class AliquotSequence {
+
+	/**
+	 * Is the greatest count of terms of a sequence.
+	 */
+	public static final int MAXIMUM_LENGTH = 100000;
+
+	private final long number;
+
+	/**
+	 * Is the count of terms including number. The first term of a cycle is not repeated.
+	 */
+	private final int length;
+
+	private final AliquotSequenceEnd end;
+
+	/**
+	 * Is the index of the first term of the cycle that the sequence reaches, e.g. 0 if number is perfect. Otherwise, -1.
+	 */
+	private final int cycleStart;
+
+	/**
+	 * Is the count of numbers of the cycle that the sequence reaches. Otherwise, 0.
+	 */
+	private final int cycleLength;
+
+	public AliquotSequence(long number, int length, AliquotSequenceEnd end, int cycleStart, int cycleLength) {
+		this.number = number;
+		this.length = length;
+		this.end = end;
+		this.cycleStart = cycleStart;
+		this.cycleLength = cycleLength;
+	}
+
+	public long getNumber() {
+		return number;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public AliquotSequenceEnd getEnd() {
+		return end;
+	}
+
+	public int getCycleStart() {
+		return cycleStart;
+	}
+
+	public int getCycleLength() {
+		return cycleLength;
+	}
+
+}
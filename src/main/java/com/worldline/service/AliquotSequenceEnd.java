@@ -0,0 +1,30 @@
+package com.worldline.service;
+
+/**
+ * Specifies how an aliquot sequence n, s(n), s(s(n)), ... ends, where s(n) is the sum of the divisors of n except n itself.
+ * @author mohsen
+ *
+ */
+public enum AliquotSequenceEnd {
+	// reaches 0 after 1, e.g. after a prime
+	TERMINATES,
+	// reaches a perfect number, i.e. a cycle of one number
+	PERFECT,
+	// reaches an amicable pair, i.e. a cycle of two numbers
+	AMICABLE,
+	// reaches a sociable cycle of three or more numbers
+	SOCIABLE,
+	// reaches a number whose aliquot sum is greater than Long.MAX_VALUE
+	OVERFLOWS,
+	// is stopped after the greatest count of terms before any end
+	UNFINISHED;
+
+	/**
+	 * Finds the end of a sequence that reaches a cycle.
+	 * @param cycleLength is the count of numbers of the cycle
+	 * @return PERFECT, AMICABLE, or SOCIABLE
+	 */
+	public static AliquotSequenceEnd ofCycle(int cycleLength) {
+		return cycleLength == 1 ? PERFECT : cycleLength == 2 ? AMICABLE : SOCIABLE;
+	}
+}
@@ -0,0 +1,132 @@
+package com.worldline.service;
+
+/**
+ * A bounded concurrent cache of aliquot sums that is keyed by primitive long integers, so neither a key nor a value is boxed and the
+ * cache is a few arrays whatever its size. Is set-associative like a CPU cache: a number is kept in one of the WAYS slots of the set
+ * that its hash selects, and a full set evicts a slot by the CLOCK algorithm, i.e. the first slot that is not referenced since the
+ * hand last passed it. The sets are guarded by striped locks, so threads that look up different sets rarely wait for each other.
+ * @author mohsen
+ *
+ */
+final class AliquotSumCache {
+
+	/**
+	 * Is returned by get if a number is not in the cache. Is not an aliquot sum, since the aliquot sums are zero or positive, or
+	 * OVERFLOW.
+	 */
+	static final long MISSING = Long.MIN_VALUE;
+
+	/**
+	 * Is the aliquot sum of a number whose aliquot sum is greater than Long.MAX_VALUE.
+	 */
+	static final long OVERFLOW = -1;
+
+	/**
+	 * Is the count of slots of a set. 8 keys fill a cache line of 64 bytes.
+	 */
+	private static final int WAYS = 8;
+
+	private static final int MAXIMUM_STRIPES = 256;
+
+	/**
+	 * Contains the numbers of the slots, where 0 is an empty slot.
+	 */
+	private final long[] keys;
+
+	private final long[] values;
+
+	/**
+	 * Is set if the slot is read or written since the hand of its set passed it.
+	 */
+	private final boolean[] referenced;
+
+	/**
+	 * Is the next slot of each set that the CLOCK hand checks.
+	 */
+	private final byte[] hands;
+
+	private final int setMask;
+
+	private final Object[] locks;
+
+	/**
+	 * Creates an empty cache.
+	 * @param capacity is the greatest count of numbers up to 2^30, which is rounded up to a power of two of at least WAYS
+	 */
+	AliquotSumCache(int capacity) {
+		int neededSets = (int) ((Math.max(capacity, 1) + (long) WAYS - 1) / WAYS);
+		int sets = neededSets == 1 ? 1 : Integer.highestOneBit(neededSets - 1) << 1;
+		this.keys = new long[sets * WAYS];
+		this.values = new long[sets * WAYS];
+		this.referenced = new boolean[sets * WAYS];
+		this.hands = new byte[sets];
+		this.setMask = sets - 1;
+		this.locks = new Object[Math.min(sets, MAXIMUM_STRIPES)];
+		for (int i = 0; i < this.locks.length; i++) {
+			this.locks[i] = new Object();
+		}
+	}
+
+	int getCapacity() {
+		return this.keys.length;
+	}
+
+	/**
+	 * Gets the aliquot sum of a number.
+	 * @param number is a long integer that is greater than zero
+	 * @return the aliquot sum of number, OVERFLOW, or MISSING if the number is not in the cache
+	 */
+	long get(long number) {
+		int set = setOf(number);
+		int first = set * WAYS;
+		synchronized (this.locks[set & (this.locks.length - 1)]) {
+			for (int slot = first; slot < first + WAYS; slot++) {
+				if (this.keys[slot] == number) {
+					this.referenced[slot] = true;
+					return this.values[slot];
+				}
+			}
+		}
+		return MISSING;
+	}
+
+	/**
+	 * Puts the aliquot sum of a number into the cache, so it may evict another number of the same set.
+	 * @param number is a long integer that is greater than zero
+	 * @param aliquotSum is the aliquot sum of number, or OVERFLOW
+	 */
+	void put(long number, long aliquotSum) {
+		int set = setOf(number);
+		int first = set * WAYS;
+		synchronized (this.locks[set & (this.locks.length - 1)]) {
+			for (int slot = first; slot < first + WAYS; slot++) {
+				if (this.keys[slot] == number || this.keys[slot] == 0) {
+					this.keys[slot] = number;
+					this.values[slot] = aliquotSum;
+					this.referenced[slot] = true;
+					return;
+				}
+			}
+			// The set is full, so the hand clears the referenced slots until it finds a slot that is not referenced.
+			int hand = this.hands[set];
+			while (this.referenced[first + hand]) {
+				this.referenced[first + hand] = false;
+				hand = (hand + 1) % WAYS;
+			}
+			this.keys[first + hand] = number;
+			this.values[first + hand] = aliquotSum;
+			this.referenced[first + hand] = true;
+			this.hands[set] = (byte) ((hand + 1) % WAYS);
+		}
+	}
+
+	/**
+	 * Finds the set of a number by a multiplicative hash, since the terms of aliquot sequences are often even or multiples of small
+	 * numbers and would crowd a few sets by their low bits.
+	 */
+	private int setOf(long number) {
+		long hash = number * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32) & this.setMask;
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.worldline.service;
+
+/**
+ * Receives the aliquot sums of consecutive numbers segment by segment.
+ * @author mohsen
+ *
+ */
+@FunctionalInterface
+public interface AliquotSumConsumer {
+
+	/**
+	 * Accepts the aliquot sums of a segment. The array is reused after the method returns, so it must not be kept.
+	 * @param firstNumber is the number of aliquotSums[0]
+	 * @param aliquotSums contains the aliquot sum of firstNumber + i at i
+	 * @param length is the count of aliquot sums in the segment
+	 * @return false to stop receiving next segments
+	 */
+	boolean accept(long firstNumber, long[] aliquotSums, int length);
+
+}
@@ -0,0 +1,19 @@
+package com.worldline.service;
+
+/**
+ * Receives the terms of an aliquot sequence in order chunk by chunk.
+ * @author mohsen
+ *
+ */
+@FunctionalInterface
+public interface AliquotTermConsumer {
+
+	/**
+	 * Accepts a chunk of terms. The array is reused after the method returns, so it must not be kept.
+	 * @param terms contains the terms of the chunk in the order of the sequence
+	 * @param length is the count of terms in the chunk
+	 * @return false to stop the sequence
+	 */
+	boolean accept(long[] terms, int length);
+
+}
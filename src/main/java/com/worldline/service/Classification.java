@@ -0,0 +1,26 @@
+package com.worldline.service;
+
+/**
+ * Specifies the classes of a positive integer n by comparing its aliquot sum s(n), i.e. the sum of the divisors of n except n itself, 
+ * to n.
+ * @author mohsen
+ *
+ */
+public enum Classification {
+	// s(n) < n
+	DEFICIENT,
+	// s(n) = n
+	PERFECT,
+	// s(n) > n
+	ABUNDANT;
+
+	/**
+	 * Classifies a number by its aliquot sum.
+	 * @param number is a non-zero positive integer
+	 * @param aliquotSum is the sum of the divisors of number except number itself
+	 * @return the class of number
+	 */
+	public static Classification of(long number, long aliquotSum) {
+		return aliquotSum < number ? DEFICIENT : aliquotSum == number ? PERFECT : ABUNDANT;
+	}
+}
@@ -0,0 +1,59 @@
+package com.worldline.service;
+
+import java.math.BigInteger;
+
+/**
+ * Contains the divisor sum sigma(n) of a number n, i.e. the sum of all divisors of n including n, and the values derived from it.
+ * @author mohsen
+ *
+ */
+public class DivisorSum {
+
+	private final long number;
+
+	/**
+	 * Is sigma(n). Is a BigInteger since sigma(n) can be greater than Long.MAX_VALUE, e.g. when n is abundant and close to Long.MAX_VALUE.
+	 */
+	private final BigInteger sigma;
+
+	/**
+	 * Is s(n) = sigma(n) - n, i.e. the sum of all divisors of n except n.
+	 */
+	private final BigInteger aliquotSum;
+
+	/**
+	 * Is k if sigma(n) = k * n, i.e. n is a multiply-perfect number of index k, e.g. 2 for a perfect number. Otherwise, 0.
+	 */
+	private final int multiplyPerfectIndex;
+
+	private final Classification classification;
+
+	public DivisorSum(long number, BigInteger sigma, BigInteger aliquotSum, int multiplyPerfectIndex, Classification classification) {
+		this.number = number;
+		this.sigma = sigma;
+		this.aliquotSum = aliquotSum;
+		this.multiplyPerfectIndex = multiplyPerfectIndex;
+		this.classification = classification;
+	}
+
+	public long getNumber() {
+		return number;
+	}
+
+	public BigInteger getSigma() {
+		return sigma;
+	}
+
+	public BigInteger getAliquotSum() {
+		return aliquotSum;
+	}
+
+	public int getMultiplyPerfectIndex() {
+		return multiplyPerfectIndex;
+	}
+
+	public Classification getClassification() {
+		return classification;
+	}
+
+}
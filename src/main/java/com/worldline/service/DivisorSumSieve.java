@@ -0,0 +1,130 @@
+package com.worldline.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Computes the aliquot sums of all numbers in a range by a segmented divisor sum sieve. The range is split into segments that fit in
+ * the processor cache. For a segment [first, last], each d up to the square root of last is added to its multiples m >= d * d together
+ * with the co-divisor m / d, so every divisor pair of every number is added once. The segments are sieved in parallel on a fork-join pool
+ * and are given to the consumer in increasing order, so only a few segments are in memory at the same time.
+ * @author mohsen
+ *
+ */
+public class DivisorSumSieve {
+
+	/**
+	 * Is the count of numbers in a segment. A segment of long integers takes 256 KB, i.e. the size of a level 2 cache.
+	 */
+	public static final int SEGMENT_LENGTH = 1 << 15;
+
+	/**
+	 * Is the number of segments that are sieved ahead of the consumer per worker of the pool.
+	 */
+	private static final int SEGMENTS_PER_WORKER = 2;
+
+	private final ForkJoinPool pool;
+
+	public DivisorSumSieve(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Computes the aliquot sums of all numbers between two bounds and gives them to a consumer segment by segment in increasing order.
+	 * @param lowerBound is a non-zero positive long integer that is equal or less than upperBound
+	 * @param upperBound is a long integer whose aliquot sum is less than Long.MAX_VALUE
+	 * @param consumer receives the aliquot sums until it returns false
+	 */
+	public void sieve(long lowerBound, long upperBound, AliquotSumConsumer consumer) {
+		int window = this.pool.getParallelism() * SEGMENTS_PER_WORKER;
+		ArrayDeque<ForkJoinTask<Segment>> pendingSegments = new ArrayDeque<ForkJoinTask<Segment>>(window);
+		ArrayDeque<Segment> freeSegments = new ArrayDeque<Segment>(window);
+		for (int i = 0; i < window; i++) {
+			freeSegments.add(new Segment());
+		}
+		long nextNumber = lowerBound;
+		try {
+			while (nextNumber <= upperBound || !pendingSegments.isEmpty()) {
+				while (!freeSegments.isEmpty() && nextNumber <= upperBound) {
+					Segment segment = freeSegments.poll();
+					segment.first = nextNumber;
+					segment.length = (int) Math.min(SEGMENT_LENGTH, upperBound - nextNumber + 1);
+					pendingSegments.add(this.pool.submit(() -> sieveSegment(segment)));
+					nextNumber += segment.length;
+				}
+				Segment segment = pendingSegments.poll().join();
+				if (!consumer.accept(segment.first, segment.aliquotSums, segment.length)) {
+					break;
+				}
+				freeSegments.add(segment);
+			}
+		} finally {
+			for (ForkJoinTask<Segment> pendingSegment : pendingSegments) {
+				pendingSegment.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Computes the aliquot sums of a segment.
+	 * @param segment contains the first number and the length of the segment
+	 * @return the segment with its aliquot sums
+	 */
+	private static Segment sieveSegment(Segment segment) {
+		long first = segment.first;
+		long last = first + segment.length - 1;
+		long[] sums = segment.aliquotSums;
+		Arrays.fill(sums, 0, segment.length, 0);
+		long maximumDivisor = squareRoot(last);
+		for (long divisor = 1; divisor <= maximumDivisor; divisor++) {
+			long multiple = Math.max(divisor * divisor, (first + divisor - 1) / divisor * divisor);
+			long coDivisor = multiple / divisor;
+			if (coDivisor == divisor) {
+				// A square has the divisor pair (d, d) that is added once.
+				sums[(int) (multiple - first)] += divisor;
+				multiple += divisor;
+				coDivisor++;
+			}
+			for (; multiple <= last; multiple += divisor, coDivisor++) {
+				sums[(int) (multiple - first)] += divisor + coDivisor;
+			}
+		}
+		for (int i = 0; i < segment.length; i++) {
+			// Removes the number itself from the sum of its divisors.
+			sums[i] -= first + i;
+		}
+		return segment;
+	}
+
+	/**
+	 * Computes the integer square root of a given number.
+	 * @param number is a non-negative long integer less than 2^62
+	 * @return the greatest integer whose square is equal or less than number
+	 */
+	static long squareRoot(long number) {
+		long root = (long) Math.sqrt(number);
+		while (root * root > number) {
+			root--;
+		}
+		while ((root + 1) * (root + 1) <= number) {
+			root++;
+		}
+		return root;
+	}
+
+	/**
+	 * Is a range of consecutive numbers along with their aliquot sums.
+	 */
+	private static final class Segment {
+
+		private long first;
+
+		private int length;
+
+		private final long[] aliquotSums = new long[SEGMENT_LENGTH];
+
+	}
+
+}
@@ -0,0 +1,330 @@
+package com.worldline.service;
+
+/**
+ * Factorizes 64-bit integers. Small prime factors are removed by trial division. The remaining cofactor is tested by a deterministic
+ * Miller-Rabin test and split by Brent's variant of Pollard's rho algorithm. Both run on Montgomery representations modulo the cofactor,
+ * so a modular multiplication costs a few long multiplications and no division.
+ * [Brent, Richard P. "An improved Monte Carlo factorization algorithm." BIT Numerical Mathematics 20.2 (1980): 176-184.]
+ * @author mohsen
+ *
+ */
+public final class Factorizer {
+
+	/**
+	 * Is the greatest count of distinct prime factors of a long integer, since the product of the first 16 primes is greater than
+	 * Long.MAX_VALUE.
+	 */
+	public static final int MAXIMUM_PRIME_FACTORS = 15;
+
+	/**
+	 * Are the Miller-Rabin bases that decide primality for all 64-bit integers [Jim Sinclair, 2011].
+	 */
+	private static final long[] MILLER_RABIN_BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+
+	/**
+	 * Are the odd primes that are tried as divisors before Pollard's rho algorithm.
+	 */
+	private static final int[] SMALL_PRIMES = smallPrimes(1 << 10);
+
+	/**
+	 * Is the count of multiplications of the rho iteration whose product is given to a single gcd.
+	 */
+	private static final int RHO_BATCH_LENGTH = 128;
+
+	private Factorizer() {
+	}
+
+	/**
+	 * Factorizes a given number into its prime factors.
+	 * @param number is a non-zero positive long integer
+	 * @param primes receives the distinct prime factors of number in increasing order. Has at least MAXIMUM_PRIME_FACTORS elements.
+	 * @param exponents receives the exponent of primes[i] at i. Has at least MAXIMUM_PRIME_FACTORS elements.
+	 * @return the count of distinct prime factors of number
+	 */
+	public static int factorize(long number, long[] primes, int[] exponents) {
+		int count = 0;
+		int twos = Long.numberOfTrailingZeros(number);
+		if (twos > 0) {
+			primes[count] = 2;
+			exponents[count++] = twos;
+			number >>>= twos;
+		}
+		for (int i = 0; i < SMALL_PRIMES.length && (long) SMALL_PRIMES[i] * SMALL_PRIMES[i] <= number; i++) {
+			int prime = SMALL_PRIMES[i];
+			if (number % prime == 0) {
+				int exponent = 0;
+				do {
+					number /= prime;
+					exponent++;
+				} while (number % prime == 0);
+				primes[count] = prime;
+				exponents[count++] = exponent;
+			}
+		}
+		if (number > 1) {
+			int first = count;
+			count = factorizeLarge(number, primes, exponents, count);
+			sort(primes, exponents, first, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if a given number is prime.
+	 * @param number is a long integer
+	 * @return true if number is prime
+	 */
+	public static boolean isPrime(long number) {
+		if (number < 2) {
+			return false;
+		}
+		if ((number & 1) == 0) {
+			return number == 2;
+		}
+		for (int prime : SMALL_PRIMES) {
+			if (number % prime == 0) {
+				return number == prime;
+			}
+			if ((long) prime * prime > number) {
+				return true;
+			}
+		}
+		return new Montgomery(number).isProbablePrime();
+	}
+
+	/**
+	 * Factorizes a number without small prime factors and appends its prime factors to the ones that are found so far.
+	 */
+	private static int factorizeLarge(long number, long[] primes, int[] exponents, int count) {
+		if (isPrime(number)) {
+			return addFactor(number, primes, exponents, count);
+		}
+		long factor = new Montgomery(number).findFactor();
+		count = factorizeLarge(factor, primes, exponents, count);
+		return factorizeLarge(number / factor, primes, exponents, count);
+	}
+
+	private static int addFactor(long prime, long[] primes, int[] exponents, int count) {
+		for (int i = 0; i < count; i++) {
+			if (primes[i] == prime) {
+				exponents[i]++;
+				return count;
+			}
+		}
+		primes[count] = prime;
+		exponents[count] = 1;
+		return count + 1;
+	}
+
+	private static void sort(long[] primes, int[] exponents, int from, int to) {
+		for (int i = from + 1; i < to; i++) {
+			long prime = primes[i];
+			int exponent = exponents[i];
+			int j = i - 1;
+			for (; j >= from && primes[j] > prime; j--) {
+				primes[j + 1] = primes[j];
+				exponents[j + 1] = exponents[j];
+			}
+			primes[j + 1] = prime;
+			exponents[j + 1] = exponent;
+		}
+	}
+
+	/**
+	 * Computes the high 64 bits of the unsigned 128-bit product of two long integers [Warren, Henry S. "Hacker's Delight", 8-2].
+	 */
+	static long multiplyHighUnsigned(long a, long b) {
+		long aLow = a & 0xFFFFFFFFL;
+		long aHigh = a >>> 32;
+		long bLow = b & 0xFFFFFFFFL;
+		long bHigh = b >>> 32;
+		long lowLow = aLow * bLow;
+		long middle = aHigh * bLow + (lowLow >>> 32);
+		long middleLow = (middle & 0xFFFFFFFFL) + aLow * bHigh;
+		return aHigh * bHigh + (middle >>> 32) + (middleLow >>> 32);
+	}
+
+	/**
+	 * Computes the greatest common divisor of two long integers by the binary gcd algorithm.
+	 */
+	static long gcd(long a, long b) {
+		if (a == 0) {
+			return b;
+		}
+		if (b == 0) {
+			return a;
+		}
+		int shift = Long.numberOfTrailingZeros(a | b);
+		a >>>= Long.numberOfTrailingZeros(a);
+		while (b != 0) {
+			b >>>= Long.numberOfTrailingZeros(b);
+			if (a > b) {
+				long t = a;
+				a = b;
+				b = t;
+			}
+			b -= a;
+		}
+		return a << shift;
+	}
+
+	private static int[] smallPrimes(int limit) {
+		boolean[] composite = new boolean[limit];
+		int count = 0;
+		int[] primes = new int[limit];
+		for (int number = 3; number < limit; number += 2) {
+			if (!composite[number]) {
+				primes[count++] = number;
+				for (int multiple = number * number; multiple < limit; multiple += 2 * number) {
+					composite[multiple] = true;
+				}
+			}
+		}
+		int[] result = new int[count];
+		System.arraycopy(primes, 0, result, 0, count);
+		return result;
+	}
+
+	/**
+	 * Is the Montgomery arithmetic modulo an odd number n less than 2^63 with R = 2^64. A residue a is represented by a * R mod n.
+	 */
+	private static final class Montgomery {
+
+		private final long modulus;
+
+		/**
+		 * Is n^-1 mod R.
+		 */
+		private final long inverse;
+
+		/**
+		 * Is R mod n, i.e. the representation of 1.
+		 */
+		private final long one;
+
+		/**
+		 * Is R^2 mod n, that converts a residue into its representation.
+		 */
+		private final long rSquared;
+
+		private Montgomery(long modulus) {
+			this.modulus = modulus;
+			// Newton's iteration doubles the correct low bits of the inverse. An odd number is its own inverse modulo 8.
+			long inverse = modulus;
+			for (int i = 0; i < 5; i++) {
+				inverse *= 2 - modulus * inverse;
+			}
+			this.inverse = inverse;
+			this.one = Long.remainderUnsigned(-modulus, modulus);
+			long rSquared = this.one;
+			for (int i = 0; i < 64; i++) {
+				rSquared = add(rSquared, rSquared);
+			}
+			this.rSquared = rSquared;
+		}
+
+		/**
+		 * Computes a * b / R mod n by the Montgomery reduction of the 128-bit product. The reduction subtracts m * n, where m = low * n^-1 mod R,
+		 * so the low 64 bits are cancelled.
+		 */
+		private long multiply(long a, long b) {
+			long high = multiplyHighUnsigned(a, b);
+			long m = a * b * this.inverse;
+			long reduced = high - multiplyHighUnsigned(m, this.modulus);
+			return reduced < 0 ? reduced + this.modulus : reduced;
+		}
+
+		private long add(long a, long b) {
+			long sum = a + b;
+			return sum < 0 || sum >= this.modulus ? sum - this.modulus : sum;
+		}
+
+		private long toMontgomery(long residue) {
+			return multiply(residue % this.modulus, this.rSquared);
+		}
+
+		private long power(long base, long exponent) {
+			long result = this.one;
+			while (exponent != 0) {
+				if ((exponent & 1) != 0) {
+					result = multiply(result, base);
+				}
+				base = multiply(base, base);
+				exponent >>>= 1;
+			}
+			return result;
+		}
+
+		/**
+		 * Runs the Miller-Rabin test for all bases of MILLER_RABIN_BASES.
+		 */
+		private boolean isProbablePrime() {
+			long oddPart = this.modulus - 1;
+			int twos = Long.numberOfTrailingZeros(oddPart);
+			oddPart >>>= twos;
+			long minusOne = this.modulus - this.one;
+			for (long base : MILLER_RABIN_BASES) {
+				long residue = base % this.modulus;
+				if (residue == 0) {
+					continue;
+				}
+				long x = power(toMontgomery(residue), oddPart);
+				if (x == this.one || x == minusOne) {
+					continue;
+				}
+				boolean witness = true;
+				for (int i = 1; i < twos && witness; i++) {
+					x = multiply(x, x);
+					witness = x != minusOne;
+				}
+				if (witness) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Finds a non-trivial factor of the modulus by Brent's variant of Pollard's rho algorithm with f(x) = x^2 + c. The differences of
+		 * the iterates are multiplied in batches, so a gcd is computed once per batch.
+		 * @return a factor between 2 and modulus - 1
+		 */
+		private long findFactor() {
+			for (long c = 1;; c++) {
+				long increment = toMontgomery(c);
+				long y = toMontgomery(2);
+				long x = y;
+				long saved = y;
+				long product = this.one;
+				long factor = 1;
+				for (long length = 1; factor == 1; length <<= 1) {
+					x = y;
+					for (long i = 0; i < length; i++) {
+						y = add(multiply(y, y), increment);
+					}
+					for (long k = 0; k < length && factor == 1; k += RHO_BATCH_LENGTH) {
+						saved = y;
+						long batch = Math.min(RHO_BATCH_LENGTH, length - k);
+						for (long i = 0; i < batch; i++) {
+							y = add(multiply(y, y), increment);
+							product = multiply(product, x > y ? x - y : y - x);
+						}
+						factor = gcd(product, this.modulus);
+					}
+				}
+				if (factor == this.modulus) {
+					// The batch has jumped over the factor, so the iterates of the last batch are retried one by one.
+					do {
+						saved = add(multiply(saved, saved), increment);
+						factor = gcd(x > saved ? x - saved : saved - x, this.modulus);
+					} while (factor == 1);
+				}
+				if (factor != this.modulus) {
+					return factor;
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.worldline.service;
+
+import java.math.BigInteger;
+import java.util.function.Consumer;
+
+/**
+ * Decides if a Mersenne number 2^p - 1 is prime. Candidates are first trial factored with the divisors 2kp + 1 that are congruent
+ * to 1 or 7 modulo 8, which is the only form a divisor of 2^p - 1 can take when p is an odd prime. Survivors are tested with
+ * the Lucas-Lehmer test : for an odd prime p, 2^p - 1 is prime if and only if s(p-2) = 0 mod 2^p - 1, where s(0) = 4 and
+ * s(i+1) = s(i)^2 - 2.
+ * @author mohsen
+ *
+ */
+public final class LucasLehmer {
+
+	/**
+	 * Is the largest trial divisor. Keeps q * q in a long integer when computing 2^p mod q.
+	 */
+	private static final long MAXIMUM_TRIAL_DIVISOR = Integer.MAX_VALUE;
+
+	/**
+	 * Exponents below this value are cheaper to test with Lucas-Lehmer than to trial factor.
+	 */
+	private static final int MINIMUM_TRIAL_FACTORING_EXPONENT = 64;
+
+	/**
+	 * Is the count of iterations between two checkpoints of a Lucas-Lehmer test.
+	 */
+	public static final int CHECKPOINT_ITERATIONS = 10000;
+
+	private LucasLehmer() {
+	}
+
+	/**
+	 * Checks if 2^exponent - 1 is prime.
+	 * @param exponent is a prime number
+	 * @return true if 2^exponent - 1 is prime
+	 */
+	public static boolean isMersennePrime(int exponent) {
+		return isMersennePrime(exponent, null, null);
+	}
+
+	/**
+	 * Checks if 2^exponent - 1 is prime. Resumes the Lucas-Lehmer test from a checkpoint and reports a checkpoint every 
+	 * CHECKPOINT_ITERATIONS iterations.
+	 * @param exponent is a prime number
+	 * @param checkpoint is the state of an interrupted test of exponent, or null to start the test from the first iteration
+	 * @param checkpointListener receives the checkpoints of the test, or is null if no checkpoint is needed
+	 * @return true if 2^exponent - 1 is prime
+	 */
+	public static boolean isMersennePrime(int exponent, LucasLehmerCheckpoint checkpoint, Consumer<LucasLehmerCheckpoint> checkpointListener) {
+		if (exponent == 2) {
+			return true;
+		}
+		if (checkpoint == null && hasSmallFactor(exponent)) {
+			return false;
+		}
+		return lucasLehmer(exponent, checkpoint, checkpointListener);
+	}
+
+	/**
+	 * Looks for a divisor of 2^exponent - 1 in the form of 2kp + 1 that is not greater than MAXIMUM_TRIAL_DIVISOR. The search depth
+	 * grows with the exponent since a Lucas-Lehmer test costs about exponent^2 log(exponent) operations.
+	 * @param exponent is an odd prime number
+	 * @return true if a proper divisor of 2^exponent - 1 is found
+	 */
+	static boolean hasSmallFactor(int exponent) {
+		if (exponent < MINIMUM_TRIAL_FACTORING_EXPONENT) {
+			return false;
+		}
+		long maximumK = Math.min(MAXIMUM_TRIAL_DIVISOR / (2L * exponent), 4L * exponent);
+		for (long k = 1; k <= maximumK; k++) {
+			long divisor = 2 * k * exponent + 1;
+			long residue = divisor & 7;
+			if ((residue == 1 || residue == 7) && powerOfTwo(exponent, divisor) == 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Runs the Lucas-Lehmer test on a MersenneSquarer, whose residue is converted to a BigInteger only at the checkpoints. A squaring that 
+	 * is not exact is repeated by a more precise squarer.
+	 * @param exponent is an odd prime number
+	 * @param checkpoint is the state to resume the test from, or null
+	 * @param checkpointListener receives the checkpoints of the test, or is null
+	 * @return true if 2^exponent - 1 is prime
+	 */
+	static boolean lucasLehmer(int exponent, LucasLehmerCheckpoint checkpoint, Consumer<LucasLehmerCheckpoint> checkpointListener) {
+		MersenneSquarer squarer = MersenneSquarer.create(exponent);
+		squarer.set(checkpoint == null ? BigInteger.valueOf(4) : checkpoint.getResidue());
+		int first = checkpoint == null ? 0 : checkpoint.getIteration();
+		for (int i = first; i < exponent - 2; i++) {
+			if (checkpointListener != null && i > first && i % CHECKPOINT_ITERATIONS == 0) {
+				checkpointListener.accept(new LucasLehmerCheckpoint(exponent, i, squarer.get()));
+			}
+			while (!squarer.squareMinusTwo()) {
+				squarer = squarer.refine();
+			}
+		}
+		BigInteger s = squarer.get();
+		return s.signum() == 0 || s.equals(BigInteger.ONE.shiftLeft(exponent).subtract(BigInteger.ONE));
+	}
+
+	/**
+	 * Computes 2^exponent mod modulus by square-and-multiply.
+	 * @param exponent is a non-negative integer
+	 * @param modulus is an integer between 2 and MAXIMUM_TRIAL_DIVISOR
+	 * @return 2^exponent mod modulus
+	 */
+	private static long powerOfTwo(int exponent, long modulus) {
+		long result = 1;
+		for (int bit = 31 - Integer.numberOfLeadingZeros(exponent); bit >= 0; bit--) {
+			result = result * result % modulus;
+			if ((exponent >>> bit & 1) != 0) {
+				result = (result << 1) % modulus;
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.worldline.service;
+
+import java.math.BigInteger;
+
+/**
+ * Is the state of a Lucas-Lehmer test after some iterations. A test is resumed from its checkpoint instead of the first iteration.
+ * @author mohsen
+ *
+ */
+public final class LucasLehmerCheckpoint {
+
+	private final int exponent;
+
+	/**
+	 * Is the count of iterations done, i.e. the index i of s(i).
+	 */
+	private final int iteration;
+
+	/**
+	 * Is s(iteration) mod 2^exponent - 1.
+	 */
+	private final BigInteger residue;
+
+	public LucasLehmerCheckpoint(int exponent, int iteration, BigInteger residue) {
+		this.exponent = exponent;
+		this.iteration = iteration;
+		this.residue = residue;
+	}
+
+	public int getExponent() {
+		return exponent;
+	}
+
+	public int getIteration() {
+		return iteration;
+	}
+
+	public BigInteger getResidue() {
+		return residue;
+	}
+
+}
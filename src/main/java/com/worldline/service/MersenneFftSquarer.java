@@ -0,0 +1,455 @@
+package com.worldline.service;
+
+import java.math.BigInteger;
+
+/**
+ * Squares residues modulo 2^p - 1 by the irrational-base discrete weighted transform of Crandall and Fagin. A residue of p bits is split
+ * into N digits whose widths are floor(p/N) or ceil(p/N), where digit i starts at bit ceil(p*i/N). Multiplying digit i by
+ * 2^(ceil(p*i/N) - p*i/N) turns the product modulo 2^p - 1 into a cyclic convolution of length N, which is computed by a floating-point
+ * FFT. The digits are kept balanced, i.e. between -2^(width-1) and 2^(width-1), which keeps the convolution small. The real input of
+ * length N is transformed as a complex sequence of length N/2, whose spectrum is split into the spectra of the even and odd digits.
+ * The forward transform leaves its output in bit-reversed order, and the inverse transform reads it in that order, so no permutation is
+ * needed. The distance of the convolution to the nearest integers is checked after each squaring.
+ * [Crandall, Richard, and Barry Fagin. "Discrete weighted transforms and large-integer arithmetic." Mathematics of Computation 62.205
+ * (1994): 305-324.]
+ * @author mohsen
+ *
+ */
+final class MersenneFftSquarer extends MersenneSquarer {
+
+	/**
+	 * Is the greatest average count of bits of a digit. Rounding errors of MAXIMUM_ROUNDING_ERROR are first seen with digits of
+	 * 21 bits at the length 2^14, so digits of 18 bits leave a margin for the lengths up to 2^16, i.e. exponents up to a million.
+	 */
+	static final int MAXIMUM_DIGIT_BITS = 18;
+
+	/**
+	 * Is the greatest distance of a convolution term to its nearest integer that is rounded.
+	 */
+	static final double MAXIMUM_ROUNDING_ERROR = 0.375;
+
+	/**
+	 * Is the count of digits N, that is a power of two.
+	 */
+	private final int length;
+
+	/**
+	 * Is the length N/2 of the complex transform.
+	 */
+	private final int half;
+
+	/**
+	 * Contains the width of digit i at i.
+	 */
+	private final int[] widths;
+
+	/**
+	 * Contains 2^(ceil(p*i/N) - p*i/N) at i.
+	 */
+	private final double[] weights;
+
+	/**
+	 * Contains the inverse of weights[i] divided by N/2 at i, that also scales the inverse transform.
+	 */
+	private final double[] inverseWeights;
+
+	/**
+	 * Contains the balanced digits of the residue.
+	 */
+	private final long[] digits;
+
+	private final double[] real;
+
+	private final double[] imaginary;
+
+	/**
+	 * Contains the twiddle factors of the butterflies of each size 2h, i.e. cos(pi j / h) at h + j for j less than h.
+	 */
+	private final double[] cosines;
+
+	/**
+	 * Contains sin(pi j / h) at h + j for j less than h.
+	 */
+	private final double[] sines;
+
+	/**
+	 * Contains cos(2 pi k / N) at k for k not greater than N/4.
+	 */
+	private final double[] splitCosines;
+
+	/**
+	 * Contains sin(2 pi k / N) at k for k not greater than N/4.
+	 */
+	private final double[] splitSines;
+
+	/**
+	 * Contains the bit reversal of k at k for k less than N/2.
+	 */
+	private final int[] reversed;
+
+	/**
+	 * Creates a squarer of the smallest length whose digits have at most MAXIMUM_DIGIT_BITS bits on average.
+	 * @param exponent is an odd prime number
+	 */
+	MersenneFftSquarer(int exponent) {
+		this(exponent, lengthOf(exponent));
+	}
+
+	/**
+	 * Creates a squarer of a given length.
+	 * @param exponent is an odd prime number
+	 * @param length is a power of two between 4 and exponent, where the digits have at most 24 bits. Then the convolution is less than
+	 * 2^53, so its rounding errors are seen.
+	 */
+	MersenneFftSquarer(int exponent, int length) {
+		super(exponent);
+		this.length = length;
+		this.half = length / 2;
+		this.widths = new int[length];
+		this.weights = new double[length];
+		this.inverseWeights = new double[length];
+		for (int i = 0; i < length; i++) {
+			long start = bitOf(i);
+			this.widths[i] = (int) (bitOf(i + 1) - start);
+			double weight = Math.pow(2, (double) (start * length - (long) exponent * i) / length);
+			this.weights[i] = weight;
+			this.inverseWeights[i] = 1 / (weight * this.half);
+		}
+		this.digits = new long[length];
+		this.real = new double[this.half];
+		this.imaginary = new double[this.half];
+		this.cosines = new double[this.half];
+		this.sines = new double[this.half];
+		for (int halfSize = 1; halfSize < this.half; halfSize <<= 1) {
+			for (int j = 0; j < halfSize; j++) {
+				this.cosines[halfSize + j] = Math.cos(Math.PI * j / halfSize);
+				this.sines[halfSize + j] = Math.sin(Math.PI * j / halfSize);
+			}
+		}
+		this.splitCosines = new double[this.half / 2 + 1];
+		this.splitSines = new double[this.half / 2 + 1];
+		for (int k = 0; k <= this.half / 2; k++) {
+			this.splitCosines[k] = Math.cos(2 * Math.PI * k / length);
+			this.splitSines[k] = Math.sin(2 * Math.PI * k / length);
+		}
+		this.reversed = new int[this.half];
+		int bits = Integer.numberOfTrailingZeros(this.half);
+		for (int k = 1; k < this.half; k++) {
+			this.reversed[k] = Integer.reverse(k) >>> (32 - bits);
+		}
+	}
+
+	private static int lengthOf(int exponent) {
+		int length = 4;
+		while ((long) length * MAXIMUM_DIGIT_BITS < exponent) {
+			length <<= 1;
+		}
+		return length;
+	}
+
+	/**
+	 * Gets the first bit of a digit, i.e. ceil(p*i/N).
+	 */
+	private long bitOf(int digit) {
+		return ((long) this.exponent * digit + this.length - 1) / this.length;
+	}
+
+	int getLength() {
+		return length;
+	}
+
+	@Override
+	MersenneSquarer refine() {
+		// Halving the digits doubles the room for rounding errors by far more than the longer transform costs in precision.
+		return this.length < this.exponent / 2 ? copyTo(new MersenneFftSquarer(this.exponent, 2 * this.length)) : copyTo(new MersenneLimbSquarer(this.exponent));
+	}
+
+	private MersenneSquarer copyTo(MersenneSquarer squarer) {
+		squarer.set(get());
+		return squarer;
+	}
+
+	@Override
+	void set(BigInteger residue) {
+		byte[] bytes = residue.toByteArray();
+		int position = bytes.length - 1;
+		long bits = 0;
+		int bitCount = 0;
+		for (int i = 0; i < this.length; i++) {
+			int width = this.widths[i];
+			while (bitCount < width) {
+				bits |= (position >= 0 ? bytes[position--] & 0xFFL : 0) << bitCount;
+				bitCount += 8;
+			}
+			this.digits[i] = bits & ((1L << width) - 1);
+			bits >>>= width;
+			bitCount -= width;
+		}
+		carry(0);
+	}
+
+	@Override
+	BigInteger get() {
+		// The digits are made non-negative by carries with floor division, where a carry out of the last digit wraps around to the first.
+		long[] digits = this.digits.clone();
+		long carry = 0;
+		do {
+			for (int i = 0; i < this.length; i++) {
+				long t = digits[i] + carry;
+				digits[i] = t & ((1L << this.widths[i]) - 1);
+				carry = t >> this.widths[i];
+			}
+		} while (carry != 0);
+		byte[] bytes = new byte[(this.exponent + 7) / 8 + 1];
+		int position = bytes.length - 1;
+		long bits = 0;
+		int bitCount = 0;
+		for (int i = 0; i < this.length; i++) {
+			bits |= digits[i] << bitCount;
+			bitCount += this.widths[i];
+			while (bitCount >= 8) {
+				bytes[position--] = (byte) bits;
+				bits >>>= 8;
+				bitCount -= 8;
+			}
+		}
+		if (bitCount > 0) {
+			bytes[position] = (byte) bits;
+		}
+		return new BigInteger(bytes);
+	}
+
+	@Override
+	boolean squareMinusTwo() {
+		double[] real = this.real;
+		double[] imaginary = this.imaginary;
+		for (int j = 0; j < this.half; j++) {
+			real[j] = this.digits[2 * j] * this.weights[2 * j];
+			imaginary[j] = this.digits[2 * j + 1] * this.weights[2 * j + 1];
+		}
+		forward();
+		squareSpectrum();
+		inverse();
+		double error = 0;
+		for (int j = 0; j < this.half; j++) {
+			double even = real[j] * this.inverseWeights[2 * j];
+			double odd = imaginary[j] * this.inverseWeights[2 * j + 1];
+			real[j] = Math.rint(even);
+			imaginary[j] = Math.rint(odd);
+			error = Math.max(error, Math.max(Math.abs(even - real[j]), Math.abs(odd - imaginary[j])));
+		}
+		if (error > MAXIMUM_ROUNDING_ERROR) {
+			return false;
+		}
+		for (int j = 0; j < this.half; j++) {
+			this.digits[2 * j] = (long) real[j];
+			this.digits[2 * j + 1] = (long) imaginary[j];
+		}
+		this.digits[0] -= 2;
+		carry(0);
+		return true;
+	}
+
+	/**
+	 * Balances the digits by carrying the excess of each digit to the next one. The carry out of the last digit is added to the first
+	 * digit, since 2^p = 1 mod 2^p - 1.
+	 */
+	private void carry(long carry) {
+		for (int i = 0; i < this.length; i++) {
+			carry = balance(i, this.digits[i] + carry);
+		}
+		for (int i = 0; carry != 0; i = (i + 1) % this.length) {
+			carry = balance(i, this.digits[i] + carry);
+		}
+	}
+
+	/**
+	 * Sets digit i to the balanced remainder of a value.
+	 * @return the carry to the next digit
+	 */
+	private long balance(int i, long value) {
+		int width = this.widths[i];
+		long digit = value << (64 - width) >> (64 - width);
+		this.digits[i] = digit;
+		return (value - digit) >> width;
+	}
+
+	/**
+	 * Transforms the complex sequence in place by decimation in frequency. The output is in bit-reversed order. Two radix-2 stages are
+	 * done at once, i.e. the points x0, x1, x2, x3 that are q apart in a block of 4q are mapped to
+	 * (x0 + x2) + (x1 + x3), ((x0 + x2) - (x1 + x3)) w^2j, (x0 - x2 - i(x1 - x3)) w^j and (x0 - x2 + i(x1 - x3)) w^3j, where
+	 * w = e^(-2 pi i / 4q).
+	 */
+	private void forward() {
+		double[] real = this.real;
+		double[] imaginary = this.imaginary;
+		int halfSize = this.half / 2;
+		for (; halfSize >= 2; halfSize >>= 2) {
+			int quarter = halfSize / 2;
+			for (int start = 0; start < this.half; start += 2 * halfSize) {
+				for (int j = 0; j < quarter; j++) {
+					int a0 = start + j;
+					int a1 = a0 + quarter;
+					int a2 = a1 + quarter;
+					int a3 = a2 + quarter;
+					double c1 = this.cosines[halfSize + j];
+					double s1 = -this.sines[halfSize + j];
+					double c2 = this.cosines[quarter + j];
+					double s2 = -this.sines[quarter + j];
+					double c3 = c1 * c2 - s1 * s2;
+					double s3 = c1 * s2 + s1 * c2;
+					double ar = real[a0] + real[a2];
+					double ai = imaginary[a0] + imaginary[a2];
+					double br = real[a1] + real[a3];
+					double bi = imaginary[a1] + imaginary[a3];
+					double cr = real[a0] - real[a2];
+					double ci = imaginary[a0] - imaginary[a2];
+					// D = -i (x1 - x3)
+					double dr = imaginary[a1] - imaginary[a3];
+					double di = real[a3] - real[a1];
+					real[a0] = ar + br;
+					imaginary[a0] = ai + bi;
+					double tr = ar - br;
+					double ti = ai - bi;
+					real[a1] = tr * c2 - ti * s2;
+					imaginary[a1] = tr * s2 + ti * c2;
+					tr = cr + dr;
+					ti = ci + di;
+					real[a2] = tr * c1 - ti * s1;
+					imaginary[a2] = tr * s1 + ti * c1;
+					tr = cr - dr;
+					ti = ci - di;
+					real[a3] = tr * c3 - ti * s3;
+					imaginary[a3] = tr * s3 + ti * c3;
+				}
+			}
+		}
+		if (halfSize == 1) {
+			for (int a = 0; a < this.half; a += 2) {
+				double ar = real[a];
+				double ai = imaginary[a];
+				real[a] = ar + real[a + 1];
+				imaginary[a] = ai + imaginary[a + 1];
+				real[a + 1] = ar - real[a + 1];
+				imaginary[a + 1] = ai - imaginary[a + 1];
+			}
+		}
+	}
+
+	/**
+	 * Transforms the complex sequence in place by decimation in time without scaling. The input is in bit-reversed order. Reverses
+	 * forward, i.e. with p0 = y0, p1 = y1 conj(w^2j), p2 = y2 conj(w^j) and p3 = y3 conj(w^3j), the points are mapped to
+	 * (p0 + p1) + (p2 + p3), (p0 - p1) + i(p2 - p3), (p0 + p1) - (p2 + p3) and (p0 - p1) - i(p2 - p3).
+	 */
+	private void inverse() {
+		double[] real = this.real;
+		double[] imaginary = this.imaginary;
+		int halfSize = 1;
+		if (Integer.numberOfTrailingZeros(this.half) % 2 != 0) {
+			for (int a = 0; a < this.half; a += 2) {
+				double ar = real[a];
+				double ai = imaginary[a];
+				real[a] = ar + real[a + 1];
+				imaginary[a] = ai + imaginary[a + 1];
+				real[a + 1] = ar - real[a + 1];
+				imaginary[a + 1] = ai - imaginary[a + 1];
+			}
+			halfSize = 2;
+		}
+		for (; halfSize < this.half; halfSize <<= 2) {
+			int quarter = halfSize;
+			int size = 4 * quarter;
+			for (int start = 0; start < this.half; start += size) {
+				for (int j = 0; j < quarter; j++) {
+					int a0 = start + j;
+					int a1 = a0 + quarter;
+					int a2 = a1 + quarter;
+					int a3 = a2 + quarter;
+					double c1 = this.cosines[2 * quarter + j];
+					double s1 = this.sines[2 * quarter + j];
+					double c2 = this.cosines[quarter + j];
+					double s2 = this.sines[quarter + j];
+					double c3 = c1 * c2 - s1 * s2;
+					double s3 = c1 * s2 + s1 * c2;
+					double p0r = real[a0];
+					double p0i = imaginary[a0];
+					double p1r = real[a1] * c2 - imaginary[a1] * s2;
+					double p1i = real[a1] * s2 + imaginary[a1] * c2;
+					double p2r = real[a2] * c1 - imaginary[a2] * s1;
+					double p2i = real[a2] * s1 + imaginary[a2] * c1;
+					double p3r = real[a3] * c3 - imaginary[a3] * s3;
+					double p3i = real[a3] * s3 + imaginary[a3] * c3;
+					double sr = p0r + p1r;
+					double si = p0i + p1i;
+					double dr = p0r - p1r;
+					double di = p0i - p1i;
+					double tr = p2r + p3r;
+					double ti = p2i + p3i;
+					// i (p2 - p3)
+					double ur = p3i - p2i;
+					double ui = p2r - p3r;
+					real[a0] = sr + tr;
+					imaginary[a0] = si + ti;
+					real[a1] = dr + ur;
+					imaginary[a1] = di + ui;
+					real[a2] = sr - tr;
+					imaginary[a2] = si - ti;
+					real[a3] = dr - ur;
+					imaginary[a3] = di - ui;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Squares the real spectrum of length N that is packed in the complex spectrum Z of length N/2. With the spectra E and O of the even
+	 * and odd digits, E(k) = (Z(k) + conj(Z(N/2-k))) / 2, O(k) = (Z(k) - conj(Z(N/2-k))) / 2i and X(k) = E(k) + w^k O(k), where
+	 * w = e^(-2 pi i / N). The squared spectrum S is packed back by the inverse relations, where X(N/2-k) = conj(E(k) - w^k O(k)).
+	 */
+	private void squareSpectrum() {
+		double[] real = this.real;
+		double[] imaginary = this.imaginary;
+		double even = real[0];
+		double odd = imaginary[0];
+		double first = (even + odd) * (even + odd);
+		double last = (even - odd) * (even - odd);
+		real[0] = (first + last) / 2;
+		imaginary[0] = (first - last) / 2;
+		for (int k = 1; k <= this.half / 2; k++) {
+			int p = this.reversed[k];
+			int q = this.reversed[this.half - k];
+			double c = this.splitCosines[k];
+			double s = -this.splitSines[k];
+			// E = (Z(k) + conj(Z(N/2-k))) / 2 and O = -i (Z(k) - conj(Z(N/2-k))) / 2.
+			double er = (real[p] + real[q]) / 2;
+			double ei = (imaginary[p] - imaginary[q]) / 2;
+			double or = (imaginary[p] + imaginary[q]) / 2;
+			double oi = (real[q] - real[p]) / 2;
+			// w^k O
+			double tr = c * or - s * oi;
+			double ti = c * oi + s * or;
+			// X(k) = E + w^k O and X(N/2-k) = conj(E - w^k O), squared.
+			double xr = er + tr;
+			double xi = ei + ti;
+			double yr = er - tr;
+			double yi = ti - ei;
+			double sr = xr * xr - xi * xi;
+			double si = 2 * xr * xi;
+			double ur = yr * yr - yi * yi;
+			double ui = 2 * yr * yi;
+			// E' = (S(k) + conj(S(N/2-k))) / 2 and O' = (S(k) - conj(S(N/2-k))) conj(w^k) / 2.
+			er = (sr + ur) / 2;
+			ei = (si - ui) / 2;
+			double dr = (sr - ur) / 2;
+			double di = (si + ui) / 2;
+			or = c * dr + s * di;
+			oi = c * di - s * dr;
+			// Z'(k) = E' + i O' and Z'(N/2-k) = conj(E') + i conj(O').
+			real[p] = er - oi;
+			imaginary[p] = ei + or;
+			real[q] = er + oi;
+			imaginary[q] = or - ei;
+		}
+	}
+
+}
@@ -0,0 +1,238 @@
+package com.worldline.service;
+
+import java.math.BigInteger;
+
+/**
+ * Squares residues modulo 2^p - 1 that are stored as 32-bit limbs in long integers, least significant limb first. A limb product fits 
+ * in an unsigned long integer with the carries, so no product is split. Residues of less than KARATSUBA_THRESHOLD limbs are squared by 
+ * the schoolbook method, which computes each cross product once and doubles them. Larger residues are squared by Karatsuba's method, 
+ * i.e. (aB + b)^2 = a^2 B^2 + ((a + b)^2 - a^2 - b^2) B + b^2. The product is reduced by adding its low p bits to its high bits, 
+ * since 2^p = 1 mod 2^p - 1.
+ * @author mohsen
+ *
+ */
+final class MersenneLimbSquarer extends MersenneSquarer {
+
+	/**
+	 * Is the smallest count of limbs that is squared by Karatsuba's method.
+	 */
+	static final int KARATSUBA_THRESHOLD = 48;
+
+	private static final long MASK = 0xFFFFFFFFL;
+
+	/**
+	 * Is the count of limbs of a residue.
+	 */
+	private final int length;
+
+	/**
+	 * Is the count of bits of the most significant limb of a residue.
+	 */
+	private final int topBits;
+
+	private final long[] residue;
+
+	private final long[] product;
+
+	/**
+	 * Keeps the sums and the middle products of Karatsuba's method at every level of the recursion.
+	 */
+	private final long[] scratch;
+
+	MersenneLimbSquarer(int exponent) {
+		super(exponent);
+		this.length = (exponent + 31) / 32;
+		this.topBits = exponent - 32 * (this.length - 1);
+		this.residue = new long[this.length];
+		this.product = new long[2 * this.length];
+		this.scratch = new long[scratchLength(this.length)];
+	}
+
+	private static int scratchLength(int length) {
+		if (length < KARATSUBA_THRESHOLD) {
+			return 0;
+		}
+		int sumLength = (length + 1) / 2 + 1;
+		return 3 * sumLength + scratchLength(sumLength);
+	}
+
+	@Override
+	void set(BigInteger residue) {
+		for (int i = 0; i < this.length; i++) {
+			this.residue[i] = residue.shiftRight(32 * i).intValue() & MASK;
+		}
+	}
+
+	@Override
+	BigInteger get() {
+		byte[] bytes = new byte[4 * this.length + 1];
+		for (int i = 0; i < this.length; i++) {
+			long limb = this.residue[i];
+			int position = bytes.length - 1 - 4 * i;
+			for (int j = 0; j < 4; j++) {
+				bytes[position - j] = (byte) (limb >>> (8 * j));
+			}
+		}
+		return new BigInteger(bytes);
+	}
+
+	@Override
+	boolean squareMinusTwo() {
+		square(this.residue, 0, this.length, this.product, 0, 0);
+		reduce();
+		subtractTwo();
+		return true;
+	}
+
+	/**
+	 * Squares the limbs a[from, from + length) into r[to, to + 2 * length).
+	 * @param scratchFrom is the first free position of the scratch
+	 */
+	private void square(long[] a, int from, int length, long[] r, int to, int scratchFrom) {
+		if (length < KARATSUBA_THRESHOLD) {
+			squareSchoolbook(a, from, length, r, to);
+			return;
+		}
+		int lowLength = (length + 1) / 2;
+		int highLength = length - lowLength;
+		square(a, from, lowLength, r, to, scratchFrom);
+		square(a, from + lowLength, highLength, r, to + 2 * lowLength, scratchFrom);
+		long[] s = this.scratch;
+		int sumLength = lowLength + 1;
+		long carry = 0;
+		for (int i = 0; i < lowLength; i++) {
+			long t = a[from + i] + (i < highLength ? a[from + lowLength + i] : 0) + carry;
+			s[scratchFrom + i] = t & MASK;
+			carry = t >>> 32;
+		}
+		s[scratchFrom + lowLength] = carry;
+		int middle = scratchFrom + sumLength;
+		square(s, scratchFrom, sumLength, s, middle, middle + 2 * sumLength);
+		subtract(s, middle, 2 * sumLength, r, to, 2 * lowLength);
+		subtract(s, middle, 2 * sumLength, r, to + 2 * lowLength, 2 * highLength);
+		// The middle product 2ab is less than 2^(32 * (lowLength + highLength + 1)), so its higher limbs are zero.
+		add(r, to + lowLength, 2 * length - lowLength, s, middle, Math.min(2 * sumLength, 2 * length - lowLength));
+	}
+
+	private static void squareSchoolbook(long[] a, int from, int length, long[] r, int to) {
+		for (int i = 0; i < 2 * length; i++) {
+			r[to + i] = 0;
+		}
+		// The cross products a[i] * a[j] with i < j. A product plus two limbs is less than 2^64.
+		for (int i = 0; i < length; i++) {
+			long ai = a[from + i];
+			long carry = 0;
+			for (int j = i + 1; j < length; j++) {
+				long t = ai * a[from + j] + r[to + i + j] + carry;
+				r[to + i + j] = t & MASK;
+				carry = t >>> 32;
+			}
+			r[to + i + length] = carry;
+		}
+		long carry = 0;
+		for (int i = 0; i < 2 * length; i++) {
+			long t = r[to + i] << 1 | carry;
+			r[to + i] = t & MASK;
+			carry = t >>> 32;
+		}
+		carry = 0;
+		for (int i = 0; i < length; i++) {
+			long ai = a[from + i];
+			long square = ai * ai;
+			long t = (square & MASK) + r[to + 2 * i] + carry;
+			r[to + 2 * i] = t & MASK;
+			t = (square >>> 32) + r[to + 2 * i + 1] + (t >>> 32);
+			r[to + 2 * i + 1] = t & MASK;
+			carry = t >>> 32;
+		}
+	}
+
+	/**
+	 * Subtracts b[bFrom, bFrom + bLength) from a[aFrom, aFrom + aLength), where the difference is not negative.
+	 */
+	private static void subtract(long[] a, int aFrom, int aLength, long[] b, int bFrom, int bLength) {
+		long borrow = 0;
+		int i = 0;
+		for (; i < bLength; i++) {
+			long t = a[aFrom + i] - b[bFrom + i] - borrow;
+			a[aFrom + i] = t & MASK;
+			borrow = t >>> 63;
+		}
+		for (; borrow != 0 && i < aLength; i++) {
+			long t = a[aFrom + i] - borrow;
+			a[aFrom + i] = t & MASK;
+			borrow = t >>> 63;
+		}
+	}
+
+	/**
+	 * Adds b[bFrom, bFrom + bLength) to a[aFrom, aFrom + aLength), where the sum fits in aLength limbs.
+	 */
+	private static void add(long[] a, int aFrom, int aLength, long[] b, int bFrom, int bLength) {
+		long carry = 0;
+		int i = 0;
+		for (; i < bLength; i++) {
+			long t = a[aFrom + i] + b[bFrom + i] + carry;
+			a[aFrom + i] = t & MASK;
+			carry = t >>> 32;
+		}
+		for (; carry != 0 && i < aLength; i++) {
+			long t = a[aFrom + i] + carry;
+			a[aFrom + i] = t & MASK;
+			carry = t >>> 32;
+		}
+	}
+
+	/**
+	 * Reduces the product into the residue by adding the low exponent bits of the product to its high bits.
+	 */
+	private void reduce() {
+		int shift = this.exponent % 32;
+		int high = this.exponent / 32;
+		long topMask = -1L >>> (64 - this.topBits);
+		long carry = 0;
+		for (int i = 0; i < this.length; i++) {
+			long low = this.product[i];
+			if (i == this.length - 1) {
+				low &= topMask;
+			}
+			long highLimb = shift == 0 ? this.product[high + i] 
+					: (this.product[high + i] >>> shift | this.product[high + i + 1] << (32 - shift)) & MASK;
+			long t = low + highLimb + carry;
+			this.residue[i] = t & MASK;
+			carry = t >>> 32;
+		}
+		// The sum is less than 2^(exponent + 1). Its bit at exponent is added back to its lowest bit.
+		long overflow = this.topBits == 32 ? carry : this.residue[this.length - 1] >>> this.topBits;
+		this.residue[this.length - 1] &= topMask;
+		for (int i = 0; overflow != 0; i++) {
+			long t = this.residue[i] + overflow;
+			this.residue[i] = t & MASK;
+			overflow = t >>> 32;
+		}
+	}
+
+	private void subtractTwo() {
+		boolean lessThanTwo = this.residue[0] < 2;
+		for (int i = 1; i < this.length && lessThanTwo; i++) {
+			lessThanTwo = this.residue[i] == 0;
+		}
+		if (lessThanTwo) {
+			// s - 2 = s + 2^exponent - 3 mod 2^exponent - 1.
+			long s = this.residue[0];
+			for (int i = 0; i < this.length; i++) {
+				this.residue[i] = i == this.length - 1 ? -1L >>> (64 - this.topBits) : MASK;
+			}
+			this.residue[0] -= 2 - s;
+		} else {
+			for (int i = 0;; i++) {
+				long t = this.residue[i] - (i == 0 ? 2 : 1);
+				this.residue[i] = t & MASK;
+				if (t >= 0) {
+					break;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,299 @@
+package com.worldline.service;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.worldline.metrics.OperationMetrics;
+import com.worldline.metrics.Outcome;
+
+/**
+ * Searches Mersenne prime exponents in increasing order. The candidate exponents are tested in blocks and the Lucas-Lehmer tests of a block
+ * run in parallel on a fork-join pool. The exponents found so far are kept, so each exponent is tested at most once.
+ * Euclid-Euler theorem : an even number is perfect if and only if it is of the form 2^(p-1) * (2^p - 1), where 2^p - 1 is prime.
+ * Thus, the k-th Mersenne prime exponent gives the k-th even perfect number.
+ * If a store is given, the search starts from the stored state and saves the exponents it finds and the checkpoints of its Lucas-Lehmer tests.
+ * The exponents that are tested already are looked up without waiting for a running search, e.g. the tests that are resumed after a restart.
+ * @author mohsen
+ *
+ */
+public class MersennePrimeSearch {
+
+	/**
+	 * Is the largest exponent that is tested. It bounds the time spent on a single request, since a Lucas-Lehmer test of an exponent p
+	 * costs p squarings of a p-bit number.
+	 */
+	public static final int MAXIMUM_EXPONENT = 50000;
+
+	/**
+	 * Is the number of candidate exponents tested in a block per worker of the pool.
+	 */
+	private static final int CANDIDATES_PER_WORKER = 2;
+
+	/**
+	 * Is the least time in milliseconds between two saves of the search state after a block, unless a Mersenne prime exponent is found
+	 * or a checkpoint is completed.
+	 */
+	private static final long SAVE_INTERVAL = 1000;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MersennePrimeSearch.class);
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Is the store of the search state, or null if the state is not persisted.
+	 */
+	private final PerfectNumberStore store;
+
+	/**
+	 * Contains all Mersenne prime exponents less than searchedExponent in increasing order. Is read without a lock by the lookups of
+	 * the tested exponents and by the workers when they save a checkpoint.
+	 */
+	private final List<Integer> exponents = new CopyOnWriteArrayList<Integer>();
+
+	/**
+	 * Contains the last checkpoint of each unfinished Lucas-Lehmer test by its exponent.
+	 */
+	private final ConcurrentHashMap<Integer, LucasLehmerCheckpoint> checkpoints = new ConcurrentHashMap<Integer, LucasLehmerCheckpoint>();
+
+	/**
+	 * Is the smallest exponent that is not tested yet. Is changed after the exponents less than it are added, while the state lock, i.e.
+	 * this object, is held.
+	 */
+	private volatile int searchedExponent = 2;
+
+	/**
+	 * Is held while the next blocks are tested, so one block is tested at a time. The lookups of the tested exponents and the merges
+	 * do not need it.
+	 */
+	private final Object searchLock = new Object();
+
+	/**
+	 * Is the time in milliseconds of the last save of the search state.
+	 */
+	private volatile long lastSaveTime;
+
+	/**
+	 * Records the latency of each block of tests. A block is a hit if it finds a Mersenne prime exponent.
+	 */
+	private final OperationMetrics blockMetrics;
+
+	/**
+	 * Gives the prime exponents. Is shared with the service, so its table covers MAXIMUM_EXPONENT.
+	 */
+	private final PrimeSieve primeSieve;
+
+	public MersennePrimeSearch(ForkJoinPool pool) {
+		this(pool, null);
+	}
+
+	public MersennePrimeSearch(ForkJoinPool pool, PerfectNumberStore store) {
+		this(pool, store, new PrimeSieve(pool, MAXIMUM_EXPONENT), new OperationMetrics("mersenneSearch"));
+	}
+
+	/**
+	 * Creates a search that starts from the state of a given store.
+	 * @param pool runs the Lucas-Lehmer tests
+	 * @param store is a loaded store, or null if the state is not persisted
+	 * @param primeSieve decides if the candidate exponents are prime
+	 * @param blockMetrics records the latency of each block of tests
+	 */
+	public MersennePrimeSearch(ForkJoinPool pool, PerfectNumberStore store, PrimeSieve primeSieve, OperationMetrics blockMetrics) {
+		this.pool = pool;
+		this.store = store;
+		this.primeSieve = primeSieve;
+		this.blockMetrics = blockMetrics;
+		if (store != null) {
+			this.exponents.addAll(store.getExponents());
+			this.searchedExponent = store.getSearchedExponent();
+			for (LucasLehmerCheckpoint checkpoint : store.getCheckpoints()) {
+				this.checkpoints.put(checkpoint.getExponent(), checkpoint);
+			}
+		}
+	}
+
+	/**
+	 * Resumes the interrupted Lucas-Lehmer tests of the stored state in the background. Does nothing if there is no checkpoint.
+	 */
+	public void resume() {
+		if (!this.checkpoints.isEmpty()) {
+			this.pool.execute(() -> {
+				synchronized (this.searchLock) {
+					while (!this.checkpoints.isEmpty() && this.searchedExponent <= MAXIMUM_EXPONENT) {
+						searchNextBlock();
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Finds the index-th Mersenne prime exponent and searches further exponents if it is not found yet.
+	 * @param index is a non-zero positive integer
+	 * @return the index-th Mersenne prime exponent, or -1 if there are less than index Mersenne prime exponents up to MAXIMUM_EXPONENT
+	 */
+	public int getExponent(int index) {
+		if (index <= this.exponents.size()) {
+			return this.exponents.get(index - 1);
+		}
+		synchronized (this.searchLock) {
+			while (this.exponents.size() < index && this.searchedExponent <= MAXIMUM_EXPONENT) {
+				searchNextBlock();
+			}
+			return this.exponents.size() < index ? -1 : this.exponents.get(index - 1);
+		}
+	}
+
+	/**
+	 * Checks if 2^exponent - 1 is prime. Searches all exponents up to the given one if they are not tested yet.
+	 * @param exponent is an integer between 1 and MAXIMUM_EXPONENT
+	 * @return true if 2^exponent - 1 is prime
+	 */
+	public boolean isMersennePrimeExponent(int exponent) {
+		if (exponent < this.searchedExponent) {
+			return this.exponents.contains(exponent);
+		}
+		synchronized (this.searchLock) {
+			while (this.searchedExponent <= exponent) {
+				searchNextBlock();
+			}
+			return this.exponents.contains(exponent);
+		}
+	}
+
+	/**
+	 * Merges the result of a block of exponents that is tested elsewhere, e.g. by the workers of a distributed search. The exponents
+	 * of the block that are tested here already are skipped. Does not wait for a block that is being tested here.
+	 * @param first is the first exponent of the block
+	 * @param last is the exponent after the block
+	 * @param found contains the Mersenne prime exponents of the block in increasing order
+	 * @return false if the block starts after the smallest exponent that is not tested yet, so it cannot be merged yet
+	 */
+	public synchronized boolean merge(int first, int last, List<Integer> found) {
+		if (first > this.searchedExponent) {
+			return false;
+		}
+		if (last <= this.searchedExponent) {
+			return true;
+		}
+		for (int exponent : found) {
+			if (exponent >= this.searchedExponent) {
+				this.exponents.add(exponent);
+			}
+		}
+		this.searchedExponent = last;
+		this.checkpoints.keySet().removeIf(exponent -> exponent < last);
+		save();
+		return true;
+	}
+
+	/**
+	 * Gets the Mersenne prime exponents found so far.
+	 * @return the smallest exponent that is not tested yet and all Mersenne prime exponents less than it
+	 */
+	public SearchState getState() {
+		int searchedExponent = this.searchedExponent;
+		List<Integer> exponents = new ArrayList<Integer>();
+		for (int exponent : this.exponents) {
+			if (exponent < searchedExponent) {
+				exponents.add(exponent);
+			}
+		}
+		return new SearchState(searchedExponent, exponents);
+	}
+
+	public int getSearchedExponent() {
+		return this.searchedExponent;
+	}
+
+	/**
+	 * Gets the last checkpoint of an unfinished Lucas-Lehmer test.
+	 * @param exponent is a prime number
+	 * @return the checkpoint of exponent, or null if its test has no checkpoint
+	 */
+	public LucasLehmerCheckpoint getCheckpoint(int exponent) {
+		return this.checkpoints.get(exponent);
+	}
+
+	/**
+	 * Keeps the checkpoint of a Lucas-Lehmer test, so the test is resumed from it, and saves it if there is a store.
+	 * @param checkpoint is the checkpoint of an exponent that is not tested yet
+	 */
+	public void saveCheckpoint(LucasLehmerCheckpoint checkpoint) {
+		if (checkpoint.getExponent() >= this.searchedExponent) {
+			this.checkpoints.put(checkpoint.getExponent(), checkpoint);
+			save();
+		}
+	}
+
+	/**
+	 * Creates the perfect number 2^(exponent-1) * (2^exponent - 1).
+	 * @param exponent is a Mersenne prime exponent
+	 * @return the perfect number generated by exponent
+	 */
+	public static BigInteger toPerfectNumber(int exponent) {
+		return BigInteger.ONE.shiftLeft(exponent).subtract(BigInteger.ONE).shiftLeft(exponent - 1);
+	}
+
+	/**
+	 * Tests the next prime exponents in parallel. The block size is a multiple of the pool parallelism, so all workers are busy
+	 * while the exponents are tested in increasing order. The result is added under the state lock, skipping the exponents that are
+	 * merged meanwhile.
+	 */
+	private void searchNextBlock() {
+		long startTime = System.nanoTime();
+		int blockSize = this.pool.getParallelism() * CANDIDATES_PER_WORKER;
+		int[] candidates = new int[blockSize];
+		int count = 0;
+		int exponent = this.searchedExponent;
+		for (; count < blockSize && exponent <= MAXIMUM_EXPONENT; exponent++) {
+			if (this.primeSieve.isPrime(exponent)) {
+				candidates[count++] = exponent;
+			}
+		}
+		IntStream block = IntStream.of(candidates).limit(count);
+		int[] found = this.pool.submit(() -> block.parallel()
+				.filter(p -> LucasLehmer.isMersennePrime(p, this.checkpoints.get(p), this::saveCheckpoint))
+				.sorted().toArray()).join();
+		synchronized (this) {
+			for (int mersennePrimeExponent : found) {
+				if (mersennePrimeExponent >= this.searchedExponent) {
+					this.exponents.add(mersennePrimeExponent);
+				}
+			}
+			this.searchedExponent = Math.max(this.searchedExponent, exponent);
+			boolean resumed = false;
+			for (int i = 0; i < count; i++) {
+				resumed |= this.checkpoints.remove(candidates[i]) != null;
+			}
+			if (found.length > 0 || resumed || System.currentTimeMillis() - this.lastSaveTime >= SAVE_INTERVAL) {
+				save();
+			}
+		}
+		this.blockMetrics.record(found.length > 0 ? Outcome.HIT : Outcome.MISS, startTime);
+	}
+
+	/**
+	 * Saves the search state if there is a store. A failed save is logged and the search goes on, since the state can be found again.
+	 */
+	private void save() {
+		if (this.store == null) {
+			return;
+		}
+		try {
+			this.store.save(this.searchedExponent, this.exponents, this.checkpoints.values());
+		} catch (IOException e) {
+			LOGGER.warn("The state of the Mersenne prime search cannot be saved.", e);
+		}
+		this.lastSaveTime = System.currentTimeMillis();
+	}
+
+}
@@ -0,0 +1,365 @@
+package com.worldline.service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.worldline.metrics.OperationMetrics;
+import com.worldline.metrics.Outcome;
+
+/**
+ * Coordinates a Mersenne prime search that is distributed over worker nodes. The exponents beyond the local search are split into work
+ * units of unitLength prime exponents, which are leased to the workers in increasing order. A worker renews its lease while it tests
+ * a unit and reports the checkpoints of its Lucas-Lehmer tests, which are kept by the local search, so they are persisted by its store.
+ * A unit whose lease is not renewed within leaseTime is leased again and resumed from its checkpoints. The Mersenne prime exponents
+ * that a worker reports are tested again on the pool before they are confirmed. The confirmed units are merged into the local search
+ * in increasing order, so the table that the node serves grows without gaps. The leases are not persisted : after a restart, the
+ * workers lose their leases and the units are leased again from their checkpoints.
+ * @author mohsen
+ *
+ */
+public class MersenneSearchCoordinator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MersenneSearchCoordinator.class);
+
+	private final MersennePrimeSearch search;
+
+	private final PrimeSieve primeSieve;
+
+	/**
+	 * Confirms the reported Mersenne prime exponents.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Is the greatest count of prime exponents of a unit.
+	 */
+	private final int unitLength;
+
+	/**
+	 * Is the time in milliseconds after which a lease expires unless it is renewed.
+	 */
+	private final long leaseTime;
+
+	/**
+	 * Is the largest exponent that is leased.
+	 */
+	private final int maximumExponent;
+
+	/**
+	 * Gives the current time in milliseconds.
+	 */
+	private final LongSupplier clock;
+
+	/**
+	 * Records the time from the first lease of each unit to its confirmation. A unit is a hit if it contains a Mersenne prime exponent.
+	 */
+	private final OperationMetrics unitMetrics;
+
+	/**
+	 * Contains the units that are not merged into the search by their first exponents.
+	 */
+	private final TreeMap<Integer, WorkUnit> units = new TreeMap<Integer, WorkUnit>();
+
+	/**
+	 * Contains the leased units by their lease identifiers.
+	 */
+	private final Map<Long, WorkUnit> leases = new HashMap<Long, WorkUnit>();
+
+	/**
+	 * Is the first exponent that is not in a unit.
+	 */
+	private int nextExponent;
+
+	/**
+	 * Is the identifier of the next lease. Starts from the time of creation, so the leases of a previous run are not recognized.
+	 */
+	private long nextLeaseId;
+
+	/**
+	 * Creates a coordinator that leases the exponents after the ones tested by a search.
+	 * @param search receives the confirmed units and keeps the checkpoints
+	 * @param primeSieve gives the prime exponents
+	 * @param pool confirms the reported Mersenne prime exponents
+	 * @param unitLength is the greatest count of prime exponents of a unit
+	 * @param leaseTime is the time in milliseconds after which a lease expires unless it is renewed
+	 * @param maximumExponent is the largest exponent that is leased
+	 * @param unitMetrics records the time from the first lease of each unit to its confirmation
+	 */
+	public MersenneSearchCoordinator(MersennePrimeSearch search, PrimeSieve primeSieve, ForkJoinPool pool, int unitLength, long leaseTime,
+			int maximumExponent, OperationMetrics unitMetrics) {
+		this(search, primeSieve, pool, unitLength, leaseTime, maximumExponent, unitMetrics, System::currentTimeMillis);
+	}
+
+	MersenneSearchCoordinator(MersennePrimeSearch search, PrimeSieve primeSieve, ForkJoinPool pool, int unitLength, long leaseTime,
+			int maximumExponent, OperationMetrics unitMetrics, LongSupplier clock) {
+		this.search = search;
+		this.primeSieve = primeSieve;
+		this.pool = pool;
+		this.unitLength = unitLength;
+		this.leaseTime = leaseTime;
+		this.maximumExponent = maximumExponent;
+		this.unitMetrics = unitMetrics;
+		this.clock = clock;
+		this.nextExponent = search.getSearchedExponent();
+		this.nextLeaseId = clock.getAsLong();
+	}
+
+	/**
+	 * Leases the first unit that is neither leased nor done. A new unit is created if all units are leased.
+	 * @return the lease, or null if all exponents up to maximumExponent are leased
+	 */
+	public synchronized WorkLease lease() {
+		long now = this.clock.getAsLong();
+		dropSearchedUnits();
+		WorkUnit unit = null;
+		for (WorkUnit candidate : this.units.values()) {
+			if (!candidate.done && (candidate.leaseId == 0 || candidate.expiry < now)) {
+				unit = candidate;
+				break;
+			}
+		}
+		if (unit == null) {
+			unit = createUnit(now);
+			if (unit == null) {
+				return null;
+			}
+		}
+		if (unit.leaseId != 0) {
+			LOGGER.info("The lease of the exponents from {} to {} is expired.", unit.first, unit.last - 1);
+			this.leases.remove(unit.leaseId);
+		}
+		unit.leaseId = this.nextLeaseId++;
+		unit.expiry = now + this.leaseTime;
+		this.leases.put(unit.leaseId, unit);
+		WorkLease lease = new WorkLease();
+		lease.setLeaseId(unit.leaseId);
+		lease.setLeaseTime(this.leaseTime);
+		lease.setExponents(unit.exponents);
+		int[] iterations = new int[unit.exponents.length];
+		BigInteger[] residues = new BigInteger[unit.exponents.length];
+		for (int i = 0; i < unit.exponents.length; i++) {
+			LucasLehmerCheckpoint checkpoint = this.search.getCheckpoint(unit.exponents[i]);
+			if (checkpoint != null) {
+				iterations[i] = checkpoint.getIteration();
+				residues[i] = checkpoint.getResidue();
+			}
+		}
+		lease.setIterations(iterations);
+		lease.setResidues(residues);
+		lease.setState(this.search.getState());
+		return lease;
+	}
+
+	/**
+	 * Renews a lease.
+	 * @param leaseId identifies the lease
+	 * @return false if the lease is lost, i.e. its unit is leased again or done
+	 */
+	public synchronized boolean renew(long leaseId) {
+		WorkUnit unit = this.leases.get(leaseId);
+		if (unit == null) {
+			return false;
+		}
+		unit.expiry = this.clock.getAsLong() + this.leaseTime;
+		return true;
+	}
+
+	/**
+	 * Keeps the checkpoint of a test of a leased unit and renews the lease.
+	 * @param leaseId identifies the lease
+	 * @param checkpoint is a checkpoint of an exponent of the unit
+	 * @return false if the lease is lost
+	 * @throws PerfectNumberException if the checkpoint is not valid for the unit
+	 */
+	public boolean saveCheckpoint(long leaseId, LucasLehmerCheckpoint checkpoint) throws PerfectNumberException {
+		int exponent = checkpoint.getExponent();
+		synchronized (this) {
+			WorkUnit unit = this.leases.get(leaseId);
+			if (unit == null) {
+				return false;
+			}
+			if (!unit.contains(exponent)) {
+				throw new PerfectNumberException("The exponent " + exponent + " is not in the leased unit.");
+			}
+			unit.expiry = this.clock.getAsLong() + this.leaseTime;
+		}
+		BigInteger residue = checkpoint.getResidue();
+		if (checkpoint.getIteration() <= 0 || checkpoint.getIteration() >= exponent - 2 || residue.signum() < 0
+				|| residue.bitLength() > exponent) {
+			throw new PerfectNumberException("The checkpoint must have an iteration between 1 and " + (exponent - 3)
+					+ " and a residue between 0 and 2^" + exponent + " - 1.");
+		}
+		this.search.saveCheckpoint(checkpoint);
+		return true;
+	}
+
+	/**
+	 * Accepts the result of a leased unit. The reported Mersenne prime exponents are tested again in the background, and the unit is
+	 * merged into the search when they are confirmed. A unit whose result is not confirmed is leased again.
+	 * @param leaseId identifies the lease
+	 * @param found contains the Mersenne prime exponents of the unit
+	 * @return false if the lease is lost, so the result is ignored
+	 * @throws PerfectNumberException if found contains an exponent that is not in the unit
+	 */
+	public synchronized boolean complete(long leaseId, List<Integer> found) throws PerfectNumberException {
+		WorkUnit unit = this.leases.get(leaseId);
+		if (unit == null) {
+			return false;
+		}
+		for (int exponent : found) {
+			if (!unit.contains(exponent)) {
+				throw new PerfectNumberException("The exponent " + exponent + " is not in the leased unit.");
+			}
+		}
+		this.leases.remove(leaseId);
+		unit.leaseId = 0;
+		unit.done = true;
+		List<Integer> sorted = new ArrayList<Integer>(found);
+		sorted.sort(null);
+		if (sorted.isEmpty()) {
+			confirm(unit, sorted);
+		} else {
+			this.pool.execute(() -> {
+				boolean confirmed = sorted.stream().allMatch(LucasLehmer::isMersennePrime);
+				synchronized (this) {
+					if (confirmed) {
+						confirm(unit, sorted);
+					} else {
+						LOGGER.warn("The Mersenne prime exponents {} that are reported for the exponents from {} to {} are not confirmed.",
+								sorted, unit.first, unit.last - 1);
+						unit.done = false;
+					}
+				}
+			});
+		}
+		return true;
+	}
+
+	public SearchState getState() {
+		return this.search.getState();
+	}
+
+	/**
+	 * Merges the confirmed units into the search in increasing order. Stops at the first unit that is not confirmed.
+	 */
+	private void confirm(WorkUnit unit, List<Integer> found) {
+		unit.found = found;
+		this.unitMetrics.record(found.isEmpty() ? Outcome.MISS : Outcome.HIT, unit.creationTime);
+		Iterator<WorkUnit> iterator = this.units.values().iterator();
+		while (iterator.hasNext()) {
+			WorkUnit first = iterator.next();
+			if (first.found == null || !this.search.merge(first.first, first.last, first.found)) {
+				break;
+			}
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Drops the units that are tested by the local search.
+	 */
+	private void dropSearchedUnits() {
+		int searchedExponent = this.search.getSearchedExponent();
+		Iterator<WorkUnit> iterator = this.units.values().iterator();
+		while (iterator.hasNext()) {
+			WorkUnit unit = iterator.next();
+			if (unit.last > searchedExponent) {
+				break;
+			}
+			this.leases.remove(unit.leaseId);
+			iterator.remove();
+		}
+		this.nextExponent = Math.max(this.nextExponent, searchedExponent);
+	}
+
+	private WorkUnit createUnit(long now) {
+		if (this.nextExponent > this.maximumExponent) {
+			return null;
+		}
+		int[] exponents = new int[this.unitLength];
+		int count = 0;
+		int exponent = this.nextExponent;
+		for (; count < this.unitLength && exponent <= this.maximumExponent; exponent++) {
+			if (this.primeSieve.isPrime(exponent)) {
+				exponents[count++] = exponent;
+			}
+		}
+		int[] unitExponents = new int[count];
+		System.arraycopy(exponents, 0, unitExponents, 0, count);
+		WorkUnit unit = new WorkUnit(this.nextExponent, exponent, unitExponents, System.nanoTime());
+		this.units.put(unit.first, unit);
+		this.nextExponent = exponent;
+		return unit;
+	}
+
+	/**
+	 * Is a block of consecutive exponents that is tested by a worker.
+	 */
+	private static final class WorkUnit {
+
+		private final int first;
+
+		/**
+		 * Is the exponent after the unit.
+		 */
+		private final int last;
+
+		/**
+		 * Contains the prime exponents from first to last - 1.
+		 */
+		private final int[] exponents;
+
+		/**
+		 * Is the value of System.nanoTime() when the unit is created.
+		 */
+		private final long creationTime;
+
+		/**
+		 * Identifies the lease of the unit, or is zero if the unit is not leased.
+		 */
+		private long leaseId;
+
+		/**
+		 * Is the time in milliseconds when the lease expires.
+		 */
+		private long expiry;
+
+		/**
+		 * Is true if the result of the unit is reported.
+		 */
+		private boolean done;
+
+		/**
+		 * Contains the confirmed Mersenne prime exponents of the unit, or is null if the unit is not confirmed.
+		 */
+		private List<Integer> found;
+
+		private WorkUnit(int first, int last, int[] exponents, long creationTime) {
+			this.first = first;
+			this.last = last;
+			this.exponents = exponents;
+			this.creationTime = creationTime;
+		}
+
+		private boolean contains(int exponent) {
+			for (int unitExponent : this.exponents) {
+				if (unitExponent == exponent) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.worldline.service;
+
+import java.math.BigInteger;
+
+/**
+ * Computes the Lucas-Lehmer iteration s -> s^2 - 2 modulo a Mersenne number 2^p - 1 on a mutable residue, so an iteration allocates 
+ * nothing. The squaring algorithm is chosen by the exponent : schoolbook and Karatsuba squaring of 32-bit limbs for small exponents, 
+ * and a floating-point FFT for large exponents.
+ * @author mohsen
+ *
+ */
+abstract class MersenneSquarer {
+
+	/**
+	 * Is the smallest exponent that is squared by an FFT. Smaller residues are squared faster by Karatsuba squaring.
+	 */
+	static final int FFT_THRESHOLD = 2500;
+
+	final int exponent;
+
+	MersenneSquarer(int exponent) {
+		this.exponent = exponent;
+	}
+
+	/**
+	 * Creates the fastest squarer of an exponent.
+	 * @param exponent is an odd prime number
+	 * @return a squarer whose residue is zero
+	 */
+	static MersenneSquarer create(int exponent) {
+		return exponent < FFT_THRESHOLD ? new MersenneLimbSquarer(exponent) : new MersenneFftSquarer(exponent);
+	}
+
+	/**
+	 * Sets the residue.
+	 * @param residue is an integer between 0 and 2^exponent - 1
+	 */
+	abstract void set(BigInteger residue);
+
+	/**
+	 * Gets the residue.
+	 * @return an integer between 0 and 2^exponent - 1 that is congruent to the residue
+	 */
+	abstract BigInteger get();
+
+	/**
+	 * Replaces the residue s by s^2 - 2 modulo 2^exponent - 1.
+	 * @return false if the result cannot be computed exactly by this squarer. Then the residue is unchanged, and a more precise squarer 
+	 * is given by refine.
+	 */
+	abstract boolean squareMinusTwo();
+
+	/**
+	 * Creates a more precise squarer with the same residue. Is called when squareMinusTwo fails.
+	 * @return a squarer that has more precision than this one
+	 */
+	MersenneSquarer refine() {
+		throw new IllegalStateException("The squarer is exact.");
+	}
+
+}
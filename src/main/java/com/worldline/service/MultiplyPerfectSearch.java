@@ -0,0 +1,314 @@
+package com.worldline.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds all multiply perfect numbers up to a bound, i.e. the numbers n such that sigma(n) = k * n for an integer k, the multiply
+ * perfect index. The candidates are not enumerated one by one, but built prime power by prime power for each k. A state of the search is
+ * a number n whose prime powers are fixed, i.e. n exactly divides the multiply perfect number m = n * t, and the abundancy
+ * sigma(t) / t = k * n / sigma(n) = a / b in lowest terms that the cofactor t must have. Since b divides t, every prime of b is forced
+ * into t, and the search branches only on its exponent. Only if b = 1, the search branches on the smallest prime of t, and only on
+ * the primes whose greatest abundancy within the bound reaches a. A state is pruned if b is greater than the bound of t, if a prime
+ * of b is already fixed or is less than the smallest prime of t, or if a / b is greater than the greatest abundancy of a number within
+ * the bound of t whose primes are greater than the smallest prime of t, i.e. the product of p / (p - 1) over the next primes.
+ * [Moews, David, and Paul C. Moews. "A search for multiperfect numbers." (1991)]
+ * <p>
+ * The states are explored in parallel by recursive tasks of a fork-join pool, which are forked while the workers have few queued tasks,
+ * so idle workers steal the large subtrees. The numbers that are found up to the greatest searched bound are kept, so a query within that
+ * bound is a binary search.
+ * @author mohsen
+ *
+ */
+public class MultiplyPerfectSearch {
+
+	/**
+	 * Is the greatest upper bound of a search. The abundancy of a number up to 10^18 is less than 7, so its divisor sum and the
+	 * fractions of the search fit in a long integer.
+	 */
+	public static final long MAXIMUM_BOUND = 1000000000000000000L;
+
+	/**
+	 * Are the primes that may be the smallest prime of a cofactor whose abundancy is at least 2 within MAXIMUM_BOUND, and that bound
+	 * the abundancy of the cofactors.
+	 */
+	private static final int[] PRIMES = primes(1 << 16);
+
+	/**
+	 * Is the greatest count of queued tasks of a worker, above which the subtrees are explored by the worker instead of being forked.
+	 */
+	private static final int SURPLUS_TASKS = 2;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Are the multiply perfect numbers up to searchedBound in increasing order.
+	 */
+	private volatile long[] numbers = {1};
+
+	private volatile long searchedBound = 1;
+
+	public MultiplyPerfectSearch(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Finds the multiply perfect numbers in a given range. The numbers up to upperBound are searched unless they are already known.
+	 * @param lowerBound is a non-zero positive long integer that is equal or less than upperBound
+	 * @param upperBound is a long integer that is equal or less than MAXIMUM_BOUND
+	 * @return the multiply perfect numbers between lowerBound and upperBound in increasing order
+	 */
+	public long[] findAllInRange(long lowerBound, long upperBound) {
+		if (upperBound > this.searchedBound) {
+			synchronized (this) {
+				if (upperBound > this.searchedBound) {
+					this.numbers = search(upperBound);
+					this.searchedBound = upperBound;
+				}
+			}
+		}
+		long[] numbers = this.numbers;
+		int from = Arrays.binarySearch(numbers, lowerBound);
+		int to = Arrays.binarySearch(numbers, upperBound);
+		from = from < 0 ? -from - 1 : from;
+		to = to < 0 ? -to - 1 : to + 1;
+		return Arrays.copyOfRange(numbers, from, to);
+	}
+
+	/**
+	 * Gets the greatest upper bound that has been searched, so the queries up to it are answered without a search.
+	 */
+	public long getSearchedBound() {
+		return this.searchedBound;
+	}
+
+	/**
+	 * Searches all multiply perfect numbers up to a bound.
+	 * @param bound is a non-zero positive long integer that is equal or less than MAXIMUM_BOUND
+	 * @return the multiply perfect numbers up to bound in increasing order, including 1 whose index is 1
+	 */
+	long[] search(long bound) {
+		ConcurrentLinkedQueue<Long> found = new ConcurrentLinkedQueue<Long>();
+		found.add(1L);
+		List<SearchTask> tasks = new ArrayList<SearchTask>();
+		for (long index = 2; index <= maximumAbundancy(0, bound); index++) {
+			tasks.add(new SearchTask(1, bound, index, 1, 0, new long[0], found));
+		}
+		this.pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+		long[] numbers = new long[found.size()];
+		int i = 0;
+		for (Long number : found) {
+			numbers[i++] = number;
+		}
+		Arrays.sort(numbers);
+		return numbers;
+	}
+
+	/**
+	 * Explores the subtree of a state of the search.
+	 */
+	private static final class SearchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Is the product of the fixed prime powers.
+		 */
+		private final long number;
+
+		/**
+		 * Is the greatest cofactor t, i.e. the bound of the search divided by number.
+		 */
+		private final long bound;
+
+		/**
+		 * Is the numerator of the abundancy of the cofactor.
+		 */
+		private final long numerator;
+
+		/**
+		 * Is the denominator of the abundancy of the cofactor, which divides the cofactor.
+		 */
+		private final long denominator;
+
+		/**
+		 * Is the last prime that is chosen as the smallest prime of the cofactor, or zero, so all primes of the cofactor are greater.
+		 */
+		private final long floorPrime;
+
+		/**
+		 * Are the primes of number.
+		 */
+		private final long[] fixedPrimes;
+
+		private final ConcurrentLinkedQueue<Long> found;
+
+		SearchTask(long number, long bound, long numerator, long denominator, long floorPrime, long[] fixedPrimes,
+				ConcurrentLinkedQueue<Long> found) {
+			this.number = number;
+			this.bound = bound;
+			this.numerator = numerator;
+			this.denominator = denominator;
+			this.floorPrime = floorPrime;
+			this.fixedPrimes = fixedPrimes;
+			this.found = found;
+		}
+
+		@Override
+		protected void compute() {
+			List<SearchTask> forkedTasks = new ArrayList<SearchTask>();
+			explore(this.number, this.bound, this.numerator, this.denominator, this.floorPrime, this.fixedPrimes, forkedTasks);
+			for (SearchTask forkedTask : forkedTasks) {
+				forkedTask.join();
+			}
+		}
+
+		private void explore(long number, long bound, long numerator, long denominator, long floorPrime, long[] fixedPrimes,
+				List<SearchTask> forkedTasks) {
+			if (numerator == denominator) {
+				// The cofactor is 1, since a greater cofactor has an abundancy greater than 1.
+				this.found.add(number);
+				return;
+			}
+			if (numerator < denominator || denominator > bound
+					|| (double) numerator / denominator > maximumAbundancy(floorPrime, bound)) {
+				return;
+			}
+			if (denominator > 1) {
+				long[] primes = new long[Factorizer.MAXIMUM_PRIME_FACTORS];
+				int[] exponents = new int[Factorizer.MAXIMUM_PRIME_FACTORS];
+				int count = Factorizer.factorize(denominator, primes, exponents);
+				for (int i = 0; i < count; i++) {
+					if (primes[i] <= floorPrime || contains(fixedPrimes, primes[i])) {
+						return;
+					}
+				}
+				// The greatest prime of the denominator has the fewest exponents to try.
+				long prime = primes[count - 1];
+				long primePower = 1;
+				for (int e = 0; e < exponents[count - 1]; e++) {
+					primePower *= prime;
+				}
+				branch(number, bound, numerator, denominator, floorPrime, fixedPrimes, prime, primePower, forkedTasks);
+			} else {
+				for (int prime : PRIMES) {
+					if (prime <= floorPrime || contains(fixedPrimes, prime)) {
+						continue;
+					}
+					if (prime > bound || maximumAbundancy(prime - 1, bound) < numerator) {
+						break;
+					}
+					branch(number, bound, numerator, denominator, prime, fixedPrimes, prime, prime, forkedTasks);
+				}
+			}
+		}
+
+		/**
+		 * Fixes each power of a prime from a given one on whose product with number is within the bound.
+		 */
+		private void branch(long number, long bound, long numerator, long denominator, long floorPrime, long[] fixedPrimes,
+				long prime, long firstPrimePower, List<SearchTask> forkedTasks) {
+			long[] childFixedPrimes = Arrays.copyOf(fixedPrimes, fixedPrimes.length + 1);
+			childFixedPrimes[fixedPrimes.length] = prime;
+			long primePower = firstPrimePower;
+			// sigma(p^e) = 1 + p + ... + p^e
+			long sigma = (firstPrimePower - 1) / (prime - 1) + firstPrimePower;
+			while (true) {
+				long childBound = bound / primePower;
+				// k * n * p^e / (sigma(n) * sigma(p^e)) in lowest terms, since p^e and sigma(p^e) are coprime.
+				long numeratorGcd = Factorizer.gcd(numerator, sigma);
+				long denominatorGcd = Factorizer.gcd(primePower, denominator);
+				long childDenominator = multiplyWithin(denominator / denominatorGcd, sigma / numeratorGcd, childBound);
+				if (childDenominator > 0) {
+					long childNumerator = multiplyWithin(numerator / numeratorGcd, primePower / denominatorGcd, Long.MAX_VALUE);
+					if (childNumerator > 0) {
+						if (getSurplusQueuedTaskCount() < SURPLUS_TASKS) {
+							SearchTask task = new SearchTask(number * primePower, childBound, childNumerator, childDenominator, floorPrime,
+									childFixedPrimes, this.found);
+							task.fork();
+							forkedTasks.add(task);
+						} else {
+							explore(number * primePower, childBound, childNumerator, childDenominator, floorPrime, childFixedPrimes,
+									forkedTasks);
+						}
+					}
+				}
+				if (primePower > bound / prime) {
+					return;
+				}
+				primePower *= prime;
+				sigma = sigma * prime + 1;
+			}
+		}
+
+	}
+
+	/**
+	 * Finds an upper bound of the abundancy of the numbers up to bound whose primes are greater than a given prime, i.e. the product of
+	 * p / (p - 1) over the next primes whose product is within the bound.
+	 */
+	static double maximumAbundancy(long floorPrime, long bound) {
+		double abundancy = 1;
+		long product = 1;
+		int i = Arrays.binarySearch(PRIMES, (int) Math.min(floorPrime + 1, Integer.MAX_VALUE));
+		for (i = i < 0 ? -i - 1 : i; i < PRIMES.length; i++) {
+			if (product > bound / PRIMES[i]) {
+				return abundancy;
+			}
+			product *= PRIMES[i];
+			abundancy *= PRIMES[i] / (PRIMES[i] - 1.0);
+		}
+		// Beyond the table, at most log(bound / product) / log(p) primes greater than p fit in the bound.
+		long prime = Math.max(floorPrime + 1, PRIMES[PRIMES.length - 1]);
+		int count = (int) (Math.log((double) bound / product) / Math.log(prime));
+		return abundancy * Math.pow(prime / (prime - 1.0), Math.max(count, 0));
+	}
+
+	/**
+	 * Multiplies two non-negative long integers.
+	 * @return the product, or -1 if it is greater than limit
+	 */
+	private static long multiplyWithin(long a, long b, long limit) {
+		if (b != 0 && a > limit / b) {
+			return -1;
+		}
+		return a * b;
+	}
+
+	private static boolean contains(long[] primes, long prime) {
+		for (long fixedPrime : primes) {
+			if (fixedPrime == prime) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int[] primes(int limit) {
+		boolean[] composite = new boolean[limit + 1];
+		int[] primes = new int[limit];
+		int count = 0;
+		for (int i = 2; i <= limit; i++) {
+			if (!composite[i]) {
+				primes[count++] = i;
+				for (long j = (long) i * i; j <= limit; j += i) {
+					composite[(int) j] = true;
+				}
+			}
+		}
+		return Arrays.copyOf(primes, count);
+	}
+
+}
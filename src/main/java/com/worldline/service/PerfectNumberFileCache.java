@@ -0,0 +1,206 @@
+package com.worldline.service;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Writes perfect numbers into files of a directory, so a large perfect number is converted once and then served from its file without 
+ * loading it into the heap. A file is written to a temporary file and renamed, so a file of the directory is always complete. 
+ * Concurrent requests of the same file wait for a single conversion, and a file that is deleted afterwards is written again.
+ * The decimal conversion is divide-and-conquer : a number less than 10^(2d) is split by 10^d into a high part and a low part of d digits, 
+ * and both parts are converted recursively. The digits are written in chunks as the recursion produces them from left to right, 
+ * and the powers 10^d are computed once per conversion.
+ * @author mohsen
+ *
+ */
+public class PerfectNumberFileCache {
+
+	/**
+	 * Is the count of digits of the smallest parts of the decimal conversion, which are converted by BigInteger.toString.
+	 */
+	private static final int LEAF_DIGITS = 512;
+
+	/**
+	 * Is the length of the buffer of a file that is written.
+	 */
+	private static final int CHUNK_LENGTH = 1 << 16;
+
+	private final Path directory;
+
+	/**
+	 * Contains the file of each perfect number that is written or being written by its path.
+	 */
+	private final ConcurrentHashMap<Path, FutureTask<Path>> files = new ConcurrentHashMap<Path, FutureTask<Path>>();
+
+	public PerfectNumberFileCache(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Gets the file of the perfect number 2^(exponent-1) * (2^exponent - 1) in a given format and writes the file if it does not exist.
+	 * @param exponent is a Mersenne prime exponent
+	 * @param format is the format of the file
+	 * @return the path of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public Path getFile(int exponent, PerfectNumberFormat format) throws IOException {
+		Path path = this.directory.resolve("perfect-number-" + exponent + "." + format.getFileExtension());
+		while (true) {
+			FutureTask<Path> file = this.files.get(path);
+			if (file == null) {
+				FutureTask<Path> newFile = new FutureTask<Path>(() -> write(path, exponent, format));
+				file = this.files.putIfAbsent(path, newFile);
+				if (file == null) {
+					file = newFile;
+					newFile.run();
+				}
+			}
+			try {
+				file.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("The file " + path + " is not written.", e);
+			} catch (ExecutionException e) {
+				// The failed file is written again by the next request.
+				this.files.remove(path, file);
+				throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+			}
+			if (Files.exists(path)) {
+				return path;
+			}
+			// The file is deleted after it is written, e.g. by a cleaner of the temporary directory, so it is written again.
+			this.files.remove(path, file);
+		}
+	}
+
+	private Path write(Path path, int exponent, PerfectNumberFormat format) throws IOException {
+		if (Files.exists(path)) {
+			return path;
+		}
+		Files.createDirectories(this.directory);
+		Path temporaryPath = Files.createTempFile(this.directory, path.getFileName().toString(), ".tmp");
+		try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE)) {
+			ChunkWriter writer = new ChunkWriter(channel);
+			if (format == PerfectNumberFormat.DECIMAL) {
+				writeDecimal(MersennePrimeSearch.toPerfectNumber(exponent), writer);
+			} else {
+				writeBinary(exponent, writer);
+			}
+			writer.flush();
+			Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+		return path;
+	}
+
+	/**
+	 * Writes the decimal digits of a non-zero positive number.
+	 */
+	static void writeDecimal(BigInteger number, ChunkWriter writer) throws IOException {
+		List<BigInteger> powers = new ArrayList<BigInteger>();
+		BigInteger power = BigInteger.TEN.pow(LEAF_DIGITS);
+		while (power.compareTo(number) <= 0) {
+			powers.add(power);
+			power = power.multiply(power);
+		}
+		writeDecimal(number, powers, powers.size() - 1, false, writer);
+	}
+
+	/**
+	 * Writes the digits of a number less than 10^(2d), where 10^d is powers[level], or 10^LEAF_DIGITS if level is -1.
+	 * @param padded is true if the number is written with 2d digits, i.e. with leading zeros
+	 */
+	private static void writeDecimal(BigInteger number, List<BigInteger> powers, int level, boolean padded, ChunkWriter writer) throws IOException {
+		if (level < 0) {
+			String digits = number.toString();
+			if (padded) {
+				writer.putZeros(LEAF_DIGITS - digits.length());
+			}
+			writer.putAscii(digits);
+			return;
+		}
+		BigInteger[] quotientAndRemainder = number.divideAndRemainder(powers.get(level));
+		if (padded || quotientAndRemainder[0].signum() > 0) {
+			writeDecimal(quotientAndRemainder[0], powers, level - 1, padded, writer);
+			writeDecimal(quotientAndRemainder[1], powers, level - 1, true, writer);
+		} else {
+			writeDecimal(quotientAndRemainder[1], powers, level - 1, false, writer);
+		}
+	}
+
+	/**
+	 * Writes the bytes of 2^(exponent-1) * (2^exponent - 1), i.e. exponent one bits followed by exponent - 1 zero bits, without building 
+	 * the number.
+	 */
+	static void writeBinary(int exponent, ChunkWriter writer) throws IOException {
+		long bitLength = 2L * exponent - 1;
+		long byteLength = (bitLength + 7) / 8;
+		// Are the positions of the first and after the last one bits from the most significant bit of the first byte.
+		long firstOne = 8 * byteLength - bitLength;
+		long lastOne = firstOne + exponent;
+		for (long i = 0; i < byteLength; i++) {
+			long first = Math.max(8 * i, firstOne);
+			long last = Math.min(8 * i + 8, lastOne);
+			int ones = first < last ? 0xFF >>> (8 - (last - first)) << (8 * i + 8 - last) : 0;
+			writer.put((byte) ones);
+		}
+	}
+
+	/**
+	 * Writes bytes to a channel through a buffer of CHUNK_LENGTH bytes.
+	 */
+	static final class ChunkWriter {
+
+		private final WritableByteChannel channel;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_LENGTH);
+
+		ChunkWriter(WritableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		void put(byte value) throws IOException {
+			if (!this.buffer.hasRemaining()) {
+				flush();
+			}
+			this.buffer.put(value);
+		}
+
+		void putZeros(int count) throws IOException {
+			for (int i = 0; i < count; i++) {
+				put((byte) '0');
+			}
+		}
+
+		void putAscii(String digits) throws IOException {
+			for (int i = 0; i < digits.length(); i++) {
+				put((byte) digits.charAt(i));
+			}
+		}
+
+		void flush() throws IOException {
+			// Calls the Buffer methods, since the ByteBuffer overrides are missing on Java 8.
+			((Buffer) this.buffer).flip();
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			((Buffer) this.buffer).clear();
+		}
+
+	}
+
+}
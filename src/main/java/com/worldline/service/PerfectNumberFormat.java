@@ -0,0 +1,30 @@
+package com.worldline.service;
+
+/**
+ * Is the representation of a perfect number in a file.
+ * @author mohsen
+ *
+ */
+public enum PerfectNumberFormat {
+
+	/**
+	 * Is the decimal digits in ASCII without any leading zero.
+	 */
+	DECIMAL("txt"),
+
+	/**
+	 * Is the unsigned big-endian bytes without any leading zero byte.
+	 */
+	BINARY("bin");
+
+	private final String fileExtension;
+
+	private PerfectNumberFormat(String fileExtension) {
+		this.fileExtension = fileExtension;
+	}
+
+	public String getFileExtension() {
+		return fileExtension;
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.worldline.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable sorted index of long integers. Lookups are binary searches over a primitive array. The boxed numbers and all sublists
+ * between two positions are created once, so the lookups do not allocate any object.
+ * @author mohsen
+ *
+ */
+public final class PerfectNumberIndex {
+
+	/**
+	 * Contains the numbers in increasing order.
+	 */
+	private final long[] numbers;
+
+	/**
+	 * Contains the boxed numbers of numbers in the same order.
+	 */
+	private final Long[] boxedNumbers;
+
+	/**
+	 * Contains an unmodifiable sublist for each pair of positions from and to, where 0 <= from <= to <= numbers.length.
+	 * The sublist of from and to is stored at from * (numbers.length + 1) + to.
+	 */
+	private final List<List<Long>> views;
+
+	/**
+	 * Contains a primitive copy of each sublist of views at the same position, or null if from is greater than to.
+	 */
+	private final long[][] slices;
+
+	/**
+	 * Creates an index of the given numbers.
+	 * @param numbers is an array of distinct long integers in increasing order
+	 */
+	public PerfectNumberIndex(long[] numbers) {
+		this.numbers = numbers.clone();
+		this.boxedNumbers = new Long[numbers.length];
+		for (int i = 0; i < numbers.length; i++) {
+			this.boxedNumbers[i] = numbers[i];
+		}
+		List<Long> all = Collections.unmodifiableList(Arrays.asList(this.boxedNumbers));
+		this.views = new ArrayList<List<Long>>((numbers.length + 1) * (numbers.length + 1));
+		this.slices = new long[(numbers.length + 1) * (numbers.length + 1)][];
+		for (int from = 0; from <= numbers.length; from++) {
+			for (int to = 0; to <= numbers.length; to++) {
+				this.views.add(from <= to ? all.subList(from, to) : null);
+				this.slices[from * (numbers.length + 1) + to] = from <= to ? Arrays.copyOfRange(this.numbers, from, to) : null;
+			}
+		}
+	}
+
+	public int size() {
+		return this.numbers.length;
+	}
+
+	/**
+	 * Checks if the index contains a given number.
+	 * @param number is a long integer
+	 * @return true if number is in the index
+	 */
+	public boolean contains(long number) {
+		return Arrays.binarySearch(this.numbers, number) >= 0;
+	}
+
+	/**
+	 * Counts the numbers in the index that are equal or less than a given number.
+	 * @param number is a long integer
+	 * @return the count of numbers that are equal or less than number
+	 */
+	public int rank(long number) {
+		int position = Arrays.binarySearch(this.numbers, number);
+		return position >= 0 ? position + 1 : -position - 1;
+	}
+
+	/**
+	 * Counts the numbers in the index that are between two given bounds.
+	 * @param lowerBound is a long integer that is equal or less than upperBound
+	 * @param upperBound is a long integer
+	 * @return the count of numbers that are equal or greater than lowerBound and equal or less than upperBound
+	 */
+	public int countInRange(long lowerBound, long upperBound) {
+		return rank(upperBound) - rankBelow(lowerBound);
+	}
+
+	/**
+	 * Finds the numbers in the index that are between two given bounds.
+	 * @param lowerBound is a long integer that is equal or less than upperBound
+	 * @param upperBound is a long integer
+	 * @return an unmodifiable list of numbers that are equal or greater than lowerBound and equal or less than upperBound
+	 */
+	public List<Long> findAllInRange(long lowerBound, long upperBound) {
+		return subList(rankBelow(lowerBound), rank(upperBound));
+	}
+
+	/**
+	 * Finds the numbers in the index that are between two given bounds, without boxing them.
+	 * @param lowerBound is a long integer that is equal or less than upperBound
+	 * @param upperBound is a long integer
+	 * @return an array of numbers that are equal or greater than lowerBound and equal or less than upperBound. It is shared by all 
+	 * lookups of the same numbers, so it must not be modified.
+	 */
+	public long[] findSliceInRange(long lowerBound, long upperBound) {
+		return this.slices[rankBelow(lowerBound) * (this.numbers.length + 1) + rank(upperBound)];
+	}
+
+	/**
+	 * Gets the numbers in the index between two positions.
+	 * @param from is the position of the first number, inclusive
+	 * @param to is the position of the last number, exclusive
+	 * @return an unmodifiable list of numbers
+	 */
+	public List<Long> subList(int from, int to) {
+		return this.views.get(from * (this.numbers.length + 1) + to);
+	}
+
+	/**
+	 * Finds the greatest number in the index that is equal or less than a given number.
+	 * @param number is a long integer
+	 * @return the greatest number that is equal or less than number, or null if there is no such number
+	 */
+	public Long floor(long number) {
+		int rank = rank(number);
+		return rank == 0 ? null : this.boxedNumbers[rank - 1];
+	}
+
+	/**
+	 * Finds the smallest number in the index that is equal or greater than a given number.
+	 * @param number is a long integer
+	 * @return the smallest number that is equal or greater than number, or null if there is no such number
+	 */
+	public Long ceiling(long number) {
+		int rank = rankBelow(number);
+		return rank == this.numbers.length ? null : this.boxedNumbers[rank];
+	}
+
+	/**
+	 * Gets the number at a given position.
+	 * @param position is an integer between 0 and size() - 1
+	 * @return the number at position
+	 */
+	public long get(int position) {
+		return this.numbers[position];
+	}
+
+	/**
+	 * Counts the numbers in the index that are less than a given number.
+	 */
+	private int rankBelow(long number) {
+		int position = Arrays.binarySearch(this.numbers, number);
+		return position >= 0 ? position : -position - 1;
+	}
+
+}
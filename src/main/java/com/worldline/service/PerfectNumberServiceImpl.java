@@ -1,15 +1,32 @@
 package com.worldline.service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import com.worldline.metrics.OperationMetrics;
+import com.worldline.metrics.Outcome;
+import com.worldline.metrics.PerfectNumberMetrics;
 import com.worldline.service.api.PerfectNumberService;
 
 /**
- * A perfect number service that is singleton. Implements two operations check and findAllInRange.
+ * A perfect number service that is singleton. Implements two operations check and findAllInRange. Perfect numbers greater than 
+ * Long.MAX_VALUE are found by a parallel Mersenne prime search.
  * @author mohsen
  *
  */
@@ -17,88 +34,575 @@ import com.worldline.service.api.PerfectNumberService;
 @Scope("singleton")
 public class PerfectNumberServiceImpl implements PerfectNumberService {
 	
+	/**
+	 * Is the smallest batch that is processed in parallel. Smaller batches are faster to process in the calling thread.
+	 */
+	private static final int PARALLEL_BATCH_LENGTH = 1 << 13;
+	
+	/**
+	 * Is the greatest upper bound of a range to classify. A segment of the divisor sum sieve costs the square root of its last number 
+	 * in addition to its length, so greater bounds waste most of the time on divisors that have no multiple in the segment.
+	 */
+	public static final long MAXIMUM_CLASSIFICATION_BOUND = 1000000000000L;
+	
+	/**
+	 * Is the default count of aliquot sums that are cached, which take 4.25 MB.
+	 */
+	public static final int DEFAULT_ALIQUOT_CACHE_SIZE = 1 << 18;
+	
+	/**
+	 * Is the greatest count of terms of an aliquot sequence that are given to a consumer at once.
+	 */
+	private static final int ALIQUOT_CHUNK_LENGTH = 64;
+	
+	/**
+	 * Is the time in nanoseconds after which the terms of an aliquot sequence are given to the consumer even if their chunk is not full, 
+	 * so the terms whose factorizations are slow are not delayed by the next ones.
+	 */
+	private static final long ALIQUOT_CHUNK_TIME = 10000000;
+	
+	/**
+	 * Is the default greatest number of the prime table, whose table takes 8 MB.
+	 */
+	public static final long DEFAULT_SIEVE_LIMIT = 1L << 27;
+	
+	/**
+	 * Is the default greatest count of prime exponents of a work unit of the distributed Mersenne prime search.
+	 */
+	public static final int DEFAULT_UNIT_LENGTH = 4;
+	
+	/**
+	 * Is the default time in milliseconds after which the lease of a work unit expires unless it is renewed.
+	 */
+	public static final long DEFAULT_LEASE_TIME = 60000;
+	
+	/**
+	 * Is the default largest exponent that is leased to the workers of the distributed search.
+	 */
+	public static final int DEFAULT_COORDINATED_EXPONENT = 1000000;
+	
+	/**
+	 * Runs the parallel computations, i.e. the Mersenne prime search and the divisor sum sieve, on all available processors.
+	 */
+	private final ForkJoinPool pool;
+	
+	/**
+	 * Finds Mersenne prime exponents. Keeps the exponents that are found to serve later requests.
+	 */
+	private final MersennePrimeSearch mersennePrimeSearch;
+	
+	private final DivisorSumSieve divisorSumSieve;
+	
+	/**
+	 * Finds the multiply perfect numbers and keeps the numbers up to the greatest searched bound.
+	 */
+	private final MultiplyPerfectSearch multiplyPerfectSearch;
+	
+	/**
+	 * Decides primality for the REST APIs and the Mersenne prime search by a shared table.
+	 */
+	private final PrimeSieve primeSieve;
+	
+	/**
+	 * Keeps the files of the perfect numbers that are downloaded.
+	 */
+	private final PerfectNumberFileCache perfectNumberFiles;
+	
 	/**
 	 * Contains all perfect numbers that are less than Long.MAX_VALUE. Is used to cached perfect numbers to prevent calculating perfect numbers 
-	 * whenever a request is processed.
+	 * whenever a request is processed. Is a sorted primitive index, so lookups are binary searches that do not allocate.
+	 */
+	private final PerfectNumberIndex allPerfectNumbers;
+	
+	/**
+	 * Leases the exponents beyond the local search to the workers of a distributed search, or is null if this node is not a coordinator.
+	 */
+	private final MersenneSearchCoordinator coordinator;
+	
+	/**
+	 * Records the latency of each range that is classified by the divisor sum sieve.
 	 */
-	private final ArrayList<Long> allPerfectNumbers;
+	private final OperationMetrics sieveMetrics;
 	
 	/**
-	 * Calculates all perfect numbers that are less than Long.MAX_VALUE and save them in allPerfectNumbers.
+	 * Records the latency of each factorization of divisorSum. A factorization is a hit if the number is multiply perfect.
+	 */
+	private final OperationMetrics factorizationMetrics;
+	
+	/**
+	 * Keeps the aliquot sums of the terms of the aliquot sequences, which are shared by the sequences that merge.
+	 */
+	private final AliquotSumCache aliquotSums;
+	
+	/**
+	 * Records the latency of each aliquot sum of a term. An aliquot sum is a hit if it is cached.
+	 */
+	private final OperationMetrics aliquotSumMetrics;
+	
+	/**
+	 * Records the latency of each aliquot sequence. A sequence is a hit if it reaches a cycle.
+	 */
+	private final OperationMetrics aliquotSequenceMetrics;
+	
+	/**
+	 * Records the latency of each multiply perfect number query. A query is a hit if it is within the searched bound.
+	 */
+	private final OperationMetrics multiplyPerfectMetrics;
+	
+	/**
+	 * Loads all perfect numbers that are less than Long.MAX_VALUE from the generated PerfectNumberTable into allPerfectNumbers.
 	 */
 	public PerfectNumberServiceImpl() {
-		this.allPerfectNumbers = findPerfectNumbers(Long.MAX_VALUE);
+		this("", Paths.get(System.getProperty("java.io.tmpdir"), "perfect-number").toString(), DEFAULT_SIEVE_LIMIT, false, 
+				DEFAULT_UNIT_LENGTH, DEFAULT_LEASE_TIME, DEFAULT_COORDINATED_EXPONENT, DEFAULT_ALIQUOT_CACHE_SIZE, new PerfectNumberMetrics());
+	}
+
+	/**
+	 * Loads the state of the Mersenne prime search from a store, so the stored perfect numbers are served without a search, and resumes 
+	 * the interrupted Lucas-Lehmer tests in the background, or by the workers if this node coordinates a distributed search. All perfect numbers that are less than Long.MAX_VALUE are 
+	 * loaded from the generated PerfectNumberTable into allPerfectNumbers, and the prime table is sieved by its first query, so the 
+	 * startup does not compute either of them.
+	 * @param storePath is the path of the store file, or an empty string if the search state is not persisted
+	 * @param cachePath is the path of the directory of perfect number files
+	 * @param sieveLimit is the greatest number of the prime table. The table takes sieveLimit / 16 bytes off the heap.
+	 * @param coordinatorEnabled is true if this node coordinates a distributed Mersenne prime search
+	 * @param unitLength is the greatest count of prime exponents of a work unit of the distributed search
+	 * @param leaseTime is the time in milliseconds after which the lease of a work unit expires unless it is renewed
+	 * @param maximumCoordinatedExponent is the largest exponent that is leased to the workers
+	 * @param aliquotCacheSize is the greatest count of aliquot sums that are cached for the aliquot sequences
+	 * @param metrics records the latencies of the precomputation, the Mersenne prime search, the divisor sum sieve, the factorizations
+	 * the work units, the aliquot sequences and the multiply perfect number searches
+	 */
+	@Autowired
+	public PerfectNumberServiceImpl(@Value("${perfectnumber.store.path:}") String storePath, 
+			@Value("${perfectnumber.cache.path:${java.io.tmpdir}/perfect-number}") String cachePath, 
+			@Value("${perfectnumber.sieve.limit:" + DEFAULT_SIEVE_LIMIT + "}") long sieveLimit, 
+			@Value("${perfectnumber.coordinator.enabled:false}") boolean coordinatorEnabled, 
+			@Value("${perfectnumber.coordinator.unit-length:" + DEFAULT_UNIT_LENGTH + "}") int unitLength, 
+			@Value("${perfectnumber.coordinator.lease-time:" + DEFAULT_LEASE_TIME + "}") long leaseTime, 
+			@Value("${perfectnumber.coordinator.maximum-exponent:" + DEFAULT_COORDINATED_EXPONENT + "}") int maximumCoordinatedExponent, 
+			@Value("${perfectnumber.aliquot.cache-size:" + DEFAULT_ALIQUOT_CACHE_SIZE + "}") int aliquotCacheSize, 
+			PerfectNumberMetrics metrics) {
+		long startTime = System.nanoTime();
+		this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		this.primeSieve = new PrimeSieve(this.pool, Math.max(sieveLimit, MersennePrimeSearch.MAXIMUM_EXPONENT));
+		this.mersennePrimeSearch = new MersennePrimeSearch(this.pool, loadStore(storePath), this.primeSieve, 
+				metrics.operation("service.mersenneSearch"));
+		this.divisorSumSieve = new DivisorSumSieve(this.pool);
+		this.multiplyPerfectSearch = new MultiplyPerfectSearch(this.pool);
+		this.perfectNumberFiles = new PerfectNumberFileCache(Paths.get(cachePath));
+		this.allPerfectNumbers = new PerfectNumberIndex(PerfectNumberTable.PERFECT_NUMBERS.clone());
+		this.sieveMetrics = metrics.operation("service.divisorSumSieve");
+		this.factorizationMetrics = metrics.operation("service.factorization");
+		this.aliquotSums = new AliquotSumCache(aliquotCacheSize);
+		this.aliquotSumMetrics = metrics.operation("service.aliquotSum");
+		this.aliquotSequenceMetrics = metrics.operation("service.aliquotSequence");
+		this.multiplyPerfectMetrics = metrics.operation("service.multiplyPerfectSearch");
+		this.coordinator = coordinatorEnabled ? new MersenneSearchCoordinator(this.mersennePrimeSearch, this.primeSieve, this.pool, 
+				unitLength, leaseTime, maximumCoordinatedExponent, metrics.operation("service.workUnit")) : null;
+		metrics.operation("service.precomputation").record(Outcome.HIT, startTime);
+		if (this.coordinator == null) {
+			// The checkpoints of a coordinator are resumed by the workers that lease their exponents.
+			this.mersennePrimeSearch.resume();
+		}
+	}
+
+	private static PerfectNumberStore loadStore(String storePath) {
+		if (storePath.isEmpty()) {
+			return null;
+		}
+		PerfectNumberStore store = new PerfectNumberStore(Paths.get(storePath));
+		try {
+			store.load();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return store;
+	}
+
+	/**
+	 * Stops the worker threads of the Mersenne prime search, the divisor sum sieve and the multiply perfect number search.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		this.pool.shutdown();
 	}
 
 	@Override
 	public Boolean check(Long number) throws PerfectNumberException {
-		if (number<=0) {
-			throw new PerfectNumberException("The number must be an integer between 1 and " + Long.MAX_VALUE + ".");
-		}
+		checkNumber(number);
 		return this.allPerfectNumbers.contains(number);
 	}
 
 	@Override
 	public List<Long> findAllInRange(Long lowerBound, Long upperBound) throws PerfectNumberException {
-		if (lowerBound<=0 || upperBound<=0) {
-			throw new PerfectNumberException("The lower and upper bound must be an integer between 1 and " + Long.MAX_VALUE + ".");
-		} else if (lowerBound>upperBound) {
-			throw new PerfectNumberException("The lower bound must be lesser than the upper bound.");
-		}
-		ArrayList<Long> perfectNumbers = new ArrayList<Long>();
-		for (Long perfectNumber : this.allPerfectNumbers) {
-			if (perfectNumber >= lowerBound && perfectNumber <= upperBound) {
-				perfectNumbers.add(perfectNumber);
+		checkRange(lowerBound, upperBound);
+		return this.allPerfectNumbers.findAllInRange(lowerBound, upperBound);
+	}
+
+	@Override
+	public boolean[] checkAll(long[] numbers, int length) throws PerfectNumberException {
+		for (int i = 0; i < length; i++) {
+			checkNumber(numbers[i]);
+		}
+		boolean[] results = new boolean[length];
+		IntStream indexes = IntStream.range(0, length);
+		if (length >= PARALLEL_BATCH_LENGTH) {
+			indexes = indexes.parallel();
+		}
+		indexes.forEach(i -> results[i] = this.allPerfectNumbers.contains(numbers[i]));
+		return results;
+	}
+
+	@Override
+	public Classification[] classifyAll(long[] numbers, int length) throws PerfectNumberException {
+		for (int i = 0; i < length; i++) {
+			checkNumber(numbers[i]);
+		}
+		Classification[] results = new Classification[length];
+		IntStream indexes = IntStream.range(0, length);
+		if (length >= PARALLEL_BATCH_LENGTH) {
+			indexes = indexes.parallel();
+		}
+		indexes.forEach(i -> results[i] = classify(numbers[i]));
+		return results;
+	}
+	
+	/**
+	 * Classifies a number by its aliquot sum. A perfect number is known without a factorization, and a number whose aliquot sum is 
+	 * greater than Long.MAX_VALUE is abundant.
+	 */
+	private Classification classify(long number) {
+		if (this.allPerfectNumbers.contains(number)) {
+			return Classification.PERFECT;
+		}
+		if (number == 1) {
+			return Classification.DEFICIENT;
+		}
+		long aliquotSum = computeAliquotSum(number);
+		return aliquotSum == AliquotSumCache.OVERFLOW ? Classification.ABUNDANT : Classification.of(number, aliquotSum);
+	}
+
+	@Override
+	public long[][] findAllInRanges(long[] lowerBounds, long[] upperBounds, int length) throws PerfectNumberException {
+		for (int i = 0; i < length; i++) {
+			checkRange(lowerBounds[i], upperBounds[i]);
+		}
+		long[][] results = new long[length][];
+		IntStream indexes = IntStream.range(0, length);
+		if (length >= PARALLEL_BATCH_LENGTH) {
+			indexes = indexes.parallel();
+		}
+		indexes.forEach(i -> results[i] = this.allPerfectNumbers.findSliceInRange(lowerBounds[i], upperBounds[i]));
+		return results;
+	}
+
+	@Override
+	public Integer countInRange(Long lowerBound, Long upperBound) throws PerfectNumberException {
+		checkRange(lowerBound, upperBound);
+		return this.allPerfectNumbers.countInRange(lowerBound, upperBound);
+	}
+
+	@Override
+	public Integer rank(Long number) throws PerfectNumberException {
+		checkNumber(number);
+		return this.allPerfectNumbers.rank(number);
+	}
+
+	@Override
+	public Long findFloor(Long number) throws PerfectNumberException {
+		checkNumber(number);
+		return this.allPerfectNumbers.floor(number);
+	}
+
+	@Override
+	public Long findCeiling(Long number) throws PerfectNumberException {
+		checkNumber(number);
+		return this.allPerfectNumbers.ceiling(number);
+	}
+	
+	@Override
+	public Boolean check(String number) throws PerfectNumberException {
+		BigInteger bigNumber;
+		try {
+			bigNumber = new BigInteger(number);
+		} catch (NumberFormatException e) {
+			throw new PerfectNumberException("The number must be a positive integer in decimal.");
+		}
+		if (bigNumber.signum() <= 0) {
+			throw new PerfectNumberException("The number must be a positive integer in decimal.");
+		}
+		if (bigNumber.bitLength() < Long.SIZE) {
+			return check(bigNumber.longValue());
+		}
+		// An even perfect number 2^(p-1) * (2^p - 1) is written in binary as p ones followed by p-1 zeros. Odd numbers are not perfect
+		// up to 10^1500 and no odd perfect number is known beyond.
+		int exponent = bigNumber.getLowestSetBit() + 1;
+		if (exponent == 1 || bigNumber.bitLength() != 2 * exponent - 1 || bigNumber.bitCount() != exponent) {
+			return false;
+		}
+		if (exponent > MersennePrimeSearch.MAXIMUM_EXPONENT && exponent >= this.mersennePrimeSearch.getSearchedExponent()) {
+			throw new PerfectNumberException("The number must have less than " + 2 * MersennePrimeSearch.MAXIMUM_EXPONENT + " binary digits.");
+		}
+		return this.mersennePrimeSearch.isMersennePrimeExponent(exponent);
+	}
+
+	@Override
+	public BigInteger findPerfectNumber(Integer index) throws PerfectNumberException {
+		return MersennePrimeSearch.toPerfectNumber(findExponent(index));
+	}
+	
+	@Override
+	public Path findPerfectNumberFile(Integer index, PerfectNumberFormat format) throws PerfectNumberException {
+		int exponent = findExponent(index);
+		try {
+			return this.perfectNumberFiles.getFile(exponent, format);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Finds the Mersenne prime exponent of the index-th perfect number.
+	 */
+	private int findExponent(Integer index) throws PerfectNumberException {
+		checkValidation(ValidationResult.ofIndex(index));
+		int exponent = this.mersennePrimeSearch.getExponent(index);
+		if (exponent < 0) {
+			throw new PerfectNumberException("The perfect number is too large to be found. Its Mersenne exponent is greater than " 
+					+ MersennePrimeSearch.MAXIMUM_EXPONENT + ".");
+		}
+		return exponent;
+	}
+	
+	@Override
+	public void classifyRange(Long lowerBound, Long upperBound, AliquotSumConsumer consumer) throws PerfectNumberException {
+		checkRange(lowerBound, upperBound);
+		if (upperBound > MAXIMUM_CLASSIFICATION_BOUND) {
+			throw new PerfectNumberException("The upper bound must be equal or less than " + MAXIMUM_CLASSIFICATION_BOUND + ".");
+		}
+		long startTime = System.nanoTime();
+		this.divisorSumSieve.sieve(lowerBound, upperBound, consumer);
+		this.sieveMetrics.record(Outcome.HIT, startTime);
+	}
+	
+	@Override
+	public Boolean isPrime(Long number) throws PerfectNumberException {
+		checkNumber(number);
+		return this.primeSieve.isPrime(number);
+	}
+	
+	@Override
+	public void findPrimesInRange(Long lowerBound, Long upperBound, PrimeConsumer consumer) throws PerfectNumberException {
+		checkRange(lowerBound, upperBound);
+		this.primeSieve.findPrimesInRange(lowerBound, upperBound, consumer);
+	}
+	
+	@Override
+	public DivisorSum divisorSum(Long number) throws PerfectNumberException {
+		checkNumber(number);
+		long startTime = System.nanoTime();
+		DivisorSum divisorSum = computeDivisorSum(number);
+		this.factorizationMetrics.record(divisorSum.getMultiplyPerfectIndex() > 0 ? Outcome.HIT : Outcome.MISS, startTime);
+		return divisorSum;
+	}
+	
+	private static DivisorSum computeDivisorSum(long number) {
+		long[] primes = new long[Factorizer.MAXIMUM_PRIME_FACTORS];
+		int[] exponents = new int[Factorizer.MAXIMUM_PRIME_FACTORS];
+		int count = Factorizer.factorize(number, primes, exponents);
+		try {
+			long sigma = sigma(primes, exponents, count);
+			long aliquotSum = sigma - number;
+			int multiplyPerfectIndex = sigma % number == 0 ? (int) (sigma / number) : 0;
+			return new DivisorSum(number, BigInteger.valueOf(sigma), BigInteger.valueOf(aliquotSum), multiplyPerfectIndex, 
+					Classification.of(number, aliquotSum));
+		} catch (ArithmeticException e) {
+			// sigma is greater than Long.MAX_VALUE, so it is computed again by BigInteger.
+			BigInteger bigNumber = BigInteger.valueOf(number);
+			BigInteger sigma = BigInteger.ONE;
+			for (int i = 0; i < count; i++) {
+				BigInteger prime = BigInteger.valueOf(primes[i]);
+				sigma = sigma.multiply(prime.pow(exponents[i] + 1).subtract(BigInteger.ONE).divide(prime.subtract(BigInteger.ONE)));
 			}
+			BigInteger aliquotSum = sigma.subtract(bigNumber);
+			BigInteger[] quotientAndRemainder = sigma.divideAndRemainder(bigNumber);
+			int multiplyPerfectIndex = quotientAndRemainder[1].signum() == 0 ? quotientAndRemainder[0].intValue() : 0;
+			int comparison = aliquotSum.compareTo(bigNumber);
+			Classification classification = comparison < 0 ? Classification.DEFICIENT 
+					: comparison == 0 ? Classification.PERFECT : Classification.ABUNDANT;
+			return new DivisorSum(number, sigma, aliquotSum, multiplyPerfectIndex, classification);
+		}
+	}
+	
+	@Override
+	public List<DivisorSum> findMultiplyPerfectNumbers(Long lowerBound, Long upperBound) throws PerfectNumberException {
+		checkRange(lowerBound, upperBound);
+		if (upperBound > MultiplyPerfectSearch.MAXIMUM_BOUND) {
+			throw new PerfectNumberException("The upper bound must be equal or less than " + MultiplyPerfectSearch.MAXIMUM_BOUND + ".");
+		}
+		long startTime = System.nanoTime();
+		Outcome outcome = upperBound <= this.multiplyPerfectSearch.getSearchedBound() ? Outcome.HIT : Outcome.MISS;
+		long[] numbers = this.multiplyPerfectSearch.findAllInRange(lowerBound, upperBound);
+		List<DivisorSum> divisorSums = new ArrayList<DivisorSum>(numbers.length);
+		for (long number : numbers) {
+			divisorSums.add(computeDivisorSum(number));
 		}
-		return perfectNumbers;
+		this.multiplyPerfectMetrics.record(outcome, startTime);
+		return divisorSums;
 	}
 	
 	/**
-	 * Finds all perfect numbers that are less than a given upper bound. Is based on the Euler theorem to find even perfect numbers and 
-	 * another theorem that shows there is no odd perfect number less than Long.MAX_VALUE. 
-	 * [Ochem, Pascal, and Michaël Rao. "Odd perfect numbers are greater than 10¹⁵⁰⁰." Mathematics of Computation 81.279 (2012): 1869-1877.]
-	 * Euler theorem : All even perfect numbers n are of the form (2^p - 1) * 2^p - 1 , where 2^p - 1 is prime. 
-	 * @param upperBound is a non-zero positive long integer that shows the upper bound  
-	 * @return the list of all perfect numbers that are less than upperBound
+	 * Computes sigma(n) of a factorized number n.
+	 * @throws ArithmeticException if sigma(n) is greater than Long.MAX_VALUE
 	 */
-	private ArrayList<Long> findPerfectNumbers(Long upperBound) {
-		ArrayList<Long> perfectNumbers = new ArrayList<Long>();
-		// For each integer number greater than 2, checks the number is prime and satisfies the Euler theorem. Since there are a few prime numbers
-		// that generates perfect numbers that are small integer and less than Long.MAX_VALUE, no need to ignore odd number to improve performance.
-		for (int number = 2;; number++) {
-			// Assumes number is prime and creates a possible perfect number created based on Euler theorem. 
-			Long possiblePerfectNumber = (long) (Math.pow(2, number-1) * (Math.pow(2, number) - 1));
-			if (possiblePerfectNumber < upperBound) {
-				// Adds the possible perfect number to perfectNumbers if number and 2^number - 1 are prime.
-				if (isPrime(number) && isPrime((int) (Math.pow(2, number) - 1))) {
-					perfectNumbers.add(possiblePerfectNumber);
+	private static long sigma(long[] primes, int[] exponents, int count) {
+		long sigma = 1;
+		for (int i = 0; i < count; i++) {
+			// sigma is multiplicative and sigma(p^e) = 1 + p + ... + p^e.
+			long primePowerSum = 1;
+			for (int e = 0; e < exponents[i]; e++) {
+				primePowerSum = Math.addExact(Math.multiplyExact(primePowerSum, primes[i]), 1);
+			}
+			sigma = Math.multiplyExact(sigma, primePowerSum);
+		}
+		return sigma;
+	}
+	
+	@Override
+	public AliquotSequence findAliquotSequence(Long number, Integer maximumLength, AliquotTermConsumer consumer) 
+			throws PerfectNumberException {
+		checkNumber(number);
+		checkValidation(maximumLength == null ? ValidationResult.LENGTH_OUT_OF_RANGE : ValidationResult.ofMaximumLength(maximumLength));
+		long startTime = System.nanoTime();
+		// Maps each term to its index, so a term that is reached again closes a cycle.
+		Map<Long, Integer> indexes = new HashMap<Long, Integer>();
+		long[] chunk = new long[ALIQUOT_CHUNK_LENGTH];
+		int chunkLength = 0;
+		long chunkTime = startTime;
+		long term = number;
+		int length = 0;
+		AliquotSequenceEnd end = AliquotSequenceEnd.UNFINISHED;
+		int cycleStart = -1;
+		while (true) {
+			indexes.put(term, length++);
+			chunk[chunkLength++] = term;
+			long aliquotSum = term == 1 ? 0 : aliquotSum(term);
+			Integer index = indexes.get(aliquotSum);
+			if (aliquotSum == 0) {
+				end = AliquotSequenceEnd.TERMINATES;
+			} else if (aliquotSum == AliquotSumCache.OVERFLOW) {
+				end = AliquotSequenceEnd.OVERFLOWS;
+			} else if (index != null) {
+				end = AliquotSequenceEnd.ofCycle(length - index);
+				cycleStart = index;
+			}
+			boolean last = end != AliquotSequenceEnd.UNFINISHED || length == maximumLength;
+			if (last || chunkLength == ALIQUOT_CHUNK_LENGTH || System.nanoTime() - chunkTime >= ALIQUOT_CHUNK_TIME) {
+				if (!consumer.accept(chunk, chunkLength)) {
+					break;
 				}
-			} else {
-				// Breaks the loop if the possible perfect number is equal or greater than the upper bound.  
+				chunkLength = 0;
+				chunkTime = System.nanoTime();
+			}
+			if (last) {
 				break;
 			}
+			term = aliquotSum;
 		}
-		return perfectNumbers;
+		int cycleLength = cycleStart < 0 ? 0 : length - cycleStart;
+		this.aliquotSequenceMetrics.record(cycleLength > 0 ? Outcome.HIT : Outcome.MISS, startTime);
+		return new AliquotSequence(number, length, end, cycleStart, cycleLength);
 	}
 	
 	/**
-	 * Checks if a given number is prime based on the well-known theorem. A number n is prime if it is not divisible 
-	 * by any natural number greater than 1 and less that square root of n.
-	 * @param number is an integer
-	 * @return true if number is prime
+	 * Gets the aliquot sum of a number from the cache, or computes it by factorizing the number. The aliquot sum of a perfect number is 
+	 * the number itself, which is known without a factorization.
+	 * @param number is a long integer that is greater than 1
+	 * @return the aliquot sum of number, or AliquotSumCache.OVERFLOW if it is greater than Long.MAX_VALUE
 	 */
-	private Boolean isPrime(int number) {
-	     Boolean isPrime = true;
-	     if (number > 2) {
-	    	 for (int m = 2; m <= Math.sqrt(number)+1; m++) {
-	    		 if (Math.floorMod(number, m)==0) {
-					isPrime = false;
-					break;
-				}
-			 }
-	     }
-	     return isPrime;
+	private long aliquotSum(long number) {
+		if (this.allPerfectNumbers.contains(number)) {
+			return number;
+		}
+		long startTime = System.nanoTime();
+		long aliquotSum = this.aliquotSums.get(number);
+		if (aliquotSum != AliquotSumCache.MISSING) {
+			this.aliquotSumMetrics.record(Outcome.HIT, startTime);
+			return aliquotSum;
+		}
+		aliquotSum = computeAliquotSum(number);
+		this.aliquotSums.put(number, aliquotSum);
+		this.aliquotSumMetrics.record(Outcome.MISS, startTime);
+		return aliquotSum;
+	}
+	
+	/**
+	 * Computes the aliquot sum of a number by factorizing it.
+	 * @return the aliquot sum of number, or AliquotSumCache.OVERFLOW if it is greater than Long.MAX_VALUE
+	 */
+	private static long computeAliquotSum(long number) {
+		long[] primes = new long[Factorizer.MAXIMUM_PRIME_FACTORS];
+		int[] exponents = new int[Factorizer.MAXIMUM_PRIME_FACTORS];
+		int count = Factorizer.factorize(number, primes, exponents);
+		try {
+			return sigma(primes, exponents, count) - number;
+		} catch (ArithmeticException e) {
+			// sigma(n) is greater than Long.MAX_VALUE, but s(n) = sigma(n) - n may not be.
+			BigInteger aliquotSum = computeDivisorSum(number).getAliquotSum();
+			return aliquotSum.bitLength() < Long.SIZE ? aliquotSum.longValue() : AliquotSumCache.OVERFLOW;
+		}
+	}
+	
+	@Override
+	public WorkLease leaseWork() throws PerfectNumberException {
+		return getCoordinator().lease();
+	}
+	
+	@Override
+	public Boolean renewLease(Long leaseId) throws PerfectNumberException {
+		return getCoordinator().renew(leaseId);
+	}
+	
+	@Override
+	public Boolean saveCheckpoint(Long leaseId, LucasLehmerCheckpoint checkpoint) throws PerfectNumberException {
+		return getCoordinator().saveCheckpoint(leaseId, checkpoint);
+	}
+	
+	@Override
+	public Boolean completeWork(Long leaseId, List<Integer> exponents) throws PerfectNumberException {
+		return getCoordinator().complete(leaseId, exponents);
+	}
+	
+	@Override
+	public SearchState getSearchState() {
+		return this.mersennePrimeSearch.getState();
+	}
+	
+	@Override
+	public void mergeSearchState(SearchState searchState) {
+		this.mersennePrimeSearch.merge(2, searchState.getSearchedExponent(), searchState.getExponents());
+	}
+	
+	private MersenneSearchCoordinator getCoordinator() throws PerfectNumberException {
+		if (this.coordinator == null) {
+			throw new PerfectNumberException("This node does not coordinate a distributed Mersenne prime search.");
+		}
+		return this.coordinator;
+	}
+
+	private void checkNumber(long number) throws PerfectNumberException {
+		checkValidation(ValidationResult.ofNumber(number));
+	}
+
+	private void checkRange(long lowerBound, long upperBound) throws PerfectNumberException {
+		checkValidation(ValidationResult.ofRange(lowerBound, upperBound));
+	}
+
+	private void checkValidation(ValidationResult validationResult) throws PerfectNumberException {
+		if (validationResult != ValidationResult.VALID) {
+			throw new PerfectNumberException(validationResult.getMessage());
+		}
 	}
 
 }
@@ -0,0 +1,149 @@
+package com.worldline.service;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Persists the state of a Mersenne prime search in a binary file, so a restarted node serves the known perfect numbers without testing
+ * their exponents again and resumes the interrupted Lucas-Lehmer tests from their checkpoints. The file is loaded through a memory-mapped
+ * channel and is replaced atomically on each save. A perfect number 2^(p-1) * (2^p - 1) is stored as its exponent p.
+ * The format is big-endian :
+ * <pre>
+ * int magic, int version, int searchedExponent,
+ * int exponentCount, int[exponentCount] exponents,
+ * int checkpointCount, checkpointCount * (int exponent, int iteration, int residueLength, byte[residueLength] residue)
+ * </pre>
+ * where residue is the two's-complement representation of the residue of the checkpoint.
+ * @author mohsen
+ *
+ */
+public class PerfectNumberStore {
+
+	private static final int MAGIC = 0x504E554D;
+
+	private static final int VERSION = 1;
+
+	private final Path path;
+
+	/**
+	 * Is the smallest exponent that is not tested yet.
+	 */
+	private int searchedExponent = 2;
+
+	/**
+	 * Contains all Mersenne prime exponents less than searchedExponent in increasing order.
+	 */
+	private List<Integer> exponents = Collections.emptyList();
+
+	/**
+	 * Contains the checkpoints of the interrupted Lucas-Lehmer tests.
+	 */
+	private List<LucasLehmerCheckpoint> checkpoints = Collections.emptyList();
+
+	public PerfectNumberStore(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Loads the stored state if the file exists.
+	 * @throws IOException if the file cannot be read or is not a valid store
+	 */
+	public synchronized void load() throws IOException {
+		if (!Files.exists(this.path)) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("The file " + this.path + " is not a perfect number store.");
+			}
+			int searchedExponent = buffer.getInt();
+			int exponentCount = buffer.getInt();
+			List<Integer> exponents = new ArrayList<Integer>(exponentCount);
+			for (int i = 0; i < exponentCount; i++) {
+				exponents.add(buffer.getInt());
+			}
+			int checkpointCount = buffer.getInt();
+			List<LucasLehmerCheckpoint> checkpoints = new ArrayList<LucasLehmerCheckpoint>(checkpointCount);
+			for (int i = 0; i < checkpointCount; i++) {
+				int exponent = buffer.getInt();
+				int iteration = buffer.getInt();
+				byte[] residue = new byte[buffer.getInt()];
+				buffer.get(residue);
+				checkpoints.add(new LucasLehmerCheckpoint(exponent, iteration, new BigInteger(residue)));
+			}
+			this.searchedExponent = searchedExponent;
+			this.exponents = Collections.unmodifiableList(exponents);
+			this.checkpoints = Collections.unmodifiableList(checkpoints);
+		} catch (RuntimeException e) {
+			throw new IOException("The file " + this.path + " is not a valid perfect number store.", e);
+		}
+	}
+
+	/**
+	 * Saves the state of a search. The state is written to a temporary file that replaces the store, so a crash during a save
+	 * leaves the previous state intact.
+	 * @param searchedExponent is the smallest exponent that is not tested yet
+	 * @param exponents contains all Mersenne prime exponents less than searchedExponent in increasing order
+	 * @param checkpoints contains the checkpoints of the unfinished Lucas-Lehmer tests
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void save(int searchedExponent, List<Integer> exponents, Collection<LucasLehmerCheckpoint> checkpoints) throws IOException {
+		List<Integer> savedExponents = new ArrayList<Integer>(exponents);
+		List<LucasLehmerCheckpoint> savedCheckpoints = new ArrayList<LucasLehmerCheckpoint>(checkpoints);
+		List<byte[]> residues = new ArrayList<byte[]>(savedCheckpoints.size());
+		int length = 20 + 4 * savedExponents.size();
+		for (LucasLehmerCheckpoint checkpoint : savedCheckpoints) {
+			byte[] residue = checkpoint.getResidue().toByteArray();
+			residues.add(residue);
+			length += 12 + residue.length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(searchedExponent).putInt(savedExponents.size());
+		for (int exponent : savedExponents) {
+			buffer.putInt(exponent);
+		}
+		buffer.putInt(residues.size());
+		for (int i = 0; i < residues.size(); i++) {
+			LucasLehmerCheckpoint checkpoint = savedCheckpoints.get(i);
+			byte[] residue = residues.get(i);
+			buffer.putInt(checkpoint.getExponent()).putInt(checkpoint.getIteration()).putInt(residue.length).put(residue);
+		}
+		// Calls Buffer.flip(), since the ByteBuffer override is missing on Java 8.
+		((Buffer) buffer).flip();
+		Path temporaryPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+		Files.move(temporaryPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public int getSearchedExponent() {
+		return searchedExponent;
+	}
+
+	public List<Integer> getExponents() {
+		return exponents;
+	}
+
+	public List<LucasLehmerCheckpoint> getCheckpoints() {
+		return checkpoints;
+	}
+
+}
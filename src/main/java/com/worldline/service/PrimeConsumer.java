@@ -0,0 +1,19 @@
+package com.worldline.service;
+
+/**
+ * Receives the primes of a range in increasing order chunk by chunk.
+ * @author mohsen
+ *
+ */
+@FunctionalInterface
+public interface PrimeConsumer {
+
+	/**
+	 * Accepts a chunk of primes. The array is reused after the method returns, so it must not be kept.
+	 * @param primes contains the primes of the chunk in increasing order
+	 * @param length is the count of primes in the chunk
+	 * @return false to stop receiving next chunks
+	 */
+	boolean accept(long[] primes, int length);
+
+}
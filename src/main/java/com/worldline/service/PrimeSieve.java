@@ -0,0 +1,349 @@
+package com.worldline.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps the primality of all numbers up to a limit in a bitset of odd numbers, i.e. bit i is set if 2i + 1 is prime. The bitset is 
+ * built by a segmented sieve of Eratosthenes whose segments are sieved in parallel, and is stored in a direct buffer, so a table of 
+ * hundreds of megabytes is neither in the heap nor scanned by the garbage collector. A number up to the limit is checked by reading 
+ * a single bit. Greater numbers are checked by Factorizer.isPrime, and the primes of a range above the limit are found by sieving 
+ * the range with the primes of the table.
+ * @author mohsen
+ *
+ */
+public class PrimeSieve {
+
+	/**
+	 * Is the greatest limit of a table, since a buffer has at most Integer.MAX_VALUE bytes and the base primes are integers.
+	 */
+	public static final long MAXIMUM_LIMIT = Integer.MAX_VALUE;
+
+	/**
+	 * Is the count of longs of a segment. A segment of 32 KB fits in a level 1 cache and covers 2^19 numbers.
+	 */
+	private static final int SEGMENT_WORDS = 1 << 12;
+
+	private static final int SEGMENT_BITS = SEGMENT_WORDS * Long.SIZE;
+
+	/**
+	 * Is the greatest base prime that sieves a range above the limit. Bounds the base primes of a range to about a million. 
+	 * The numbers of the range that are left by the base primes and are greater than its square are checked by Factorizer.isPrime.
+	 */
+	private static final int MAXIMUM_BASE_PRIME = 1 << 24;
+
+	/**
+	 * Is the count of primes of a chunk that is given to a consumer.
+	 */
+	private static final int CHUNK_LENGTH = 1 << 12;
+
+	/**
+	 * Is the square root of Long.MAX_VALUE.
+	 */
+	private static final long MAXIMUM_SQUARE_ROOT = 3037000499L;
+
+	private final ForkJoinPool pool;
+
+	private final long limit;
+
+	/**
+	 * Contains the bitset of the odd numbers up to the limit in the native byte order, or null if it is not built yet.
+	 */
+	private volatile ByteBuffer table;
+
+	/**
+	 * Creates a sieve of all numbers up to a limit. The table is built by the first query that reads it, so a sieve of hundreds of 
+	 * megabytes does not delay the startup.
+	 * @param pool sieves the segments in parallel
+	 * @param limit is a long integer between 2 and MAXIMUM_LIMIT
+	 */
+	public PrimeSieve(ForkJoinPool pool, long limit) {
+		if (limit < 2 || limit > MAXIMUM_LIMIT) {
+			throw new IllegalArgumentException("The limit of a prime sieve must be between 2 and " + MAXIMUM_LIMIT + ".");
+		}
+		this.pool = pool;
+		this.limit = limit;
+	}
+
+	/**
+	 * Gets the table, which is built once by the first caller while the others wait for it.
+	 */
+	private ByteBuffer table() {
+		ByteBuffer table = this.table;
+		if (table == null) {
+			synchronized (this) {
+				table = this.table;
+				if (table == null) {
+					table = sieve();
+					this.table = table;
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Checks if the table is built.
+	 * @return true if a query has read the table
+	 */
+	public boolean isBuilt() {
+		return this.table != null;
+	}
+
+	private ByteBuffer sieve() {
+		long bits = (this.limit + 1) / 2;
+		int words = (int) ((bits + Long.SIZE - 1) / Long.SIZE);
+		ByteBuffer table = ByteBuffer.allocateDirect(words * Long.BYTES).order(ByteOrder.nativeOrder());
+		int[] basePrimes = smallPrimes((int) squareRoot(this.limit));
+		int segments = (words + SEGMENT_WORDS - 1) / SEGMENT_WORDS;
+		this.pool.submit(() -> IntStream.range(0, segments).parallel().forEach(segment -> {
+			int firstWord = segment * SEGMENT_WORDS;
+			int length = Math.min(SEGMENT_WORDS, words - firstWord);
+			long[] segmentBits = new long[length];
+			sieveSegment(2L * firstWord * Long.SIZE + 1, segmentBits, basePrimes, basePrimes.length);
+			if (segment == 0) {
+				// 1 is not prime.
+				segmentBits[0] &= ~1L;
+			}
+			if (segment == segments - 1 && bits % Long.SIZE != 0) {
+				segmentBits[length - 1] &= -1L >>> (Long.SIZE - bits % Long.SIZE);
+			}
+			for (int i = 0; i < length; i++) {
+				table.putLong((firstWord + i) * Long.BYTES, segmentBits[i]);
+			}
+		})).join();
+		return table;
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Checks if a given number is prime.
+	 * @param number is a long integer
+	 * @return true if number is prime
+	 */
+	public boolean isPrime(long number) {
+		if (number > this.limit) {
+			return Factorizer.isPrime(number);
+		}
+		if ((number & 1) == 0) {
+			return number == 2;
+		}
+		return number > 0 && isOddPrime(number);
+	}
+
+	/**
+	 * Finds the primes between two bounds and gives them to a consumer in increasing order.
+	 * @param lowerBound is a long integer that is equal or less than upperBound
+	 * @param upperBound is a long integer
+	 * @param consumer receives the primes until it returns false
+	 */
+	public void findPrimesInRange(long lowerBound, long upperBound, PrimeConsumer consumer) {
+		Chunk chunk = new Chunk(consumer);
+		if (lowerBound <= 2 && upperBound >= 2 && !chunk.add(2)) {
+			return;
+		}
+		long first = Math.max(lowerBound, 3) | 1;
+		long last = Math.min(upperBound, this.limit);
+		if (first <= last && !findTablePrimes(first, last, chunk)) {
+			return;
+		}
+		if (upperBound > this.limit && !findSievedPrimes(Math.max(lowerBound, this.limit + 1), upperBound, chunk)) {
+			return;
+		}
+		chunk.flush();
+	}
+
+	/**
+	 * Reads the primes between two odd numbers of the table word by word.
+	 * @return false if the consumer stops
+	 */
+	private boolean findTablePrimes(long first, long last, Chunk chunk) {
+		long firstBit = first >>> 1;
+		long lastBit = (last - 1) >>> 1;
+		ByteBuffer table = table();
+		for (long wordIndex = firstBit / Long.SIZE; wordIndex <= lastBit / Long.SIZE; wordIndex++) {
+			long word = table.getLong((int) wordIndex * Long.BYTES);
+			long wordFirstBit = wordIndex * Long.SIZE;
+			if (wordFirstBit < firstBit) {
+				word &= -1L << (firstBit - wordFirstBit);
+			}
+			if (lastBit - wordFirstBit < Long.SIZE - 1) {
+				word &= -1L >>> (Long.SIZE - 1 - (lastBit - wordFirstBit));
+			}
+			while (word != 0) {
+				if (!chunk.add(2 * (wordFirstBit + Long.numberOfTrailingZeros(word)) + 1)) {
+					return false;
+				}
+				word &= word - 1;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sieves a range above the table segment by segment with the primes of the table.
+	 * @return false if the consumer stops
+	 */
+	private boolean findSievedPrimes(long lowerBound, long upperBound, Chunk chunk) {
+		int coverage = (int) Math.min(Math.min(squareRoot(upperBound), this.limit), MAXIMUM_BASE_PRIME);
+		int[] basePrimes = tablePrimes(coverage);
+		long[] segmentBits = new long[SEGMENT_WORDS];
+		int baseCount = 0;
+		long first = lowerBound | 1;
+		if (first > upperBound) {
+			// The range is a single even number.
+			return true;
+		}
+		for (;;) {
+			long last = upperBound - first <= 2L * SEGMENT_BITS - 2 ? upperBound : first + 2L * SEGMENT_BITS - 2;
+			long maximumDivisor = squareRoot(last);
+			while (baseCount < basePrimes.length && basePrimes[baseCount] <= maximumDivisor) {
+				baseCount++;
+			}
+			// The numbers that are left are prime if the base primes cover their square roots.
+			boolean sieved = maximumDivisor <= coverage;
+			int bits = (int) ((last - first) / 2 + 1);
+			int words = (bits + Long.SIZE - 1) / Long.SIZE;
+			sieveSegment(first, segmentBits, basePrimes, baseCount);
+			for (int i = 0; i < words; i++) {
+				long word = segmentBits[i];
+				if (i == words - 1 && bits % Long.SIZE != 0) {
+					word &= -1L >>> (Long.SIZE - bits % Long.SIZE);
+				}
+				while (word != 0) {
+					long number = first + 2 * (i * Long.SIZE + Long.numberOfTrailingZeros(word));
+					if ((sieved || Factorizer.isPrime(number)) && !chunk.add(number)) {
+						return false;
+					}
+					word &= word - 1;
+				}
+			}
+			if (upperBound - last < 2) {
+				return true;
+			}
+			first = last + 2;
+		}
+	}
+
+	/**
+	 * Finds the primes of the table up to a given bound.
+	 */
+	private int[] tablePrimes(int bound) {
+		if (bound < 3) {
+			return new int[0];
+		}
+		// pi(x) < 1.25506 x / ln(x) [Rosser, J. Barkley, and Lowell Schoenfeld. "Approximate formulas for some functions of prime numbers." 
+		// Illinois Journal of Mathematics 6.1 (1962): 64-94.]
+		int[] primes = new int[(int) (1.25506 * bound / Math.log(bound)) + 1];
+		int[] count = new int[1];
+		Chunk chunk = new Chunk((chunkPrimes, length) -> {
+			for (int i = 0; i < length; i++) {
+				primes[count[0]++] = (int) chunkPrimes[i];
+			}
+			return true;
+		});
+		findTablePrimes(3, bound, chunk);
+		chunk.flush();
+		return Arrays.copyOf(primes, count[0]);
+	}
+
+	private boolean isOddPrime(long number) {
+		long bit = number >>> 1;
+		return (table().getLong((int) (bit / Long.SIZE) * Long.BYTES) >>> (bit % Long.SIZE) & 1) != 0;
+	}
+
+	/**
+	 * Sieves a segment of odd numbers, i.e. bit i of the segment is set if first + 2i is not a multiple of a base prime other than itself.
+	 * @param first is an odd number
+	 * @param segmentBits receives the bits of the segment. All its words are sieved.
+	 * @param basePrimes contains odd primes in increasing order
+	 * @param baseCount is the count of the base primes that are used
+	 */
+	private static void sieveSegment(long first, long[] segmentBits, int[] basePrimes, int baseCount) {
+		Arrays.fill(segmentBits, -1L);
+		long bits = (long) segmentBits.length * Long.SIZE;
+		for (int i = 0; i < baseCount; i++) {
+			long prime = basePrimes[i];
+			// The first odd multiple of prime that is not less than prime * prime and first.
+			long multiple = prime * prime;
+			if (multiple < first) {
+				long remainder = first % prime;
+				multiple = remainder == 0 ? first : first + prime - remainder;
+				if ((multiple & 1) == 0) {
+					multiple += prime;
+				}
+			}
+			long offset = multiple - first;
+			if (offset < 0 || offset / 2 >= bits) {
+				continue;
+			}
+			for (long bit = offset / 2; bit < bits; bit += prime) {
+				segmentBits[(int) (bit >>> 6)] &= ~(1L << bit);
+			}
+		}
+	}
+
+	/**
+	 * Finds the odd primes up to a bound by a simple sieve of Eratosthenes.
+	 */
+	private static int[] smallPrimes(int bound) {
+		boolean[] composite = new boolean[bound + 1];
+		int[] primes = new int[bound / 2 + 1];
+		int count = 0;
+		for (int number = 3; number <= bound; number += 2) {
+			if (!composite[number]) {
+				primes[count++] = number;
+				for (long multiple = (long) number * number; multiple <= bound; multiple += 2 * number) {
+					composite[(int) multiple] = true;
+				}
+			}
+		}
+		return Arrays.copyOf(primes, count);
+	}
+
+	private static long squareRoot(long number) {
+		long root = Math.min((long) Math.sqrt(number), MAXIMUM_SQUARE_ROOT);
+		while (root * root > number) {
+			root--;
+		}
+		while (root < MAXIMUM_SQUARE_ROOT && (root + 1) * (root + 1) <= number) {
+			root++;
+		}
+		return root;
+	}
+
+	/**
+	 * Collects primes in a chunk and gives the chunk to the consumer when it is full.
+	 */
+	private static final class Chunk {
+
+		private final PrimeConsumer consumer;
+
+		private final long[] primes = new long[CHUNK_LENGTH];
+
+		private int length;
+
+		private Chunk(PrimeConsumer consumer) {
+			this.consumer = consumer;
+		}
+
+		private boolean add(long prime) {
+			this.primes[this.length++] = prime;
+			return this.length < CHUNK_LENGTH || flush();
+		}
+
+		private boolean flush() {
+			int length = this.length;
+			this.length = 0;
+			return length == 0 || this.consumer.accept(this.primes, length);
+		}
+
+	}
+
+}
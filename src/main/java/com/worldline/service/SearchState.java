@@ -0,0 +1,47 @@
+package com.worldline.service;
+
+import java.util.List;
+
+/**
+ * Is the result of a Mersenne prime search so far. Is shared by the nodes of a distributed search, so every node serves the perfect 
+ * numbers that are found by the workers.
+ * @author mohsen
+ *
+ */
+public class SearchState {
+
+	/**
+	 * Is the smallest exponent that is not tested yet.
+	 */
+	private int searchedExponent;
+
+	/**
+	 * Contains all Mersenne prime exponents less than searchedExponent in increasing order.
+	 */
+	private List<Integer> exponents;
+
+	public SearchState() {
+	}
+
+	public SearchState(int searchedExponent, List<Integer> exponents) {
+		this.searchedExponent = searchedExponent;
+		this.exponents = exponents;
+	}
+
+	public int getSearchedExponent() {
+		return searchedExponent;
+	}
+
+	public void setSearchedExponent(int searchedExponent) {
+		this.searchedExponent = searchedExponent;
+	}
+
+	public List<Integer> getExponents() {
+		return exponents;
+	}
+
+	public void setExponents(List<Integer> exponents) {
+		this.exponents = exponents;
+	}
+
+}
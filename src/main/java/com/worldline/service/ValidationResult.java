@@ -0,0 +1,90 @@
+package com.worldline.service;
+
+/**
+ * Is the result of the validation of a number or a range given to the perfect number service. Validating by a result instead of an 
+ * exception lets invalid requests be answered as fast as valid ones, since no stack trace is filled.
+ * @author mohsen
+ *
+ */
+public enum ValidationResult {
+
+	VALID(null),
+
+	NOT_AN_INTEGER("The input parameter(s) must be an integer between 1 and " + Long.MAX_VALUE + "."),
+
+	NUMBER_OUT_OF_RANGE("The number must be an integer between 1 and " + Long.MAX_VALUE + "."),
+
+	BOUND_OUT_OF_RANGE("The lower and upper bound must be an integer between 1 and " + Long.MAX_VALUE + "."),
+
+	BOUNDS_NOT_ORDERED("The lower bound must be lesser than the upper bound."),
+
+	INDEX_OUT_OF_RANGE("The index must be an integer between 1 and " + Integer.MAX_VALUE + "."),
+
+	LENGTH_OUT_OF_RANGE("The maximum length must be between 1 and " + AliquotSequence.MAXIMUM_LENGTH + "."),
+
+	ID_OUT_OF_RANGE("The id must be an integer between 1 and " + Long.MAX_VALUE + ".");
+
+	/**
+	 * Is the error message of an invalid input, or null if the input is valid.
+	 */
+	private final String message;
+
+	private ValidationResult(String message) {
+		this.message = message;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * Validates a number to check.
+	 * @param number is a long integer
+	 * @return VALID if number is greater than zero, otherwise NUMBER_OUT_OF_RANGE
+	 */
+	public static ValidationResult ofNumber(long number) {
+		return number <= 0 ? NUMBER_OUT_OF_RANGE : VALID;
+	}
+
+	/**
+	 * Validates a range to search.
+	 * @param lowerBound is a long integer
+	 * @param upperBound is a long integer
+	 * @return VALID if both bounds are greater than zero and lowerBound is equal or less than upperBound. Otherwise, BOUND_OUT_OF_RANGE 
+	 * or BOUNDS_NOT_ORDERED.
+	 */
+	public static ValidationResult ofRange(long lowerBound, long upperBound) {
+		if (lowerBound <= 0 || upperBound <= 0) {
+			return BOUND_OUT_OF_RANGE;
+		}
+		return lowerBound > upperBound ? BOUNDS_NOT_ORDERED : VALID;
+	}
+
+	/**
+	 * Validates the index of a perfect number to find.
+	 * @param index is an integer
+	 * @return VALID if index is greater than zero, otherwise INDEX_OUT_OF_RANGE
+	 */
+	public static ValidationResult ofIndex(int index) {
+		return index <= 0 ? INDEX_OUT_OF_RANGE : VALID;
+	}
+
+	/**
+	 * Validates the maximum length of an aliquot sequence.
+	 * @param maximumLength is an integer
+	 * @return VALID if maximumLength is between 1 and AliquotSequence.MAXIMUM_LENGTH, otherwise LENGTH_OUT_OF_RANGE
+	 */
+	public static ValidationResult ofMaximumLength(int maximumLength) {
+		return maximumLength < 1 || maximumLength > AliquotSequence.MAXIMUM_LENGTH ? LENGTH_OUT_OF_RANGE : VALID;
+	}
+
+	/**
+	 * Validates the id of a job or a lease.
+	 * @param id is a long integer
+	 * @return VALID if id is greater than zero, otherwise ID_OUT_OF_RANGE
+	 */
+	public static ValidationResult ofId(long id) {
+		return id <= 0 ? ID_OUT_OF_RANGE : VALID;
+	}
+
+}
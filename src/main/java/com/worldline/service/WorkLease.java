@@ -0,0 +1,100 @@
+package com.worldline.service;
+
+import java.math.BigInteger;
+
+/**
+ * Is a work unit of a distributed Mersenne prime search that is leased to a worker. The worker tests the prime exponents of the unit, 
+ * starting from their checkpoints, and renews the lease before it expires. A unit whose lease expires is leased to another worker.
+ * @author mohsen
+ *
+ */
+public class WorkLease {
+
+	/**
+	 * Identifies the lease in the renewals, the checkpoints and the result of the unit.
+	 */
+	private long leaseId;
+
+	/**
+	 * Is the time in milliseconds after which the lease expires unless it is renewed.
+	 */
+	private long leaseTime;
+
+	/**
+	 * Contains the prime exponents of the unit in increasing order.
+	 */
+	private int[] exponents;
+
+	/**
+	 * Contains the iteration of the checkpoint of exponents[i] at i, or zero if it has no checkpoint.
+	 */
+	private int[] iterations;
+
+	/**
+	 * Contains the residue of the checkpoint of exponents[i] at i, or null if it has no checkpoint.
+	 */
+	private BigInteger[] residues;
+
+	/**
+	 * Is the result of the search when the unit is leased.
+	 */
+	private SearchState state;
+
+	/**
+	 * Gets the checkpoint of an exponent of the unit.
+	 * @param i is the position of the exponent
+	 * @return the checkpoint to resume the test of exponents[i] from, or null
+	 */
+	public LucasLehmerCheckpoint checkpointOf(int i) {
+		return residues[i] == null ? null : new LucasLehmerCheckpoint(exponents[i], iterations[i], residues[i]);
+	}
+
+	public long getLeaseId() {
+		return leaseId;
+	}
+
+	public void setLeaseId(long leaseId) {
+		this.leaseId = leaseId;
+	}
+
+	public long getLeaseTime() {
+		return leaseTime;
+	}
+
+	public void setLeaseTime(long leaseTime) {
+		this.leaseTime = leaseTime;
+	}
+
+	public int[] getExponents() {
+		return exponents;
+	}
+
+	public void setExponents(int[] exponents) {
+		this.exponents = exponents;
+	}
+
+	public int[] getIterations() {
+		return iterations;
+	}
+
+	public void setIterations(int[] iterations) {
+		this.iterations = iterations;
+	}
+
+	public BigInteger[] getResidues() {
+		return residues;
+	}
+
+	public void setResidues(BigInteger[] residues) {
+		this.residues = residues;
+	}
+
+	public SearchState getState() {
+		return state;
+	}
+
+	public void setState(SearchState state) {
+		this.state = state;
+	}
+
+}
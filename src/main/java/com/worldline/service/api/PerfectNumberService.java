@@ -1,12 +1,24 @@
 package com.worldline.service.api;
 
+import java.math.BigInteger;
+import java.nio.file.Path;
 import java.util.List;
 
+import com.worldline.service.AliquotSequence;
+import com.worldline.service.AliquotSumConsumer;
+import com.worldline.service.AliquotTermConsumer;
+import com.worldline.service.Classification;
+import com.worldline.service.DivisorSum;
+import com.worldline.service.LucasLehmerCheckpoint;
 import com.worldline.service.PerfectNumberException;
+import com.worldline.service.PerfectNumberFormat;
+import com.worldline.service.PrimeConsumer;
+import com.worldline.service.SearchState;
+import com.worldline.service.WorkLease;
 
 /**
  * Specifies a perfect number service. The service serves two operations : check if a given number is perfect and 
- * find all perfect numbers in a given range.
+ * find all perfect numbers in a given range. Also, it finds perfect numbers that are greater than Long.MAX_VALUE.
  * @author mohsen
  *
  */
@@ -30,4 +42,212 @@ public interface PerfectNumberService {
 	 */
 	public List<Long> findAllInRange(Long lowerBound, Long upperBound) throws PerfectNumberException;
 
+	/**
+	 * Checks if given numbers are perfect. Large batches are checked in parallel.
+	 * @param numbers contains long integers that are greater than zero
+	 * @param length is the count of numbers to check from the beginning of numbers
+	 * @return an array of length elements, where the i-th element is true if numbers[i] is perfect
+	 * @throws PerfectNumberException is raised when one of the given numbers is equal or less than zero
+	 */
+	public boolean[] checkAll(long[] numbers, int length) throws PerfectNumberException;
+
+	/**
+	 * Classifies given numbers as deficient, perfect, or abundant by their aliquot sums, which are computed by factorizing the numbers. 
+	 * Large batches are classified in parallel.
+	 * @param numbers contains long integers that are greater than zero
+	 * @param length is the count of numbers to classify from the beginning of numbers
+	 * @return an array of length elements, where the i-th element is the class of numbers[i]
+	 * @throws PerfectNumberException is raised when one of the given numbers is equal or less than zero
+	 */
+	public Classification[] classifyAll(long[] numbers, int length) throws PerfectNumberException;
+
+	/**
+	 * Finds all perfect numbers in given ranges. Large batches are processed in parallel.
+	 * @param lowerBounds contains the lower bounds of the ranges, that are long integers greater than zero
+	 * @param upperBounds contains the upper bounds of the ranges, that are long integers greater than zero
+	 * @param length is the count of ranges from the beginning of lowerBounds and upperBounds
+	 * @return an array of length elements, where the i-th element contains all perfect numbers between lowerBounds[i] and upperBounds[i]. 
+	 * The elements may be shared by other calls, so they must not be modified.
+	 * @throws PerfectNumberException is raised when one of the bounds is equal or less than zero. Or a lower bound is greater than 
+	 * its upper bound.
+	 */
+	public long[][] findAllInRanges(long[] lowerBounds, long[] upperBounds, int length) throws PerfectNumberException;
+
+	/**
+	 * Counts all perfect numbers in a given range specified by two non-zero positive long integers as lower and upper bounds.
+	 * @param lowerBound is a long integer that is greater than zero and equal or less than the upper bound
+	 * @param upperBound is a long integer that is greater than zero and equal or greater than the upper bound
+	 * @return the number of perfect numbers in the given range
+	 * @throws PerfectNumberException is raised when lowerBound or upperBound are equal or less than zero. 
+	 * Or lowerBound is greater than upperBound.
+	 */
+	public Integer countInRange(Long lowerBound, Long upperBound) throws PerfectNumberException;
+
+	/**
+	 * Counts all perfect numbers that are equal or less than a given number, e.g. the rank of a perfect number is its position 
+	 * among perfect numbers starting from 1.
+	 * @param number is a long integer that is greater than zero
+	 * @return the number of perfect numbers that are equal or less than the given number
+	 * @throws PerfectNumberException is raised when the given number is equal or less than zero
+	 */
+	public Integer rank(Long number) throws PerfectNumberException;
+
+	/**
+	 * Finds the greatest perfect number that is equal or less than a given number.
+	 * @param number is a long integer that is greater than zero
+	 * @return the greatest perfect number that is equal or less than the given number, or null if the given number is less than 6
+	 * @throws PerfectNumberException is raised when the given number is equal or less than zero
+	 */
+	public Long findFloor(Long number) throws PerfectNumberException;
+
+	/**
+	 * Finds the smallest perfect number that is equal or greater than a given number.
+	 * @param number is a long integer that is greater than zero
+	 * @return the smallest perfect number that is equal or greater than the given number, or null if there is no such perfect number 
+	 * less than Long.MAX_VALUE
+	 * @throws PerfectNumberException is raised when the given number is equal or less than zero
+	 */
+	public Long findCeiling(Long number) throws PerfectNumberException;
+
+	/**
+	 * Checks if a given number of arbitrary size is perfect.
+	 * @param number is a decimal string of an integer that is greater than zero
+	 * @return true if the given number is perfect
+	 * @throws PerfectNumberException is raised when the given number is not an integer, is equal or less than zero, 
+	 * or is too large to be checked
+	 */
+	public Boolean check(String number) throws PerfectNumberException;
+
+	/**
+	 * Finds the index-th perfect number in increasing order, e.g. 6 is the first perfect number and 28 is the second one.
+	 * @param index is an integer that is greater than zero
+	 * @return the index-th perfect number
+	 * @throws PerfectNumberException is raised when index is equal or less than zero or the perfect number is too large to be found
+	 */
+	public BigInteger findPerfectNumber(Integer index) throws PerfectNumberException;
+
+	/**
+	 * Finds the file that contains the index-th perfect number in a given format. The file is written by the first request, so a perfect 
+	 * number of any size is served without building its representation in memory.
+	 * @param index is an integer that is greater than zero
+	 * @param format is the format of the file
+	 * @return the path of the file
+	 * @throws PerfectNumberException is raised when index is equal or less than zero or the perfect number is too large to be found
+	 */
+	public Path findPerfectNumberFile(Integer index, PerfectNumberFormat format) throws PerfectNumberException;
+
+	/**
+	 * Computes the aliquot sum, i.e. the sum of divisors except the number itself, of every number in a given range. The aliquot sums are 
+	 * given to a consumer in increasing order of numbers and in segments, so a range of any width is processed in a bounded memory. 
+	 * A number is deficient, perfect, or abundant if its aliquot sum is respectively less than, equal to, or greater than the number.
+	 * @param lowerBound is a long integer that is greater than zero and equal or less than the upper bound
+	 * @param upperBound is a long integer that is greater than zero and equal or greater than the upper bound
+	 * @param consumer receives the aliquot sums until it returns false
+	 * @throws PerfectNumberException is raised when lowerBound or upperBound are equal or less than zero. Or lowerBound is greater than 
+	 * upperBound. Or upperBound is too large to sieve.
+	 */
+	public void classifyRange(Long lowerBound, Long upperBound, AliquotSumConsumer consumer) throws PerfectNumberException;
+
+	/**
+	 * Computes the divisor sum sigma(n) of a given number n, i.e. the sum of all divisors of n, by factorizing n. Also, computes the aliquot 
+	 * sum s(n) = sigma(n) - n, the class of n, and the multiply-perfect index k if sigma(n) = k * n.
+	 * @param number is a long integer that is greater than zero
+	 * @return the divisor sum of the given number
+	 * @throws PerfectNumberException is raised when the given number is equal or less than zero
+	 */
+	public DivisorSum divisorSum(Long number) throws PerfectNumberException;
+
+	/**
+	 * Finds all multiply perfect numbers in a given range, i.e. the numbers n such that sigma(n) = k * n for an integer k, e.g.
+	 * the perfect numbers for k = 2 and 120 for k = 3. The numbers are searched by their prime powers instead of their divisor sums,
+	 * and the numbers up to the greatest searched bound are kept, so a query within that bound is not searched again.
+	 * @param lowerBound is a long integer that is greater than zero and equal or less than the upper bound
+	 * @param upperBound is a long integer that is greater than zero and equal or greater than the lower bound
+	 * @return the divisor sum of each multiply perfect number in the given range in increasing order, whose multiply-perfect index is k
+	 * @throws PerfectNumberException is raised when lowerBound or upperBound are equal or less than zero. Or lowerBound is greater than
+	 * upperBound. Or upperBound is greater than MultiplyPerfectSearch.MAXIMUM_BOUND.
+	 */
+	public List<DivisorSum> findMultiplyPerfectNumbers(Long lowerBound, Long upperBound) throws PerfectNumberException;
+
+	/**
+	 * Computes the aliquot sequence of a given number n, i.e. n, s(n), s(s(n)), ..., where s(n) is the aliquot sum of n. The sequence ends 
+	 * when it reaches 1, whose aliquot sum is 0, or a term that it has already reached, i.e. a perfect number, an amicable pair, or 
+	 * a sociable cycle, or a term whose aliquot sum is greater than Long.MAX_VALUE, or maximumLength terms. The terms are given to 
+	 * a consumer as they are computed. The aliquot sums are kept in a bounded cache that is shared by all sequences, since the sequences 
+	 * of different numbers often merge.
+	 * @param number is a long integer that is greater than zero
+	 * @param maximumLength is the greatest count of terms, which is between 1 and AliquotSequence.MAXIMUM_LENGTH
+	 * @param consumer receives the terms until it returns false
+	 * @return the length of the sequence and how it ends
+	 * @throws PerfectNumberException is raised when the given number is equal or less than zero. Or maximumLength is not valid.
+	 */
+	public AliquotSequence findAliquotSequence(Long number, Integer maximumLength, AliquotTermConsumer consumer) throws PerfectNumberException;
+	
+	/**
+	 * Checks if a given number is prime. Numbers up to the limit of the prime table are checked by a single table lookup.
+	 * @param number is a long integer that is greater than zero
+	 * @return true if the given number is prime
+	 * @throws PerfectNumberException is raised when the given number is equal or less than zero
+	 */
+	public Boolean isPrime(Long number) throws PerfectNumberException;
+
+	/**
+	 * Finds the primes in a given range. The primes are given to a consumer in increasing order and in chunks, so a range of any width 
+	 * is processed in a bounded memory.
+	 * @param lowerBound is a long integer that is greater than zero and equal or less than the upper bound
+	 * @param upperBound is a long integer that is greater than zero and equal or greater than the lower bound
+	 * @param consumer receives the primes until it returns false
+	 * @throws PerfectNumberException is raised when lowerBound or upperBound are equal or less than zero. Or lowerBound is greater than 
+	 * upperBound.
+	 */
+	public void findPrimesInRange(Long lowerBound, Long upperBound, PrimeConsumer consumer) throws PerfectNumberException;
+
+	/**
+	 * Leases a work unit of the distributed Mersenne prime search that is coordinated by this node.
+	 * @return the lease of the first unit that is neither leased nor done, or null if there is no unit to lease
+	 * @throws PerfectNumberException is raised when this node does not coordinate a distributed search
+	 */
+	public WorkLease leaseWork() throws PerfectNumberException;
+
+	/**
+	 * Renews the lease of a work unit of the distributed Mersenne prime search.
+	 * @param leaseId identifies the lease
+	 * @return false if the lease is lost, i.e. it is expired and its unit is leased again, or its unit is done
+	 * @throws PerfectNumberException is raised when this node does not coordinate a distributed search
+	 */
+	public Boolean renewLease(Long leaseId) throws PerfectNumberException;
+
+	/**
+	 * Saves the checkpoint of a Lucas-Lehmer test of a leased work unit and renews the lease.
+	 * @param leaseId identifies the lease
+	 * @param checkpoint is a checkpoint of an exponent of the unit
+	 * @return false if the lease is lost
+	 * @throws PerfectNumberException is raised when this node does not coordinate a distributed search, or the checkpoint is not valid
+	 * for the unit
+	 */
+	public Boolean saveCheckpoint(Long leaseId, LucasLehmerCheckpoint checkpoint) throws PerfectNumberException;
+
+	/**
+	 * Reports the result of a leased work unit. The unit is merged into the perfect numbers of this node when the Mersenne prime exponents 
+	 * are confirmed.
+	 * @param leaseId identifies the lease
+	 * @param exponents contains the Mersenne prime exponents of the unit
+	 * @return false if the lease is lost, so the result is ignored
+	 * @throws PerfectNumberException is raised when this node does not coordinate a distributed search, or an exponent is not in the unit
+	 */
+	public Boolean completeWork(Long leaseId, List<Integer> exponents) throws PerfectNumberException;
+
+	/**
+	 * Gets the Mersenne prime exponents that are found so far.
+	 * @return the smallest exponent that is not tested yet and all Mersenne prime exponents less than it
+	 */
+	public SearchState getSearchState();
+
+	/**
+	 * Merges the Mersenne prime exponents that are found by another node, e.g. the coordinator of a distributed search, into the perfect 
+	 * numbers of this node.
+	 * @param searchState is the state of the search of another node
+	 */
+	public void mergeSearchState(SearchState searchState);
+
 }
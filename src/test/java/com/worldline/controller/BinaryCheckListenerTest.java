@@ -0,0 +1,129 @@
+package com.worldline.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.worldline.metrics.PerfectNumberMetrics;
+import com.worldline.service.PerfectNumberServiceImpl;
+
+/**
+ * Performs some test cases to check the answers of BinaryCheckListener to single numbers, batches and invalid numbers, and to
+ * pipelined requests that are split across reads.
+ * @author mohsen
+ *
+ */
+public class BinaryCheckListenerTest {
+
+	private static PerfectNumberServiceImpl perfectNumberService;
+
+	private static BinaryCheckListener listener;
+
+	@BeforeAll
+	public static void startListener() throws IOException {
+		perfectNumberService = new PerfectNumberServiceImpl();
+		listener = new BinaryCheckListener(0, 2, perfectNumberService, new PerfectNumberMetrics());
+		listener.start();
+	}
+
+	@AfterAll
+	public static void stopListener() {
+		listener.stop();
+		perfectNumberService.shutdown();
+	}
+
+	/**
+	 * Checks if each single number is answered by its status byte, and the invalid numbers by INVALID.
+	 */
+	@Test
+	public void checkSingleNumbers() throws IOException {
+		try (SocketChannel channel = connect()) {
+			send(channel, 6, 7, 28, 0, -BinaryCheckListener.MAXIMUM_BATCH_LENGTH - 1, Long.MIN_VALUE, 2305843008139952128L, Long.MAX_VALUE);
+			assertArrayEquals(new byte[] {BinaryCheckListener.PERFECT, BinaryCheckListener.NOT_PERFECT, BinaryCheckListener.PERFECT,
+					BinaryCheckListener.INVALID, BinaryCheckListener.INVALID, BinaryCheckListener.INVALID, BinaryCheckListener.PERFECT,
+					BinaryCheckListener.NOT_PERFECT}, receive(channel, 8));
+		}
+	}
+
+	/**
+	 * Checks if a batch is answered by a bitmap of its perfect numbers, and if single numbers may follow a batch.
+	 */
+	@Test
+	public void checkBatch() throws IOException {
+		try (SocketChannel channel = connect()) {
+			send(channel, -10, 6, 28, 5, 496, 8128, 0, 1, 33550336, 9, 8589869056L, 496, -1, 27);
+			// bits 0, 1, 3, 4 and 7, then bit 1
+			assertArrayEquals(new byte[] {(byte) 0x9B, 0x02, BinaryCheckListener.PERFECT, 0x00}, receive(channel, 4));
+		}
+	}
+
+	/**
+	 * Checks if many pipelined numbers are answered in order when they are split across reads, including a number split in two
+	 * writes.
+	 */
+	@Test
+	public void checkPipelinedNumbers() throws Exception {
+		int count = 200000;
+		long[] numbers = new long[count];
+		byte[] expected = new byte[count + 1];
+		expected[0] = BinaryCheckListener.PERFECT;
+		for (int i = 0; i < count; i++) {
+			numbers[i] = i % 7 == 0 ? 8128 : i + 1;
+			boolean perfect = numbers[i] == 6 || numbers[i] == 28 || numbers[i] == 496 || numbers[i] == 8128;
+			expected[i + 1] = perfect ? BinaryCheckListener.PERFECT : BinaryCheckListener.NOT_PERFECT;
+		}
+		try (SocketChannel channel = connect()) {
+			CompletableFuture<byte[]> answers = CompletableFuture.supplyAsync(() -> {
+				try {
+					return receive(channel, count + 1);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			ByteBuffer split = ByteBuffer.allocate(Long.BYTES).putLong(0, 496);
+			((Buffer) split).limit(3);
+			channel.write(split);
+			Thread.sleep(50);
+			((Buffer) split).limit(Long.BYTES);
+			channel.write(split);
+			send(channel, numbers);
+			assertArrayEquals(expected, answers.get());
+		}
+	}
+
+	private static SocketChannel connect() throws IOException {
+		return SocketChannel.open(new InetSocketAddress("localhost", listener.getPort()));
+	}
+
+	private static void send(SocketChannel channel, long... numbers) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(numbers.length * Long.BYTES);
+		for (long number : numbers) {
+			buffer.putLong(number);
+		}
+		((Buffer) buffer).flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static byte[] receive(SocketChannel channel, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("The connection is closed after " + buffer.position() + " bytes.");
+			}
+		}
+		return buffer.array();
+	}
+
+}
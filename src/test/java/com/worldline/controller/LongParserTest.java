@@ -0,0 +1,52 @@
+package com.worldline.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Performs some test cases to check that LongParser parses the same strings as Long.parseLong and reports the other strings 
+ * as NOT_A_NUMBER instead of throwing.
+ * @author mohsen
+ *
+ */
+public class LongParserTest {
+
+	/**
+	 * Checks if long integers are parsed as Long.parseLong does.
+	 * @param string is a long integer in decimal
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"0", "6", "+28", "-1", "0008128", "9223372036854775807", "-9223372036854775807", "2305843008139952128"})
+	public void parse(String string) {
+		assertEquals(Long.parseLong(string), LongParser.parse(string));
+	}
+
+	/**
+	 * Checks if NOT_A_NUMBER is returned for strings that are not long integers.
+	 * @param string is not a long integer
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"", "-", "+", "a", "1a", "12 ", " 12", "1.5", "--1", "9223372036854775808", "-9223372036854775809", 
+				"99999999999999999999"})
+	public void faultyParse(String string) {
+		assertEquals(LongParser.NOT_A_NUMBER, LongParser.parse(string));
+	}
+
+	/**
+	 * Checks if integers are parsed as Integer.parseInt does, and NOT_AN_INT is returned for the other strings, including the long 
+	 * integers out of the int range.
+	 */
+	@Test
+	public void parseInt() {
+		for (String string : new String[] {"0", "12", "-1", "+2147483647", "-2147483647"}) {
+			assertEquals(Integer.parseInt(string), LongParser.parseInt(string));
+		}
+		for (String string : new String[] {"", "a", "2147483648", "-2147483649", "9223372036854775807"}) {
+			assertEquals(LongParser.NOT_AN_INT, LongParser.parseInt(string));
+		}
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.worldline.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.worldline.PerfectNumberApplication;
+import com.worldline.service.SearchState;
+import com.worldline.service.api.PerfectNumberService;
+
+/**
+ * Performs some test cases to check that a node coordinates a distributed Mersenne prime search through /rest/search, and that
+ * MersenneSearchWorker instances find the Mersenne prime exponents of the leased units.
+ * @author mohsen
+ *
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = PerfectNumberApplication.class, properties = {
+		"perfectnumber.coordinator.enabled=true", "perfectnumber.coordinator.unit-length=16",
+		"perfectnumber.coordinator.maximum-exponent=2300", "perfectnumber.coordinator.worker-token=" + MersenneSearchWorkerTest.TOKEN})
+@AutoConfigureMockMvc
+public class MersenneSearchWorkerTest {
+
+	static final String TOKEN = "worker-token";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private PerfectNumberService perfectNumberService;
+
+	@Autowired
+	private RestTemplateBuilder restTemplateBuilder;
+
+	@LocalServerPort
+	private int port;
+
+	/**
+	 * Checks if three workers find all Mersenne prime exponents up to the largest exponent of the search, and if the found exponents
+	 * are served by /rest/search/state.
+	 * @throws Exception
+	 */
+	@Test
+	public void search() throws Exception {
+		List<MersenneSearchWorker> workers = new ArrayList<MersenneSearchWorker>();
+		for (int i = 0; i < 3; i++) {
+			MersenneSearchWorker worker = new MersenneSearchWorker("http://localhost:" + port + "/", TOKEN, 1, perfectNumberService,
+					restTemplateBuilder);
+			worker.start();
+			workers.add(worker);
+		}
+		try {
+			long deadline = System.currentTimeMillis() + 120000;
+			while (perfectNumberService.getSearchState().getSearchedExponent() <= 2300 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(100);
+			}
+		} finally {
+			for (MersenneSearchWorker worker : workers) {
+				worker.stop();
+			}
+		}
+		SearchState state = perfectNumberService.getSearchState();
+		assertTrue(state.getSearchedExponent() > 2300);
+		assertThat(state.getExponents(), hasItems(521, 607, 1279, 2203, 2281));
+		mockMvc.perform(get("/rest/search/state"))
+		.andExpect(jsonPath("responseCode", is("OK")))
+		.andExpect(jsonPath("message.exponents[16]", is(2281)));
+	}
+
+	/**
+	 * Checks if REQUEST_ERROR is returned as responseCode by /rest/search/leases/{leaseId}/... when an invalid lease identifier is
+	 * given.
+	 * @param invalidLeaseIdString is a string that is not a positive long integer
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"lease", "1.5", "99999999999999999999", "0"})
+	public void faultyLeaseId(String invalidLeaseIdString) throws Exception {
+		mockMvc.perform(post("/rest/search/leases/" + invalidLeaseIdString + "/renewal").header(MersenneSearchWorker.TOKEN_HEADER, TOKEN))
+		.andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+		mockMvc.perform(post("/rest/search/leases/" + invalidLeaseIdString + "/result").header(MersenneSearchWorker.TOKEN_HEADER, TOKEN)
+				.contentType(MediaType.APPLICATION_JSON).content("[]"))
+		.andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+		mockMvc.perform(put("/rest/search/leases/" + invalidLeaseIdString + "/checkpoints/1279/5").header(MersenneSearchWorker.TOKEN_HEADER, TOKEN)
+				.contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[] {1}))
+		.andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+		mockMvc.perform(put("/rest/search/leases/1/checkpoints/1279/2147483648").header(MersenneSearchWorker.TOKEN_HEADER, TOKEN)
+				.contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[] {1}))
+		.andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+
+	/**
+	 * Checks if a lost lease is reported as false, and if REQUEST_ERROR is returned as responseCode by /rest/search/leases/{leaseId}/result
+	 * when the body is not a JSON array of integers.
+	 * @param invalidBody is a request body that is not a JSON array of integers
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"", "{}", "[1279, null]", "[\"a\"]", "[1279"})
+	public void faultyResult(String invalidBody) throws Exception {
+		mockMvc.perform(post("/rest/search/leases/1/renewal").header(MersenneSearchWorker.TOKEN_HEADER, TOKEN))
+		.andExpect(jsonPath("responseCode", is("OK")))
+		.andExpect(jsonPath("message", is(false)));
+		mockMvc.perform(put("/rest/search/leases/1/checkpoints/1279/5").header(MersenneSearchWorker.TOKEN_HEADER, TOKEN)
+				.contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[] {1}))
+		.andExpect(jsonPath("responseCode", is("OK")))
+		.andExpect(jsonPath("message", is(false)));
+		mockMvc.perform(post("/rest/search/leases/1/result").header(MersenneSearchWorker.TOKEN_HEADER, TOKEN)
+				.contentType(MediaType.APPLICATION_JSON).content(invalidBody))
+		.andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+
+	/**
+	 * Checks if REQUEST_ERROR is returned as responseCode by /rest/search/leases/... when the request does not have the token of the 
+	 * workers, so a client cannot lease units, drop their exponents or overwrite their checkpoints.
+	 * @param invalidToken is a token that is not the one of the workers, or an empty string for a request without the header
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"", "worker", "worker-token2"})
+	public void notWorker(String invalidToken) throws Exception {
+		MockHttpServletRequestBuilder[] requests = {post("/rest/search/leases"), post("/rest/search/leases/1/renewal"), 
+				put("/rest/search/leases/1/checkpoints/1279/5").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[] {1}), 
+				post("/rest/search/leases/1/result").contentType(MediaType.APPLICATION_JSON).content("[]")};
+		for (MockHttpServletRequestBuilder request : requests) {
+			if (!invalidToken.isEmpty()) {
+				request.header(MersenneSearchWorker.TOKEN_HEADER, invalidToken);
+			}
+			mockMvc.perform(request)
+			.andExpect(jsonPath("responseCode", is("REQUEST_ERROR")))
+			.andExpect(jsonPath("message", containsString(MersenneSearchWorker.TOKEN_HEADER)));
+		}
+	}
+
+}
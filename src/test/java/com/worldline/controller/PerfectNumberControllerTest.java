@@ -1,6 +1,7 @@
 package com.worldline.controller;
 
 import org.json.JSONException;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.converter.ConvertWith;
@@ -10,20 +11,43 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.worldline.PerfectNumberApplication;
 import com.worldline.ToListArgumentConverter;
+import com.worldline.service.MersennePrimeSearch;
+import com.worldline.service.ValidationResult;
 
 import net.minidev.json.JSONArray;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import java.math.BigInteger;
 import java.util.List;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 /**
@@ -40,6 +64,9 @@ public class PerfectNumberControllerTest {
 	@Autowired
     private MockMvc mockMvc;
 	
+	@Autowired
+	private TestRestTemplate restTemplate;
+	
 	/**
 	 * Checks if correct outputs are produced by /rest/perfectNumber/{number} when a non-zero positive long integer is given. 
 	 * The CSV source contains some long integers as input along with a boolean as expected output. 
@@ -115,7 +142,8 @@ public class PerfectNumberControllerTest {
 	 * @throws Exception
 	 */
 	@ParameterizedTest
-	@CsvSource({"1, 100, [6 28]", "100, 10000, [496 8128]", "1 , 200000000000, [6 28 496 8128 33550336 8589869056 137438691328]"})
+	@CsvSource({"1, 100, [6 28]", "100, 10000, [496 8128]", "1 , 200000000000, [6 28 496 8128 33550336 8589869056 137438691328]", 
+				"7, 27, []", "8128, 9223372036854775807, [8128 33550336 8589869056 137438691328 2305843008139952128]"})
 	public void findAllInRange(String lowerBoundString, String upperBoundString, 
 			@ConvertWith(ToListArgumentConverter.class) List<Long> expected) throws Exception {
     	JSONArray jsonArray = toJSONArray(expected);
@@ -175,5 +203,520 @@ public class PerfectNumberControllerTest {
 	        .andExpect(jsonPath("message", is(jsonArray)));
 		}
 	}
+	
+	/**
+	 * Checks if the number of perfect numbers is returned by /rest/perfectNumbersCountInRange/{lowerBound}/{upperBound}.
+	 * @param lowerBoundString is a non-zero positive long integer as the lower bound of the range
+	 * @param upperBoundString is a non-zero positive long integer as the upper bound of the range
+	 * @param expected is the number of perfect numbers in the range
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@CsvSource({"1, 100, 2", "7, 27, 0", "1 , 200000000000, 7"})
+	public void countInRange(String lowerBoundString, String upperBoundString, Integer expected) throws Exception {
+		mockMvc.perform(get("/rest/perfectNumbersCountInRange/" + lowerBoundString + "/" + upperBoundString))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message", is(expected)));
+	}
+	
+	/**
+	 * Checks if the nearest perfect numbers are returned by /rest/perfectNumberFloor/{number} and /rest/perfectNumberCeiling/{number}.
+	 * @param numberString is a non-zero positive long integer
+	 * @param expectedFloor is the greatest perfect number equal or less than numberString
+	 * @param expectedCeiling is the smallest perfect number equal or greater than numberString
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@CsvSource({"27, 6, 28", "8129, 8128, 33550336"})
+	public void findNearest(String numberString, Integer expectedFloor, Integer expectedCeiling) throws Exception {
+		mockMvc.perform(get("/rest/perfectNumberFloor/" + numberString))
+		.andExpect(status().isOk())
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message", is(expectedFloor)));
+		mockMvc.perform(get("/rest/perfectNumberCeiling/" + numberString))
+		.andExpect(status().isOk())
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message", is(expectedCeiling)));
+	}
+	
+	/**
+	 * Checks if REQUEST_ERROR is returned as responseCode by /rest/perfectNumberRank/{number} when an invalid input is given.
+	 * @param invalidNumberString is a string that represents an invalid input including zero, a negative integer, and non-numerical strings
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"0", "-1", "a"})
+	public void faultyRank(String invalidNumberString) throws Exception {
+		mockMvc.perform(get("/rest/perfectNumberRank/" + invalidNumberString))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+	
+	/**
+	 * Checks if correct outputs are produced by /rest/bigPerfectNumber/{number} when numbers greater than Long.MAX_VALUE are given.
+	 * @param numberString is a non-zero positive integer to check if is perfect
+	 * @param expected true when we expect numberString is perfect otherwise, false
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@CsvSource({"2658455991569831744654692615953842176, true", "2658455991569831744654692615953842178, false", "496, true"})
+	public void checkBig(String numberString, Boolean expected) throws Exception {
+		performAsync(get("/rest/bigPerfectNumber/" + numberString))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message", is(expected)));
+	}
+	
+	/**
+	 * Checks if the index-th perfect number is returned in decimal by /rest/perfectNumberAt/{index}.
+	 * @param indexString is a non-zero positive integer
+	 * @param expected is the index-th perfect number in decimal
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@CsvSource({"1, 6", "9, 2658455991569831744654692615953842176"})
+	public void findByIndex(String indexString, String expected) throws Exception {
+		performAsync(get("/rest/perfectNumberAt/" + indexString))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message", is(expected)));
+	}
+	
+	/**
+	 * Checks if REQUEST_ERROR is returned as responseCode by /rest/perfectNumberAt/{index} when an invalid index is given.
+	 * @param invalidIndexString is zero, a negative integer, an integer greater than Integer.MAX_VALUE, or a non-numerical string
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"0", "-1", "a", "2147483648"})
+	public void faultyFindByIndex(String invalidIndexString) throws Exception {
+		performAsync(get("/rest/perfectNumberAt/" + invalidIndexString))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+	
+	/**
+	 * Checks if /rest/perfectNumberAt/{index}/download sends the index-th perfect number as a file in decimal and binary formats.
+	 * @param indexString is a non-zero positive integer
+	 * @param expected is the index-th perfect number in decimal
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@CsvSource({"1, 6", "5, 33550336", "12, 14474011154664524427946373126085988481573677491474835889066354349131199152128"})
+	public void download(String indexString, String expected) throws Exception {
+		performAsync(get("/rest/perfectNumberAt/" + indexString + "/download"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+        .andExpect(content().string(expected));
+		performAsync(get("/rest/perfectNumberAt/" + indexString + "/download").param("format", "binary"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_OCTET_STREAM))
+        .andExpect(content().bytes(new BigInteger(expected).toByteArray()));
+	}
+	
+	/**
+	 * Checks if the file of a perfect number is sent by Jetty from its channel when it is downloaded from the server.
+	 */
+	@Test
+	public void downloadFromServer() {
+		BigInteger expected = MersennePrimeSearch.toPerfectNumber(1279);
+		ResponseEntity<String> decimal = restTemplate.getForEntity("/rest/perfectNumberAt/15/download", String.class);
+		assertEquals(MediaType.TEXT_PLAIN, decimal.getHeaders().getContentType());
+		assertEquals(expected.toString(), decimal.getBody());
+		ResponseEntity<byte[]> binary = restTemplate.getForEntity("/rest/perfectNumberAt/15/download?format=binary", byte[].class);
+		assertEquals(expected.toByteArray().length, binary.getHeaders().getContentLength());
+		assertArrayEquals(expected.toByteArray(), binary.getBody());
+	}
+	
+	/**
+	 * Checks if REQUEST_ERROR is returned as responseCode by /rest/perfectNumberAt/{index}/download when an invalid index or format is given.
+	 * @param invalidIndexString is zero, a negative integer, an integer greater than Integer.MAX_VALUE, or a non-numerical string
+	 * @param format is the format of the file
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@CsvSource({"0, decimal", "-1, binary", "a, decimal", "2147483648, binary", "1, hexadecimal"})
+	public void faultyDownload(String invalidIndexString, String format) throws Exception {
+		performAsync(get("/rest/perfectNumberAt/" + invalidIndexString + "/download").param("format", format))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+	
+	/**
+	 * Checks if a result per number is returned by POST /rest/perfectNumbers when a JSON array of numbers is given.
+	 * @throws Exception
+	 */
+	@Test
+	public void checkAll() throws Exception {
+		mockMvc.perform(post("/rest/perfectNumbers").contentType(MediaType.APPLICATION_JSON).content("[6, 7, 28, 98562364554, 2305843008139952128]"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message", contains(true, false, true, false, true)));
+	}
+	
+	/**
+	 * Checks if REQUEST_ERROR is returned as responseCode by POST /rest/perfectNumbers when an invalid body is given.
+	 * @param invalidBody is not a JSON array of non-zero positive long integers
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"[6, 0]", "[6, -1]", "[6, \"a\"]", "[6, 99999999999999999999]", "[6, 28", "{}"})
+	public void faultyCheckAll(String invalidBody) throws Exception {
+		mockMvc.perform(post("/rest/perfectNumbers").contentType(MediaType.APPLICATION_JSON).content(invalidBody))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+	
+	/**
+	 * Checks if all perfect numbers per range are returned by POST /rest/perfectNumbersInRanges when a JSON array of ranges is given.
+	 * @throws Exception
+	 */
+	@Test
+	public void findAllInRanges() throws Exception {
+		mockMvc.perform(post("/rest/perfectNumbersInRanges").contentType(MediaType.APPLICATION_JSON).content("[[1, 100], [7, 27], [100, 10000]]"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message[0]", contains(6, 28)))
+        .andExpect(jsonPath("message[1]", empty()))
+        .andExpect(jsonPath("message[2]", contains(496, 8128)));
+	}
+	
+	/**
+	 * Checks if REQUEST_ERROR is returned as responseCode by POST /rest/perfectNumbersInRanges when an invalid body is given.
+	 * @param invalidBody is not a JSON array of valid ranges
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"[[100, 50]]", "[[0, 10]]", "[[1]]", "[[1, 2, 3]]", "[1, 100]"})
+	public void faultyFindAllInRanges(String invalidBody) throws Exception {
+		mockMvc.perform(post("/rest/perfectNumbersInRanges").contentType(MediaType.APPLICATION_JSON).content(invalidBody))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+	
+	/**
+	 * Checks if every number of a range is classified by /rest/classify/{lowerBound}/{upperBound}.
+	 * @throws Exception
+	 */
+	@Test
+	public void classifyRange() throws Exception {
+		performAsync(get("/rest/classify/5/12"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message[*].number", contains(5, 6, 7, 8, 9, 10, 11, 12)))
+        .andExpect(jsonPath("message[*].aliquotSum", contains(1, 6, 1, 7, 4, 8, 1, 16)))
+        .andExpect(jsonPath("message[*].classification", contains("DEFICIENT", "PERFECT", "DEFICIENT", "DEFICIENT", "DEFICIENT", 
+        		"DEFICIENT", "DEFICIENT", "ABUNDANT")));
+	}
+	
+	/**
+	 * Checks if a range that is too wide to be classified in the request thread is classified by the query executor.
+	 * @throws Exception
+	 */
+	@Test
+	public void classifyWideRange() throws Exception {
+		mockMvc.perform(get("/rest/classify/1/100000"))
+		.andExpect(request().asyncStarted());
+		performAsync(get("/rest/classify/1/100000"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message.length()", is(100000)))
+        .andExpect(jsonPath("message[8127].classification", is("PERFECT")));
+	}
+	
+	/**
+	 * Checks if the widest range, whose cost is saturated instead of overflowing, is admitted by the query executor instead of being 
+	 * classified in the request thread.
+	 * @throws Exception
+	 */
+	@Test
+	public void classifyWidestRange() throws Exception {
+		MvcResult result = mockMvc.perform(get("/rest/classify/1/9223372036854775807"))
+		.andExpect(request().asyncStarted())
+		.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+		.andExpect(status().isOk())
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+	
+	/**
+	 * Checks if REQUEST_ERROR is returned as responseCode by /rest/classify/{lowerBound}/{upperBound} when some invalid inputs are given.
+	 * @param invalidLowerBoundString is zero, negative integer, or non-numerical strings as invalid lower bound of the range
+	 * @param invalidUpperBoundString is zero, negative integer, too large integer, or non-numerical strings as invalid upper bound of the range
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@CsvSource({"0, 10", "100, 50", "a, 1", "1, 9223372036854775807"})
+	public void faultyClassifyRange(String invalidLowerBoundString, String invalidUpperBoundString) throws Exception {
+		performAsync(get("/rest/classify/" + invalidLowerBoundString + "/" + invalidUpperBoundString))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+	
+	/**
+	 * Checks if the divisor sum of a number is returned by /rest/divisorSum/{number}.
+	 * @throws Exception
+	 */
+	@Test
+	public void divisorSum() throws Exception {
+		mockMvc.perform(get("/rest/divisorSum/120"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message.number", is(120)))
+        .andExpect(jsonPath("message.sigma", is(360)))
+        .andExpect(jsonPath("message.aliquotSum", is(240)))
+        .andExpect(jsonPath("message.multiplyPerfectIndex", is(3)))
+        .andExpect(jsonPath("message.classification", is("ABUNDANT")));
+	}
+	
+	/**
+	 * Checks if the multiply perfect numbers of a range are returned by /rest/multiplyPerfectNumbersInRange/{lowerBound}/{upperBound}, 
+	 * and REQUEST_ERROR is returned as responseCode when the upper bound is greater than 10^18.
+	 * @throws Exception
+	 */
+	@Test
+	public void findMultiplyPerfectNumbers() throws Exception {
+		mockMvc.perform(get("/rest/multiplyPerfectNumbersInRange/100/1000"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message[*].number", contains(120, 496, 672)))
+        .andExpect(jsonPath("message[*].multiplyPerfectIndex", contains(3, 2, 3)));
+		mockMvc.perform(get("/rest/multiplyPerfectNumbersInRange/1/1000000000000000001"))
+		.andExpect(status().isOk())
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+	
+	/**
+	 * Checks if a range job is submitted by /rest/jobs/classify/{lowerBound}/{upperBound}, its progress is returned by /rest/jobs/{jobId}, 
+	 * and its end event is streamed by /rest/jobs/{jobId}/events when it is completed.
+	 * @throws Exception
+	 */
+	@Test
+	public void followJob() throws Exception {
+		MvcResult result = mockMvc.perform(post("/rest/jobs/classify/1/100000"))
+		.andExpect(status().isOk())
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message.upperBound", is(100000)))
+        .andReturn();
+		String jobId = new ObjectMapper().readTree(result.getResponse().getContentAsString()).path("message").path("id").asText();
+		awaitJob(jobId, "COMPLETED");
+		mockMvc.perform(get("/rest/jobs/" + jobId))
+        .andExpect(jsonPath("message.percentComplete", is(100.0)))
+        .andExpect(jsonPath("message.abundantCount", is(24795)))
+        .andExpect(jsonPath("message.perfectNumbers", contains(6, 28, 496, 8128)));
+		performAsync(get("/rest/jobs/" + jobId + "/events"))
+		.andExpect(status().isOk())
+        .andExpect(content().string(containsString("event:end")))
+        .andExpect(content().string(containsString("\"status\":\"COMPLETED\"")));
+	}
+
+	/**
+	 * Checks if a wide range job does not overload the expensive queries while it runs and is stopped by DELETE /rest/jobs/{jobId}, a 
+	 * job of the widest range fails, and REQUEST_ERROR is returned as responseCode for an unknown job or an invalid range.
+	 * @throws Exception
+	 */
+	@Test
+	public void cancelJob() throws Exception {
+		MvcResult result = mockMvc.perform(post("/rest/jobs/classify/1/1000000000000"))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andReturn();
+		String jobId = new ObjectMapper().readTree(result.getResponse().getContentAsString()).path("message").path("id").asText();
+		performAsync(get("/rest/primesInRange/1/1000000"))
+        .andExpect(jsonPath("responseCode", is("OK")));
+		mockMvc.perform(delete("/rest/jobs/" + jobId))
+        .andExpect(jsonPath("responseCode", is("OK")));
+		awaitJob(jobId, "CANCELLED");
+		result = mockMvc.perform(post("/rest/jobs/classify/1/9223372036854775807"))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andReturn();
+		awaitJob(new ObjectMapper().readTree(result.getResponse().getContentAsString()).path("message").path("id").asText(), "FAILED");
+		mockMvc.perform(get("/rest/jobs/999999"))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+		mockMvc.perform(delete("/rest/jobs/a"))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")))
+        .andExpect(jsonPath("message", is(ValidationResult.NOT_AN_INTEGER.getMessage())));
+		performAsync(get("/rest/jobs/0/events"))
+        .andExpect(content().string(containsString("event:error")))
+        .andExpect(content().string(containsString(ValidationResult.ID_OUT_OF_RANGE.getMessage())));
+		mockMvc.perform(post("/rest/jobs/classify/10/1"))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+
+	private void awaitJob(String jobId, String status) throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			String content = mockMvc.perform(get("/rest/jobs/" + jobId)).andReturn().getResponse().getContentAsString();
+			String jobStatus = new ObjectMapper().readTree(content).path("message").path("status").asText();
+			if (!jobStatus.equals("RUNNING")) {
+				assertEquals(status, jobStatus);
+				return;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("The job " + jobId + " is not finished.");
+	}
+	
+	/**
+	 * Checks if /rest/prime/{number} decides primality.
+	 * @param numberString is a non-zero positive long integer
+	 * @param expected true when we expect numberString is prime otherwise, false
+	 * @throws Exception
+	 */
+	@ParameterizedTest
+	@CsvSource({"2, true", "1, false", "2147483647, true", "3825123056546413051, false", "9223372036854775783, true"})
+	public void isPrime(String numberString, Boolean expected) throws Exception {
+		mockMvc.perform(get("/rest/prime/" + numberString))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message", is(expected)));
+	}
+	
+	/**
+	 * Checks if the primes of a range are returned by /rest/primesInRange/{lowerBound}/{upperBound}, and REQUEST_ERROR is returned as 
+	 * responseCode when an invalid range is given.
+	 * @throws Exception
+	 */
+	@Test
+	public void findPrimesInRange() throws Exception {
+		performAsync(get("/rest/primesInRange/1/30"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message", contains(2, 3, 5, 7, 11, 13, 17, 19, 23, 29)));
+		performAsync(get("/rest/primesInRange/1/1000000"))
+		.andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message.length()", is(78498)));
+		performAsync(get("/rest/primesInRange/30/1"))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+	}
+
+	/**
+	 * Checks if the terms of an aliquot sequence are streamed by /rest/aliquotSequence/{number} along with how the sequence ends, and
+	 * REQUEST_ERROR is returned as responseCode when an invalid number or maximumLength is given.
+	 * @throws Exception
+	 */
+	@Test
+	public void findAliquotSequence() throws Exception {
+		performAsync(get("/rest/aliquotSequence/562"))
+		.andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("responseCode", is("OK")))
+        .andExpect(jsonPath("message", contains(562, 284, 220)))
+        .andExpect(jsonPath("sequence.end", is("AMICABLE")))
+        .andExpect(jsonPath("sequence.cycleStart", is(1)))
+        .andExpect(jsonPath("sequence.cycleLength", is(2)));
+		performAsync(get("/rest/aliquotSequence/276").param("maximumLength", "3"))
+        .andExpect(jsonPath("message", contains(276, 396, 696)))
+        .andExpect(jsonPath("sequence.end", is("UNFINISHED")));
+		performAsync(get("/rest/aliquotSequence/0"))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+		performAsync(get("/rest/aliquotSequence/12").param("maximumLength", "a"))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")));
+		performAsync(get("/rest/aliquotSequence/12").param("maximumLength", "100001"))
+        .andExpect(jsonPath("responseCode", is("REQUEST_ERROR")))
+        .andExpect(jsonPath("message", is(ValidationResult.LENGTH_OUT_OF_RANGE.getMessage())));
+	}
+
+	/**
+	 * Checks if the range and batch responses are in CBOR when the Accept header prefers application/cbor, including the errors.
+	 * @throws Exception
+	 */
+	@Test
+	public void cborResponses() throws Exception {
+		ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+		MediaType cbor = MediaType.valueOf("application/cbor");
+		MvcResult result = mockMvc.perform(post("/rest/perfectNumbers").contentType(MediaType.APPLICATION_JSON).accept(cbor)
+				.content("[6, 7, 28, 98562364554, 2305843008139952128]"))
+		.andExpect(status().isOk())
+		.andExpect(content().contentTypeCompatibleWith(cbor))
+		.andReturn();
+		JsonNode response = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+		assertEquals("OK", response.get("responseCode").asText());
+		assertEquals("[true,false,true,false,true]", response.get("message").toString());
+		result = mockMvc.perform(get("/rest/perfectNumbersInRange/1/10000").accept(cbor))
+		.andExpect(content().contentTypeCompatibleWith(cbor))
+		.andReturn();
+		response = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+		assertEquals("OK", response.get("responseCode").asText());
+		assertEquals("[6,28,496,8128]", response.get("message").toString());
+		result = mockMvc.perform(get("/rest/perfectNumbersInRange/10/1").accept(cbor))
+		.andExpect(content().contentTypeCompatibleWith(cbor))
+		.andReturn();
+		assertEquals("REQUEST_ERROR", cborMapper.readTree(result.getResponse().getContentAsByteArray()).get("responseCode").asText());
+		mockMvc.perform(get("/rest/perfectNumbersInRange/1/10000").header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, application/json"))
+		.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("message", contains(6, 28, 496, 8128)));
+		result = mockMvc.perform(post("/rest/perfectNumbersInRanges").contentType(MediaType.APPLICATION_JSON).accept(cbor)
+				.content("[[1, 100], [7, 27], [1, 9223372036854775807]]"))
+		.andExpect(content().contentTypeCompatibleWith(cbor))
+		.andReturn();
+		response = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+		assertEquals("OK", response.get("responseCode").asText());
+		assertEquals("[6,28]", response.get("message").get(0).toString());
+		assertEquals("[]", response.get("message").get(1).toString());
+		assertEquals(8, response.get("message").get(2).size());
+		assertEquals(2305843008139952128L, response.get("message").get(2).get(7).asLong());
+		result = performAsync(get("/rest/primesInRange/1/30").header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor"))
+		.andExpect(content().contentTypeCompatibleWith(cbor))
+		.andReturn();
+		response = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+		assertEquals("OK", response.get("responseCode").asText());
+		assertEquals("[2,3,5,7,11,13,17,19,23,29]", response.get("message").toString());
+		result = performAsync(get("/rest/classify/27/28").accept(cbor)).andReturn();
+		response = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+		assertEquals("PERFECT", response.get("message").get(1).get("classification").asText());
+		assertEquals(28, response.get("message").get(1).get("aliquotSum").asLong());
+		result = mockMvc.perform(post("/rest/perfectNumbersInRanges").contentType(MediaType.APPLICATION_JSON).accept(cbor)
+				.content("[[100, 50]]"))
+		.andExpect(content().contentTypeCompatibleWith(cbor))
+		.andReturn();
+		assertEquals("REQUEST_ERROR", cborMapper.readTree(result.getResponse().getContentAsByteArray()).get("responseCode").asText());
+		performAsync(get("/rest/primesInRange/1/30").header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, application/json"))
+		.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("message.length()", is(10)));
+	}
+	
+	/**
+	 * Checks if the outcomes of /rest/perfectNumber/{number} are exported by /actuator/metrics.
+	 * @throws Exception
+	 */
+	@Test
+	public void metrics() throws Exception {
+		mockMvc.perform(get("/rest/perfectNumber/0"));
+		mockMvc.perform(get("/actuator/metrics/perfectnumber.operation.outcomes")
+				.param("tag", "operation:controller.check", "outcome:REQUEST_ERROR"))
+		.andExpect(status().isOk())
+        .andExpect(jsonPath("measurements[0].statistic", is("COUNT")))
+        .andExpect(jsonPath("measurements[0].value", greaterThanOrEqualTo(1.0)));
+		mockMvc.perform(get("/actuator/metrics/perfectnumber.operation.latency")
+				.param("tag", "operation:controller.check", "quantile:max"))
+		.andExpect(status().isOk())
+        .andExpect(jsonPath("measurements[0].value", greaterThan(0.0)));
+	}
+	
+	/**
+	 * Performs a request and waits for its asynchronous result if the request is processed by the query executor.
+	 */
+	private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+		ResultActions resultActions = mockMvc.perform(requestBuilder);
+		MvcResult result = resultActions.andReturn();
+		return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : resultActions;
+	}
     
 }
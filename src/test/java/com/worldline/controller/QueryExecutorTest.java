@@ -0,0 +1,88 @@
+package com.worldline.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Performs some test cases to check that QueryExecutor runs cheap queries inline and rejects expensive queries when its queue or 
+ * its cost budget is full.
+ * @author mohsen
+ *
+ */
+public class QueryExecutorTest {
+
+	private QueryExecutor queryExecutor;
+
+	@BeforeEach
+	public void createQueryExecutor() {
+		this.queryExecutor = new QueryExecutor(1, 2, 1000, 10);
+	}
+
+	@AfterEach
+	public void shutdown() {
+		this.queryExecutor.shutdown();
+	}
+
+	/**
+	 * Checks if queries are admitted while their count and total cost are in the bounds, and a query that costs more than the budget 
+	 * is admitted alone.
+	 */
+	@Test
+	public void admit() {
+		assertTrue(this.queryExecutor.admit(600));
+		assertFalse(this.queryExecutor.admit(500));
+		assertTrue(this.queryExecutor.admit(400));
+		this.queryExecutor.release(600);
+		this.queryExecutor.release(400);
+		assertTrue(this.queryExecutor.admit(5000));
+		assertFalse(this.queryExecutor.admit(20));
+		this.queryExecutor.release(5000);
+		assertTrue(this.queryExecutor.admit(20));
+		assertTrue(this.queryExecutor.admit(20));
+		assertTrue(this.queryExecutor.admit(20));
+		assertFalse(this.queryExecutor.admit(20));
+	}
+
+	/**
+	 * Checks if a cheap query is run in the calling thread and an expensive query is rejected while the pool is busy.
+	 */
+	@Test
+	public void submit() throws InterruptedException {
+		DeferredResult<String> inline = this.queryExecutor.submit(10, () -> Thread.currentThread().getName(), () -> "rejected");
+		assertEquals(Thread.currentThread().getName(), inline.getResult());
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(1);
+		DeferredResult<String> running = this.queryExecutor.submit(1000, () -> {
+			started.countDown();
+			try {
+				finished.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return Thread.currentThread().getName();
+		}, () -> "rejected");
+		started.await();
+		assertEquals("rejected", this.queryExecutor.submit(100, () -> "run", () -> "rejected").getResult());
+		finished.countDown();
+		awaitResult(running);
+		assertEquals("query-1", running.getResult());
+		DeferredResult<String> admitted = this.queryExecutor.submit(100, () -> "run", () -> "rejected");
+		awaitResult(admitted);
+		assertEquals("run", admitted.getResult());
+	}
+
+	private static void awaitResult(DeferredResult<String> result) throws InterruptedException {
+		while (!result.hasResult()) {
+			Thread.sleep(1);
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.worldline.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.worldline.service.PerfectNumberServiceImpl;
+
+/**
+ * Performs some test cases to check the partial results, the cancellation and the subscribers of RangeJob, and the eviction of
+ * RangeJobRegistry.
+ * @author mohsen
+ *
+ */
+public class RangeJobTest {
+
+	private static PerfectNumberServiceImpl perfectNumberService;
+
+	@BeforeAll
+	public static void createService() {
+		perfectNumberService = new PerfectNumberServiceImpl();
+	}
+
+	@AfterAll
+	public static void shutdownService() {
+		perfectNumberService.shutdown();
+	}
+
+	/**
+	 * Checks if a range is classified completely, i.e. 24795 abundant numbers and 4 perfect numbers up to 100000.
+	 */
+	@Test
+	public void classify() {
+		RangeJob job = new RangeJob(1, 1, 100000);
+		job.run(perfectNumberService);
+		RangeJobProgress progress = job.getProgress();
+		assertEquals(RangeJobStatus.COMPLETED, progress.getStatus());
+		assertEquals(100000, progress.getClassifiedCount());
+		assertEquals(100.0, progress.getPercentComplete(), 1e-9);
+		assertEquals(24795, progress.getAbundantCount());
+		assertEquals(100000 - 24795 - 4, progress.getDeficientCount());
+		assertEquals(Arrays.asList(6L, 28L, 496L, 8128L), progress.getPerfectNumbers());
+	}
+
+	/**
+	 * Checks if a cancelled job classifies nothing, and a job is cancelled when its last subscriber is gone, but not before.
+	 */
+	@Test
+	public void cancel() {
+		RangeJob cancelledJob = new RangeJob(1, 1, 1000000000000L);
+		cancelledJob.cancel();
+		cancelledJob.run(perfectNumberService);
+		assertEquals(RangeJobStatus.CANCELLED, cancelledJob.getStatus());
+		assertEquals(0, cancelledJob.getProgress().getClassifiedCount());
+		RangeJob followedJob = new RangeJob(2, 1, 1000);
+		SseEmitter firstEmitter = new SseEmitter();
+		SseEmitter secondEmitter = new SseEmitter();
+		followedJob.subscribe(firstEmitter);
+		followedJob.subscribe(secondEmitter);
+		followedJob.unsubscribe(firstEmitter);
+		followedJob.run(perfectNumberService);
+		assertEquals(RangeJobStatus.COMPLETED, followedJob.getStatus());
+		RangeJob abandonedJob = new RangeJob(3, 1, 1000000000000L);
+		abandonedJob.subscribe(firstEmitter);
+		abandonedJob.unsubscribe(firstEmitter);
+		abandonedJob.run(perfectNumberService);
+		assertEquals(RangeJobStatus.CANCELLED, abandonedJob.getStatus());
+	}
+
+	/**
+	 * Checks if a running job that is cancelled from another thread stops at the next segment and keeps the partial result of the 
+	 * classified part.
+	 */
+	@Test
+	public void cancelRunningJob() throws InterruptedException {
+		long upperBound = 1000000000000L;
+		RangeJob job = new RangeJob(4, 1, upperBound);
+		Thread thread = new Thread(() -> job.run(perfectNumberService));
+		thread.start();
+		while (job.getProgress().getClassifiedCount() == 0) {
+			Thread.sleep(1);
+		}
+		job.cancel();
+		thread.join(10000);
+		assertFalse(thread.isAlive());
+		RangeJobProgress progress = job.getProgress();
+		assertEquals(RangeJobStatus.CANCELLED, progress.getStatus());
+		assertTrue(progress.getClassifiedCount() > 0 && progress.getClassifiedCount() < upperBound);
+		assertTrue(progress.getPercentComplete() < 100);
+		assertEquals(progress.getClassifiedCount(), progress.getDeficientCount() + progress.getAbundantCount() 
+				+ progress.getPerfectNumbers().size());
+		List<Long> perfectNumbers = Arrays.asList(6L, 28L, 496L, 8128L, 33550336L, 8589869056L, 137438691328L);
+		assertEquals(perfectNumbers.subList(0, progress.getPerfectNumbers().size()), progress.getPerfectNumbers());
+	}
+
+	/**
+	 * Checks if a full registry evicts its oldest finished job for a new job and rejects a new job while all of its jobs are running.
+	 */
+	@Test
+	public void evict() {
+		RangeJobRegistry registry = new RangeJobRegistry(2, 1);
+		RangeJob firstJob = registry.create(1, 10);
+		RangeJob secondJob = registry.create(1, 10);
+		assertNull(registry.create(1, 10));
+		secondJob.run(perfectNumberService);
+		RangeJob thirdJob = registry.create(1, 10);
+		assertNotNull(thirdJob);
+		assertEquals(2, registry.size());
+		assertEquals(firstJob, registry.find(firstJob.getId()));
+		assertNull(registry.find(secondJob.getId()));
+		assertEquals(thirdJob, registry.find(thirdJob.getId()));
+	}
+
+}
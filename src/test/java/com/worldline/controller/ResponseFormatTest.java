@@ -0,0 +1,41 @@
+package com.worldline.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Performs some test cases to check that ResponseFormat chooses the format that is preferred by an Accept header.
+ * @author mohsen
+ *
+ */
+public class ResponseFormatTest {
+
+	/**
+	 * Checks if the most specific media type with the highest quality decides the format.
+	 * @param accept is an Accept header
+	 * @param expected is the format of accept
+	 */
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', value = {
+				"application/json | JSON",
+				"*/* | JSON",
+				"application/cbor | CBOR",
+				"application/json;q=0.5, application/cbor | CBOR",
+				"application/cbor;q=0.5, application/json | JSON",
+				"application/cbor;q=0, */* | JSON",
+				"*/*, application/cbor | CBOR",
+				"text/plain, application/cbor;q=0.1 | CBOR",
+				"application/cbor;q=x | JSON"})
+	public void of(String accept, ResponseFormat expected) {
+		assertEquals(expected, ResponseFormat.of(accept));
+	}
+
+	@Test
+	public void ofMissingHeader() {
+		assertEquals(ResponseFormat.JSON, ResponseFormat.of(null));
+	}
+
+}
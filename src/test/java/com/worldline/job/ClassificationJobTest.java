@@ -0,0 +1,119 @@
+package com.worldline.job;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.worldline.metrics.PerfectNumberMetrics;
+import com.worldline.service.Classification;
+import com.worldline.service.PerfectNumberException;
+import com.worldline.service.PerfectNumberServiceImpl;
+
+/**
+ * Performs some test cases to check the output records of ClassificationJob for text and binary inputs, including invalid records and
+ * chunks that are smaller than a line.
+ * @author mohsen
+ *
+ */
+public class ClassificationJobTest {
+
+	private static PerfectNumberServiceImpl perfectNumberService;
+
+	private Path input;
+
+	private Path output;
+
+	@BeforeAll
+	public static void createService() {
+		perfectNumberService = new PerfectNumberServiceImpl();
+	}
+
+	@AfterAll
+	public static void shutdownService() {
+		perfectNumberService.shutdown();
+	}
+
+	@BeforeEach
+	public void createPaths() throws IOException {
+		this.input = Files.createTempFile("perfect-number-job", ".in");
+		this.output = Files.createTempFile("perfect-number-job", ".out");
+	}
+
+	@AfterEach
+	public void deletePaths() throws IOException {
+		Files.deleteIfExists(this.input);
+		Files.deleteIfExists(this.output);
+	}
+
+	/**
+	 * Checks if each line is classified in order, where empty lines, zero, negative numbers, numbers greater than Long.MAX_VALUE and
+	 * other text are invalid, and carriage returns and a missing last line feed are accepted. The chunks of 8 bytes split most lines.
+	 */
+	@Test
+	public void classifyText() throws Exception {
+		Files.write(this.input, ("6\n12\r\n\n0\n-28\n9223372036854775808\n2305843008139952128\n945\nabc\n1\n"
+				+ "9223372036854775807\n8128").getBytes(StandardCharsets.US_ASCII));
+		JobReport report = job("text", 8).classify();
+		assertEquals("PERFECT\nABUNDANT\nINVALID\nINVALID\nINVALID\nINVALID\nPERFECT\nABUNDANT\nINVALID\nDEFICIENT\nDEFICIENT\nPERFECT\n",
+				new String(Files.readAllBytes(this.output), StandardCharsets.US_ASCII));
+		assertEquals(12, report.getCount());
+		assertEquals(3, report.getPerfectCount());
+		assertEquals(2, report.getAbundantCount());
+		assertEquals(2, report.getDeficientCount());
+		assertEquals(5, report.getInvalidCount());
+	}
+
+	/**
+	 * Checks if many binary numbers in several chunks are classified in order like the divisor sums of the service.
+	 */
+	@Test
+	public void classifyBinary() throws Exception {
+		int count = 20000;
+		ByteBuffer numbers = ByteBuffer.allocate((count + 2) * Long.BYTES);
+		byte[] expected = new byte[count + 2];
+		for (int i = 0; i < count; i++) {
+			long number = i * 1000003L + 1;
+			numbers.putLong(number);
+			expected[i] = (byte) classify(number).ordinal();
+		}
+		numbers.putLong(0);
+		numbers.putLong(Long.MIN_VALUE);
+		expected[count] = ClassificationJob.INVALID;
+		expected[count + 1] = ClassificationJob.INVALID;
+		Files.write(this.input, numbers.array());
+		JobReport report = job("binary", 1003).classify();
+		assertArrayEquals(expected, Files.readAllBytes(this.output));
+		assertEquals(count + 2, report.getCount());
+	}
+
+	/**
+	 * Checks if a binary input whose size is not a multiple of 8 bytes is rejected.
+	 */
+	@Test
+	public void faultyBinary() throws IOException {
+		Files.write(this.input, new byte[12]);
+		assertThrows(IOException.class, () -> job("binary", 1 << 20).classify());
+	}
+
+	private ClassificationJob job(String format, int chunkSize) {
+		return new ClassificationJob(this.input.toString(), this.output.toString(), format, chunkSize, 3, perfectNumberService,
+				new PerfectNumberMetrics());
+	}
+
+	private static Classification classify(long number) throws PerfectNumberException {
+		return perfectNumberService.divisorSum(number).getClassification();
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.worldline.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Performs some test cases to check that LatencyHistogram finds the percentiles of the recorded durations within the precision 
+ * of its buckets, also when the durations are recorded concurrently.
+ * @author mohsen
+ *
+ */
+public class LatencyHistogramTest {
+
+	/**
+	 * Checks if a value is not greater than the highest value of its bucket and is greater than the highest value of the previous bucket.
+	 * @param value is a non-negative long integer
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = {0, 1, 15, 16, 17, 31, 32, 1000, 123456789, 4611686018427387904L, 9223372036854775807L})
+	public void bucketOf(long value) {
+		int bucket = LatencyHistogram.bucketOf(value);
+		assertTrue(value <= LatencyHistogram.highestValueOf(bucket));
+		assertTrue(bucket == 0 || value > LatencyHistogram.highestValueOf(bucket - 1));
+	}
+
+	/**
+	 * Checks if the percentiles of random durations that are recorded by several threads are within 1/16 of the exact percentiles.
+	 */
+	@Test
+	public void getValueAtQuantile() {
+		long[] durations = new Random(42).longs(100000, 1000, 100000000).toArray();
+		LatencyHistogram histogram = new LatencyHistogram();
+		IntStream.range(0, durations.length).parallel().forEach(i -> histogram.record(durations[i]));
+		Arrays.sort(durations);
+		assertEquals(durations.length, histogram.getCount());
+		assertEquals(Arrays.stream(durations).sum(), histogram.getTotal());
+		assertEquals(durations[durations.length - 1], histogram.getMaximum());
+		for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999, 1}) {
+			long exact = durations[(int) Math.ceil(quantile * durations.length) - 1];
+			long value = histogram.getValueAtQuantile(quantile);
+			assertTrue(value >= exact && value <= exact + exact / 16, quantile + " : " + value + " is not close to " + exact);
+		}
+	}
+
+}
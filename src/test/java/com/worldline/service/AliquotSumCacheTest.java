@@ -0,0 +1,94 @@
+package com.worldline.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Performs some test cases to check the lookups, the eviction and the bound of AliquotSumCache, and its consistency when threads share it.
+ * @author mohsen
+ *
+ */
+public class AliquotSumCacheTest {
+
+	/**
+	 * Checks if the cached aliquot sums are found, the others are missing, and a number is updated in place.
+	 */
+	@Test
+	public void getAndPut() {
+		AliquotSumCache cache = new AliquotSumCache(1000);
+		assertEquals(1024, cache.getCapacity());
+		cache.put(12, 16);
+		cache.put(Long.MAX_VALUE, AliquotSumCache.OVERFLOW);
+		assertEquals(16, cache.get(12));
+		assertEquals(AliquotSumCache.OVERFLOW, cache.get(Long.MAX_VALUE));
+		assertEquals(AliquotSumCache.MISSING, cache.get(16));
+		cache.put(12, 17);
+		assertEquals(17, cache.get(12));
+	}
+
+	/**
+	 * Checks if a cache of a single set keeps at most its capacity, and evicts a number that is not read before a number that is read.
+	 */
+	@Test
+	public void evict() {
+		AliquotSumCache cache = new AliquotSumCache(1);
+		assertEquals(8, cache.getCapacity());
+		for (long number = 1; number <= 8; number++) {
+			cache.put(number, number + 1);
+		}
+		// All slots are referenced, so the hand clears them and evicts the first one. Then the others are not referenced.
+		cache.put(9, 10);
+		assertEquals(AliquotSumCache.MISSING, cache.get(1));
+		assertEquals(3, cache.get(2));
+		cache.put(10, 11);
+		assertEquals(3, cache.get(2));
+		assertEquals(AliquotSumCache.MISSING, cache.get(3));
+		int cached = 0;
+		for (long number = 1; number <= 10; number++) {
+			cached += cache.get(number) == AliquotSumCache.MISSING ? 0 : 1;
+		}
+		assertEquals(8, cached);
+	}
+
+	/**
+	 * Checks if threads that put and get many more numbers than the capacity never read the aliquot sum of another number.
+	 */
+	@Test
+	public void shareAcrossThreads() throws Exception {
+		AliquotSumCache cache = new AliquotSumCache(1 << 10);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> hits = new ArrayList<Future<Integer>>();
+			for (int thread = 0; thread < 4; thread++) {
+				hits.add(executor.submit(() -> {
+					int hitCount = 0;
+					for (long number = 1; number <= 100000; number++) {
+						long key = number % 3000 + 1;
+						long value = cache.get(key);
+						if (value == AliquotSumCache.MISSING) {
+							cache.put(key, key * 31);
+						} else {
+							assertEquals(key * 31, value);
+							hitCount++;
+						}
+					}
+					return hitCount;
+				}));
+			}
+			for (Future<Integer> hitCount : hits) {
+				assertTrue(hitCount.get() > 0);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.worldline.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.converter.ConvertWith;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.worldline.ToListArgumentConverter;
+
+/**
+ * Performs some test cases to check the prime factors found by Factorizer and its primality test against numbers with small, large, 
+ * and repeated prime factors, and against strong pseudoprimes. 
+ * @author mohsen
+ *
+ */
+public class FactorizerTest {
+
+	/**
+	 * Checks if the prime factors of a number are found. The CSV source contains some long integers as input along with their prime factors 
+	 * in increasing order as expected output, where a prime factor is repeated as many times as its exponent.
+	 * @param number is a non-zero positive long integer
+	 * @param expected is the list of prime factors of number
+	 */
+	@ParameterizedTest
+	@CsvSource({
+				"1, []",
+				"2, [2]",
+				"360, [2 2 2 3 3 5]",
+				"2305843008139952128, [2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2 2147483647]",
+				"4611686039902224373, [2147483647 2147483659]",
+				"9223372036854775807, [7 7 73 127 337 92737 649657]",
+				"9223372036854775783, [9223372036854775783]",
+				"1000000016000000063, [1000000007 1000000009]",
+				"999999999999999989, [999999999999999989]"})
+	public void factorize(Long number, @ConvertWith(ToListArgumentConverter.class) List<Long> expected) {
+		long[] primes = new long[Factorizer.MAXIMUM_PRIME_FACTORS];
+		int[] exponents = new int[Factorizer.MAXIMUM_PRIME_FACTORS];
+		int count = Factorizer.factorize(number, primes, exponents);
+		int position = 0;
+		for (int i = 0; i < count; i++) {
+			for (int e = 0; e < exponents[i]; e++) {
+				assertEquals(expected.get(position++), Long.valueOf(primes[i]));
+			}
+		}
+		assertEquals(expected.size(), position);
+	}
+
+	/**
+	 * Checks if primes are distinguished from composite numbers that pass the Miller-Rabin test for some bases.
+	 * @param number is a long integer
+	 * @param expected true when we expect number is prime otherwise, false
+	 */
+	@ParameterizedTest
+	@CsvSource({
+				"1, false",
+				"2, true",
+				"1021, true",
+				"1042441, false",
+				// strong pseudoprimes to the bases 2, 3, 5, 7, and 11
+				"2152302898747, false",
+				"3474749660383, false",
+				"341550071728321, false",
+				"3825123056546413051, false",
+				"9223372036854775783, true",
+				"9223372036854775807, false"})
+	public void isPrime(Long number, Boolean expected) {
+		assertEquals(expected, Factorizer.isPrime(number));
+	}
+
+}
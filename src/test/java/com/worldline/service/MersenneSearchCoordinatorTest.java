@@ -0,0 +1,148 @@
+package com.worldline.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.worldline.metrics.OperationMetrics;
+
+/**
+ * Performs some test cases to check that MersenneSearchCoordinator leases the exponents in units, leases an expired unit again with
+ * its checkpoints, and merges the confirmed units into the search in increasing order.
+ * @author mohsen
+ *
+ */
+public class MersenneSearchCoordinatorTest {
+
+	private static final long LEASE_TIME = 1000;
+
+	private ForkJoinPool pool;
+
+	private MersennePrimeSearch search;
+
+	private AtomicLong clock;
+
+	private MersenneSearchCoordinator coordinator;
+
+	@BeforeEach
+	public void createCoordinator() {
+		this.pool = new ForkJoinPool(2);
+		PrimeSieve primeSieve = new PrimeSieve(this.pool, 1000);
+		this.search = new MersennePrimeSearch(this.pool, null, primeSieve, new OperationMetrics("search"));
+		this.clock = new AtomicLong(1);
+		this.coordinator = new MersenneSearchCoordinator(this.search, primeSieve, this.pool, 4, LEASE_TIME, 140,
+				new OperationMetrics("workUnit"), this.clock::get);
+	}
+
+	@AfterEach
+	public void shutdownPool() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * Checks if the units are leased in increasing order and a unit that is done before the previous ones is merged after them.
+	 */
+	@Test
+	public void leaseAndMerge() throws PerfectNumberException {
+		WorkLease first = this.coordinator.lease();
+		WorkLease second = this.coordinator.lease();
+		assertArrayEquals(new int[] {2, 3, 5, 7}, first.getExponents());
+		assertArrayEquals(new int[] {11, 13, 17, 19}, second.getExponents());
+		assertTrue(this.coordinator.complete(second.getLeaseId(), Arrays.asList(19, 13, 17)));
+		awaitConfirmations();
+		assertEquals(2, this.search.getSearchedExponent());
+		assertTrue(this.coordinator.complete(first.getLeaseId(), Arrays.asList(2, 3, 5, 7)));
+		awaitConfirmations();
+		assertEquals(20, this.search.getSearchedExponent());
+		assertEquals(Arrays.asList(2, 3, 5, 7, 13, 17, 19), this.coordinator.getState().getExponents());
+		assertEquals(19, this.search.getExponent(7));
+	}
+
+	/**
+	 * Checks if an expired unit is leased again with its checkpoint, and the expired lease is lost.
+	 */
+	@Test
+	public void expireLease() throws PerfectNumberException {
+		WorkLease lease = this.coordinator.lease();
+		this.clock.addAndGet(LEASE_TIME / 2);
+		assertTrue(this.coordinator.renew(lease.getLeaseId()));
+		// s(2) = 194 = 67 mod 2^7 - 1
+		assertTrue(this.coordinator.saveCheckpoint(lease.getLeaseId(), new LucasLehmerCheckpoint(7, 2, BigInteger.valueOf(67))));
+		this.clock.addAndGet(LEASE_TIME / 2);
+		assertArrayEquals(new int[] {11, 13, 17, 19}, this.coordinator.lease().getExponents());
+		this.clock.addAndGet(LEASE_TIME + 1);
+		WorkLease renewed = this.coordinator.lease();
+		assertArrayEquals(new int[] {2, 3, 5, 7}, renewed.getExponents());
+		assertArrayEquals(new int[] {0, 0, 0, 2}, renewed.getIterations());
+		assertEquals(BigInteger.valueOf(67), renewed.checkpointOf(3).getResidue());
+		assertNull(renewed.checkpointOf(0));
+		assertFalse(this.coordinator.renew(lease.getLeaseId()));
+		assertFalse(this.coordinator.saveCheckpoint(lease.getLeaseId(), new LucasLehmerCheckpoint(7, 3, BigInteger.ONE)));
+		assertFalse(this.coordinator.complete(lease.getLeaseId(), Collections.emptyList()));
+		assertTrue(this.coordinator.complete(renewed.getLeaseId(), Arrays.asList(2, 3, 5, 7)));
+	}
+
+	/**
+	 * Checks if the checkpoints and the results with exponents that are not in the unit are rejected.
+	 */
+	@Test
+	public void rejectInvalidReports() {
+		WorkLease lease = this.coordinator.lease();
+		assertThrows(PerfectNumberException.class,
+				() -> this.coordinator.saveCheckpoint(lease.getLeaseId(), new LucasLehmerCheckpoint(11, 2, BigInteger.ONE)));
+		assertThrows(PerfectNumberException.class,
+				() -> this.coordinator.saveCheckpoint(lease.getLeaseId(), new LucasLehmerCheckpoint(7, 5, BigInteger.ONE)));
+		assertThrows(PerfectNumberException.class,
+				() -> this.coordinator.saveCheckpoint(lease.getLeaseId(), new LucasLehmerCheckpoint(7, 2, BigInteger.valueOf(128))));
+		assertThrows(PerfectNumberException.class, () -> this.coordinator.complete(lease.getLeaseId(), Arrays.asList(3, 11)));
+	}
+
+	/**
+	 * Checks if a unit whose reported Mersenne prime exponents are not confirmed is leased again.
+	 */
+	@Test
+	public void rejectUnconfirmedResult() throws PerfectNumberException {
+		WorkLease first = this.coordinator.lease();
+		WorkLease second = this.coordinator.lease();
+		assertTrue(this.coordinator.complete(first.getLeaseId(), Arrays.asList(2, 3, 5, 7)));
+		assertTrue(this.coordinator.complete(second.getLeaseId(), Arrays.asList(11, 13, 17, 19)));
+		awaitConfirmations();
+		assertEquals(8, this.search.getSearchedExponent());
+		assertArrayEquals(new int[] {11, 13, 17, 19}, this.coordinator.lease().getExponents());
+	}
+
+	/**
+	 * Checks if no unit is leased beyond the largest exponent.
+	 */
+	@Test
+	public void leaseUpToMaximumExponent() {
+		WorkLease lease = null;
+		int units = 0;
+		for (WorkLease next = this.coordinator.lease(); next != null; next = this.coordinator.lease()) {
+			lease = next;
+			units++;
+		}
+		// There are 34 primes up to 140.
+		assertEquals(9, units);
+		assertArrayEquals(new int[] {137, 139}, lease.getExponents());
+	}
+
+	private void awaitConfirmations() {
+		assertTrue(this.pool.awaitQuiescence(1, TimeUnit.MINUTES));
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.worldline.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Performs some test cases to check that the squarers of each size compute the Lucas-Lehmer iteration as BigInteger does, and that the
+ * Lucas-Lehmer test decides the known Mersenne primes.
+ * @author mohsen
+ *
+ */
+public class MersenneSquarerTest {
+
+	private static final BigInteger TWO = BigInteger.valueOf(2);
+
+	/**
+	 * Checks if a few iterations of the limb squarer from random residues and from the residues 0, 1 and 2^exponent - 1 agree with BigInteger.
+	 * The exponents are squared by the schoolbook method and by Karatsuba's method.
+	 * @param exponent is an odd prime number
+	 */
+	@ParameterizedTest
+	@CsvSource({"3", "31", "61", "89", "127", "521", "1279", "2203", "4423"})
+	public void limbSquarer(Integer exponent) {
+		checkIterations(new MersenneLimbSquarer(exponent), exponent);
+	}
+
+	/**
+	 * Checks if a few iterations of the FFT squarer agree with BigInteger for a short and the default transform length.
+	 * @param exponent is an odd prime number
+	 * @param length is a short transform length of exponent
+	 */
+	@ParameterizedTest
+	@CsvSource({"61, 4", "521, 32", "2203, 128", "4423, 256", "19937, 2048", "86243, 8192"})
+	public void fftSquarer(Integer exponent, Integer length) {
+		checkIterations(new MersenneFftSquarer(exponent, length), exponent);
+		checkIterations(new MersenneFftSquarer(exponent), exponent);
+	}
+
+	/**
+	 * Checks if the squarings whose rounding errors are too large are detected and leave the residue unchanged, and if they are done by
+	 * the refined squarer. Digits of 22.5 bits give such errors at the length 2048.
+	 */
+	@Test
+	public void refine() {
+		int exponent = 46099;
+		BigInteger mersenneNumber = BigInteger.ONE.shiftLeft(exponent).subtract(BigInteger.ONE);
+		BigInteger expected = new BigInteger(exponent, new Random(exponent)).mod(mersenneNumber);
+		MersenneSquarer squarer = new MersenneFftSquarer(exponent, 2048);
+		squarer.set(expected);
+		for (int i = 0; i < 100; i++) {
+			if (!squarer.squareMinusTwo()) {
+				assertEquals(expected, squarer.get());
+				squarer = squarer.refine();
+				assertEquals(4096, ((MersenneFftSquarer) squarer).getLength());
+				assertTrue(squarer.squareMinusTwo());
+			}
+			expected = expected.multiply(expected).subtract(TWO).mod(mersenneNumber);
+			assertEquals(expected, squarer.get().mod(mersenneNumber));
+		}
+		assertTrue(squarer instanceof MersenneFftSquarer && ((MersenneFftSquarer) squarer).getLength() == 4096);
+	}
+
+	/**
+	 * Checks if the Lucas-Lehmer test decides Mersenne numbers whose exponents are squared by each squarer.
+	 * @param exponent is an odd prime number
+	 * @param expected is true if 2^exponent - 1 is prime
+	 */
+	@ParameterizedTest
+	@CsvSource({"1279, true", "1283, false", "2203, true", "2281, true", "3217, true", "3221, false", "9689, true", "9697, false",
+				"19937, true"})
+	public void lucasLehmer(Integer exponent, Boolean expected) {
+		assertEquals(expected, LucasLehmer.lucasLehmer(exponent, null, null));
+	}
+
+	private static void checkIterations(MersenneSquarer squarer, int exponent) {
+		BigInteger mersenneNumber = BigInteger.ONE.shiftLeft(exponent).subtract(BigInteger.ONE);
+		Random random = new Random(exponent);
+		BigInteger[] residues = {BigInteger.ZERO, BigInteger.ONE, mersenneNumber, new BigInteger(exponent, random).mod(mersenneNumber),
+				new BigInteger(exponent, random).mod(mersenneNumber)};
+		for (BigInteger residue : residues) {
+			squarer.set(residue);
+			assertEquals(residue.mod(mersenneNumber), squarer.get().mod(mersenneNumber));
+			BigInteger expected = residue;
+			for (int i = 0; i < 8; i++) {
+				assertTrue(squarer.squareMinusTwo());
+				expected = expected.multiply(expected).subtract(TWO).mod(mersenneNumber);
+				assertEquals(expected, squarer.get().mod(mersenneNumber), "exponent " + exponent + " iteration " + i);
+			}
+		}
+	}
+
+}
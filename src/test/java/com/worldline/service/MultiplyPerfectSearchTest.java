@@ -0,0 +1,113 @@
+package com.worldline.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Performs some test cases to check the multiply perfect numbers found by MultiplyPerfectSearch against a divisor sum sieve and
+ * against the known multiply perfect numbers up to 10^12.
+ * @author mohsen
+ *
+ */
+public class MultiplyPerfectSearchTest {
+
+	private static ForkJoinPool pool;
+
+	@BeforeAll
+	public static void createPool() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterAll
+	public static void shutdownPool() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Checks if the numbers up to 2^20 whose divisor sums are multiples of them are found.
+	 */
+	@Test
+	public void searchSmallBound() {
+		int bound = 1 << 20;
+		long[] sigma = new long[bound + 1];
+		for (int d = 1; d <= bound; d++) {
+			for (int m = d; m <= bound; m += d) {
+				sigma[m] += d;
+			}
+		}
+		long[] expected = new long[0];
+		for (int n = 1; n <= bound; n++) {
+			if (sigma[n] % n == 0) {
+				expected = Arrays.copyOf(expected, expected.length + 1);
+				expected[expected.length - 1] = n;
+			}
+		}
+		assertArrayEquals(expected, new MultiplyPerfectSearch(pool).search(bound));
+	}
+
+	/**
+	 * Checks if the multiply perfect numbers up to 10^12 are found, i.e. the perfect numbers 6 to 137438691328, the six triperfect
+	 * numbers 120 to 51001180160, the 4-perfect numbers 30240 to 704575228896 and the 5-perfect numbers 14182439040 to 518666803200.
+	 */
+	@Test
+	public void searchLargeBound() {
+		long[] expected = {1L, 6L, 28L, 120L, 496L, 672L, 8128L, 30240L, 32760L, 523776L, 2178540L, 23569920L, 33550336L, 45532800L,
+				142990848L, 459818240L, 1379454720L, 1476304896L, 8589869056L, 14182439040L, 31998395520L, 43861478400L, 51001180160L,
+				66433720320L, 137438691328L, 153003540480L, 403031236608L, 518666803200L, 704575228896L};
+		long[] numbers = new MultiplyPerfectSearch(pool).search(1000000000000L);
+		assertArrayEquals(expected, numbers);
+		long[] primes = new long[Factorizer.MAXIMUM_PRIME_FACTORS];
+		int[] exponents = new int[Factorizer.MAXIMUM_PRIME_FACTORS];
+		for (long number : numbers) {
+			int count = Factorizer.factorize(number, primes, exponents);
+			long sigma = 1;
+			for (int i = 0; i < count; i++) {
+				sigma *= (pow(primes[i], exponents[i] + 1) - 1) / (primes[i] - 1);
+			}
+			assertEquals(0, sigma % number);
+		}
+	}
+
+	/**
+	 * Checks if a range within a searched bound is found without a search, and a greater bound extends the searched bound.
+	 */
+	@Test
+	public void findAllInRange() {
+		MultiplyPerfectSearch search = new MultiplyPerfectSearch(pool);
+		assertArrayEquals(new long[] {120, 496, 672, 8128}, search.findAllInRange(100, 10000));
+		assertEquals(10000, search.getSearchedBound());
+		assertArrayEquals(new long[] {6, 28}, search.findAllInRange(2, 100));
+		assertEquals(10000, search.getSearchedBound());
+		assertArrayEquals(new long[] {30240, 32760}, search.findAllInRange(8129, 100000));
+		assertEquals(100000, search.getSearchedBound());
+		assertArrayEquals(new long[0], search.findAllInRange(7, 27));
+	}
+
+	/**
+	 * Checks if the abundancy bound is at least the abundancy of the primorials and greater for greater primes.
+	 */
+	@Test
+	public void maximumAbundancy() {
+		assertEquals(3.0, MultiplyPerfectSearch.maximumAbundancy(0, 6), 1e-9);
+		assertEquals(3.0, MultiplyPerfectSearch.maximumAbundancy(0, 29), 1e-9);
+		assertTrue(MultiplyPerfectSearch.maximumAbundancy(1 << 16, Long.MAX_VALUE) > 1);
+		assertTrue(MultiplyPerfectSearch.maximumAbundancy(1 << 16, Long.MAX_VALUE) < 1.001);
+	}
+
+	private static long pow(long base, int exponent) {
+		long power = 1;
+		for (int i = 0; i < exponent; i++) {
+			power *= base;
+		}
+		return power;
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.worldline.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Performs some test cases to check that PerfectNumberFileCache writes the files of the perfect numbers once and writes a deleted 
+ * file again.
+ * @author mohsen
+ *
+ */
+public class PerfectNumberFileCacheTest {
+
+	private Path directory;
+
+	@BeforeEach
+	public void createDirectory() throws IOException {
+		this.directory = Files.createTempDirectory("perfect-number-cache");
+	}
+
+	@AfterEach
+	public void deleteDirectory() throws IOException {
+		try (Stream<Path> paths = Files.list(this.directory)) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				Files.delete(path);
+			}
+		}
+		Files.delete(this.directory);
+	}
+
+	/**
+	 * Checks if the files of 496 = 2^4 * (2^5 - 1) are written in both formats, and a file that is deleted after it is written is 
+	 * written again instead of being served from the cache.
+	 */
+	@Test
+	public void getFile() throws IOException {
+		PerfectNumberFileCache cache = new PerfectNumberFileCache(this.directory);
+		Path decimal = cache.getFile(5, PerfectNumberFormat.DECIMAL);
+		assertEquals("496", new String(Files.readAllBytes(decimal), "US-ASCII"));
+		Path binary = cache.getFile(5, PerfectNumberFormat.BINARY);
+		assertArrayEquals(new byte[] {0x01, (byte) 0xF0}, Files.readAllBytes(binary));
+		assertEquals(decimal, cache.getFile(5, PerfectNumberFormat.DECIMAL));
+		Files.delete(decimal);
+		assertEquals(decimal, cache.getFile(5, PerfectNumberFormat.DECIMAL));
+		assertEquals("496", new String(Files.readAllBytes(decimal), "US-ASCII"));
+	}
+
+}
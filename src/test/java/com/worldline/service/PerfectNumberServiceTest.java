@@ -2,9 +2,13 @@ package com.worldline.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.converter.ConvertWith;
@@ -92,4 +96,329 @@ public class PerfectNumberServiceTest {
 		assertThrows(PerfectNumberException.class, () -> perfectNumberService.findAllInRange(invalidLowerBound, invalidUpperBound));
 	}
 	
+	/**
+	 * Checks if the number of perfect numbers is returned by countInRange when the lower and upper bounds of a range are given.
+	 * @param lowerBound is a non-zero positive long integer as the lower bound of the range
+	 * @param upperBound is a non-zero positive long integer as the upper bound of the range
+	 * @param expected is the number of perfect numbers in the range
+	 * @throws PerfectNumberException
+	 */
+	@ParameterizedTest
+	@CsvSource({"1, 5, 0", "1, 100, 2", "6, 6, 1", "7, 27, 0", "100, 10000, 2", "1 , 200000000000, 7", "1, 9223372036854775807, 8"})
+	public void countInRange(Long lowerBound, Long upperBound, Integer expected) throws PerfectNumberException {
+		assertEquals(expected, perfectNumberService.countInRange(lowerBound, upperBound));
+	}
+	
+	/**
+	 * Checks if PerfectNumberException is raised by countInRange when some invalid inputs are given.
+	 * @param invalidLowerBound is zero, negative integers, or integers greater than the upper bound as invalid lower bound of the range
+	 * @param invalidUpperBound is zero, negative integer, or integers less than the lower bound as invalid upper bound of the range
+	 */
+	@ParameterizedTest
+	@CsvSource({"0, 10", "100, 50", "-1, 100", "-10, -1"})
+	public void faultyCountInRange(Long invalidLowerBound, Long invalidUpperBound) {
+		assertThrows(PerfectNumberException.class, () -> perfectNumberService.countInRange(invalidLowerBound, invalidUpperBound));
+	}
+	
+	/**
+	 * Checks if the rank, floor, and ceiling of a given number are correct. An empty floor or ceiling means there is no such perfect number.
+	 * @param number is a non-zero positive long integer
+	 * @param expectedRank is the number of perfect numbers equal or less than number
+	 * @param expectedFloor is the greatest perfect number equal or less than number
+	 * @param expectedCeiling is the smallest perfect number equal or greater than number
+	 * @throws PerfectNumberException
+	 */
+	@ParameterizedTest
+	@CsvSource({"1, 0, , 6", "6, 1, 6, 6", "27, 1, 6, 28", "8127, 3, 496, 8128", "8129, 4, 8128, 33550336", 
+		"2305843008139952128, 8, 2305843008139952128, 2305843008139952128", "9223372036854775807, 8, 2305843008139952128, "})
+	public void rankAndNearest(Long number, Integer expectedRank, Long expectedFloor, Long expectedCeiling) throws PerfectNumberException {
+		assertEquals(expectedRank, perfectNumberService.rank(number));
+		assertEquals(expectedFloor, perfectNumberService.findFloor(number));
+		assertEquals(expectedCeiling, perfectNumberService.findCeiling(number));
+	}
+	
+	/**
+	 * Checks if PerfectNumberException is raised by rank, findFloor, and findCeiling when an invalid input is given.
+	 * @param invalidNumber is an invalid input including zero and a negative integer
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = {0, -1})
+	public void faultyRankAndNearest(Long invalidNumber) {
+		assertThrows(PerfectNumberException.class, () -> perfectNumberService.rank(invalidNumber));
+		assertThrows(PerfectNumberException.class, () -> perfectNumberService.findFloor(invalidNumber));
+		assertThrows(PerfectNumberException.class, () -> perfectNumberService.findCeiling(invalidNumber));
+	}
+	
+	/**
+	 * Checks if correct outputs are returned by check when a decimal string of an arbitrary size is given. The CSV source contains 
+	 * some decimal strings as input along with a boolean as expected output.
+	 * @param number is a non-zero positive integer in decimal to check if is perfect
+	 * @param expected true when we expect number is perfect otherwise, false
+	 * @throws PerfectNumberException
+	 */
+	@ParameterizedTest
+	@CsvSource({
+				// perfect numbers
+				"28, true",
+				"2305843008139952128, true",
+				"2658455991569831744654692615953842176, true",
+				"191561942608236107294793378084303638130997321548169216, true",
+				// none-perfect numbers
+				"9000, false",
+				"2658455991569831744654692615953842178, false",
+				"2658455991569831744654692615953842177, false",
+				// 2^65 * (2^66 - 1) where 2^66 - 1 is not prime
+				"2722258935367507707670103371306726588416, false"})
+	public void checkBig(String number, Boolean expected) throws PerfectNumberException {
+		assertEquals(expected, perfectNumberService.check(number));
+	}
+	
+	/**
+	 * Checks if PerfectNumberException is raised by check when an invalid decimal string is given.
+	 * @param invalidNumber is an invalid input including zero, a negative integer, and non-numerical strings
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"0", "-1", "-2658455991569831744654692615953842176", "a", "1.5"})
+	public void faultyCheckBig(String invalidNumber) {
+		assertThrows(PerfectNumberException.class, () -> perfectNumberService.check(invalidNumber));
+	}
+	
+	/**
+	 * Checks if the index-th perfect number is returned by findPerfectNumber. The CSV source contains some indexes as input along with 
+	 * the perfect number as expected output.
+	 * @param index is a non-zero positive integer
+	 * @param expected is the index-th perfect number in decimal
+	 * @throws PerfectNumberException
+	 */
+	@ParameterizedTest
+	@CsvSource({"1, 6", "4, 8128", "8, 2305843008139952128", "9, 2658455991569831744654692615953842176", 
+		"11, 13164036458569648337239753460458722910223472318386943117783728128"})
+	public void findPerfectNumber(Integer index, String expected) throws PerfectNumberException {
+		assertEquals(new BigInteger(expected), perfectNumberService.findPerfectNumber(index));
+	}
+	
+	/**
+	 * Checks if the number of binary digits of the 20th perfect number, 2^4422 * (2^4423 - 1), is correct.
+	 * @throws PerfectNumberException
+	 */
+	@Test
+	public void findLargePerfectNumber() throws PerfectNumberException {
+		assertEquals(2 * 4423 - 1, perfectNumberService.findPerfectNumber(20).bitLength());
+	}
+
+	/**
+	 * Checks if the generated PerfectNumberTable agrees with the perfect numbers of the Mersenne prime search, and if it contains all
+	 * the perfect numbers that are less than Long.MAX_VALUE.
+	 * @throws PerfectNumberException
+	 */
+	@Test
+	public void generatedTable() throws PerfectNumberException {
+		for (int i = 0; i < PerfectNumberTable.PERFECT_NUMBERS.length; i++) {
+			assertEquals(BigInteger.valueOf(PerfectNumberTable.PERFECT_NUMBERS[i]), perfectNumberService.findPerfectNumber(i + 1));
+			assertEquals(MersennePrimeSearch.toPerfectNumber(PerfectNumberTable.EXPONENTS[i]), perfectNumberService.findPerfectNumber(i + 1));
+		}
+		BigInteger next = perfectNumberService.findPerfectNumber(PerfectNumberTable.PERFECT_NUMBERS.length + 1);
+		assertTrue(next.compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0);
+	}
+
+	/**
+	 * Checks if the terms and the end of the aliquot sequence of a number are correct. The first term of a cycle is not repeated.
+	 * @param number is the first term
+	 * @param maximumLength is the greatest count of terms
+	 * @param expected is the list of terms
+	 * @param expectedEnd is how the sequence ends
+	 * @param expectedCycleStart is the index of the first term of the cycle, or -1
+	 * @throws PerfectNumberException
+	 */
+	@ParameterizedTest
+	@CsvSource({
+				"1, 10, [1], TERMINATES, -1",
+				"12, 10, [12 16 15 9 4 3 1], TERMINATES, -1",
+				"6, 10, [6], PERFECT, 0",
+				"95, 10, [95 25 6], PERFECT, 2",
+				"220, 1, [220], UNFINISHED, -1",
+				"220, 2, [220 284], AMICABLE, 0",
+				"562, 10, [562 284 220], AMICABLE, 1",
+				"12496, 10, [12496 14288 15472 14536 14264], SOCIABLE, 0",
+				"276, 5, [276 396 696 1104 1872], UNFINISHED, -1"})
+	public void findAliquotSequence(Long number, Integer maximumLength, @ConvertWith(ToListArgumentConverter.class) List<Long> expected,
+			AliquotSequenceEnd expectedEnd, Integer expectedCycleStart) throws PerfectNumberException {
+		List<Long> terms = new ArrayList<Long>();
+		AliquotSequence sequence = perfectNumberService.findAliquotSequence(number, maximumLength, (chunk, length) -> {
+			for (int i = 0; i < length; i++) {
+				terms.add(chunk[i]);
+			}
+			return true;
+		});
+		assertEquals(expected, terms);
+		assertEquals(expected.size(), sequence.getLength());
+		assertEquals(expectedEnd, sequence.getEnd());
+		assertEquals(expectedCycleStart.intValue(), sequence.getCycleStart());
+		assertEquals(expectedCycleStart < 0 ? 0 : expected.size() - expectedCycleStart, sequence.getCycleLength());
+	}
+
+	/**
+	 * Checks if the sequence of 138, which has 178 terms and reaches 179931895322, is given in several chunks and terminates, and if
+	 * the sequence is the same when its aliquot sums are cached.
+	 * @throws PerfectNumberException
+	 */
+	@Test
+	public void findLongAliquotSequence() throws PerfectNumberException {
+		for (int run = 0; run < 2; run++) {
+			long[] maximum = new long[1];
+			int[] chunks = new int[1];
+			AliquotSequence sequence = perfectNumberService.findAliquotSequence(138L, 1000, (chunk, length) -> {
+				for (int i = 0; i < length; i++) {
+					maximum[0] = Math.max(maximum[0], chunk[i]);
+				}
+				chunks[0]++;
+				return true;
+			});
+			assertEquals(178, sequence.getLength());
+			assertEquals(AliquotSequenceEnd.TERMINATES, sequence.getEnd());
+			assertEquals(179931895322L, maximum[0]);
+			assertTrue(chunks[0] >= 3);
+		}
+	}
+
+	/**
+	 * Checks if PerfectNumberException is raised by findAliquotSequence when an invalid number or maximum length is given.
+	 * @param invalidNumber is a number
+	 * @param invalidLength is a maximum length
+	 */
+	@ParameterizedTest
+	@CsvSource({"0, 10", "-1, 10", "12, 0", "12, 100001"})
+	public void faultyFindAliquotSequence(Long invalidNumber, Integer invalidLength) {
+		assertThrows(PerfectNumberException.class, () -> perfectNumberService.findAliquotSequence(invalidNumber, invalidLength,
+				(chunk, length) -> true));
+	}
+
+	/**
+	 * Checks if PerfectNumberException is raised by findPerfectNumber when an invalid index is given.
+	 * @param invalidIndex is zero or a negative integer
+	 */
+	@ParameterizedTest
+	@ValueSource(ints = {0, -1})
+	public void faultyFindPerfectNumber(Integer invalidIndex) {
+		assertThrows(PerfectNumberException.class, () -> perfectNumberService.findPerfectNumber(invalidIndex));
+	}
+	
+	/**
+	 * Checks if the perfect and abundant numbers of a range are found by classifyRange. The range spans several segments of the sieve. 
+	 * The CSV source contains some lower and upper bounds as input along with the perfect numbers and the count of abundant numbers 
+	 * as expected output.
+	 * @param lowerBound is a non-zero positive long integer as the lower bound of the range
+	 * @param upperBound is a non-zero positive long integer as the upper bound of the range
+	 * @param expectedPerfectNumbers is a list of perfect numbers in the range
+	 * @param expectedAbundantCount is the count of abundant numbers in the range
+	 * @throws PerfectNumberException
+	 */
+	@ParameterizedTest
+	@CsvSource({"1, 30, [6 28], 5", "1, 100000, [6 28 496 8128], 24795", "33550300, 33550400, [33550336], 27"})
+	public void classifyRange(Long lowerBound, Long upperBound, @ConvertWith(ToListArgumentConverter.class) List<Long> expectedPerfectNumbers, 
+			int expectedAbundantCount) throws PerfectNumberException {
+		List<Long> perfectNumbers = new ArrayList<Long>();
+		int[] abundantCount = new int[1];
+		perfectNumberService.classifyRange(lowerBound, upperBound, (firstNumber, aliquotSums, length) -> {
+			for (int i = 0; i < length; i++) {
+				Classification classification = Classification.of(firstNumber + i, aliquotSums[i]);
+				if (classification == Classification.PERFECT) {
+					perfectNumbers.add(firstNumber + i);
+				} else if (classification == Classification.ABUNDANT) {
+					abundantCount[0]++;
+				}
+			}
+			return true;
+		});
+		assertEquals(expectedPerfectNumbers, perfectNumbers);
+		assertEquals(expectedAbundantCount, abundantCount[0]);
+	}
+	
+	/**
+	 * Checks if PerfectNumberException is raised by classifyRange when some invalid inputs are given.
+	 * @param invalidLowerBound is zero, negative integers, or integers greater than the upper bound as invalid lower bound of the range
+	 * @param invalidUpperBound is zero, negative integer, integers less than the lower bound, or too large integers as invalid upper bound 
+	 * of the range
+	 */
+	@ParameterizedTest
+	@CsvSource({"0, 10", "100, 50", "-1, 100", "1, 1000000000001"})
+	public void faultyClassifyRange(Long invalidLowerBound, Long invalidUpperBound) {
+		assertThrows(PerfectNumberException.class, 
+				() -> perfectNumberService.classifyRange(invalidLowerBound, invalidUpperBound, (firstNumber, aliquotSums, length) -> true));
+	}
+	
+	/**
+	 * Checks if the multiply perfect numbers of a range are found with their multiply-perfect indexes. The CSV source contains some ranges
+	 * as input along with the multiply perfect numbers and their indexes as expected output.
+	 */
+	@ParameterizedTest
+	@CsvSource({
+				"1, 1000, [1 6 28 120 496 672], [1 2 2 3 2 3]",
+				"7, 27, [], []",
+				"1000000000, 100000000000, [1379454720 1476304896 8589869056 14182439040 31998395520 43861478400 51001180160 66433720320], "
+				+ "[4 3 2 5 5 4 3 4]",
+				"100000000000000000, 1000000000000000000, [212517062615531520 275502900594021408 622286506811515392], [5 4 4]"})
+	public void findMultiplyPerfectNumbers(Long lowerBound, Long upperBound, @ConvertWith(ToListArgumentConverter.class) List<Long> expected,
+			@ConvertWith(ToListArgumentConverter.class) List<Long> expectedIndexes) throws PerfectNumberException {
+		List<DivisorSum> divisorSums = perfectNumberService.findMultiplyPerfectNumbers(lowerBound, upperBound);
+		assertEquals(expected.size(), divisorSums.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).longValue(), divisorSums.get(i).getNumber());
+			assertEquals(expectedIndexes.get(i).intValue(), divisorSums.get(i).getMultiplyPerfectIndex());
+		}
+	}
+
+	/**
+	 * Checks if PerfectNumberException is raised by findMultiplyPerfectNumbers when some invalid ranges are given.
+	 * @param invalidLowerBound is zero, negative integers, or integers greater than the upper bound as invalid lower bound of the range
+	 * @param invalidUpperBound is zero, integers less than the lower bound, or integers greater than 10^18 as invalid upper bound
+	 */
+	@ParameterizedTest
+	@CsvSource({"0, 10", "100, 50", "-1, 100", "1, 1000000000000000001"})
+	public void faultyFindMultiplyPerfectNumbers(Long invalidLowerBound, Long invalidUpperBound) {
+		assertThrows(PerfectNumberException.class, 
+				() -> perfectNumberService.findMultiplyPerfectNumbers(invalidLowerBound, invalidUpperBound));
+	}
+	
+	/**
+	 * Checks if the divisor sum and the values derived from it are returned by divisorSum. The CSV source contains some long integers as input 
+	 * along with the divisor sum, the aliquot sum, the multiply-perfect index, and the class as expected output.
+	 * @param number is a non-zero positive long integer
+	 * @param expectedSigma is the sum of all divisors of number
+	 * @param expectedAliquotSum is the sum of all divisors of number except number
+	 * @param expectedIndex is sigma / number if number divides sigma. Otherwise, 0.
+	 * @param expectedClassification is the class of number
+	 * @throws PerfectNumberException
+	 */
+	@ParameterizedTest
+	@CsvSource({
+				"1, 1, 0, 1, DEFICIENT",
+				"12, 28, 16, 0, ABUNDANT",
+				"28, 56, 28, 2, PERFECT",
+				"30240, 120960, 90720, 4, ABUNDANT",
+				"2305843008139952128, 4611686016279904256, 2305843008139952128, 2, PERFECT",
+				// 2147483647 * 2147483659
+				"4611686039902224373, 4611686044197191680, 4294967307, 0, DEFICIENT",
+				// sigma is greater than Long.MAX_VALUE
+				"9223372036854775807, 10994507040830097408, 1771135003975321601, 0, DEFICIENT",
+				"8999999999999999960, 20443155191633452320, 11443155191633452360, 0, ABUNDANT"})
+	public void divisorSum(Long number, BigInteger expectedSigma, BigInteger expectedAliquotSum, int expectedIndex, 
+			Classification expectedClassification) throws PerfectNumberException {
+		DivisorSum divisorSum = perfectNumberService.divisorSum(number);
+		assertEquals(expectedSigma, divisorSum.getSigma());
+		assertEquals(expectedAliquotSum, divisorSum.getAliquotSum());
+		assertEquals(expectedIndex, divisorSum.getMultiplyPerfectIndex());
+		assertEquals(expectedClassification, divisorSum.getClassification());
+	}
+	
+	/**
+	 * Checks if PerfectNumberException is raised by divisorSum when an invalid input is given.
+	 * @param invalidNumber is an invalid input including zero and a negative integer
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = {0, -1})
+	public void faultyDivisorSum(Long invalidNumber) {
+		assertThrows(PerfectNumberException.class, () -> perfectNumberService.divisorSum(invalidNumber));
+	}
+	
 }
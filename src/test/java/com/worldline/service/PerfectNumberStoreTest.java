@@ -0,0 +1,143 @@
+package com.worldline.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Performs some test cases to check that the state of a Mersenne prime search is saved and loaded by PerfectNumberStore, and that
+ * an interrupted Lucas-Lehmer test resumes from its checkpoint.
+ * @author mohsen
+ *
+ */
+public class PerfectNumberStoreTest {
+
+	private Path path;
+
+	@BeforeEach
+	public void createPath() throws IOException {
+		this.path = Files.createTempFile("perfect-number-store", ".bin");
+		Files.delete(this.path);
+	}
+
+	@AfterEach
+	public void deletePath() throws IOException {
+		Files.deleteIfExists(this.path);
+	}
+
+	/**
+	 * Checks if a saved state is loaded unchanged and an absent file is loaded as the initial state.
+	 */
+	@Test
+	public void saveAndLoad() throws IOException {
+		PerfectNumberStore store = new PerfectNumberStore(this.path);
+		store.load();
+		assertEquals(2, store.getSearchedExponent());
+		assertEquals(0, store.getExponents().size());
+		List<LucasLehmerCheckpoint> checkpoints = Arrays.asList(new LucasLehmerCheckpoint(44497, 20000, BigInteger.ONE.shiftLeft(44000).add(BigInteger.TEN)),
+				new LucasLehmerCheckpoint(23209, 10000, BigInteger.valueOf(255)));
+		store.save(21701, Arrays.asList(2, 3, 5, 7, 13), checkpoints);
+		PerfectNumberStore loaded = new PerfectNumberStore(this.path);
+		loaded.load();
+		assertEquals(21701, loaded.getSearchedExponent());
+		assertEquals(Arrays.asList(2, 3, 5, 7, 13), loaded.getExponents());
+		assertEquals(2, loaded.getCheckpoints().size());
+		for (int i = 0; i < checkpoints.size(); i++) {
+			assertEquals(checkpoints.get(i).getExponent(), loaded.getCheckpoints().get(i).getExponent());
+			assertEquals(checkpoints.get(i).getIteration(), loaded.getCheckpoints().get(i).getIteration());
+			assertEquals(checkpoints.get(i).getResidue(), loaded.getCheckpoints().get(i).getResidue());
+		}
+	}
+
+	/**
+	 * Checks if a file that is not a store is rejected.
+	 */
+	@Test
+	public void faultyLoad() throws IOException {
+		Files.write(this.path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+		assertThrows(IOException.class, () -> new PerfectNumberStore(this.path).load());
+	}
+
+	/**
+	 * Checks if a Lucas-Lehmer test that is resumed from any of its checkpoints gives the same result as a test from the first iteration.
+	 * @param exponent is an odd prime number
+	 * @param expected is true if 2^exponent - 1 is prime
+	 */
+	@ParameterizedTest
+	@CsvSource({"11213, true", "11239, false"})
+	public void resumeLucasLehmer(Integer exponent, Boolean expected) {
+		List<LucasLehmerCheckpoint> checkpoints = new ArrayList<LucasLehmerCheckpoint>();
+		assertEquals(expected, LucasLehmer.lucasLehmer(exponent, null, checkpoints::add));
+		assertEquals(exponent / LucasLehmer.CHECKPOINT_ITERATIONS, checkpoints.size());
+		for (LucasLehmerCheckpoint checkpoint : checkpoints) {
+			assertEquals(expected, LucasLehmer.lucasLehmer(exponent, checkpoint, null));
+		}
+	}
+
+	/**
+	 * Checks if a search that starts from a stored state finds the remaining exponents and saves them.
+	 */
+	@Test
+	public void resumeSearch() throws IOException {
+		PerfectNumberStore store = new PerfectNumberStore(this.path);
+		store.save(20, Arrays.asList(2, 3, 5, 7, 13, 17, 19), new ArrayList<LucasLehmerCheckpoint>());
+		store.load();
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			MersennePrimeSearch search = new MersennePrimeSearch(pool, store);
+			assertEquals(19, search.getExponent(7));
+			assertEquals(127, search.getExponent(12));
+		} finally {
+			pool.shutdown();
+		}
+		PerfectNumberStore loaded = new PerfectNumberStore(this.path);
+		loaded.load();
+		assertEquals(Arrays.asList(2, 3, 5, 7, 13, 17, 19, 31, 61, 89, 107, 127), loaded.getExponents());
+	}
+
+	/**
+	 * Checks if the exponents that are tested already are looked up while an interrupted Lucas-Lehmer test is resumed in the background,
+	 * and the resumed test is completed.
+	 */
+	@Test
+	public void lookupWhileResuming() throws IOException, InterruptedException {
+		PerfectNumberStore store = new PerfectNumberStore(this.path);
+		store.save(9689, Arrays.asList(2, 3, 5, 7, 13, 17, 19, 31, 61, 89, 107, 127, 521, 607, 1279, 2203, 2281, 3217, 4253, 4423),
+				Arrays.asList(new LucasLehmerCheckpoint(9689, 0, BigInteger.valueOf(4))));
+		store.load();
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try {
+			MersennePrimeSearch search = new MersennePrimeSearch(pool, store);
+			search.resume();
+			Thread.sleep(50);
+			assertTimeout(Duration.ofMillis(100), () -> {
+				assertEquals(2, search.getExponent(1));
+				assertEquals(4423, search.getExponent(20));
+				assertTrue(search.isMersennePrimeExponent(4253));
+				assertEquals(false, search.isMersennePrimeExponent(4999));
+			});
+			assertTrue(search.isMersennePrimeExponent(9689));
+			assertEquals(9689, search.getExponent(21));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.worldline.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.converter.ConvertWith;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.worldline.ToListArgumentConverter;
+
+/**
+ * Performs some test cases to check the primality decisions of PrimeSieve and the primes it finds in ranges inside its table, across 
+ * the limit of its table, and above its table.
+ * @author mohsen
+ *
+ */
+public class PrimeSieveTest {
+
+	private static ForkJoinPool pool;
+
+	@BeforeAll
+	public static void createPool() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterAll
+	public static void shutdownPool() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Checks if the table agrees with Factorizer.isPrime for all numbers up to its limit and a few numbers above it.
+	 * @param limit is the limit of the table
+	 */
+	@ParameterizedTest
+	@CsvSource({"2", "3", "127", "128", "1000003"})
+	public void isPrime(Long limit) {
+		PrimeSieve primeSieve = new PrimeSieve(pool, limit);
+		for (long number = 1; number <= limit + 1000; number++) {
+			assertEquals(Factorizer.isPrime(number), primeSieve.isPrime(number), "number " + number);
+		}
+	}
+
+	/**
+	 * Checks if the primes of a range are found by a table whose limit is 1000.
+	 * @param lowerBound is the lower bound of the range
+	 * @param upperBound is the upper bound of the range
+	 * @param expected is the list of primes in the range
+	 */
+	@ParameterizedTest
+	@CsvSource({
+				"1, 30, [2 3 5 7 11 13 17 19 23 29]",
+				"2, 2, [2]",
+				"24, 28, []",
+				"990, 1030, [991 997 1009 1013 1019 1021]",
+				"1008, 1008, []",
+				"1012, 1012, []",
+				"1009, 1009, [1009]",
+				"1000000, 1000100, [1000003 1000033 1000037 1000039 1000081 1000099]",
+				"1000000000000, 1000000000100, [1000000000039 1000000000061 1000000000063 1000000000091]",
+				"9223372036854775700, 9223372036854775807, [9223372036854775783]"})
+	public void findPrimesInRange(Long lowerBound, Long upperBound, @ConvertWith(ToListArgumentConverter.class) List<Long> expected) {
+		PrimeSieve primeSieve = new PrimeSieve(pool, 1000);
+		List<Long> primes = new ArrayList<Long>();
+		primeSieve.findPrimesInRange(lowerBound, upperBound, (chunk, length) -> {
+			for (int i = 0; i < length; i++) {
+				primes.add(chunk[i]);
+			}
+			return true;
+		});
+		assertEquals(expected, primes);
+	}
+
+	/**
+	 * Checks if the count of primes up to a power of ten is found across many chunks and segments, i.e. pi(10^7) = 664579.
+	 */
+	@ParameterizedTest
+	@CsvSource({"10000000", "1000"})
+	public void countPrimes(Long limit) {
+		PrimeSieve primeSieve = new PrimeSieve(pool, limit);
+		long[] count = new long[1];
+		primeSieve.findPrimesInRange(1, 10000000, (chunk, length) -> {
+			count[0] += length;
+			return true;
+		});
+		assertEquals(664579, count[0]);
+	}
+
+	/**
+	 * Checks if the table is sieved by the first query that reads it, and not by a query above its limit.
+	 */
+	@Test
+	public void buildTableLazily() {
+		PrimeSieve primeSieve = new PrimeSieve(pool, 1000);
+		assertFalse(primeSieve.isBuilt());
+		assertTrue(primeSieve.isPrime(1000003));
+		assertFalse(primeSieve.isBuilt());
+		assertTrue(primeSieve.isPrime(997));
+		assertTrue(primeSieve.isBuilt());
+	}
+
+}